@@ -0,0 +1,82 @@
+package com.ecomapp.inventory_service.aspects;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.ecomapp.inventory_service.annotations.AllowedRoles;
+import com.ecomapp.inventory_service.constant.AppConstants;
+import com.ecomapp.inventory_service.constant.RoleEnum;
+
+/**
+ * Cost of @AllowedRoles on a controller method: a direct call, the same call through a
+ * CGLIB proxy with no advice, and through the proxy with RoleGuardAspect.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoleGuardAspectBenchmark {
+  private static final String USER_ID = "user-1";
+
+  public static class GuardedController {
+    @AllowedRoles({RoleEnum.USER, RoleEnum.ADMIN})
+    public String getCart(String userId) {
+      return userId;
+    }
+  }
+
+  private GuardedController direct;
+  private GuardedController proxied;
+  private GuardedController guarded;
+
+  @Setup
+  public void setup() {
+    direct = new GuardedController();
+    proxied = new AspectJProxyFactory(new GuardedController()).getProxy();
+    AspectJProxyFactory factory = new AspectJProxyFactory(new GuardedController());
+    factory.addAspect(new RoleGuardAspect());
+    guarded = factory.getProxy();
+
+    // thread scoped state, so this runs on the benchmark thread like DispatcherServlet would
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader(AppConstants.X_USER_ROLE, "user");
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+  }
+
+  @TearDown
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Benchmark
+  public String direct() {
+    return direct.getCart(USER_ID);
+  }
+
+  @Benchmark
+  public String proxyOnly() {
+    return proxied.getCart(USER_ID);
+  }
+
+  @Benchmark
+  public String roleGuard() {
+    return guarded.getCart(USER_ID);
+  }
+}
@@ -0,0 +1,53 @@
+package com.ecomapp.inventory_service.dto;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.ecomapp.inventory_service.service.CartFixtures;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Jackson serialization of the cart ApiResponse, the body written by GET /cart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseJsonBenchmark {
+  @Param({"1", "10", "50"})
+  private int itemCount;
+
+  private ObjectMapper objectMapper;
+  private ApiResponse<Map<String, Object>> cartResponse;
+
+  @Setup
+  public void setup() {
+    // configured like the ObjectMapper Spring Boot builds for the MVC message converters
+    objectMapper = Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .build();
+    cartResponse = CartFixtures.cartResponse(itemCount);
+  }
+
+  @Benchmark
+  public byte[] writeCartResponse() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(cartResponse);
+  }
+}
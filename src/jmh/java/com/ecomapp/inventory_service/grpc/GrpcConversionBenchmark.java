@@ -0,0 +1,170 @@
+package com.ecomapp.inventory_service.grpc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+import com.ecomapp.inventory_service.dto.CartItemResponseDto;
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.service.CartFixtures;
+import com.ecomapp.inventory_service.util.CartTotals;
+import com.ecomapp.inventory_service.util.MinorUnits;
+
+/**
+ * Protobuf building for getUserCart: one cart line, and a whole cart response.
+ *
+ * The getUserCart* benchmarks compare what one call does once MongoDB has returned the line
+ * documents and the products are at hand: through getCart's map (lines mapped to CartItemModel,
+ * CartItemResponseDto, the response map, then the builders) against CartService.getCartDocument's
+ * projected lines written straight into the builders, with the products from the catalog cache or,
+ * as CartService.getCartProductDocuments returns them, as projected documents. Compare gc.alloc.rate.norm (-prof gc)
+ * for the bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GrpcConversionBenchmark {
+  @Param({"1", "10", "50"})
+  private int itemCount;
+
+  private InventoryGrpcService grpcService;
+  private CartItemResponseDto item;
+  private Map<String, Object> cartData;
+  private MappingMongoConverter converter;
+  private List<Document> storedLines;
+  private List<Document> projectedLines;
+  private List<ProductModel> cachedProducts;
+  private Map<String, ProductModel> productsById;
+  private Map<String, Document> productDocumentsById;
+
+  @Setup
+  public void setup() {
+    // the converters don't touch the services
+    grpcService = new InventoryGrpcService(null, null, null, null, 500);
+    List<CartItemResponseDto> items = CartFixtures.itemResponses(itemCount);
+    item = items.get(0);
+    cartData = CartFixtures.cartResponse(itemCount).getData();
+
+    converter = CartFixtures.converter();
+    cachedProducts = CartFixtures.products(itemCount);
+    storedLines = CartFixtures.documents(converter, CartFixtures.legacyItems(cachedProducts));
+    projectedLines = CartFixtures.project(storedLines, "productId", "itemCount");
+    productsById = cachedProducts.stream().collect(Collectors.toMap(ProductModel::getId, p -> p));
+    productDocumentsById = CartFixtures.project(CartFixtures.documents(converter, cachedProducts),
+            "categoryId", "name", "description", "imageUrls", "isActive", "mrp", "discount", "quantity", "availableStock", "unit")
+        .stream()
+        .collect(Collectors.toMap(product -> product.get("_id").toString(), product -> product));
+  }
+
+  @Benchmark
+  public CartItemResponse convertToGrpcCartItem() {
+    return convertToGrpcCartItem(item);
+  }
+
+  @Benchmark
+  public GetUserCartResponse convertToGrpcCartResponse() {
+    return convertToGrpcCartResponse(cartData);
+  }
+
+  @Benchmark
+  public byte[] convertAndSerializeCartResponse() {
+    return convertToGrpcCartResponse(cartData).toByteArray();
+  }
+
+  @Benchmark
+  public GetUserCartResponse getUserCartThroughCartMap() {
+    List<CartItemModel> lines = new ArrayList<>(storedLines.size());
+    for (Document line : storedLines) {
+      lines.add(converter.read(CartItemModel.class, line));
+    }
+    Map<String, ProductModel> productMap = cachedProducts.stream()
+        .collect(Collectors.toMap(ProductModel::getId, p -> p));
+    return convertToGrpcCartResponse(CartFixtures.cartResponse(lines, productMap).getData());
+  }
+
+  @Benchmark
+  public GetUserCartResponse getUserCartFromCachedProducts() {
+    return convertToGrpcCartResponse(new Document("items", projectedLines), productsById);
+  }
+
+  @Benchmark
+  public GetUserCartResponse getUserCartFromProductDocuments() {
+    return grpcService.convertToGrpcCartResponse(new Document("items", projectedLines), productDocumentsById);
+  }
+
+  // the projected lines with the products from the catalog cache, as getUserCart read them before
+  // CartService.getCartProductDocuments; totals as summed from the products, without kept totals
+  @SuppressWarnings("deprecation")
+  private GetUserCartResponse convertToGrpcCartResponse(Document cart, Map<String, ProductModel> products) {
+    GetUserCartResponse.Builder response = GetUserCartResponse.newBuilder();
+    CartTotals totals = new CartTotals();
+    for (Document line : cart.getList("items", Document.class, List.of())) {
+      ProductModel product = products.get(line.getString("productId"));
+      if (product == null) {
+        continue;
+      }
+      int itemCount = line.getInteger("itemCount");
+      totals.add(product.getMrp(), itemCount, product.getDiscount());
+      response.addItemsBuilder()
+          .setId(line.get("_id").toString())
+          .setItemCount(itemCount)
+          .setProduct(grpcService.convertToGrpcProduct(product));
+    }
+    return response
+        .setTotalMrpMinor(totals.mrpMinor())
+        .setTotalPriceMinor(totals.amountToPayMinor())
+        .setTotalMrp((float) MinorUnits.toAmount(totals.mrpMinor()))
+        .setTotalPrice((float) MinorUnits.toAmount(totals.amountToPayMinor()))
+        .build();
+  }
+
+  // getUserCart before it read CartService.getCartDocument: the response built from getCart's map
+  @SuppressWarnings("deprecation")
+  private GetUserCartResponse convertToGrpcCartResponse(Map<String, Object> data) {
+    // the cart map holds amounts built from minor units, so rounding back is exact
+    long totalMrp = MinorUnits.of(((Number) data.get("totalMrp")).doubleValue());
+    long totalPrice = MinorUnits.of(((Number) data.get("totalAmountToPay")).doubleValue());
+
+    @SuppressWarnings("unchecked")
+    List<CartItemResponseDto> items = (List<CartItemResponseDto>) data.get("items");
+    List<CartItemResponse> grpcItems = items.stream()
+        .map(this::convertToGrpcCartItem)
+        .collect(Collectors.toList());
+
+    return GetUserCartResponse.newBuilder()
+        .setTotalMrpMinor(totalMrp)
+        .setTotalPriceMinor(totalPrice)
+        .setTotalMrp((float) MinorUnits.toAmount(totalMrp))
+        .setTotalPrice((float) MinorUnits.toAmount(totalPrice))
+        .addAllItems(grpcItems)
+        .build();
+  }
+
+  private CartItemResponse convertToGrpcCartItem(CartItemResponseDto dto) {
+    return CartItemResponse.newBuilder()
+        .setId(dto.getId())
+        .setItemCount(dto.getItemCount())
+        .setProduct(grpcService.convertToGrpcProduct(dto.getProduct()))
+        .build();
+  }
+}
@@ -0,0 +1,233 @@
+package com.ecomapp.inventory_service.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.ecomapp.inventory_service.model.CartItemModel;
+
+/**
+ * Cart reads and writes against a local stand-in for a sharded cluster. Each shard is a node that
+ * serves one request at a time and spends shardLatencyMicros on it; the router sends a filter that
+ * names the userId to the one shard owning that user and any other filter to every shard, as mongos
+ * does. The filters are the ones the cart repositories send: findByUserId and
+ * CartItemRepositoryCustomImpl.itemQuery, plus the cartId filter of the layout before lines carried
+ * the userId, for comparison.
+ *
+ * Targeted reads and writes should scale with the number of shards (ops/s roughly doubles from 2 to
+ * 4 shards) while the cartId read stays at the throughput of a single shard. The client threads must
+ * outnumber the shards to keep them all busy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(32)
+@Fork(1)
+public class CartShardingBenchmark {
+  private static final int USERS = 10_000;
+  private static final int LINES_PER_CART = 5;
+
+  @Param({"1", "2", "4", "8"})
+  private int shards;
+
+  @Param({"200"})
+  private long shardLatencyMicros;
+
+  private Shard[] nodes;
+
+  @Setup
+  public void setup() {
+    nodes = new Shard[shards];
+    for (int i = 0; i < shards; i++) {
+      nodes[i] = new Shard(i, TimeUnit.MICROSECONDS.toNanos(shardLatencyMicros));
+    }
+    for (int user = 0; user < USERS; user++) {
+      String userId = userId(user);
+      Shard owner = nodes[ownerOf(userId)];
+      for (int line = 0; line < LINES_PER_CART; line++) {
+        owner.insert(CartItemModel.builder()
+            .id(userId + "-" + line)
+            .cartId(cartId(user))
+            .userId(userId)
+            .productId(productId(line))
+            .itemCount(1)
+            .build());
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    for (Shard node : nodes) {
+      node.executor.shutdownNow();
+    }
+  }
+
+  @Benchmark
+  public List<CartItemModel> findByUserId() {
+    String userId = userId(ThreadLocalRandom.current().nextInt(USERS));
+    return find(query(where("userId").is(userId)));
+  }
+
+  @Benchmark
+  public long setItemCount() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Query query = CartItemRepositoryCustomImpl.itemQuery(
+        userId(random.nextInt(USERS)), productId(random.nextInt(LINES_PER_CART)));
+    return update(query, random.nextInt(1, 10));
+  }
+
+  // the legacy lookup: cartId isn't the shard key, so every shard is asked
+  @Benchmark
+  public List<CartItemModel> findByCartId() {
+    String cartId = cartId(ThreadLocalRandom.current().nextInt(USERS));
+    return find(query(where("cartId").is(cartId)));
+  }
+
+  private List<CartItemModel> find(Query query) {
+    Document filter = query.getQueryObject();
+    List<CartItemModel> found = new ArrayList<>();
+    for (List<CartItemModel> part : route(filter, node -> node.find(filter))) {
+      found.addAll(part);
+    }
+    return found;
+  }
+
+  private long update(Query query, int itemCount) {
+    Document filter = query.getQueryObject();
+    long matched = 0;
+    for (long part : route(filter, node -> node.update(filter, itemCount))) {
+      matched += part;
+    }
+    return matched;
+  }
+
+  /**
+   * Run the request on the shard owning the filter's userId, or on all shards in parallel.
+   */
+  private <T> List<T> route(Document filter, ShardRequest<T> request) {
+    Object userId = filter.get("userId");
+    try {
+      if (userId instanceof String id) {
+        Shard node = nodes[ownerOf(id)];
+        return List.of(node.submit(() -> request.apply(node)).get());
+      }
+      List<Future<T>> pending = new ArrayList<>(nodes.length);
+      for (Shard node : nodes) {
+        pending.add(node.submit(() -> request.apply(node)));
+      }
+      List<T> results = new ArrayList<>(nodes.length);
+      for (Future<T> result : pending) {
+        results.add(result.get());
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  // stands in for the chunk ranges the balancer spreads evenly over the shards
+  private int ownerOf(String userId) {
+    return Math.floorMod(userId.hashCode() * 0x9E3779B9, nodes.length);
+  }
+
+  private static String userId(int user) {
+    return "user-" + user;
+  }
+
+  private static String cartId(int user) {
+    return String.format("%024x", user);
+  }
+
+  private static String productId(int line) {
+    return "product-" + line;
+  }
+
+  @FunctionalInterface
+  private interface ShardRequest<T> {
+    T apply(Shard node);
+  }
+
+  /**
+   * One shard: its lines by userId and by cartId, touched only by its own thread.
+   */
+  private static final class Shard {
+    private final ExecutorService executor;
+    private final long latencyNanos;
+    private final Map<String, List<CartItemModel>> linesByUser = new HashMap<>();
+    private final Map<String, List<CartItemModel>> linesByCart = new HashMap<>();
+
+    Shard(int index, long latencyNanos) {
+      this.executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "shard-" + index);
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.latencyNanos = latencyNanos;
+    }
+
+    // setup only, before any request is submitted
+    void insert(CartItemModel line) {
+      linesByUser.computeIfAbsent(line.getUserId(), key -> new ArrayList<>()).add(line);
+      linesByCart.computeIfAbsent(line.getCartId(), key -> new ArrayList<>()).add(line);
+    }
+
+    <T> Future<T> submit(Callable<T> request) {
+      return executor.submit(() -> {
+        LockSupport.parkNanos(latencyNanos);
+        return request.call();
+      });
+    }
+
+    List<CartItemModel> find(Document filter) {
+      List<CartItemModel> lines = filter.containsKey("userId")
+          ? linesByUser.get(filter.getString("userId"))
+          : linesByCart.get(filter.getString("cartId"));
+      if (lines == null) {
+        return List.of();
+      }
+      String productId = filter.getString("productId");
+      return productId == null ? List.copyOf(lines)
+          : lines.stream().filter(line -> productId.equals(line.getProductId())).toList();
+    }
+
+    long update(Document filter, int itemCount) {
+      List<CartItemModel> lines = find(filter);
+      lines.forEach(line -> line.setItemCount(itemCount));
+      return lines.size();
+    }
+  }
+}
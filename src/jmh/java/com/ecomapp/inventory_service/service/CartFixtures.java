@@ -0,0 +1,150 @@
+package com.ecomapp.inventory_service.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.ecomapp.inventory_service.constant.UnitEnum;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.dto.CartItemResponseDto;
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.ecomapp.inventory_service.model.EmbeddedCartItemModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+
+/**
+ * Cart and product data shared by the benchmarks, shaped like what MongoDB returns.
+ */
+public final class CartFixtures {
+  public static final String USER_ID = "user-1";
+  public static final String CART_ID = "cart-1";
+
+  private CartFixtures() {
+  }
+
+  public static List<ProductModel> products(int count) {
+    List<ProductModel> products = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      products.add(ProductModel.builder()
+          .id(String.format("%024x", i))
+          .categoryId("category-" + (i % 5))
+          .name("Product " + i)
+          .description("Fresh product number " + i + " from the benchmark catalog")
+          .imageUrls(List.of("/uploads/products/" + i + "-1.jpg", "/uploads/products/" + i + "-2.jpg"))
+          .isActive(true)
+          .mrp(4999 + i * 100L)
+          .discount(i % 30)
+          .quantity(1.0)
+          .availableStock(500.0)
+          .unit(UnitEnum.values()[i % UnitEnum.values().length])
+          .createdAt(LocalDateTime.now())
+          .updatedAt(LocalDateTime.now())
+          .build());
+    }
+    return products;
+  }
+
+  public static List<CartItemModel> legacyItems(List<ProductModel> products) {
+    List<CartItemModel> items = new ArrayList<>(products.size());
+    for (int i = 0; i < products.size(); i++) {
+      items.add(CartItemModel.builder()
+          .id("item-" + i)
+          .cartId(CART_ID)
+          .userId(USER_ID)
+          .productId(products.get(i).getId())
+          .itemCount(1 + i % 4)
+          .createdAt(LocalDateTime.now())
+          .updatedAt(LocalDateTime.now())
+          .build());
+    }
+    return items;
+  }
+
+  public static List<EmbeddedCartItemModel> embeddedItems(List<ProductModel> products) {
+    List<EmbeddedCartItemModel> items = new ArrayList<>(products.size());
+    for (int i = 0; i < products.size(); i++) {
+      items.add(EmbeddedCartItemModel.builder()
+          .id("item-" + i)
+          .productId(products.get(i).getId())
+          .itemCount(1 + i % 4)
+          .updatedAt(LocalDateTime.now())
+          .build());
+    }
+    return items;
+  }
+
+  public static List<CartItemResponseDto> itemResponses(int count) {
+    List<ProductModel> products = products(count);
+    List<CartItemResponseDto> items = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      items.add(CartItemResponseDto.builder()
+          .id("item-" + i)
+          .product(products.get(i))
+          .itemCount(1 + i % 4)
+          .updatedAt(LocalDateTime.now())
+          .build());
+    }
+    return items;
+  }
+
+  public static ApiResponse<Map<String, Object>> cartResponse(int count) {
+    return CartService.buildCartResponse(itemResponses(count));
+  }
+
+  /**
+   * getCart's response for legacy lines, as CartService builds it.
+   */
+  public static ApiResponse<Map<String, Object>> cartResponse(List<CartItemModel> items, Map<String, ProductModel> productMap) {
+    return CartService.buildCartResponse(CartService.toLegacyItemResponses(items, productMap));
+  }
+
+  /**
+   * The converter the repositories map documents with, without a database behind it.
+   */
+  public static MappingMongoConverter converter() {
+    MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+    return converter;
+  }
+
+  /**
+   * The models as stored, each written by the converter.
+   */
+  public static List<Document> documents(MappingMongoConverter converter, List<?> models) {
+    List<Document> documents = new ArrayList<>(models.size());
+    for (Object model : models) {
+      Document document = new Document();
+      converter.write(model, document);
+      documents.add(document);
+    }
+    return documents;
+  }
+
+  /**
+   * The documents with only _id and the given fields, as a query with that projection returns them.
+   */
+  public static List<Document> project(List<Document> documents, String... fields) {
+    List<Document> projected = new ArrayList<>(documents.size());
+    for (Document document : documents) {
+      Document fieldsOnly = new Document("_id", document.get("_id"));
+      for (String field : fields) {
+        if (document.containsKey(field)) {
+          fieldsOnly.append(field, document.get(field));
+        }
+      }
+      projected.add(fieldsOnly);
+    }
+    return projected;
+  }
+}
@@ -0,0 +1,99 @@
+package com.ecomapp.inventory_service.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ecomapp.inventory_service.constant.CartStorageEnum;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.dto.CartItemResponseDto;
+import com.ecomapp.inventory_service.model.CartModel;
+import com.ecomapp.inventory_service.model.EmbeddedCartModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.CartItemRepository;
+import com.ecomapp.inventory_service.repository.CartRepository;
+import com.ecomapp.inventory_service.repository.CategoryRepository;
+import com.ecomapp.inventory_service.repository.EmbeddedCartRepository;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+
+/**
+ * CartService.getCart against stub repositories, so only the service work is measured:
+ * cart lookup, product lookup through the catalog cache and the totals.
+ * cartTotals measures the totals alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartServiceBenchmark {
+  @Param({"1", "10", "50"})
+  private int itemCount;
+
+  @Param({"LEGACY", "EMBEDDED"})
+  private CartStorageEnum storageMode;
+
+  private CartService cartService;
+  private List<CartItemResponseDto> itemResponses;
+
+  @Setup
+  public void setup() {
+    List<ProductModel> products = CartFixtures.products(itemCount);
+
+    CartRepository cartRepository = stub(CartRepository.class);
+    CartItemRepository cartItemRepository = stub(CartItemRepository.class);
+    EmbeddedCartRepository embeddedCartRepository = stub(EmbeddedCartRepository.class);
+    ProductRepository productRepository = stub(ProductRepository.class);
+    when(cartRepository.findByUserId(CartFixtures.USER_ID))
+        .thenReturn(Optional.of(CartModel.builder().id(CartFixtures.CART_ID).userId(CartFixtures.USER_ID).build()));
+    when(cartItemRepository.findByUserId(CartFixtures.USER_ID)).thenReturn(CartFixtures.legacyItems(products));
+    when(embeddedCartRepository.findById(CartFixtures.USER_ID))
+        .thenReturn(Optional.of(EmbeddedCartModel.builder().userId(CartFixtures.USER_ID).items(CartFixtures.embeddedItems(products)).build()));
+    when(productRepository.findAllById(any())).thenReturn(products);
+
+    CartMigrationService cartMigrationService = stub(CartMigrationService.class);
+    when(cartMigrationService.isBackfillComplete()).thenReturn(true);
+    CatalogCacheService catalogCacheService = new CatalogCacheService(
+        productRepository, stub(CategoryRepository.class), 10000, 300, 1000, 60);
+    cartService = new CartService(cartRepository, cartItemRepository, productRepository, embeddedCartRepository,
+        stub(ReservationService.class), catalogCacheService, stub(InventoryEventService.class), cartMigrationService, stub(CartTotalsRepairService.class), storageMode, 100);
+    // warm the catalog cache, like a steady-state replica
+    cartService.getCart(CartFixtures.USER_ID);
+
+    itemResponses = CartFixtures.itemResponses(itemCount);
+  }
+
+  @Benchmark
+  public ApiResponse<Map<String, Object>> getCart() {
+    return cartService.getCart(CartFixtures.USER_ID);
+  }
+
+  @Benchmark
+  public ApiResponse<Map<String, Object>> cartTotals() {
+    return CartService.buildCartResponse(itemResponses);
+  }
+
+  // stubOnly mocks keep no invocation history, so they don't add to the allocation rate
+  private static <T> T stub(Class<T> type) {
+    return mock(type, withSettings().stubOnly());
+  }
+}
@@ -0,0 +1,27 @@
+package com.ecomapp.inventory_service.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.data.convert.ValueConverter;
+
+import com.ecomapp.inventory_service.util.MinorUnitsJson;
+import com.ecomapp.inventory_service.util.MinorUnitsMongoConverter;
+import com.fasterxml.jackson.annotation.JacksonAnnotationsInside;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * A money field held as a long in minor units (MinorUnits). JSON and MongoDB still see the
+ * decimal amount, e.g. 1099 is written as 10.99.
+ */
+@Target({ElementType.FIELD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@JacksonAnnotationsInside
+@JsonSerialize(using = MinorUnitsJson.Serializer.class)
+@JsonDeserialize(using = MinorUnitsJson.Deserializer.class)
+@ValueConverter(MinorUnitsMongoConverter.class)
+public @interface MinorUnitAmount {
+}
@@ -0,0 +1,15 @@
+package com.ecomapp.inventory_service.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Run the method again when it fails with an OptimisticLockingFailureException, see ConflictRetryAspect.
+ * Only for methods that are safe to repeat from the start: they re-read the document they change.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
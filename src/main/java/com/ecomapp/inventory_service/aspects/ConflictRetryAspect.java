@@ -0,0 +1,80 @@
+package com.ecomapp.inventory_service.aspects;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.ecomapp.inventory_service.exception.CustomException;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Retries @RetryOnConflict methods that lost a conditional (version checked) write to a concurrent one.
+ *
+ * At most mongo.conflict-retry.max-attempts runs. Between them the wait is drawn at random up to an
+ * exponentially growing bound (full jitter), so writers that collided once don't collide again in
+ * lockstep. When every attempt conflicts the caller gets a 409.
+ */
+@Slf4j
+@Aspect
+@Component
+public class ConflictRetryAspect {
+  private final int maxAttempts;
+  private final long backoffMs;
+
+  public ConflictRetryAspect(
+      @Value("${mongo.conflict-retry.max-attempts:3}") int maxAttempts,
+      @Value("${mongo.conflict-retry.backoff-ms:20}") long backoffMs
+    ) {
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.backoffMs = backoffMs;
+  }
+
+  @Around("@annotation(com.ecomapp.inventory_service.annotations.RetryOnConflict)")
+  public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+    // reactive services: every resubscription calls the method again, which rebuilds the chain from its reads
+    if (Mono.class.isAssignableFrom(((MethodSignature) joinPoint.getSignature()).getReturnType())) {
+      return Mono.defer(() -> proceed(joinPoint))
+          .retryWhen(Retry.backoff(maxAttempts - 1, Duration.ofMillis(Math.max(1, backoffMs)))
+              .jitter(1.0)
+              .filter(OptimisticLockingFailureException.class::isInstance)
+              .doBeforeRetry(signal -> log.debug("Write conflict in {}, retry {}", joinPoint.getSignature().toShortString(), signal.totalRetries() + 1))
+              .onRetryExhaustedThrow((spec, signal) -> conflict(joinPoint)));
+    }
+
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return joinPoint.proceed();
+      } catch (OptimisticLockingFailureException e) {
+        if (attempt >= maxAttempts) {
+          throw conflict(joinPoint);
+        }
+        log.debug("Write conflict in {}, retry {}", joinPoint.getSignature().toShortString(), attempt);
+        Thread.sleep(ThreadLocalRandom.current().nextLong(backoffMs * (1L << (attempt - 1)) + 1));
+      }
+    }
+  }
+
+  private static Mono<?> proceed(ProceedingJoinPoint joinPoint) {
+    try {
+      return (Mono<?>) joinPoint.proceed();
+    } catch (Throwable e) {
+      return Mono.error(e);
+    }
+  }
+
+  private CustomException conflict(ProceedingJoinPoint joinPoint) {
+    log.warn("Write conflict in {} after {} attempt(s)", joinPoint.getSignature().toShortString(), maxAttempts);
+    return new CustomException("The document was changed concurrently, try again", HttpStatus.CONFLICT);
+  }
+}
@@ -0,0 +1,70 @@
+package com.ecomapp.inventory_service.aspects;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.ecomapp.inventory_service.exception.CustomException;
+
+/**
+ * Caps how many blocking repository calls run at once (mongo.concurrency-limit.enabled=true).
+ * With virtual threads every request gets its own thread, so without this a burst would all
+ * queue on the driver's connection pool and time out there instead of failing fast here.
+ * Reactive repositories are not limited, they do not hold a thread while waiting.
+ *
+ * A call to a custom fragment method (reserveStock, setItemCounts, ...) passes the repository proxy
+ * and then the proxy of its *RepositoryCustomImpl bean, and a fragment may call other repositories.
+ * The permit is taken by the outermost call only and nested calls on the same thread run under it;
+ * taking one per level would leave every holder waiting for a second permit under load.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "mongo.concurrency-limit.enabled", havingValue = "true")
+public class MongoConcurrencyLimitAspect {
+  private final Semaphore permits;
+  private final long acquireTimeoutMs;
+  private final ThreadLocal<Boolean> holding = new ThreadLocal<>();
+
+  public MongoConcurrencyLimitAspect(
+      @Value("${mongo.concurrency-limit.permits:100}") int permits,
+      @Value("${mongo.concurrency-limit.acquire-timeout-ms:2000}") long acquireTimeoutMs
+    ) {
+    this.permits = new Semaphore(permits, true);
+    this.acquireTimeoutMs = acquireTimeoutMs;
+  }
+
+  @Pointcut("this(org.springframework.data.repository.Repository) && !this(org.springframework.data.repository.reactive.ReactiveCrudRepository)")
+  void blockingRepository() {}
+
+  @Pointcut("execution(public * com.ecomapp.inventory_service.repository.*RepositoryCustomImpl.*(..)) && !within(com.ecomapp.inventory_service.repository.Reactive*)")
+  void blockingFragment() {}
+
+  @Around("blockingRepository() || blockingFragment()")
+  public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+    if (holding.get() != null) {
+      return joinPoint.proceed();
+    }
+    if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+      throw new CustomException("Too many concurrent database calls, try again", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    holding.set(Boolean.TRUE);
+    try {
+      return joinPoint.proceed();
+    } finally {
+      holding.remove();
+      permits.release();
+    }
+  }
+
+  public int availablePermits() {
+    return permits.availablePermits();
+  }
+}
@@ -3,10 +3,12 @@ package com.ecomapp.inventory_service.aspects;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ServerWebExchange;
 
 import com.ecomapp.inventory_service.annotations.AllowedRoles;
 import com.ecomapp.inventory_service.constant.AppConstants;
@@ -15,6 +17,7 @@ import com.ecomapp.inventory_service.exception.CustomException;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Mono;
 
 @Aspect
 @Component
@@ -22,13 +25,33 @@ import lombok.RequiredArgsConstructor;
 public class RoleGuardAspect {
   @Around("@annotation(allowedRoles)")
   public Object roleGuard(ProceedingJoinPoint joinPoint, AllowedRoles allowedRoles) throws Throwable {
+    // reactive controllers: the request is in the Reactor context (ReactiveRequestContextFilter)
+    if (Mono.class.isAssignableFrom(((MethodSignature) joinPoint.getSignature()).getReturnType())) {
+      return Mono.deferContextual(context -> {
+        ServerWebExchange exchange = context.getOrDefault(ServerWebExchange.class, null);
+        if(exchange == null) {
+          return Mono.error(new CustomException("Request context not found", HttpStatus.INTERNAL_SERVER_ERROR));
+        }
+        checkRole(exchange.getRequest().getHeaders().getFirst(AppConstants.X_USER_ROLE), allowedRoles);
+        try {
+          return (Mono<?>) joinPoint.proceed();
+        } catch (Throwable e) {
+          return Mono.error(e);
+        }
+      });
+    }
+
+    // a ThreadLocal bound by DispatcherServlet on the thread serving the request, platform or virtual
     ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
     if(attributes == null) {
       throw new CustomException("Request context not found", HttpStatus.INTERNAL_SERVER_ERROR);
     }
     HttpServletRequest request = attributes.getRequest();
-    String roleHeader = request.getHeader(AppConstants.X_USER_ROLE);
+    checkRole(request.getHeader(AppConstants.X_USER_ROLE), allowedRoles);
+    return joinPoint.proceed();
+  }
 
+  private void checkRole(String roleHeader, AllowedRoles allowedRoles) {
     if(roleHeader == null || roleHeader.isEmpty()) {
       throw new CustomException("Missing role header", HttpStatus.FORBIDDEN);
     }
@@ -38,7 +61,7 @@ public class RoleGuardAspect {
 
     for(RoleEnum allowedRole : allowedRolesGiven) {
       if(userRole.equals(allowedRole)) {
-        return joinPoint.proceed();
+        return;
       }
     }
 
@@ -0,0 +1,113 @@
+package com.ecomapp.inventory_service.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.ecomapp.inventory_service.constant.AppConstants;
+import com.ecomapp.inventory_service.util.CatalogVersion;
+
+/**
+ * HTTP caching of product and category reads (catalog-cache.http.*).
+ *
+ * Responses carry the CatalogVersion validators and a Cache-Control that lets shared caches (CDN) keep
+ * them for shared-max-age-seconds and browsers for max-age-seconds, after which they revalidate and
+ * get a 304 when nothing changed. Product reads show stock, which moves without an edit, so shared
+ * caches keep them for product-shared-max-age-seconds instead, by default not at all: every request
+ * is revalidated against the ETag. Spring answers conditional GETs of a ResponseEntity with validators
+ * by itself; checkProductNotModified lets a controller do it before the response is built.
+ *
+ * Vary: X-User-Role keeps a shared cache from answering requests the role guard would reject.
+ */
+@Component
+public class CatalogHttpCache {
+  private final CacheControl cacheControl;
+  private final CacheControl productCacheControl;
+
+  public CatalogHttpCache(
+      @Value("${catalog-cache.http.max-age-seconds:0}") long maxAgeSeconds,
+      @Value("${catalog-cache.http.shared-max-age-seconds:60}") long sharedMaxAgeSeconds,
+      @Value("${catalog-cache.http.product-shared-max-age-seconds:0}") long productSharedMaxAgeSeconds,
+      @Value("${catalog-cache.http.stale-while-revalidate-seconds:30}") long staleWhileRevalidateSeconds
+    ) {
+    this.cacheControl = cacheControl(maxAgeSeconds, sharedMaxAgeSeconds, staleWhileRevalidateSeconds);
+    this.productCacheControl = cacheControl(maxAgeSeconds, productSharedMaxAgeSeconds, staleWhileRevalidateSeconds);
+  }
+
+  // stale-while-revalidate only stretches a shared max-age, without one a stale response is never served
+  private static CacheControl cacheControl(long maxAgeSeconds, long sharedMaxAgeSeconds, long staleWhileRevalidateSeconds) {
+    CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    if (sharedMaxAgeSeconds > 0) {
+      cacheControl = cacheControl.sMaxAge(Duration.ofSeconds(sharedMaxAgeSeconds));
+      if (staleWhileRevalidateSeconds > 0) {
+        cacheControl = cacheControl.staleWhileRevalidate(Duration.ofSeconds(staleWhileRevalidateSeconds));
+      }
+    }
+    return cacheControl;
+  }
+
+  public <T> ResponseEntity<T> ok(T body, Optional<CatalogVersion> version) {
+    return ok(body, version, cacheControl);
+  }
+
+  public <T> ResponseEntity<T> okProduct(T body, Optional<CatalogVersion> version) {
+    return ok(body, version, productCacheControl);
+  }
+
+  private static <T> ResponseEntity<T> ok(T body, Optional<CatalogVersion> version, CacheControl cacheControl) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+        .cacheControl(cacheControl)
+        .varyBy(AppConstants.X_USER_ROLE);
+    version.ifPresent(current -> {
+      builder.eTag(current.etag());
+      if (current.lastModified() != null) {
+        builder.lastModified(current.lastModified());
+      }
+    });
+    return builder.body(body);
+  }
+
+  /**
+   * True when the request's If-None-Match (or If-Modified-Since, when version has a Last-Modified) still
+   * matches the product's version; the 304 is prepared on the response and the controller returns null.
+   */
+  public boolean checkProductNotModified(ServletWebRequest request, Optional<CatalogVersion> version) {
+    if (version.isEmpty() || !request.checkNotModified(version.get().etag(), lastModifiedMillis(version.get()))) {
+      return false;
+    }
+    request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, productCacheControl.getHeaderValue());
+    request.getResponse().setHeader(HttpHeaders.VARY, AppConstants.X_USER_ROLE);
+    return true;
+  }
+
+  /**
+   * Same as checkProductNotModified for the reactive stack; the controller completes empty.
+   */
+  public boolean checkProductNotModified(ServerWebExchange exchange, Optional<CatalogVersion> version) {
+    if (version.isEmpty()) {
+      return false;
+    }
+    boolean notModified = version.get().lastModified() != null
+        ? exchange.checkNotModified(version.get().etag(), version.get().lastModified())
+        : exchange.checkNotModified(version.get().etag());
+    if (!notModified) {
+      return false;
+    }
+    exchange.getResponse().getHeaders().setCacheControl(productCacheControl);
+    exchange.getResponse().getHeaders().setVary(List.of(AppConstants.X_USER_ROLE));
+    return true;
+  }
+
+  // -1 tells checkNotModified there is no Last-Modified to compare
+  private static long lastModifiedMillis(CatalogVersion version) {
+    return version.lastModified() != null ? version.lastModified().toEpochMilli() : -1;
+  }
+}
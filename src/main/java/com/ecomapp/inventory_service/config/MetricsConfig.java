@@ -0,0 +1,82 @@
+package com.ecomapp.inventory_service.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.ecomapp.inventory_service.aspects.MongoConcurrencyLimitAspect;
+import com.ecomapp.inventory_service.service.CartExpiryService;
+import com.ecomapp.inventory_service.service.CatalogCacheService;
+import com.ecomapp.inventory_service.service.InventoryEventFeed;
+import com.ecomapp.inventory_service.service.ProductSearchService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Meters for our own in-memory state. Repository, MongoDB command, @Timed service and
+ * gRPC call timers come from the Spring Boot and gRPC starter auto-configuration.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder catalogCacheMetrics(CatalogCacheService catalogCacheService) {
+        return registry -> {
+            CaffeineCacheMetrics.monitor(registry, catalogCacheService.getProductCache(), "catalog.product");
+            CaffeineCacheMetrics.monitor(registry, catalogCacheService.getCategoryCache(), "catalog.category");
+        };
+    }
+
+    @Bean
+    public MeterBinder inventoryEventMetrics(InventoryEventFeed inventoryEventFeed) {
+        return registry -> {
+            Gauge.builder("inventory.events.watchers", inventoryEventFeed, InventoryEventFeed::watcherCount)
+                    .description("Open WatchInventoryEvents streams on this replica")
+                    .register(registry);
+            Gauge.builder("inventory.events.offset", inventoryEventFeed, InventoryEventFeed::committedOffset)
+                    .description("Last inventory event offset this replica has seen committed")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder productSearchMetrics(ProductSearchService productSearchService) {
+        return registry -> Gauge
+                .builder("search.index.products", productSearchService, ProductSearchService::indexedProducts)
+                .description("Products in the in-memory search index")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder cartExpiryMetrics(CartExpiryService cartExpiryService) {
+        return registry -> {
+            FunctionCounter.builder("cart.compaction.deleted", cartExpiryService, CartExpiryService::deletedLines)
+                    .description("Orphan cart_item lines deleted by the cart compactor")
+                    .register(registry);
+            FunctionCounter.builder("cart.compaction.reclaimed", cartExpiryService, CartExpiryService::reclaimedBytes)
+                    .description("Size of the orphan cart_item lines deleted by the cart compactor")
+                    .baseUnit("bytes")
+                    .register(registry);
+            for (String collection : CartExpiryService.measuredCollections()) {
+                for (String kind : new String[] { "data", "index" }) {
+                    Gauge.builder("cart.storage.size", cartExpiryService, service -> service.storageBytes(collection, kind))
+                            .description("Size of a cart collection's documents or indexes, as of the last compaction")
+                            .tags("collection", collection, "kind", kind)
+                            .baseUnit("bytes")
+                            .register(registry);
+                }
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder mongoConcurrencyLimitMetrics(ObjectProvider<MongoConcurrencyLimitAspect> limiter) {
+        return registry -> limiter.ifAvailable(aspect -> Gauge
+                .builder("mongo.concurrency.limit.available", aspect, MongoConcurrencyLimitAspect::availablePermits)
+                .description("Free permits for blocking repository calls")
+                .register(registry));
+    }
+}
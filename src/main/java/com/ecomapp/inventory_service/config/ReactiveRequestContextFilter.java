@@ -0,0 +1,23 @@
+package com.ecomapp.inventory_service.config;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux has no RequestContextHolder, so the exchange is put in the Reactor context
+ * for RoleGuardAspect to read the role header from.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveRequestContextFilter implements WebFilter {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return chain.filter(exchange).contextWrite(context -> context.put(ServerWebExchange.class, exchange));
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecomapp.inventory_service.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.config.EnableReactiveMongoAuditing;
+import org.springframework.web.reactive.config.ResourceHandlerRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import com.ecomapp.inventory_service.service.ContentAddressedImageStore;
+import com.ecomapp.inventory_service.service.FileSystemBlobStore;
+
+@Configuration
+@Profile("reactive")
+@EnableReactiveMongoAuditing
+public class ReactiveWebConfig implements WebFluxConfigurer {
+    private final ObjectProvider<FileSystemBlobStore> fileSystemBlobStore;
+
+    public ReactiveWebConfig(ObjectProvider<FileSystemBlobStore> fileSystemBlobStore) {
+        this.fileSystemBlobStore = fileSystemBlobStore;
+    }
+
+    // Tomcat is on the classpath for the servlet stack, Spring Boot would pick it over Netty
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // only when uploads are kept on local disk, with S3 clients load them from the bucket
+        fileSystemBlobStore.ifAvailable(store -> {
+            String location = "file:" + store.root() + "/";
+            // content-addressed images never change; Netty already writes file resources zero-copy
+            registry.addResourceHandler("/uploads/*/" + ContentAddressedImageStore.DIRECTORY + "/**")
+                    .addResourceLocations(location)
+                    .setCacheControl(ContentAddressedImageStore.CACHE_CONTROL)
+                    .setEtagGenerator(resource -> ContentAddressedImageStore.etag(resource.getFilename()));
+            // Expose /uploads/** URLs to map to actual folder
+            registry.addResourceHandler("/uploads/**")
+                    .addResourceLocations(location);
+        });
+    }
+}
@@ -1,16 +1,26 @@
 package com.ecomapp.inventory_service.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.ecomapp.inventory_service.service.FileSystemBlobStore;
+
 @Configuration
+@Profile("!reactive")
 public class WebConfig implements WebMvcConfigurer {
+    private final ObjectProvider<FileSystemBlobStore> fileSystemBlobStore;
+
+    public WebConfig(ObjectProvider<FileSystemBlobStore> fileSystemBlobStore) {
+        this.fileSystemBlobStore = fileSystemBlobStore;
+    }
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Expose /uploads/** URLs to map to actual folder
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + System.getProperty("user.dir") + "/uploads/");
+        // Expose /uploads/** URLs to map to actual folder, only when uploads are kept on local disk
+        fileSystemBlobStore.ifAvailable(store -> registry.addResourceHandler("/uploads/**")
+                .addResourceLocations("file:" + store.root() + "/"));
     }
 }
@@ -0,0 +1,6 @@
+package com.ecomapp.inventory_service.constant;
+
+public enum CartStorageEnum {
+  LEGACY, // cart + cart_item collections
+  EMBEDDED // user_cart collection, items embedded in the cart document
+}
@@ -0,0 +1,6 @@
+package com.ecomapp.inventory_service.constant;
+
+public enum ImageStorageEnum {
+  TIMESTAMPED, // {type}/{millis}_{index}_{name}, one file per upload
+  CONTENT_ADDRESSED // {type}/sha256/{hash}.{ext}, one file per distinct content
+}
@@ -0,0 +1,7 @@
+package com.ecomapp.inventory_service.constant;
+
+public enum InventoryEventTypeEnum {
+  PRODUCT_CHANGED,
+  PRODUCT_DELETED,
+  CART_CLEARED
+}
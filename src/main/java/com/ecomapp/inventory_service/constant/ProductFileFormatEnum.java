@@ -0,0 +1,48 @@
+package com.ecomapp.inventory_service.constant;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import com.ecomapp.inventory_service.exception.CustomException;
+
+public enum ProductFileFormatEnum {
+  NDJSON(MediaType.APPLICATION_NDJSON_VALUE, "ndjson"), // one CreateProductDto JSON object per line
+  CSV("text/csv", "csv"); // header row with CreateProductDto field names
+
+  private final String mediaType;
+  private final String extension;
+
+  ProductFileFormatEnum(String mediaType, String extension) {
+    this.mediaType = mediaType;
+    this.extension = extension;
+  }
+
+  public String getMediaType() {
+    return mediaType;
+  }
+
+  public String getExtension() {
+    return extension;
+  }
+
+  public static ProductFileFormatEnum fromMediaType(String contentType) {
+    if (contentType != null) {
+      MediaType type = MediaType.parseMediaType(contentType);
+      for (ProductFileFormatEnum format : values()) {
+        if (type.isCompatibleWith(MediaType.parseMediaType(format.mediaType))) {
+          return format;
+        }
+      }
+    }
+    throw new CustomException("Unsupported content type " + contentType, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+  }
+
+  public static ProductFileFormatEnum fromExtension(String extension) {
+    for (ProductFileFormatEnum format : values()) {
+      if (format.extension.equalsIgnoreCase(extension)) {
+        return format;
+      }
+    }
+    throw new CustomException("Unsupported format " + extension, HttpStatus.BAD_REQUEST);
+  }
+}
@@ -0,0 +1,8 @@
+package com.ecomapp.inventory_service.constant;
+
+public enum ReservationStatusEnum {
+  ACTIVE,
+  COMMITTED,
+  RELEASED,
+  EXPIRED
+}
@@ -0,0 +1,37 @@
+package com.ecomapp.inventory_service.controller;
+
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ecomapp.inventory_service.annotations.AllowedRoles;
+import com.ecomapp.inventory_service.constant.RoleEnum;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.service.CatalogCacheService;
+
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+  private final CatalogCacheService catalogCacheService;
+
+  public CacheController(CatalogCacheService catalogCacheService) {
+    this.catalogCacheService = catalogCacheService;
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @GetMapping("/stats")
+  public ResponseEntity<ApiResponse<Map<String, Map<String, Object>>>> getCacheStats() {
+    try {
+      ApiResponse<Map<String, Map<String, Object>>> response =
+          new ApiResponse<>(true, "Cache stats", catalogCacheService.stats());
+      return ResponseEntity.ok(response);
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package com.ecomapp.inventory_service.controller;
 
+import java.util.List;
 import java.util.Map;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,6 +20,7 @@ import com.ecomapp.inventory_service.exception.CustomException;
 import com.ecomapp.inventory_service.service.CartService;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/cart")
 public class CartController {
   private final CartService cartService;
@@ -48,4 +51,17 @@ public class CartController {
       throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
+
+  @PostMapping("/manage/batch")
+  public ResponseEntity<ApiResponse<List<ApiResponse<Map<String, Object>>>>> manageCartBatch(
+      @RequestHeader(AppConstants.X_USER_ID) String userId,
+      @RequestBody List<ManageCartDto> lines
+    ) {
+    try {
+      ApiResponse<List<ApiResponse<Map<String, Object>>>> response = this.cartService.manageCartBatch(userId, lines);
+      return ResponseEntity.ok(response);
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
 }
@@ -1,5 +1,10 @@
 package com.ecomapp.inventory_service.controller;
 
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -8,25 +13,37 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ecomapp.inventory_service.annotations.AllowedRoles;
+import com.ecomapp.inventory_service.config.CatalogHttpCache;
 import com.ecomapp.inventory_service.constant.RoleEnum;
 import com.ecomapp.inventory_service.dto.ApiResponse;
 import com.ecomapp.inventory_service.dto.CreateCategoryDto;
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.dto.ProductListingDto;
 import com.ecomapp.inventory_service.exception.CustomException;
 import com.ecomapp.inventory_service.model.CategoryModel;
 import com.ecomapp.inventory_service.service.CategoryService;
+import com.ecomapp.inventory_service.service.ProductService;
+import com.ecomapp.inventory_service.util.CatalogVersion;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/category")
 public class CategoryController {
   private final CategoryService categoryService;
+  private final ProductService productService;
+  private final CatalogHttpCache catalogHttpCache;
 
-  public CategoryController(CategoryService categoryService) {
+  public CategoryController(CategoryService categoryService, ProductService productService, CatalogHttpCache catalogHttpCache) {
     this.categoryService = categoryService;
+    this.productService = productService;
+    this.catalogHttpCache = catalogHttpCache;
   }
 
   @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
@@ -34,7 +51,8 @@ public class CategoryController {
   public ResponseEntity<ApiResponse<CategoryModel>> getCategory(@PathVariable String id) {
     try {
       ApiResponse<CategoryModel> response = categoryService.getCategory(id);
-      return ResponseEntity.ok(response);
+      // categories are always cached, Spring answers If-None-Match from the response's ETag
+      return catalogHttpCache.ok(response, Optional.of(CatalogVersion.ofCategory(response.getData().getVersion(), response.getData().getUpdatedAt())));
     } catch (Exception e) {
       throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -53,10 +71,16 @@ public class CategoryController {
 
   @AllowedRoles({ RoleEnum.ADMIN })
   @PutMapping("{id}")
-  public ResponseEntity<ApiResponse<?>> updateCategory(@PathVariable String id, @RequestBody CreateCategoryDto body) {
+  public ResponseEntity<ApiResponse<?>> updateCategory(
+      @PathVariable String id,
+      @RequestBody CreateCategoryDto body,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
     try {
-      ApiResponse<?> response = categoryService.updateCategory(id, body);
+      ApiResponse<?> response = categoryService.updateCategory(id, body, ifMatch);
       return ResponseEntity.ok(response);
+    } catch (CustomException e) {
+      throw e;
     } catch (Exception e) {
       throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -72,4 +96,20 @@ public class CategoryController {
       throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
+
+  @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
+  @GetMapping("{id}/products")
+  public ResponseEntity<ApiResponse<List<ProductListingDto>>> getCategoryProducts(
+      @PathVariable String id,
+      ProductFilterDto filter,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit
+    ) {
+    try {
+      ApiResponse<List<ProductListingDto>> response = productService.listProducts(id, filter, cursor, limit);
+      return ResponseEntity.ok(response);
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
 }
@@ -0,0 +1,141 @@
+package com.ecomapp.inventory_service.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ecomapp.inventory_service.annotations.AllowedRoles;
+import com.ecomapp.inventory_service.constant.RoleEnum;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.service.CartExpiryService;
+import com.ecomapp.inventory_service.service.MongoIndexService;
+import com.ecomapp.inventory_service.service.MongoShardingService;
+import com.ecomapp.inventory_service.service.ProductSearchService;
+
+@RestController
+@RequestMapping("/diagnostics")
+public class DiagnosticsController {
+  private final MongoIndexService mongoIndexService;
+  private final ProductSearchService productSearchService;
+  private final MongoShardingService mongoShardingService;
+  private final CartExpiryService cartExpiryService;
+
+  public DiagnosticsController(
+      MongoIndexService mongoIndexService,
+      ProductSearchService productSearchService,
+      MongoShardingService mongoShardingService,
+      CartExpiryService cartExpiryService
+    ) {
+    this.mongoIndexService = mongoIndexService;
+    this.productSearchService = productSearchService;
+    this.mongoShardingService = mongoShardingService;
+    this.cartExpiryService = cartExpiryService;
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @GetMapping("/indexes")
+  public ResponseEntity<ApiResponse<Map<String, List<Map<String, Object>>>>> getIndexes() {
+    try {
+      return ResponseEntity.ok(new ApiResponse<>(true, "Declared indexes", mongoIndexService.checkIndexes()));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PostMapping("/indexes")
+  public ResponseEntity<ApiResponse<Map<String, List<Map<String, Object>>>>> ensureIndexes() {
+    try {
+      return ResponseEntity.ok(new ApiResponse<>(true, "Indexes ensured", mongoIndexService.ensureIndexes()));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @GetMapping("/search-index")
+  public ResponseEntity<ApiResponse<Map<String, Object>>> getSearchIndex() {
+    try {
+      return ResponseEntity.ok(new ApiResponse<>(true, "Search index", productSearchService.stats()));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Rebuild the search index from MongoDB now, e.g. after products were changed outside this service.
+   */
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PostMapping("/search-index")
+  public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildSearchIndex() {
+    try {
+      productSearchService.rebuild();
+      return ResponseEntity.ok(new ApiResponse<>(true, "Search index rebuilt", productSearchService.stats()));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @GetMapping("/sharding")
+  public ResponseEntity<ApiResponse<Map<String, Map<String, Object>>>> getSharding() {
+    try {
+      return ResponseEntity.ok(new ApiResponse<>(true, "Cart collection sharding", mongoShardingService.shardingStatus()));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Shard the cart collections by userId; needs a connection to mongos.
+   */
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PostMapping("/sharding")
+  public ResponseEntity<ApiResponse<Map<String, Map<String, Object>>>> shardCollections() {
+    try {
+      return ResponseEntity.ok(new ApiResponse<>(true, "Cart collections sharded", mongoShardingService.shardCollections()));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @GetMapping("/cart-storage")
+  public ResponseEntity<ApiResponse<Map<String, Object>>> getCartStorage() {
+    try {
+      return ResponseEntity.ok(new ApiResponse<>(true, "Cart storage", cartExpiryService.stats()));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Delete orphan cart_item lines now, at the configured pace; returns what the run did.
+   */
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PostMapping("/cart-storage")
+  public ResponseEntity<ApiResponse<Map<String, Object>>> compactCartStorage() {
+    try {
+      return ResponseEntity.ok(new ApiResponse<>(true, "Cart storage compacted", cartExpiryService.compact()));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @GetMapping("/query-plans")
+  public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getQueryPlans() {
+    try {
+      return ResponseEntity.ok(new ApiResponse<>(true, "Query plans", mongoIndexService.explainRepositoryQueries()));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+}
@@ -1,10 +1,15 @@
 package com.ecomapp.inventory_service.controller;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -13,28 +18,45 @@ import org.springframework.web.multipart.MultipartFile;
 import com.ecomapp.inventory_service.annotations.AllowedRoles;
 import com.ecomapp.inventory_service.constant.RoleEnum;
 import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.dto.ConfirmUploadDto;
+import com.ecomapp.inventory_service.dto.PresignUploadDto;
+import com.ecomapp.inventory_service.dto.PresignedUploadDto;
 import com.ecomapp.inventory_service.dto.UploadFileDto;
 import com.ecomapp.inventory_service.exception.CustomException;
 import com.ecomapp.inventory_service.service.FileUploadService;
+import com.ecomapp.inventory_service.service.ImageGarbageCollectorService;
 
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @RestController
+@Profile("!reactive")
 @RequestMapping("/upload")
 public class FileUploadController {
   private final FileUploadService fileUploadService;
+  private final ImageGarbageCollectorService imageGarbageCollectorService;
 
-  public FileUploadController(FileUploadService fileUploadService) {
+  public FileUploadController(
+      FileUploadService fileUploadService,
+      ImageGarbageCollectorService imageGarbageCollectorService
+    ) {
     this.fileUploadService = fileUploadService;
+    this.imageGarbageCollectorService = imageGarbageCollectorService;
   }
 
+  /**
+   * The files are written on the upload pool; the request thread is released while they are.
+   */
   @AllowedRoles({ RoleEnum.ADMIN })
   @PostMapping(value = "/images", consumes = "multipart/form-data")
-  public ResponseEntity<ApiResponse<List<String>>> uploadImages(
+  public CompletableFuture<ResponseEntity<ApiResponse<List<String>>>> uploadImages(
     @RequestParam() String id,
     @RequestParam() String type,
     @RequestParam("files") List<MultipartFile> files
   ) {
     try {
-      System.out.println("Received files: " + files.size());
+      log.debug("Received {} file(s) for {} {}", files.size(), type, id);
       List<MultipartFile> validFiles = files.stream()
         .filter(file -> file != null && !file.isEmpty() && file.getOriginalFilename() != null && !file.getOriginalFilename().isBlank())
         .toList();
@@ -44,11 +66,55 @@ public class FileUploadController {
       UploadFileDto body = new UploadFileDto();
       body.setId(id);
       body.setType(type);
-      body.setFiles(files);
-      ApiResponse<List<String>> response = fileUploadService.uploadImages(body);
-      return ResponseEntity.ok(response);
+      body.setFiles(validFiles);
+      return fileUploadService.uploadImages(body)
+        .<ResponseEntity<ApiResponse<List<String>>>>thenApply(ResponseEntity::ok)
+        .exceptionally(error -> {
+          Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+          log.error("Image upload failed: {}", cause.getMessage(), cause);
+          throw new CustomException(cause.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        });
+    } catch (Exception e) {
+      log.error("Image upload failed: {}", e.getMessage(), e);
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Direct upload, step 1: a presigned url the client PUTs one file to, bypassing this service.
+   */
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PostMapping("/images/presign")
+  public ResponseEntity<ApiResponse<PresignedUploadDto>> presignUpload(@Valid @RequestBody PresignUploadDto body) {
+    try {
+      return ResponseEntity.ok(fileUploadService.presignUpload(body));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Direct upload, step 2: attach the uploaded keys to the product or category.
+   */
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PostMapping("/images/confirm")
+  public ResponseEntity<ApiResponse<List<String>>> confirmUploads(@Valid @RequestBody ConfirmUploadDto body) {
+    try {
+      return ResponseEntity.ok(fileUploadService.confirmUploads(body));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Run the content-addressed image garbage collection now instead of waiting for the schedule.
+   */
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PostMapping("/images/gc")
+  public ResponseEntity<ApiResponse<Map<String, Object>>> collectImages() {
+    try {
+      return ResponseEntity.ok(new ApiResponse<>(true, "Unreferenced images deleted", imageGarbageCollectorService.collect()));
     } catch (Exception e) {
-      System.out.println(e);
       throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
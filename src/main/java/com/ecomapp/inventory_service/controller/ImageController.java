@@ -0,0 +1,83 @@
+package com.ecomapp.inventory_service.controller;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.service.ContentAddressedImageStore;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves content-addressed images kept by FileSystemBlobStore. Other /uploads/** files are served
+ * by the resource handler in WebConfig. With the S3 backend clients load images from the bucket.
+ *
+ * Responses carry the content hash as a strong ETag and an immutable Cache-Control, so browsers and
+ * CDNs keep them for good; If-None-Match gets a 304. The body is handed to Tomcat's sendfile when the
+ * connector supports it, so the file is copied by the kernel and never read into the JVM.
+ */
+@RestController
+@Profile("!reactive")
+@ConditionalOnProperty(name = "storage.backend", havingValue = "FILESYSTEM", matchIfMissing = true)
+public class ImageController {
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  private final ContentAddressedImageStore imageStore;
+
+  public ImageController(ContentAddressedImageStore imageStore) {
+    this.imageStore = imageStore;
+  }
+
+  @GetMapping("/uploads/{type}/" + ContentAddressedImageStore.DIRECTORY + "/{fileName}")
+  public void getImage(
+      @PathVariable String type,
+      @PathVariable String fileName,
+      HttpServletRequest request,
+      HttpServletResponse response
+    ) throws IOException {
+    Path file = imageStore.resolve(type, fileName)
+        .orElseThrow(() -> new CustomException("Image not found", HttpStatus.NOT_FOUND));
+
+    response.setHeader(HttpHeaders.CACHE_CONTROL, ContentAddressedImageStore.CACHE_CONTROL.getHeaderValue());
+    if (new ServletWebRequest(request, response).checkNotModified(ContentAddressedImageStore.etag(fileName))) {
+      return;
+    }
+    long size = Files.size(file);
+    response.setContentType(MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+    response.setContentLengthLong(size);
+
+    if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+      request.setAttribute(SENDFILE_START, 0L);
+      request.setAttribute(SENDFILE_END, size);
+      return;
+    }
+    try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+      WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+      long position = 0;
+      while (position < size) {
+        position += source.transferTo(position, size - position, target);
+      }
+    }
+  }
+}
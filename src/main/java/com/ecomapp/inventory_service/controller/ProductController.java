@@ -1,6 +1,12 @@
 package com.ecomapp.inventory_service.controller;
 
+import java.io.InputStream;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,26 +14,47 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.ecomapp.inventory_service.annotations.AllowedRoles;
+import com.ecomapp.inventory_service.config.CatalogHttpCache;
+import com.ecomapp.inventory_service.constant.ProductFileFormatEnum;
 import com.ecomapp.inventory_service.constant.RoleEnum;
 import com.ecomapp.inventory_service.dto.ApiResponse;
 import com.ecomapp.inventory_service.dto.CreateProductDto;
 import com.ecomapp.inventory_service.dto.ProductDetailResponseDto;
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.dto.ProductImportResultDto;
+import com.ecomapp.inventory_service.dto.ProductListingDto;
+import com.ecomapp.inventory_service.dto.ProductSearchResultDto;
+import com.ecomapp.inventory_service.dto.ProductSuggestionDto;
 import com.ecomapp.inventory_service.exception.CustomException;
 import com.ecomapp.inventory_service.service.ProductService;
+import com.ecomapp.inventory_service.service.ProductTransferService;
 
 import jakarta.validation.Valid;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/product")
 public class ProductController {
   private final ProductService productService;
+  private final ProductTransferService productTransferService;
+  private final CatalogHttpCache catalogHttpCache;
 
-  public ProductController(ProductService productService) {
+  public ProductController(
+      ProductService productService,
+      ProductTransferService productTransferService,
+      CatalogHttpCache catalogHttpCache
+    ) {
     this.productService = productService;
+    this.productTransferService = productTransferService;
+    this.catalogHttpCache = catalogHttpCache;
   }
 
   @AllowedRoles({ RoleEnum.ADMIN })
@@ -41,12 +68,60 @@ public class ProductController {
     }
   }
 
+  /**
+   * Create or update (matched by name) products from an NDJSON or CSV body, read as it streams in.
+   */
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_NDJSON_VALUE, "text/csv" })
+  public ResponseEntity<ApiResponse<ProductImportResultDto>> importProducts(
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+      @RequestParam(required = false) Boolean ordered,
+      InputStream body
+    ) {
+    try {
+      ProductImportResultDto result = productTransferService.importProducts(
+          body, ProductFileFormatEnum.fromMediaType(contentType), ordered);
+      String message = "Imported " + (result.getInserted() + result.getUpdated()) + " product(s), " + result.getFailed() + " failed";
+      return ResponseEntity.ok(new ApiResponse<>(result.getFailed() == 0, message, result));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @GetMapping("/export")
+  public ResponseEntity<StreamingResponseBody> exportProducts(
+      ProductFilterDto filter,
+      @RequestParam(required = false) String categoryId,
+      @RequestParam(defaultValue = "ndjson") String format
+    ) {
+    try {
+      ProductFileFormatEnum fileFormat = ProductFileFormatEnum.fromExtension(format);
+      StreamingResponseBody body = out -> productTransferService.exportProducts(fileFormat, categoryId, filter, out);
+      return ResponseEntity.ok()
+          .contentType(MediaType.parseMediaType(fileFormat.getMediaType()))
+          .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=products." + fileFormat.getExtension())
+          .body(body);
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * If-Match takes the ETag of a GET, the update is refused with 412 when the product changed since.
+   */
   @AllowedRoles({ RoleEnum.ADMIN })
   @PutMapping("{id}")
-  public ResponseEntity<ApiResponse<?>> updateProduct(@PathVariable String id, @Valid @RequestBody CreateProductDto body) {
+  public ResponseEntity<ApiResponse<?>> updateProduct(
+      @PathVariable String id,
+      @Valid @RequestBody CreateProductDto body,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
     try {
-      ApiResponse<?> response = productService.updateProduct(id, body);
+      ApiResponse<?> response = productService.updateProduct(id, body, ifMatch);
       return ResponseEntity.ok(response);
+    } catch (CustomException e) {
+      throw e;
     } catch (Exception e) {
       throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -63,12 +138,76 @@ public class ProductController {
     }
   }
 
+  /**
+   * Conditional GET: a request whose If-None-Match is still current gets a 304
+   * from the cached product or a projection, without the product being loaded.
+   */
   @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
   @GetMapping("{id}")
-  public ResponseEntity<ApiResponse<ProductDetailResponseDto>> getProduct(@PathVariable String id) {
+  public ResponseEntity<ApiResponse<ProductDetailResponseDto>> getProduct(@PathVariable String id, ServletWebRequest request) {
     try {
+      if (catalogHttpCache.checkProductNotModified(request, productService.findProductVersion(id))) {
+        return null;
+      }
       ApiResponse<ProductDetailResponseDto> response = productService.getProduct(id);
+      return catalogHttpCache.okProduct(response, ProductService.productVersion(response.getData()));
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
+  @GetMapping("")
+  public ResponseEntity<ApiResponse<List<ProductListingDto>>> listProducts(
+      ProductFilterDto filter,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit
+    ) {
+    try {
+      ApiResponse<List<ProductListingDto>> response = productService.listProducts(null, filter, cursor, limit);
+      return ResponseEntity.ok(response);
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Ranked full-text search over name, description and category name, with facet counts.
+   * Filters as in the listing, plus categoryId; page is 1 based.
+   */
+  @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
+  @GetMapping("/search")
+  public ResponseEntity<ApiResponse<ProductSearchResultDto>> searchProducts(
+      @RequestParam(required = false) String q,
+      @RequestParam(required = false) String categoryId,
+      ProductFilterDto filter,
+      @RequestParam(required = false) Integer page,
+      @RequestParam(required = false) Integer limit
+    ) {
+    try {
+      ApiResponse<ProductSearchResultDto> response = productService.searchProducts(q, categoryId, filter, page, limit);
+      return ResponseEntity.ok(response);
+    } catch (CustomException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Typeahead, answered from memory.
+   */
+  @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
+  @GetMapping("/suggest")
+  public ResponseEntity<ApiResponse<List<ProductSuggestionDto>>> suggestProducts(
+      @RequestParam(required = false) String q,
+      @RequestParam(required = false) Integer limit
+    ) {
+    try {
+      ApiResponse<List<ProductSuggestionDto>> response = productService.suggestProducts(q, limit);
       return ResponseEntity.ok(response);
+    } catch (CustomException e) {
+      throw e;
     } catch (Exception e) {
       throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
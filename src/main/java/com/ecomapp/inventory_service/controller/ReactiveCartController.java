@@ -0,0 +1,49 @@
+package com.ecomapp.inventory_service.controller;
+
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ecomapp.inventory_service.constant.AppConstants;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.dto.ManageCartDto;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.service.ReactiveCartService;
+
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("/cart")
+public class ReactiveCartController {
+  private final ReactiveCartService cartService;
+
+  public ReactiveCartController(ReactiveCartService cartService) {
+    this.cartService = cartService;
+  }
+
+  @GetMapping("")
+  public Mono<ResponseEntity<ApiResponse<Map<String, Object>>>> getCart(@RequestHeader(AppConstants.X_USER_ID) String userId) {
+    return cartService.getCart(userId)
+        .map(ResponseEntity::ok)
+        .onErrorMap(e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  @PostMapping("/manage")
+  public Mono<ResponseEntity<ApiResponse<Map<String, Object>>>> manageCart(
+      @RequestHeader(AppConstants.X_USER_ID) String userId,
+      @RequestBody ManageCartDto data
+    ) {
+    return cartService.manageCart(userId, data)
+        .map(ResponseEntity::ok)
+        .onErrorMap(e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+}
@@ -0,0 +1,103 @@
+package com.ecomapp.inventory_service.controller;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ecomapp.inventory_service.annotations.AllowedRoles;
+import com.ecomapp.inventory_service.config.CatalogHttpCache;
+import com.ecomapp.inventory_service.constant.RoleEnum;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.dto.CreateCategoryDto;
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.dto.ProductListingDto;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.model.CategoryModel;
+import com.ecomapp.inventory_service.service.ReactiveCategoryService;
+import com.ecomapp.inventory_service.service.ReactiveProductService;
+import com.ecomapp.inventory_service.util.CatalogVersion;
+
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("/category")
+public class ReactiveCategoryController {
+  private final ReactiveCategoryService categoryService;
+  private final ReactiveProductService productService;
+  private final CatalogHttpCache catalogHttpCache;
+
+  public ReactiveCategoryController(
+      ReactiveCategoryService categoryService,
+      ReactiveProductService productService,
+      CatalogHttpCache catalogHttpCache
+    ) {
+    this.categoryService = categoryService;
+    this.productService = productService;
+    this.catalogHttpCache = catalogHttpCache;
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
+  @GetMapping("{id}")
+  public Mono<ResponseEntity<ApiResponse<CategoryModel>>> getCategory(@PathVariable String id) {
+    // Spring answers If-None-Match from the response's ETag
+    return categoryService.getCategory(id)
+        .map(response -> catalogHttpCache.ok(response, Optional.of(CatalogVersion.ofCategory(response.getData().getVersion(), response.getData().getUpdatedAt()))))
+        .onErrorMap(e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PostMapping("")
+  public Mono<ResponseEntity<ApiResponse<String>>> createCategory(@RequestBody CreateCategoryDto body) {
+    return categoryService.createCategory(body)
+        .map(ResponseEntity::ok)
+        .onErrorMap(e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PutMapping("{id}")
+  public Mono<ResponseEntity<ApiResponse<?>>> updateCategory(
+      @PathVariable String id,
+      @RequestBody CreateCategoryDto body,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+    return categoryService.updateCategory(id, body, ifMatch)
+        .<ResponseEntity<ApiResponse<?>>>map(ResponseEntity::ok)
+        .onErrorMap(e -> !(e instanceof CustomException), e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @DeleteMapping("{id}")
+  public Mono<ResponseEntity<ApiResponse<?>>> deleteCategory(@PathVariable String id) {
+    return categoryService.deleteCategory(id)
+        .<ResponseEntity<ApiResponse<?>>>map(ResponseEntity::ok)
+        .onErrorMap(e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
+  @GetMapping("{id}/products")
+  public Mono<ResponseEntity<ApiResponse<List<ProductListingDto>>>> getCategoryProducts(
+      @PathVariable String id,
+      ProductFilterDto filter,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit
+    ) {
+    return productService.listProducts(id, filter, cursor, limit)
+        .map(ResponseEntity::ok)
+        .onErrorMap(e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+}
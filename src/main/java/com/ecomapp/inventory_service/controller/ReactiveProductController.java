@@ -0,0 +1,125 @@
+package com.ecomapp.inventory_service.controller;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.ecomapp.inventory_service.annotations.AllowedRoles;
+import com.ecomapp.inventory_service.config.CatalogHttpCache;
+import com.ecomapp.inventory_service.constant.RoleEnum;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.dto.CreateProductDto;
+import com.ecomapp.inventory_service.dto.ProductDetailResponseDto;
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.dto.ProductListingDto;
+import com.ecomapp.inventory_service.dto.ProductSearchResultDto;
+import com.ecomapp.inventory_service.dto.ProductSuggestionDto;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.service.ProductService;
+import com.ecomapp.inventory_service.service.ReactiveProductService;
+
+import jakarta.validation.Valid;
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("/product")
+public class ReactiveProductController {
+  private final ReactiveProductService productService;
+  private final CatalogHttpCache catalogHttpCache;
+
+  public ReactiveProductController(ReactiveProductService productService, CatalogHttpCache catalogHttpCache) {
+    this.productService = productService;
+    this.catalogHttpCache = catalogHttpCache;
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PostMapping("")
+  public Mono<ResponseEntity<ApiResponse<String>>> createProduct(@Valid @RequestBody CreateProductDto body) {
+    return productService.createdProduct(body)
+        .map(ResponseEntity::ok)
+        .onErrorMap(e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @PutMapping("{id}")
+  public Mono<ResponseEntity<ApiResponse<?>>> updateProduct(
+      @PathVariable String id,
+      @Valid @RequestBody CreateProductDto body,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+    return productService.updateProduct(id, body, ifMatch)
+        .<ResponseEntity<ApiResponse<?>>>map(ResponseEntity::ok)
+        .onErrorMap(e -> !(e instanceof CustomException), e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN })
+  @DeleteMapping("{id}")
+  public Mono<ResponseEntity<ApiResponse<?>>> deleteProduct(@PathVariable String id) {
+    return productService.deleteProduct(id)
+        .<ResponseEntity<ApiResponse<?>>>map(ResponseEntity::ok)
+        .onErrorMap(e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
+  @GetMapping("{id}")
+  public Mono<ResponseEntity<ApiResponse<ProductDetailResponseDto>>> getProduct(@PathVariable String id, ServerWebExchange exchange) {
+    // a still current If-None-Match completes empty with the 304 from a projection, the product is not loaded
+    return productService.findProductVersion(id)
+        .filter(version -> !catalogHttpCache.checkProductNotModified(exchange, version))
+        .flatMap(version -> productService.getProduct(id))
+        .map(response -> catalogHttpCache.okProduct(response, ProductService.productVersion(response.getData())))
+        .onErrorMap(e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
+  @GetMapping("")
+  public Mono<ResponseEntity<ApiResponse<List<ProductListingDto>>>> listProducts(
+      ProductFilterDto filter,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer limit
+    ) {
+    return productService.listProducts(null, filter, cursor, limit)
+        .map(ResponseEntity::ok)
+        .onErrorMap(e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
+  @GetMapping("/search")
+  public Mono<ResponseEntity<ApiResponse<ProductSearchResultDto>>> searchProducts(
+      @RequestParam(required = false) String q,
+      @RequestParam(required = false) String categoryId,
+      ProductFilterDto filter,
+      @RequestParam(required = false) Integer page,
+      @RequestParam(required = false) Integer limit
+    ) {
+    return productService.searchProducts(q, categoryId, filter, page, limit)
+        .map(ResponseEntity::ok)
+        .onErrorMap(e -> !(e instanceof CustomException), e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+
+  @AllowedRoles({ RoleEnum.ADMIN, RoleEnum.USER })
+  @GetMapping("/suggest")
+  public Mono<ResponseEntity<ApiResponse<List<ProductSuggestionDto>>>> suggestProducts(
+      @RequestParam(required = false) String q,
+      @RequestParam(required = false) Integer limit
+    ) {
+    return productService.suggestProducts(q, limit)
+        .map(ResponseEntity::ok)
+        .onErrorMap(e -> !(e instanceof CustomException), e -> new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR));
+  }
+}
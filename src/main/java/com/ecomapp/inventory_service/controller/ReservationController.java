@@ -0,0 +1,54 @@
+package com.ecomapp.inventory_service.controller;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ecomapp.inventory_service.constant.AppConstants;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.model.ReservationModel;
+import com.ecomapp.inventory_service.service.CartService;
+import com.ecomapp.inventory_service.service.ReservationService;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/reservation")
+public class ReservationController {
+  private final ReservationService reservationService;
+  private final CartService cartService;
+
+  public ReservationController(ReservationService reservationService, CartService cartService) {
+    this.reservationService = reservationService;
+    this.cartService = cartService;
+  }
+
+  @PostMapping("/commit")
+  public ResponseEntity<ApiResponse<List<ReservationModel>>> commitReservations(@RequestHeader(AppConstants.X_USER_ID) String userId) {
+    try {
+      ApiResponse<List<ReservationModel>> response = cartService.commitReservations(userId);
+      return ResponseEntity.ok(response);
+    } catch (CustomException e) {
+      // e.g. CONFLICT when a line's stock is gone
+      throw e;
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  @PostMapping("/release")
+  public ResponseEntity<ApiResponse<List<ReservationModel>>> releaseReservations(@RequestHeader(AppConstants.X_USER_ID) String userId) {
+    try {
+      ApiResponse<List<ReservationModel>> response = reservationService.releaseAll(userId);
+      return ResponseEntity.ok(response);
+    } catch (Exception e) {
+      throw new CustomException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+}
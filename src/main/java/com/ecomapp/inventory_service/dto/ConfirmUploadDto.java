@@ -0,0 +1,21 @@
+package com.ecomapp.inventory_service.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ConfirmUploadDto {
+  @NotBlank(message = "Id is required")
+  private String id;
+
+  @NotBlank(message = "Type is required")
+  private String type; // category or product
+
+  @NotEmpty(message = "Keys are required")
+  private List<String> keys;
+}
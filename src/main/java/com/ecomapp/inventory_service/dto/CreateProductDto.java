@@ -1,5 +1,6 @@
 package com.ecomapp.inventory_service.dto;
 
+import com.ecomapp.inventory_service.annotations.MinorUnitAmount;
 import com.ecomapp.inventory_service.constant.UnitEnum;
 import jakarta.validation.constraints.*;
 
@@ -21,7 +22,8 @@ public class CreateProductDto {
 
   @NotNull(message = "MRP is required")
   @Positive(message = "MRP must be greater than 0")
-  private Double mrp;
+  @MinorUnitAmount
+  private Long mrp;
 
   @NotNull(message = "Discount is required")
   @Min(value = 0, message = "Discount cannot be negative")
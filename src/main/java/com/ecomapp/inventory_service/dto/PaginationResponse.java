@@ -12,4 +12,5 @@ public class PaginationResponse {
 	private int maxPage;
 	private int limit; // limit
 	private long totalCount; // total no of items
+	private String nextCursor; // pass back to fetch the next page, null on the last page
 }
@@ -0,0 +1,26 @@
+package com.ecomapp.inventory_service.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class PresignUploadDto {
+  @NotBlank(message = "Id is required")
+  private String id;
+
+  @NotBlank(message = "Type is required")
+  private String type; // category or product
+
+  @NotBlank(message = "File name is required")
+  private String fileName;
+
+  @NotBlank(message = "Content type is required")
+  private String contentType;
+
+  // hex SHA-256 of the file, required with upload.storage-mode=CONTENT_ADDRESSED
+  @Pattern(regexp = "[0-9a-f]{64}", message = "sha256 must be 64 lowercase hex characters")
+  private String sha256;
+}
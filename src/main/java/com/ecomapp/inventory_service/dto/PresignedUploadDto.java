@@ -0,0 +1,23 @@
+package com.ecomapp.inventory_service.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadDto {
+  private String key;
+  private boolean alreadyStored; // the store has this content, skip the upload and confirm the key
+  private String url;
+  private String method;
+  private Map<String, List<String>> headers; // must be sent with the upload as they are
+  private Instant expiresAt;
+}
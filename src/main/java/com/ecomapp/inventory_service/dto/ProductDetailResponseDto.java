@@ -1,7 +1,9 @@
 package com.ecomapp.inventory_service.dto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import com.ecomapp.inventory_service.annotations.MinorUnitAmount;
 import com.ecomapp.inventory_service.constant.UnitEnum;
 
 import lombok.Getter;
@@ -18,16 +20,21 @@ public class ProductDetailResponseDto {
     private String description;
     private String imageUrl;
     private Boolean isActive;
+    private LocalDateTime updatedAt;
+    private Long version;
   }
   private String id;
   private String name;
   private CategoryDetail category;
   private String description;
   private List<String> imageUrls;
-  private Double mrp;
-  private Double discount;
-  private Double quantity;
-  private Double availableStock;
+  @MinorUnitAmount
+  private long mrp;
+  private double discount;
+  private double quantity;
+  private double availableStock;
   private UnitEnum unit;
   private Boolean isActive;
+  private LocalDateTime updatedAt;
+  private Long version;
 }
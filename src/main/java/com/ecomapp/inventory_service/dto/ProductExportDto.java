@@ -0,0 +1,31 @@
+package com.ecomapp.inventory_service.dto;
+
+import com.ecomapp.inventory_service.annotations.MinorUnitAmount;
+import com.ecomapp.inventory_service.constant.UnitEnum;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One row of GET /product/export. The columns are those of CreateProductDto plus id and isActive,
+ * so an export can be fed back to POST /product/bulk.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonPropertyOrder({"id", "name", "description", "categoryId", "mrp", "discount", "quantity", "availableStock", "unit", "isActive"})
+public class ProductExportDto {
+  private String id;
+  private String name;
+  private String description;
+  private String categoryId;
+  @MinorUnitAmount
+  private long mrp;
+  private double discount;
+  private double quantity;
+  private double availableStock;
+  private UnitEnum unit;
+  private Boolean isActive;
+}
@@ -0,0 +1,20 @@
+package com.ecomapp.inventory_service.dto;
+
+import com.ecomapp.inventory_service.constant.UnitEnum;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Optional listing filters, bound from query parameters. Price bounds apply to mrp.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductFilterDto {
+  private Boolean isActive;
+  private Double minPrice;
+  private Double maxPrice;
+  private UnitEnum unit;
+}
@@ -0,0 +1,48 @@
+package com.ecomapp.inventory_service.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Outcome of POST /product/bulk: overall counts and one entry per written batch.
+ * Line numbers are 1-based lines of the uploaded file (the CSV header is line 1).
+ */
+@Getter
+@Setter
+public class ProductImportResultDto {
+  @Getter
+  @Setter
+  public static class RowError {
+    private long line;
+    private String message;
+
+    public RowError(long line, String message) {
+      this.line = line;
+      this.message = message;
+    }
+  }
+
+  @Getter
+  @Setter
+  public static class BatchResult {
+    private int batch;
+    private long firstLine;
+    private long lastLine;
+    private int inserted;
+    private int updated;
+    private int failed;
+    private List<RowError> errors = new ArrayList<>();
+  }
+
+  private long rows;
+  private long inserted;
+  private long updated;
+  private long failed;
+  private long repricedProducts;
+  // errors listed in batches stop after product-import.max-reported-errors, the counts stay exact
+  private boolean errorsTruncated;
+  private List<BatchResult> batches = new ArrayList<>();
+}
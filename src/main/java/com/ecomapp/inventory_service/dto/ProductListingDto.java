@@ -0,0 +1,30 @@
+package com.ecomapp.inventory_service.dto;
+
+import java.util.List;
+
+import com.ecomapp.inventory_service.annotations.MinorUnitAmount;
+import com.ecomapp.inventory_service.constant.UnitEnum;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Fields needed to render a product card. Listing queries only fetch these.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ProductListingDto {
+  private String id;
+  private String categoryId;
+  private String name;
+  private List<String> imageUrls;
+  @MinorUnitAmount
+  private long mrp;
+  private double discount;
+  private double quantity;
+  private double availableStock;
+  private UnitEnum unit;
+  private Boolean isActive;
+}
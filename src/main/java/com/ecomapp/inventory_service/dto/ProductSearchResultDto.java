@@ -0,0 +1,47 @@
+package com.ecomapp.inventory_service.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.ecomapp.inventory_service.annotations.MinorUnitAmount;
+import com.ecomapp.inventory_service.constant.UnitEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One page of search hits, best first, and facet counts over all hits.
+ * Each facet is counted with the other filters applied but not its own.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchResultDto {
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Facets {
+    private Map<String, Integer> categoryId; // most hits first
+    private Map<UnitEnum, Integer> unit; // most hits first
+    private List<PriceBucket> price;
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class PriceBucket {
+    @MinorUnitAmount
+    private Long from; // inclusive, null for no lower bound
+    @MinorUnitAmount
+    private Long to; // exclusive, null for no upper bound
+    private int count;
+  }
+
+  private List<ProductListingDto> products;
+  private Facets facets;
+}
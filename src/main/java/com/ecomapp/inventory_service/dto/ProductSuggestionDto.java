@@ -0,0 +1,16 @@
+package com.ecomapp.inventory_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestionDto {
+  private String id;
+  private String name;
+  private String categoryId;
+}
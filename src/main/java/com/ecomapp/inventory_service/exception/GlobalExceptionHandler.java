@@ -5,6 +5,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import com.ecomapp.inventory_service.dto.ApiResponse;
 
@@ -35,4 +36,16 @@ public class GlobalExceptionHandler {
         ApiResponse<Object> response = new ApiResponse<>(false, errorMessage);
         return ResponseEntity.badRequest().body(response);
     }
+
+    // @Valid failures on the reactive stack
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ApiResponse<Object>> handleWebExchangeBindException(WebExchangeBindException ex) {
+        String errorMessage = ex.getBindingResult().getAllErrors()
+                .stream()
+                .map(error -> error.getDefaultMessage())
+                .findFirst()
+                .orElse("Invalid input");
+        ApiResponse<Object> response = new ApiResponse<>(false, errorMessage);
+        return ResponseEntity.badRequest().body(response);
+    }
 }
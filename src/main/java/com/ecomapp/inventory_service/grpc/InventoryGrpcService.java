@@ -1,26 +1,68 @@
 package com.ecomapp.inventory_service.grpc;
 
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+
+import com.ecomapp.inventory_service.constant.InventoryEventTypeEnum;
 import com.ecomapp.inventory_service.dto.ApiResponse;
-import com.ecomapp.inventory_service.dto.CartItemResponseDto;
+import com.ecomapp.inventory_service.dto.ManageCartDto;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.model.InventoryEventModel;
+import com.ecomapp.inventory_service.model.InventoryEventRelayModel;
 import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.model.ReservationModel;
 import com.ecomapp.inventory_service.service.CartService;
+import com.ecomapp.inventory_service.service.InventoryEventFeed;
+import com.ecomapp.inventory_service.service.ProductService;
+import com.ecomapp.inventory_service.service.ReservationService;
+import com.ecomapp.inventory_service.util.CartTotals;
+import com.ecomapp.inventory_service.util.MinorUnits;
+import com.ecomapp.inventory_service.util.MinorUnitsMongoConverter;
 
 import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 
 @Slf4j
 @GrpcService
+@Profile("!reactive")
 public class InventoryGrpcService extends InventoryServiceGrpc.InventoryServiceImplBase {
+  private static final int DEFAULT_STREAM_PAGE_SIZE = 100;
+  private static final int MAX_STREAM_PAGE_SIZE = 500;
+  private static final int DEFAULT_EVENT_BATCH_SIZE = 100;
+  private static final int MAX_EVENT_BATCH_SIZE = 500;
+
   private final CartService cartService;
+  private final ReservationService reservationService;
+  private final ProductService productService;
+  private final InventoryEventFeed inventoryEventFeed;
+  private final int batchGetMaxIds;
 
-  public InventoryGrpcService(CartService cartService) {
+  public InventoryGrpcService(
+      CartService cartService,
+      ReservationService reservationService,
+      ProductService productService,
+      InventoryEventFeed inventoryEventFeed,
+      @Value("${grpc.batch-get-products.max-ids:500}") int batchGetMaxIds
+    ) {
     this.cartService = cartService;
+    this.reservationService = reservationService;
+    this.productService = productService;
+    this.inventoryEventFeed = inventoryEventFeed;
+    this.batchGetMaxIds = batchGetMaxIds;
   }
 
   @Override
@@ -28,34 +70,9 @@ public class InventoryGrpcService extends InventoryServiceGrpc.InventoryServiceI
     try {
       log.info("Grpc connection is successful.....................");
       log.info("gRPC getUserCart called for userId: {}", request.getUserId());
-      ApiResponse<Map<String, Object>> cartResponse = cartService.getCart(request.getUserId());
-
-      if(!cartResponse.isSuccess()) {
-        responseObserver.onError(Status.NOT_FOUND
-            .withDescription(cartResponse.getMessage())
-            .asRuntimeException());
-        return;
-      }
-
-      Map<String, Object> data = cartResponse.getData();
-      double totalMrp = ((Number) data.get("totalMrp")).doubleValue();
-      double totalPrice = ((Number) data.get("totalAmountToPay")).doubleValue();
-
-      // Convert DTO items to gRPC messages
-      @SuppressWarnings("unchecked")
-      List<CartItemResponseDto> items = (List<CartItemResponseDto>) data.get("items");
-      
-      List<CartItemResponse> grpcItems = items.stream()
-          .map(this::convertToGrpcCartItem)
-          .collect(Collectors.toList());
-
-      // build Response
-      GetUserCartResponse response = GetUserCartResponse.newBuilder()
-          .setTotalMrp((float) totalMrp)
-          .setTotalPrice((float) totalPrice)
-          .addAllItems(grpcItems)
-          .build();
-      log.info("Returning cart - totalMrp: {}, totalPrice: {}", totalMrp, totalPrice);
+      Document cart = cartService.getCartDocument(request.getUserId());
+      GetUserCartResponse response = convertToGrpcCartResponse(cart, cartService.getCartProductDocuments(cart));
+      log.info("Returning cart - totalMrpMinor: {}, totalPriceMinor: {}", response.getTotalMrpMinor(), response.getTotalPriceMinor());
 
       responseObserver.onNext(response);
       responseObserver.onCompleted();
@@ -68,30 +85,94 @@ public class InventoryGrpcService extends InventoryServiceGrpc.InventoryServiceI
   }
 
   /**
-   * Convert CartItemResponseDto to gRPC CartItemResponse
+   * GetUserCartResponse straight from CartService.getCartDocument's lines and the cart's products as
+   * stored (CartService.getCartProductDocuments), written into the builders without getCart's map and
+   * DTOs. Lines whose product no longer exists are left out.
    */
-  private CartItemResponse convertToGrpcCartItem(CartItemResponseDto dto) {
-    ProductModel product = dto.getProduct();
-    
-    CartProduct grpcProduct = CartProduct.newBuilder()
+  GetUserCartResponse convertToGrpcCartResponse(Document cart, Map<String, Document> products) {
+    GetUserCartResponse.Builder response = GetUserCartResponse.newBuilder();
+    CartTotals totals = new CartTotals();
+    for (Document line : cart.getList("items", Document.class, List.of())) {
+      Document product = products.get(line.getString("productId"));
+      if (product == null) {
+        continue;
+      }
+      int itemCount = itemCount(line);
+      CartProduct.Builder builder = response.addItemsBuilder()
+          .setId(line.get("_id").toString())
+          .setItemCount(itemCount)
+          .getProductBuilder();
+      copyToGrpcProduct(product, builder);
+      totals.add(builder.getMrpMinor(), itemCount, number(product, "discount"));
+    }
+    return withTotals(response, cart, totals);
+  }
+
+  // the totals the cart keeps, else the ones summed from the products' current prices, as getCart does;
+  // the kept totals still count a line left out for its missing product. The deprecated float fields
+  // are still filled, here and in the product conversions, for clients that predate the minor units
+  @SuppressWarnings("deprecation")
+  private static GetUserCartResponse withTotals(GetUserCartResponse.Builder response, Document cart, CartTotals totals) {
+    long totalMrp = totals.mrpMinor();
+    long totalPrice = totals.amountToPayMinor();
+    Object keptMrp = cart.get("totalMrpMinor");
+    Object keptDiscount = cart.get("totalDiscountMinor");
+    boolean droppedLine = response.getItemsCount() < cart.getList("items", Document.class, List.of()).size();
+    if (!droppedLine && keptMrp instanceof Number mrp && keptDiscount instanceof Number discount) {
+      totalMrp = mrp.longValue();
+      totalPrice = mrp.longValue() - discount.longValue();
+    }
+    return response
+        .setTotalMrpMinor(totalMrp)
+        .setTotalPriceMinor(totalPrice)
+        .setTotalMrp((float) MinorUnits.toAmount(totalMrp))
+        .setTotalPrice((float) MinorUnits.toAmount(totalPrice))
+        .build();
+  }
+
+  @SuppressWarnings("deprecation")
+  CartProduct convertToGrpcProduct(ProductModel product) {
+    return CartProduct.newBuilder()
       .setId(product.getId())
       .setCategoryId(product.getCategoryId() != null ? product.getCategoryId() : "")
       .setName(product.getName() != null ? product.getName() : "")
       .setDescription(product.getDescription() != null ? product.getDescription() : "")
       .addAllImageUrls(product.getImageUrls() != null ? product.getImageUrls() : List.of())
       .setIsActive(product.getIsActive() != null ? product.getIsActive() : false)
-      .setMrp(product.getMrp() != null ? product.getMrp().floatValue() : 0.0f)
-      .setDiscount(product.getDiscount() != null ? product.getDiscount().floatValue() : 0.0f)
-      .setQuantity(product.getQuantity() != null ? product.getQuantity().floatValue() : 0.0f)
-      .setAvailableStock(product.getAvailableStock() != null ? product.getAvailableStock().floatValue() : 0.0f)
+      .setMrpMinor(product.getMrp())
+      .setMrp((float) MinorUnits.toAmount(product.getMrp()))
+      .setDiscount((float) product.getDiscount())
+      .setQuantity((float) product.getQuantity())
+      .setAvailableStock((float) product.getAvailableStock())
       .setUnit(product.getUnit() != null ? product.getUnit().toString() : "")
       .build();
-    
-    return CartItemResponse.newBuilder()
-      .setId(dto.getId())
-      .setItemCount(dto.getItemCount())
-      .setProduct(grpcProduct)
-      .build();
+  }
+
+  // convertToGrpcProduct for a stored product document
+  @SuppressWarnings("deprecation")
+  void copyToGrpcProduct(Document product, CartProduct.Builder builder) {
+    long mrpMinor = product.get("mrp") != null ? MinorUnitsMongoConverter.toMinorUnits(product.get("mrp")) : 0;
+    builder
+      .setId(product.get("_id").toString())
+      .setCategoryId(Objects.toString(product.get("categoryId"), ""))
+      .setName(Objects.toString(product.get("name"), ""))
+      .setDescription(Objects.toString(product.get("description"), ""))
+      .addAllImageUrls(product.getList("imageUrls", String.class, List.of()))
+      .setIsActive(Boolean.TRUE.equals(product.get("isActive")))
+      .setMrpMinor(mrpMinor)
+      .setMrp((float) MinorUnits.toAmount(mrpMinor))
+      .setDiscount((float) number(product, "discount"))
+      .setQuantity((float) number(product, "quantity"))
+      .setAvailableStock((float) number(product, "availableStock"))
+      .setUnit(Objects.toString(product.get("unit"), ""));
+  }
+
+  private static int itemCount(Document line) {
+    return line.get("itemCount") instanceof Number itemCount ? itemCount.intValue() : 0;
+  }
+
+  private static double number(Document document, String field) {
+    return document.get(field) instanceof Number value ? value.doubleValue() : 0;
   }
 
   @Override
@@ -125,4 +206,353 @@ public class InventoryGrpcService extends InventoryServiceGrpc.InventoryServiceI
       responseObserver.onCompleted();
     }
   }
+
+  @Override
+  public void manageCartBatch(ManageCartBatchRequest request, StreamObserver<ManageCartBatchResponse> responseObserver) {
+    try {
+      log.info("gRPC manageCartBatch called for userId: {} with {} line(s)", request.getUserId(), request.getLinesCount());
+      List<ManageCartDto> lines = request.getLinesList().stream()
+          .map(line -> {
+            ManageCartDto dto = new ManageCartDto();
+            dto.setProductId(line.getProductId());
+            dto.setItemCount(line.getItemCount());
+            return dto;
+          })
+          .collect(Collectors.toList());
+      ApiResponse<List<ApiResponse<Map<String, Object>>>> result = cartService.manageCartBatch(request.getUserId(), lines);
+      responseObserver.onNext(convertToGrpcBatchCartResponse(result));
+      responseObserver.onCompleted();
+    } catch (CustomException e) {
+      responseObserver.onError(Status.INVALID_ARGUMENT
+          .withDescription(e.getMessage())
+          .asRuntimeException());
+    } catch (Exception e) {
+      log.error("Error managing cart: {}", e.getMessage(), e);
+      responseObserver.onError(Status.INTERNAL
+          .withDescription("Error managing cart: " + e.getMessage())
+          .asRuntimeException());
+    }
+  }
+
+  ManageCartBatchResponse convertToGrpcBatchCartResponse(ApiResponse<List<ApiResponse<Map<String, Object>>>> result) {
+    ManageCartBatchResponse.Builder response = ManageCartBatchResponse.newBuilder()
+        .setSuccess(result.isSuccess())
+        .setMessage(result.getMessage());
+    for (ApiResponse<Map<String, Object>> line : result.getData()) {
+      Map<String, Object> data = line.getData();
+      response.setCartId((String) data.get("cartId"));
+      response.addResults(CartLineResult.newBuilder()
+          .setSuccess(line.isSuccess())
+          .setMessage(line.getMessage())
+          .setAction((String) data.get("action"))
+          .setProductId((String) data.get("productId"))
+          .setProductName(data.get("productName") != null ? (String) data.get("productName") : "")
+          .setItemCount((Integer) data.get("itemCount"))
+          .build());
+    }
+    return response.build();
+  }
+
+  @Override
+  public void commitReservations(ReservationRequest request, StreamObserver<ReservationResponse> responseObserver) {
+    try {
+      log.info("gRPC commitReservations called for userId: {}", request.getUserId());
+      ApiResponse<List<ReservationModel>> result = cartService.commitReservations(request.getUserId());
+      responseObserver.onNext(convertToGrpcReservationResponse(result));
+      responseObserver.onCompleted();
+    } catch (Exception e) {
+      log.error("Error committing reservations: {}", e.getMessage(), e);
+      responseObserver.onNext(ReservationResponse.newBuilder()
+          .setSuccess(false)
+          .setMessage("Error committing reservations: " + e.getMessage())
+          .build());
+      responseObserver.onCompleted();
+    }
+  }
+
+  @Override
+  public void releaseReservations(ReservationRequest request, StreamObserver<ReservationResponse> responseObserver) {
+    try {
+      log.info("gRPC releaseReservations called for userId: {}", request.getUserId());
+      ApiResponse<List<ReservationModel>> result = reservationService.releaseAll(request.getUserId());
+      responseObserver.onNext(convertToGrpcReservationResponse(result));
+      responseObserver.onCompleted();
+    } catch (Exception e) {
+      log.error("Error releasing reservations: {}", e.getMessage(), e);
+      responseObserver.onNext(ReservationResponse.newBuilder()
+          .setSuccess(false)
+          .setMessage("Error releasing reservations: " + e.getMessage())
+          .build());
+      responseObserver.onCompleted();
+    }
+  }
+
+  ReservationResponse convertToGrpcReservationResponse(ApiResponse<List<ReservationModel>> result) {
+    ReservationResponse.Builder response = ReservationResponse.newBuilder()
+        .setSuccess(result.isSuccess())
+        .setMessage(result.getMessage());
+    for (ReservationModel reservation : result.getData()) {
+      response.addItems(ReservedItem.newBuilder()
+          .setProductId(reservation.getProductId())
+          .setQuantity(reservation.getQuantity())
+          .build());
+    }
+    return response.build();
+  }
+
+  @Override
+  public void batchGetProducts(BatchGetProductsRequest request, StreamObserver<BatchGetProductsResponse> responseObserver) {
+    if (!checkBatchSize(request, responseObserver)) {
+      return;
+    }
+    try {
+      log.info("gRPC batchGetProducts called for {} id(s)", request.getIdsCount());
+      Map<String, ProductModel> products = productService.batchGetProducts(request.getIdsList());
+      responseObserver.onNext(convertToGrpcBatchResponse(request, products));
+      responseObserver.onCompleted();
+    } catch (Exception e) {
+      log.error("Error getting products: {}", e.getMessage(), e);
+      responseObserver.onError(Status.INTERNAL
+          .withDescription("Error retrieving products: " + e.getMessage())
+          .asRuntimeException());
+    }
+  }
+
+  boolean checkBatchSize(BatchGetProductsRequest request, StreamObserver<BatchGetProductsResponse> responseObserver) {
+    if (request.getIdsCount() > batchGetMaxIds) {
+      responseObserver.onError(Status.INVALID_ARGUMENT
+          .withDescription("At most " + batchGetMaxIds + " ids per request (got " + request.getIdsCount() + ")")
+          .asRuntimeException());
+      return false;
+    }
+    return true;
+  }
+
+  BatchGetProductsResponse convertToGrpcBatchResponse(BatchGetProductsRequest request, Map<String, ProductModel> products) {
+    BatchGetProductsResponse.Builder response = BatchGetProductsResponse.newBuilder();
+    products.values().forEach(product -> response.addProducts(convertToGrpcProduct(product)));
+    request.getIdsList().stream()
+        .distinct()
+        .filter(id -> !products.containsKey(id))
+        .forEach(response::addMissingIds);
+    return response.build();
+  }
+
+  /**
+   * Streams the catalog (or one category) in _id order. Pages are read from MongoDB only when
+   * the client can take more, so a slow consumer never makes the server buffer the whole catalog.
+   */
+  @Override
+  public void streamProducts(StreamProductsRequest request, StreamObserver<CartProduct> responseObserver) {
+    log.info("gRPC streamProducts called for categoryId: {}", request.getCategoryId());
+    int pageSize = request.getPageSize() > 0
+        ? Math.min(request.getPageSize(), MAX_STREAM_PAGE_SIZE)
+        : DEFAULT_STREAM_PAGE_SIZE;
+    String categoryId = request.getCategoryId().isEmpty() ? null : request.getCategoryId();
+
+    ServerCallStreamObserver<CartProduct> serverObserver = (ServerCallStreamObserver<CartProduct>) responseObserver;
+    ProductStreamer streamer = new ProductStreamer(serverObserver, categoryId, request.getActiveOnly(), pageSize);
+    serverObserver.setOnCancelHandler(streamer::cancel);
+    // called once the call is ready and again every time the client drains its window
+    serverObserver.setOnReadyHandler(streamer);
+  }
+
+  /**
+   * Streams the inventory events published after afterOffset, in batches, and keeps the call open for
+   * new ones. Like StreamProducts it only reads events when the client can take more.
+   */
+  @Override
+  public void watchInventoryEvents(WatchInventoryEventsRequest request, StreamObserver<InventoryEventBatch> responseObserver) {
+    log.info("gRPC watchInventoryEvents called after offset: {}", request.getAfterOffset());
+    if (!inventoryEventFeed.isEnabled()) {
+      responseObserver.onError(Status.UNAVAILABLE
+          .withDescription("Inventory events are disabled")
+          .asRuntimeException());
+      return;
+    }
+    long afterOffset;
+    try {
+      afterOffset = startOffset(request.getAfterOffset());
+    } catch (StatusRuntimeException e) {
+      responseObserver.onError(e);
+      return;
+    } catch (Exception e) {
+      log.error("Error watching inventory events: {}", e.getMessage(), e);
+      responseObserver.onError(Status.INTERNAL
+          .withDescription("Error watching inventory events: " + e.getMessage())
+          .asRuntimeException());
+      return;
+    }
+    int batchSize = request.getMaxBatchSize() > 0
+        ? Math.min(request.getMaxBatchSize(), MAX_EVENT_BATCH_SIZE)
+        : DEFAULT_EVENT_BATCH_SIZE;
+    Set<InventoryEventTypeEnum> types = request.getTypesList().stream()
+        .filter(type -> type != InventoryEventType.INVENTORY_EVENT_TYPE_UNSPECIFIED && type != InventoryEventType.UNRECOGNIZED)
+        .map(type -> InventoryEventTypeEnum.valueOf(type.name()))
+        .collect(Collectors.toSet());
+
+    ServerCallStreamObserver<InventoryEventBatch> serverObserver = (ServerCallStreamObserver<InventoryEventBatch>) responseObserver;
+    EventWatcher watcher = new EventWatcher(serverObserver, afterOffset, types, batchSize);
+    serverObserver.setOnCancelHandler(watcher::cancel);
+    serverObserver.setOnReadyHandler(watcher);
+    inventoryEventFeed.addWatcher(watcher);
+  }
+
+  // -1 is the current offset; an offset whose deletes were purged, or that was never handed out, can't be resumed
+  long startOffset(long afterOffset) {
+    InventoryEventRelayModel state = inventoryEventFeed.relayState();
+    long committed = state.getCommitted() != null ? state.getCommitted() : 0;
+    long purgedThrough = state.getPurgedThrough() != null ? state.getPurgedThrough() : 0;
+    if (afterOffset < 0) {
+      return committed;
+    }
+    if (afterOffset > committed) {
+      throw Status.OUT_OF_RANGE
+          .withDescription("Offset " + afterOffset + " is past the last published event " + committed)
+          .asRuntimeException();
+    }
+    if (afterOffset > 0 && afterOffset < purgedThrough) {
+      throw Status.OUT_OF_RANGE
+          .withDescription("Events after offset " + afterOffset + " were purged; resync with StreamProducts and watch from -1")
+          .asRuntimeException();
+    }
+    return afterOffset;
+  }
+
+  InventoryEventBatch convertToGrpcEventBatch(List<InventoryEventModel> events, Set<InventoryEventTypeEnum> types) {
+    InventoryEventBatch.Builder batch = InventoryEventBatch.newBuilder()
+        .setLastOffset(events.get(events.size() - 1).getSeq());
+    for (InventoryEventModel event : events) {
+      if (types.isEmpty() || types.contains(event.getType())) {
+        batch.addEvents(convertToGrpcEvent(event));
+      }
+    }
+    return batch.build();
+  }
+
+  InventoryEvent convertToGrpcEvent(InventoryEventModel event) {
+    InventoryEvent.Builder grpcEvent = InventoryEvent.newBuilder()
+        .setOffset(event.getSeq())
+        .setType(InventoryEventType.valueOf(event.getType().name()))
+        .setProductId(event.getProductId() != null ? event.getProductId() : "")
+        .setUserId(event.getUserId() != null ? event.getUserId() : "")
+        .setPublishedAtMillis(event.getPublishedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    if (event.getType() == InventoryEventTypeEnum.PRODUCT_CHANGED) {
+      grpcEvent
+          .setMrpMinor(event.getMrp() != null ? event.getMrp() : 0)
+          .setDiscount(event.getDiscount() != null ? event.getDiscount() : 0)
+          .setAvailableStock(event.getAvailableStock() != null ? event.getAvailableStock() : 0)
+          .setIsActive(Boolean.TRUE.equals(event.getIsActive()))
+          .setProductVersion(event.getProductVersion() != null ? event.getProductVersion() : 0);
+    }
+    return grpcEvent.build();
+  }
+
+  /**
+   * Sends batches while the transport is ready and events are there, then waits to be run again by
+   * the feed (new events) or by gRPC (ready again). Runs are serialized, they come from both.
+   */
+  private final class EventWatcher implements Runnable {
+    private final ServerCallStreamObserver<InventoryEventBatch> observer;
+    private final Set<InventoryEventTypeEnum> types;
+    private final int batchSize;
+    private long offset;
+    private boolean done;
+
+    private EventWatcher(ServerCallStreamObserver<InventoryEventBatch> observer, long offset,
+        Set<InventoryEventTypeEnum> types, int batchSize) {
+      this.observer = observer;
+      this.offset = offset;
+      this.types = types;
+      this.batchSize = batchSize;
+    }
+
+    @Override
+    public synchronized void run() {
+      if (done) {
+        return;
+      }
+      try {
+        while (observer.isReady() && !done) {
+          List<InventoryEventModel> events = inventoryEventFeed.read(offset, batchSize);
+          if (events.isEmpty()) {
+            return;
+          }
+          observer.onNext(convertToGrpcEventBatch(events, types));
+          offset = events.get(events.size() - 1).getSeq();
+        }
+      } catch (Exception e) {
+        log.error("Error watching inventory events: {}", e.getMessage(), e);
+        done = true;
+        inventoryEventFeed.removeWatcher(this);
+        observer.onError(Status.INTERNAL
+            .withDescription("Error watching inventory events: " + e.getMessage())
+            .asRuntimeException());
+      }
+    }
+
+    private synchronized void cancel() {
+      done = true;
+      inventoryEventFeed.removeWatcher(this);
+    }
+  }
+
+  /**
+   * Sends products while the transport is ready, reading the next keyset page when the buffer runs dry.
+   * gRPC runs the ready and cancel handlers of one call one at a time.
+   */
+  private final class ProductStreamer implements Runnable {
+    private final ServerCallStreamObserver<CartProduct> observer;
+    private final String categoryId;
+    private final boolean activeOnly;
+    private final int pageSize;
+    private final Deque<ProductModel> buffer = new ArrayDeque<>();
+    private String afterId;
+    private boolean exhausted;
+    private boolean done;
+
+    private ProductStreamer(ServerCallStreamObserver<CartProduct> observer, String categoryId, boolean activeOnly, int pageSize) {
+      this.observer = observer;
+      this.categoryId = categoryId;
+      this.activeOnly = activeOnly;
+      this.pageSize = pageSize;
+    }
+
+    @Override
+    public void run() {
+      if (done) {
+        return;
+      }
+      try {
+        while (observer.isReady() && !done) {
+          if (buffer.isEmpty()) {
+            if (exhausted) {
+              done = true;
+              observer.onCompleted();
+              return;
+            }
+            List<ProductModel> page = productService.getCatalogPage(categoryId, activeOnly, afterId, pageSize);
+            exhausted = page.size() < pageSize;
+            if (!page.isEmpty()) {
+              afterId = page.get(page.size() - 1).getId();
+            }
+            buffer.addAll(page);
+            continue;
+          }
+          observer.onNext(convertToGrpcProduct(buffer.poll()));
+        }
+      } catch (Exception e) {
+        log.error("Error streaming products: {}", e.getMessage(), e);
+        done = true;
+        observer.onError(Status.INTERNAL
+            .withDescription("Error streaming products: " + e.getMessage())
+            .asRuntimeException());
+      }
+    }
+
+    private void cancel() {
+      done = true;
+      buffer.clear();
+    }
+  }
 }
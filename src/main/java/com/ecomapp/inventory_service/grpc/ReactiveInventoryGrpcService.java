@@ -0,0 +1,120 @@
+package com.ecomapp.inventory_service.grpc;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+
+import com.ecomapp.inventory_service.service.CartService;
+import com.ecomapp.inventory_service.service.InventoryEventFeed;
+import com.ecomapp.inventory_service.service.ProductService;
+import com.ecomapp.inventory_service.service.ReactiveCartService;
+import com.ecomapp.inventory_service.service.ReactiveProductService;
+import com.ecomapp.inventory_service.service.ReservationService;
+
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.service.GrpcService;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * InventoryGrpcService for the "reactive" profile. Calls return as soon as the MongoDB query is
+ * sent and the response is written from the driver's callback, so gRPC executor threads are never
+ * parked on I/O. Reservation calls still go through the blocking ReservationService and run on the
+ * bounded elastic scheduler. StreamProducts and WatchInventoryEvents are inherited: they only read when
+ * the client is ready.
+ */
+@Slf4j
+@GrpcService
+@Profile("reactive")
+public class ReactiveInventoryGrpcService extends InventoryGrpcService {
+  private final ReactiveCartService reactiveCartService;
+  private final ReactiveProductService reactiveProductService;
+  private final ReservationService reservationService;
+
+  public ReactiveInventoryGrpcService(
+      CartService cartService,
+      ReservationService reservationService,
+      ProductService productService,
+      ReactiveCartService reactiveCartService,
+      ReactiveProductService reactiveProductService,
+      InventoryEventFeed inventoryEventFeed,
+      @Value("${grpc.batch-get-products.max-ids:500}") int batchGetMaxIds
+    ) {
+    super(cartService, reservationService, productService, inventoryEventFeed, batchGetMaxIds);
+    this.reactiveCartService = reactiveCartService;
+    this.reactiveProductService = reactiveProductService;
+    this.reservationService = reservationService;
+  }
+
+  @Override
+  public void getUserCart(GetUserCartRequest request, StreamObserver<GetUserCartResponse> responseObserver) {
+    log.info("gRPC getUserCart called for userId: {}", request.getUserId());
+    reactiveCartService.getCartDocument(request.getUserId())
+        .flatMap(cart -> reactiveCartService.getCartProductDocuments(cart)
+            .map(products -> convertToGrpcCartResponse(cart, products)))
+        .subscribe(response -> {
+          responseObserver.onNext(response);
+          responseObserver.onCompleted();
+        }, e -> {
+          log.error("Error getting user cart: {}", e.getMessage(), e);
+          responseObserver.onError(Status.INTERNAL
+              .withDescription("Error retrieving cart: " + e.getMessage())
+              .asRuntimeException());
+        });
+  }
+
+  @Override
+  public void clearUserCart(ClearUserCartRequest request, StreamObserver<ClearUserCartResponse> responseObserver) {
+    log.info("gRPC clearUserCart called for userId: {}", request.getUserId());
+    reactiveCartService.clearCart(request.getUserId())
+        .map(clearResponse -> ClearUserCartResponse.newBuilder()
+            .setSuccess(clearResponse.isSuccess())
+            .setMessage(clearResponse.getMessage())
+            .build())
+        .onErrorResume(e -> {
+          log.error("Error clearing user cart: {}", e.getMessage(), e);
+          return Mono.just(ClearUserCartResponse.newBuilder()
+              .setSuccess(false)
+              .setMessage("Error clearing cart: " + e.getMessage())
+              .build());
+        })
+        .subscribe(response -> {
+          responseObserver.onNext(response);
+          responseObserver.onCompleted();
+        });
+  }
+
+  @Override
+  public void commitReservations(ReservationRequest request, StreamObserver<ReservationResponse> responseObserver) {
+    Mono.fromRunnable(() -> super.commitReservations(request, responseObserver))
+        .subscribeOn(Schedulers.boundedElastic())
+        .subscribe();
+  }
+
+  @Override
+  public void releaseReservations(ReservationRequest request, StreamObserver<ReservationResponse> responseObserver) {
+    Mono.fromRunnable(() -> super.releaseReservations(request, responseObserver))
+        .subscribeOn(Schedulers.boundedElastic())
+        .subscribe();
+  }
+
+  @Override
+  public void batchGetProducts(BatchGetProductsRequest request, StreamObserver<BatchGetProductsResponse> responseObserver) {
+    if (!checkBatchSize(request, responseObserver)) {
+      return;
+    }
+    log.info("gRPC batchGetProducts called for {} id(s)", request.getIdsCount());
+    reactiveProductService.batchGetProducts(request.getIdsList())
+        .map(products -> convertToGrpcBatchResponse(request, products))
+        .subscribe(response -> {
+          responseObserver.onNext(response);
+          responseObserver.onCompleted();
+        }, e -> {
+          log.error("Error getting products: {}", e.getMessage(), e);
+          responseObserver.onError(Status.INTERNAL
+              .withDescription("Error retrieving products: " + e.getMessage())
+              .asRuntimeException());
+        });
+  }
+}
@@ -5,6 +5,9 @@ import java.time.LocalDateTime;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -21,14 +24,26 @@ import lombok.Setter;
 @NoArgsConstructor
 @Builder
 @Document(collection = "cart_item")
+// one line per product per user; lines are found by userId, the shard key of cart_item (see MongoShardingService),
+// so the userId prefix also serves findByUserId and deleteAllByUserId
+@CompoundIndex(name = "userId_productId", def = "{'userId': 1, 'productId': 1}", unique = true, background = true)
 public class CartItemModel {
   @Id
   private String id;
 
+  // lines written before they carried the userId are found by their cartId (unassignedLinesQuery) until
+  // the backfill has given them one
   @Field
+  @Indexed(background = true)
   private String cartId;
+  // copied from the cart so a user's lines live with the cart on one shard; set on lines written before
+  // by CartMigrationService.backfillCartItemUserIds
+  @Field
+  private String userId;
 
+  // carts to update when the product's price changes
   @Field
+  @Indexed(background = true)
   private String productId;
 
   @Field
@@ -39,4 +54,7 @@ public class CartItemModel {
 
   @LastModifiedDate
   private LocalDateTime updatedAt;
+
+  @Version
+  private Long version;
 }
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -25,8 +26,20 @@ public class CartModel {
   private String id;
 
   @Field
+  @Indexed(unique = true, background = true)
   private String userId;
 
+  // running totals in minor units of the lines in cart_item (null until computed, or after a price change)
+  @Field
+  private Long totalMrpMinor;
+
+  @Field
+  private Long totalDiscountMinor;
+
+  // moved by every change to the lines, totals are only written for the latest (see CartTotalsRepairService)
+  @Field
+  private Long linesVersion;
+
   @CreatedDate
   private LocalDateTime createdAt;
 
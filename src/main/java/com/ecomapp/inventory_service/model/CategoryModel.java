@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -43,4 +44,8 @@ public class CategoryModel {
 
   @LastModifiedDate
   private LocalDateTime updatedAt;
+
+  // bumped by every write, conditional updates compare it (null on documents written before it existed)
+  @Version
+  private Long version;
 }
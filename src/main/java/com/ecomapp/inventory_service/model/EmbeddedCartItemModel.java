@@ -0,0 +1,40 @@
+package com.ecomapp.inventory_service.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmbeddedCartItemModel {
+  @Field
+  private String id;
+
+  // price changes are fanned out to every cart holding the product
+  @Field
+  @Indexed
+  private String productId;
+
+  @Field
+  private Integer itemCount;
+
+  // price snapshot the cart totals are computed from, kept in step with the product
+  @Field
+  private long mrpMinor;
+
+  @Field
+  private double discount;
+
+  @Field
+  private LocalDateTime updatedAt;
+}
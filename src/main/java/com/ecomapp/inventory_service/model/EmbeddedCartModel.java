@@ -0,0 +1,52 @@
+package com.ecomapp.inventory_service.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Cart document used when cart.storage-mode=EMBEDDED.
+ * Keyed by userId so every cart operation is a single-document read or write.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "user_cart")
+public class EmbeddedCartModel {
+  @Id
+  private String userId;
+
+  @Field
+  @Builder.Default
+  private List<EmbeddedCartItemModel> items = new ArrayList<>();
+
+  // running totals in minor units, recomputed by every cart update (null on carts written before they existed)
+  @Field
+  private Long totalMrpMinor;
+
+  @Field
+  private Long totalDiscountMinor;
+
+  @Field
+  private LocalDateTime createdAt;
+
+  @Field
+  private LocalDateTime updatedAt;
+
+  // bumped by every cart update, see EmbeddedCartRepositoryCustomImpl
+  @Version
+  private Long version;
+}
@@ -0,0 +1,85 @@
+package com.ecomapp.inventory_service.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import com.ecomapp.inventory_service.annotations.MinorUnitAmount;
+import com.ecomapp.inventory_service.constant.InventoryEventTypeEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One entry of the inventory outbox, streamed to consumers by WatchInventoryEvents.
+ *
+ * An event is staged (no seq) when it is written and published when the relay gives it the next
+ * offset (seq). A PRODUCT_CHANGED event is the product's price and stock at the time it was relayed,
+ * so later events of the same key supersede it and compaction keeps only the latest per key.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "inventory_event")
+// compaction finds the superseded events of a key
+@CompoundIndex(name = "key_seq", def = "{'key': 1, 'seq': 1}")
+public class InventoryEventModel {
+  @Id
+  private String id;
+
+  // offset of a published event, absent while staged
+  @Field
+  @Indexed(unique = true, sparse = true)
+  private Long seq;
+
+  // true until published, the relay picks staged events up by it
+  @Field
+  @Indexed(sparse = true)
+  private Boolean staged;
+
+  @Field
+  private InventoryEventTypeEnum type;
+
+  // product:{id} or cart:{userId}, what an event supersedes earlier events of
+  @Field
+  private String key;
+
+  @Field
+  private String productId;
+
+  @Field
+  private String userId;
+
+  // PRODUCT_CHANGED only: the product as relayed
+  @Field
+  @MinorUnitAmount
+  private Long mrp;
+
+  @Field
+  private Double discount;
+
+  @Field
+  private Double availableStock;
+
+  @Field
+  private Boolean isActive;
+
+  @Field
+  private Long productVersion;
+
+  @Field
+  private LocalDateTime createdAt;
+
+  @Field
+  @Indexed
+  private LocalDateTime publishedAt;
+}
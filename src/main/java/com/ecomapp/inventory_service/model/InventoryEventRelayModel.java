@@ -0,0 +1,46 @@
+package com.ecomapp.inventory_service.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The single relay state document: which node relays events, and the offsets it handed out.
+ * Events up to committed are all published; allocated may run ahead while a batch is written.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "inventory_event_relay")
+public class InventoryEventRelayModel {
+  public static final String ID = "relay";
+
+  @Id
+  private String id;
+
+  @Field
+  private String owner;
+
+  @Field
+  private LocalDateTime leaseUntil;
+
+  @Field
+  private Long allocated;
+
+  @Field
+  private Long committed;
+
+  // highest offset removed by retention rather than compaction, consumers behind it must resync
+  @Field
+  private Long purgedThrough;
+}
@@ -0,0 +1,33 @@
+package com.ecomapp.inventory_service.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Which node runs a background job that must run on one node at a time, one document per job.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "job_lease")
+public class JobLeaseModel {
+  @Id
+  private String id;
+
+  @Field
+  private String owner;
+
+  @Field
+  private LocalDateTime leaseUntil;
+}
@@ -6,10 +6,13 @@ import java.util.List;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
+import com.ecomapp.inventory_service.annotations.MinorUnitAmount;
 import com.ecomapp.inventory_service.constant.UnitEnum;
 
 import lombok.AllArgsConstructor;
@@ -24,13 +27,14 @@ import lombok.Setter;
 @AllArgsConstructor
 @Builder
 @Document(collection = "product")
+// keyset pagination within a category, also serves plain categoryId lookups
+@CompoundIndex(name = "categoryId_id", def = "{'categoryId': 1, '_id': 1}")
 public class ProductModel {
   @Id
   private String id;
 
   // reference with category
   @Field
-  @Indexed
   private String categoryId;
 
   @Field
@@ -46,17 +50,20 @@ public class ProductModel {
   @Field
   private Boolean isActive;
 
+  // minor units, see MinorUnits
   @Field
-  private Double mrp;
+  @MinorUnitAmount
+  private long mrp;
 
+  // percent of mrp
   @Field
-  private Double discount;
+  private double discount;
 
   @Field
-  private Double quantity;
+  private double quantity;
 
   @Field
-  private Double availableStock;
+  private double availableStock;
 
   @Field
   private UnitEnum unit;
@@ -66,4 +73,14 @@ public class ProductModel {
 
   @LastModifiedDate
   private LocalDateTime updatedAt;
+
+  // bumped by every write, conditional updates compare it (null on documents written before it existed)
+  @Version
+  private Long version;
+
+  // price or stock writes not yet relayed to the inventory event stream, bumped by the write itself
+  // (see InventoryEventService)
+  @Field
+  @Indexed(partialFilter = "{ 'pendingEvents': { $gt: 0 } }")
+  private Integer pendingEvents;
 }
@@ -0,0 +1,67 @@
+package com.ecomapp.inventory_service.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import com.ecomapp.inventory_service.constant.ReservationStatusEnum;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Stock held for a user's cart line. The held quantity is already subtracted from
+ * ProductModel.availableStock; it goes back when the reservation is released or expires.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "reservation")
+@CompoundIndexes({
+  @CompoundIndex(name = "active_user_product_idx", def = "{'userId': 1, 'productId': 1}", unique = true,
+      partialFilter = "{ 'status': 'ACTIVE' }"),
+  @CompoundIndex(name = "status_expires_idx", def = "{'status': 1, 'expiresAt': 1}")
+})
+public class ReservationModel {
+  @Id
+  private String id;
+
+  @Field
+  private String userId;
+
+  @Field
+  private String productId;
+
+  @Field
+  private Integer quantity;
+
+  @Field
+  private ReservationStatusEnum status;
+
+  // active reservations past this time are released by the sweeper
+  @Field
+  private LocalDateTime expiresAt;
+
+  // set once the reservation is finished, the TTL index removes the document after it
+  @Field
+  @Indexed(expireAfter = "0s")
+  private LocalDateTime purgeAt;
+
+  @CreatedDate
+  private LocalDateTime createdAt;
+
+  @LastModifiedDate
+  private LocalDateTime updatedAt;
+}
@@ -0,0 +1,43 @@
+package com.ecomapp.inventory_service.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Stock units a service node has taken out of ProductModel.availableStock to serve from memory.
+ * Written on every stock-ledger flush so units held by a node that dies can be given back.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "stock_escrow")
+public class StockEscrowModel {
+  @Id
+  private String id; // nodeId:productId
+
+  @Field
+  @Indexed
+  private String nodeId;
+
+  @Field
+  private String productId;
+
+  @Field
+  private Long units;
+
+  @Field
+  @Indexed
+  private LocalDateTime expiresAt;
+}
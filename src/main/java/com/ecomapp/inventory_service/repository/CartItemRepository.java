@@ -1,5 +1,6 @@
 package com.ecomapp.inventory_service.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -7,9 +8,12 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.ecomapp.inventory_service.model.CartItemModel;
 
-public interface CartItemRepository extends MongoRepository<CartItemModel, String> {
-  Optional<CartItemModel> findByCartIdAndProductId(String cartId, String productId);
-  List<CartItemModel> findByCartId(String cartId);
-  void deleteByCartIdAndProductId(String cartId, String productId);
-  void deleteAllByCartId(String cartId);
+public interface CartItemRepository extends MongoRepository<CartItemModel, String>, CartItemRepositoryCustom {
+  Optional<CartItemModel> findByUserIdAndProductId(String userId, String productId);
+  List<CartItemModel> findByUserId(String userId);
+  List<CartItemModel> findByUserIdIn(Collection<String> userIds);
+  void deleteByUserIdAndProductId(String userId, String productId);
+  void deleteAllByUserId(String userId);
+  void deleteByUserIdAndCartIdNot(String userId, String cartId);
+  boolean existsByUserIdIsNull();
 }
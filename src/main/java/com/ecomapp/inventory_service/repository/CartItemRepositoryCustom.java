@@ -0,0 +1,19 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+
+public interface CartItemRepositoryCustom {
+  boolean setItemCount(String userId, String cartId, String productId, int itemCount);
+  void setItemCounts(String userId, String cartId, Map<String, Integer> itemCountByProduct);
+  Stream<String> streamCartIdsWithoutUserId();
+  long assignUserIds(Map<String, String> userIdByCartId);
+  List<RawBsonDocument> findRawPage(BsonValue afterId, int limit);
+  long deleteOrphans(Map<BsonValue, String> cartIdById);
+  List<Document> findLineDocuments(String userId);
+}
@@ -0,0 +1,156 @@
+package com.ecomapp.inventory_service.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+
+public class CartItemRepositoryCustomImpl implements CartItemRepositoryCustom {
+  private final MongoTemplate mongoTemplate;
+
+  public CartItemRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Set the count of an existing line with one $set; the count is absolute, so concurrent writes
+   * need no version check, the last one wins. Returns false when the cart has no such line.
+   */
+  @Override
+  public boolean setItemCount(String userId, String cartId, String productId, int itemCount) {
+    return mongoTemplate.updateFirst(
+        itemQuery(userId, productId), itemCountUpdate(cartId, itemCount, LocalDateTime.now()), CartItemModel.class)
+        .getMatchedCount() > 0;
+  }
+
+  /**
+   * Apply many line changes to one cart in a single unordered bulk write.
+   * A count of 0 removes the line, any other count updates the line or inserts it.
+   */
+  @Override
+  public void setItemCounts(String userId, String cartId, Map<String, Integer> itemCountByProduct) {
+    if (itemCountByProduct.isEmpty()) {
+      return;
+    }
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, CartItemModel.class);
+    LocalDateTime now = LocalDateTime.now();
+    itemCountByProduct.forEach((productId, itemCount) -> {
+      if (itemCount == 0) {
+        bulk.remove(itemQuery(userId, productId));
+      } else {
+        bulk.upsert(itemQuery(userId, productId), itemCountUpdate(cartId, itemCount, now)
+            .setOnInsert("createdAt", now));
+      }
+    });
+    bulk.execute();
+  }
+
+  /**
+   * cartId of every line written before lines carried the userId, one per line.
+   */
+  @Override
+  public Stream<String> streamCartIdsWithoutUserId() {
+    Query query = query(where("userId").exists(false));
+    query.fields().include("cartId");
+    return mongoTemplate.stream(query, CartItemModel.class).map(CartItemModel::getCartId);
+  }
+
+  /**
+   * Copy the userId of each cart onto its lines that don't have one yet, in a single unordered bulk write.
+   * Returns the number of lines changed.
+   */
+  @Override
+  public long assignUserIds(Map<String, String> userIdByCartId) {
+    if (userIdByCartId.isEmpty()) {
+      return 0;
+    }
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, CartItemModel.class);
+    userIdByCartId.forEach((cartId, userId) -> bulk.updateMulti(unassignedLinesQuery(cartId), assignUserIdUpdate(userId)));
+    return bulk.execute().getModifiedCount();
+  }
+
+  /**
+   * The next limit lines in _id order after afterId (from the start when null), as stored:
+   * the size of a line is the size of its buffer.
+   */
+  @Override
+  public List<RawBsonDocument> findRawPage(BsonValue afterId, int limit) {
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(CartItemModel.class))
+        .withDocumentClass(RawBsonDocument.class)
+        .find(afterId == null ? new BsonDocument() : Filters.gt("_id", afterId))
+        .sort(Sorts.ascending("_id"))
+        .limit(limit)
+        .into(new ArrayList<>());
+  }
+
+  /**
+   * Delete the given lines, each only while it still belongs to the cart it was found with: a line
+   * written since then points at the user's current cart and is kept.
+   */
+  @Override
+  public long deleteOrphans(Map<BsonValue, String> cartIdById) {
+    if (cartIdById.isEmpty()) {
+      return 0;
+    }
+    List<Bson> lines = new ArrayList<>(cartIdById.size());
+    cartIdById.forEach((id, cartId) -> lines.add(Filters.and(Filters.eq("_id", id), Filters.eq("cartId", cartId))));
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(CartItemModel.class))
+        .deleteMany(Filters.or(lines))
+        .getDeletedCount();
+  }
+
+  /**
+   * The user's lines as stored, only the fields a cart response reads, without mapping them to CartItemModel.
+   */
+  @Override
+  public List<Document> findLineDocuments(String userId) {
+    return mongoTemplate.find(lineDocumentsQuery(userId), Document.class, mongoTemplate.getCollectionName(CartItemModel.class));
+  }
+
+  static Query lineDocumentsQuery(String userId) {
+    Query query = query(where("userId").is(userId));
+    query.fields().include("productId", "itemCount");
+    return query;
+  }
+
+  static Query unassignedLinesQuery(String cartId) {
+    return query(where("cartId").is(cartId).and("userId").exists(false));
+  }
+
+  static Update assignUserIdUpdate(String userId) {
+    return new Update().set("userId", userId);
+  }
+
+  // bulk writes don't bump version by themselves; a line left by an expired cart moves to the current one
+  static Update itemCountUpdate(String cartId, int itemCount, LocalDateTime now) {
+    return new Update()
+        .set("cartId", cartId)
+        .set("itemCount", itemCount)
+        .set("updatedAt", now)
+        .inc("version", 1);
+  }
+
+  // filters on the shard key, so on a sharded cluster the write goes to the one shard holding the cart
+  static Query itemQuery(String userId, String productId) {
+    return query(where("userId").is(userId).and("productId").is(productId));
+  }
+}
@@ -1,11 +1,18 @@
 package com.ecomapp.inventory_service.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.ecomapp.inventory_service.model.CartModel;
 
-public interface CartRepository extends MongoRepository<CartModel, String> {
+public interface CartRepository extends MongoRepository<CartModel, String>, CartRepositoryCustom {
   Optional<CartModel> findByUserId(String userId);
+  List<CartModel> findByUserIdIn(Collection<String> userIds);
+  Stream<CartModel> streamAllBy();
+  List<CartModel> findByUserIdGreaterThan(String userId, Pageable pageable);
 }
@@ -0,0 +1,14 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface CartRepositoryCustom {
+  void touch(String userId, LocalDateTime now);
+  Optional<Long> markLinesChanged(String userId);
+  boolean setTotals(String userId, long linesVersion, long totalMrpMinor, long totalDiscountMinor);
+  boolean addToTotals(String userId, long linesVersion, long mrpMinor, long discountMinor);
+  boolean clearTotals(String userId, long linesVersion);
+  void dropTotals(String userId);
+  long invalidateTotals(String productId);
+}
@@ -0,0 +1,126 @@
+package com.ecomapp.inventory_service.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.ecomapp.inventory_service.model.CartModel;
+
+public class CartRepositoryCustomImpl implements CartRepositoryCustom {
+  static final int INVALIDATE_BATCH_SIZE = 500;
+
+  private final MongoTemplate mongoTemplate;
+
+  public CartRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Move the cart's updatedAt, which the TTL index expires the cart by, without rewriting the document.
+   */
+  @Override
+  public void touch(String userId, LocalDateTime now) {
+    mongoTemplate.updateFirst(cartQuery(userId), touchUpdate(now), CartModel.class);
+  }
+
+  /**
+   * Move the cart's linesVersion after its lines changed and return the new one, empty when there is no cart.
+   */
+  @Override
+  public Optional<Long> markLinesChanged(String userId) {
+    CartModel cart = mongoTemplate.findAndModify(
+        cartQuery(userId), new Update().inc("linesVersion", 1), FindAndModifyOptions.options().returnNew(true), CartModel.class);
+    return cart != null ? Optional.of(cart.getLinesVersion()) : Optional.empty();
+  }
+
+  /**
+   * Keep totals computed from the lines as of linesVersion, unless the lines changed again since.
+   */
+  @Override
+  public boolean setTotals(String userId, long linesVersion, long totalMrpMinor, long totalDiscountMinor) {
+    return mongoTemplate.updateFirst(
+        totalsQuery(userId, linesVersion), totalsUpdate(totalMrpMinor, totalDiscountMinor), CartModel.class).getModifiedCount() > 0;
+  }
+
+  /**
+   * Move the totals by a change of the lines read after linesVersion, and move linesVersion with them,
+   * unless the lines changed since. Returns false when nothing was written.
+   */
+  @Override
+  public boolean addToTotals(String userId, long linesVersion, long mrpMinor, long discountMinor) {
+    return mongoTemplate.updateFirst(
+        totalsQuery(userId, linesVersion), addToTotalsUpdate(mrpMinor, discountMinor), CartModel.class).getModifiedCount() > 0;
+  }
+
+  /**
+   * Zero the totals after every line was removed, unless the lines changed since linesVersion.
+   */
+  @Override
+  public boolean clearTotals(String userId, long linesVersion) {
+    return mongoTemplate.updateFirst(
+        totalsQuery(userId, linesVersion), totalsUpdate(0, 0).inc("linesVersion", 1), CartModel.class).getModifiedCount() > 0;
+  }
+
+  /**
+   * Drop the cart's totals, it is totalled on read until CartTotalsRepairService reaches it.
+   */
+  @Override
+  public void dropTotals(String userId) {
+    mongoTemplate.updateFirst(cartQuery(userId), invalidateTotalsUpdate(), CartModel.class);
+  }
+
+  /**
+   * Drop the totals of every cart with a line of the product, after its price changed; those carts are
+   * totalled on read until a line changes or CartTotalsRepairService reaches them. Returns the number of carts.
+   */
+  @Override
+  public long invalidateTotals(String productId) {
+    List<String> userIds = mongoTemplate.findDistinct(productLinesQuery(productId), "userId", CartItemModel.class, String.class);
+    long invalidated = 0;
+    for (int from = 0; from < userIds.size(); from += INVALIDATE_BATCH_SIZE) {
+      List<String> batch = userIds.subList(from, Math.min(from + INVALIDATE_BATCH_SIZE, userIds.size()));
+      invalidated += mongoTemplate.updateMulti(
+          query(where("userId").in(batch)), invalidateTotalsUpdate(), CartModel.class).getModifiedCount();
+    }
+    return invalidated;
+  }
+
+  static Query cartQuery(String userId) {
+    return query(where("userId").is(userId));
+  }
+
+  static Update touchUpdate(LocalDateTime now) {
+    return new Update().set("updatedAt", now);
+  }
+
+  static Query totalsQuery(String userId, long linesVersion) {
+    return query(where("userId").is(userId).and("linesVersion").is(linesVersion));
+  }
+
+  static Update totalsUpdate(long totalMrpMinor, long totalDiscountMinor) {
+    return new Update().set("totalMrpMinor", totalMrpMinor).set("totalDiscountMinor", totalDiscountMinor);
+  }
+
+  // moves linesVersion too: of two changes that read the same lines, the second one no longer applies
+  static Update addToTotalsUpdate(long mrpMinor, long discountMinor) {
+    return new Update().inc("totalMrpMinor", mrpMinor).inc("totalDiscountMinor", discountMinor).inc("linesVersion", 1);
+  }
+
+  static Query productLinesQuery(String productId) {
+    return query(where("productId").is(productId));
+  }
+
+  // a recompute that read the old price can no longer write its totals either
+  static Update invalidateTotalsUpdate() {
+    return new Update().inc("linesVersion", 1).unset("totalMrpMinor").unset("totalDiscountMinor");
+  }
+}
@@ -6,4 +6,4 @@ import org.springframework.stereotype.Repository;
 import com.ecomapp.inventory_service.model.CategoryModel;
 
 @Repository
-public interface CategoryRepository extends MongoRepository<CategoryModel, String> { }
+public interface CategoryRepository extends MongoRepository<CategoryModel, String>, CategoryRepositoryCustom { }
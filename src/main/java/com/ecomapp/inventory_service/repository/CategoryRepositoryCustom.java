@@ -0,0 +1,12 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.ecomapp.inventory_service.model.CategoryModel;
+
+public interface CategoryRepositoryCustom {
+  boolean setImageUrl(String categoryId, String imageUrl);
+  boolean updateDetails(CategoryModel category, Long expectedVersion);
+  List<String> findReferencedImageUrls(Collection<String> imageUrls);
+}
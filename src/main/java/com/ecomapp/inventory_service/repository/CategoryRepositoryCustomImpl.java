@@ -0,0 +1,66 @@
+package com.ecomapp.inventory_service.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.ecomapp.inventory_service.model.CategoryModel;
+
+public class CategoryRepositoryCustomImpl implements CategoryRepositoryCustom {
+  private final MongoTemplate mongoTemplate;
+
+  public CategoryRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Replace the category image with a single $set instead of a read and a full save.
+   * Returns false when the category does not exist.
+   */
+  @Override
+  public boolean setImageUrl(String categoryId, String imageUrl) {
+    return mongoTemplate.updateFirst(
+        query(where("id").is(categoryId)),
+        new Update().set("imageUrl", imageUrl).set("updatedAt", LocalDateTime.now()),
+        CategoryModel.class).getMatchedCount() > 0;
+  }
+
+  /**
+   * Write the editable fields of category with one $set, if the stored category still has expectedVersion
+   * (null matches categories written before versions existed).
+   * Returns false when the category was changed or deleted since it was read.
+   */
+  @Override
+  public boolean updateDetails(CategoryModel category, Long expectedVersion) {
+    return mongoTemplate.updateFirst(
+        versionedQuery(category.getId(), expectedVersion), detailsUpdate(category, LocalDateTime.now()), CategoryModel.class)
+        .getMatchedCount() > 0;
+  }
+
+  /**
+   * The urls of imageUrls that are still the image of a category.
+   */
+  @Override
+  public List<String> findReferencedImageUrls(Collection<String> imageUrls) {
+    return mongoTemplate.findDistinct(query(where("imageUrl").in(imageUrls)), "imageUrl", CategoryModel.class, String.class);
+  }
+
+  static Query versionedQuery(String categoryId, Long expectedVersion) {
+    return query(where("id").is(categoryId).and("version").is(expectedVersion));
+  }
+
+  static Update detailsUpdate(CategoryModel category, LocalDateTime now) {
+    return new Update()
+        .set("name", category.getName())
+        .set("description", category.getDescription())
+        .set("updatedAt", now)
+        .inc("version", 1);
+  }
+}
@@ -0,0 +1,12 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.ecomapp.inventory_service.model.EmbeddedCartModel;
+
+public interface EmbeddedCartRepository extends MongoRepository<EmbeddedCartModel, String>, EmbeddedCartRepositoryCustom {
+  List<EmbeddedCartModel> findByUserIdGreaterThan(String userId, Pageable pageable);
+}
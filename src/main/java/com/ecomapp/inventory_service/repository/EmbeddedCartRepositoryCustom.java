@@ -0,0 +1,19 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.bson.Document;
+
+import com.ecomapp.inventory_service.model.ProductModel;
+
+public interface EmbeddedCartRepositoryCustom {
+  boolean setItemCount(String userId, ProductModel product, int itemCount);
+  boolean pushItem(String userId, ProductModel product, int itemCount);
+  boolean pullItem(String userId, String productId);
+  void setItemCounts(String userId, Map<String, Integer> itemCountByProduct, Map<String, ProductModel> products);
+  boolean clearItems(String userId);
+  long repriceItems(ProductModel product);
+  boolean recomputeTotals(String userId);
+  Optional<Document> findLinesDocument(String userId);
+}
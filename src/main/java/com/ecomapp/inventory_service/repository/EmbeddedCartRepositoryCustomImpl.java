@@ -0,0 +1,289 @@
+package com.ecomapp.inventory_service.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.SetOperation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.TypeInformation;
+
+import com.ecomapp.inventory_service.model.EmbeddedCartItemModel;
+import com.ecomapp.inventory_service.model.EmbeddedCartModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.mongodb.client.result.UpdateResult;
+
+/**
+ * Single-statement cart mutations for the embedded cart layout.
+ * Every method is one atomic update on the user's cart document.
+ * The queries and updates are shared with ReactiveEmbeddedCartRepositoryCustomImpl.
+ *
+ * The updates are aggregation pipelines: the first stage changes the items, the second
+ * recomputes totalMrpMinor/totalDiscountMinor from the items' price snapshots, so the
+ * totals can never disagree with the lines of the same document. The last stage bumps version.
+ */
+public class EmbeddedCartRepositoryCustomImpl implements EmbeddedCartRepositoryCustom {
+  private static final Document TOTALS_STAGE = totalsStage();
+
+  private final MongoTemplate mongoTemplate;
+
+  public EmbeddedCartRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Update the count of an item already in the cart and refresh its price snapshot.
+   * Returns false when the cart or the item does not exist.
+   */
+  @Override
+  public boolean setItemCount(String userId, ProductModel product, int itemCount) {
+    UpdateResult result = mongoTemplate.updateFirst(
+        itemQuery(userId, product.getId()), setItemCountUpdate(product, itemCount), EmbeddedCartModel.class);
+    return result.getMatchedCount() > 0;
+  }
+
+  /**
+   * Append a new item, creating the cart document if needed.
+   * Returns false when the item was added concurrently by another request.
+   */
+  @Override
+  public boolean pushItem(String userId, ProductModel product, int itemCount) {
+    try {
+      UpdateResult result = mongoTemplate.upsert(
+          missingItemQuery(userId, product.getId()),
+          pushItemUpdate(toDocument(mongoTemplate.getConverter(), newItem(product, itemCount))),
+          EmbeddedCartModel.class);
+      return result.getMatchedCount() > 0 || result.getUpsertedId() != null;
+    } catch (DuplicateKeyException e) {
+      // cart exists and already holds this product, the upsert tried to insert a second cart
+      return false;
+    }
+  }
+
+  @Override
+  public boolean pullItem(String userId, String productId) {
+    UpdateResult result = mongoTemplate.updateFirst(
+        itemQuery(userId, productId), pullItemUpdate(productId), EmbeddedCartModel.class);
+    return result.getModifiedCount() > 0;
+  }
+
+  /**
+   * Apply many line changes in one update, creating the cart if needed. A count of 0 removes the
+   * line; other counts update the line, or add it when the cart does not hold the product.
+   * products must contain every product with a count above 0.
+   */
+  @Override
+  public void setItemCounts(String userId, Map<String, Integer> itemCountByProduct, Map<String, ProductModel> products) {
+    List<String> removedIds = new ArrayList<>();
+    Map<String, Document> changedFields = new LinkedHashMap<>();
+    List<Document> newItems = new ArrayList<>();
+    Date now = new Date();
+    itemCountByProduct.forEach((productId, itemCount) -> {
+      if (itemCount == 0) {
+        removedIds.add(productId);
+        return;
+      }
+      ProductModel product = products.get(productId);
+      changedFields.put(productId, priceFields(product).append("itemCount", itemCount).append("updatedAt", now));
+      newItems.add(toDocument(mongoTemplate.getConverter(), newItem(product, itemCount)));
+    });
+    AggregationUpdate update = setItemCountsUpdate(removedIds, changedFields, newItems, now);
+    try {
+      mongoTemplate.upsert(cartQuery(userId), update, EmbeddedCartModel.class);
+    } catch (DuplicateKeyException e) {
+      // a concurrent request created the cart first, it exists now
+      mongoTemplate.updateFirst(cartQuery(userId), update, EmbeddedCartModel.class);
+    }
+  }
+
+  @Override
+  public boolean clearItems(String userId) {
+    UpdateResult result = mongoTemplate.updateFirst(
+        cartQuery(userId), clearItemsUpdate(), EmbeddedCartModel.class);
+    return result.getMatchedCount() > 0;
+  }
+
+  @Override
+  public long repriceItems(ProductModel product) {
+    return mongoTemplate.updateMulti(
+        productQuery(product.getId()), repriceUpdate(product), EmbeddedCartModel.class).getModifiedCount();
+  }
+
+  @Override
+  public boolean recomputeTotals(String userId) {
+    return mongoTemplate.updateFirst(
+        cartQuery(userId), recomputeTotalsUpdate(), EmbeddedCartModel.class).getModifiedCount() > 0;
+  }
+
+  /**
+   * The cart as stored, only its items' _id, productId and itemCount and its totals, without
+   * mapping it to EmbeddedCartModel.
+   */
+  @Override
+  public Optional<Document> findLinesDocument(String userId) {
+    return Optional.ofNullable(mongoTemplate.findOne(
+        linesDocumentQuery(userId), Document.class, mongoTemplate.getCollectionName(EmbeddedCartModel.class)));
+  }
+
+  // read as plain documents, so the field names are the stored ones
+  static Query linesDocumentQuery(String userId) {
+    Query query = query(where("_id").is(userId));
+    query.fields().include("items._id", "items.productId", "items.itemCount", "totalMrpMinor", "totalDiscountMinor");
+    return query;
+  }
+
+  static Query cartQuery(String userId) {
+    return query(where("userId").is(userId));
+  }
+
+  static Query itemQuery(String userId, String productId) {
+    return query(where("userId").is(userId).and("items.productId").is(productId));
+  }
+
+  static Query missingItemQuery(String userId, String productId) {
+    return query(where("userId").is(userId).and("items.productId").ne(productId));
+  }
+
+  static Query productQuery(String productId) {
+    return query(where("items.productId").is(productId));
+  }
+
+  static EmbeddedCartItemModel newItem(ProductModel product, int itemCount) {
+    return EmbeddedCartItemModel.builder()
+        .id(new ObjectId().toHexString())
+        .productId(product.getId())
+        .itemCount(itemCount)
+        .mrpMinor(product.getMrp())
+        .discount(product.getDiscount())
+        .updatedAt(LocalDateTime.now())
+        .build();
+  }
+
+  // mapped like a regular save, without a _class hint
+  static Document toDocument(MongoConverter converter, EmbeddedCartItemModel item) {
+    return (Document) converter.convertToMongoType(item, TypeInformation.of(EmbeddedCartItemModel.class));
+  }
+
+  static AggregationUpdate setItemCountUpdate(ProductModel product, int itemCount) {
+    Date now = new Date();
+    Document fields = priceFields(product)
+        .append("itemCount", itemCount)
+        .append("updatedAt", now);
+    return pipeline(new Document("items", mapItem(product.getId(), fields)).append("updatedAt", now));
+  }
+
+  static AggregationUpdate pushItemUpdate(Document item) {
+    Date now = new Date();
+    Document items = new Document("$concatArrays", List.of(
+        new Document("$ifNull", Arrays.asList("$items", List.of())),
+        new Document("$literal", List.of(item))));
+    return pipeline(new Document("items", items)
+        .append("updatedAt", now)
+        .append("createdAt", new Document("$ifNull", Arrays.asList("$createdAt", now))));
+  }
+
+  static AggregationUpdate setItemCountsUpdate(
+      List<String> removedIds, Map<String, Document> changedFields, List<Document> newItems, Date now) {
+    Document items = new Document("$filter", new Document("input", new Document("$ifNull", Arrays.asList("$items", List.of())))
+        .append("as", "item")
+        .append("cond", new Document("$not", List.of(new Document("$in", Arrays.asList("$$item.productId", removedIds))))));
+    if (!changedFields.isEmpty()) {
+      List<Document> branches = new ArrayList<>();
+      changedFields.forEach((productId, fields) -> branches.add(
+          new Document("case", new Document("$eq", Arrays.asList("$$item.productId", productId)))
+              .append("then", new Document("$mergeObjects", Arrays.asList("$$item", new Document("$literal", fields))))));
+      items = new Document("$map", new Document("input", items)
+          .append("as", "item")
+          .append("in", new Document("$switch", new Document("branches", branches).append("default", "$$item"))));
+    }
+    // only products the cart does not hold yet are appended, lines added concurrently were updated above
+    Document added = new Document("$filter", new Document("input", new Document("$literal", newItems))
+        .append("as", "item")
+        .append("cond", new Document("$not", List.of(new Document("$in", Arrays.asList(
+            "$$item.productId", new Document("$ifNull", Arrays.asList("$items.productId", List.of()))))))));
+    return pipeline(new Document("items", new Document("$concatArrays", Arrays.asList(items, added)))
+        .append("updatedAt", now)
+        .append("createdAt", new Document("$ifNull", Arrays.asList("$createdAt", now))));
+  }
+
+  static AggregationUpdate pullItemUpdate(String productId) {
+    Document items = new Document("$filter", new Document("input", "$items")
+        .append("as", "item")
+        .append("cond", new Document("$ne", Arrays.asList("$$item.productId", productId))));
+    return pipeline(new Document("items", items).append("updatedAt", new Date()));
+  }
+
+  static AggregationUpdate clearItemsUpdate() {
+    return pipeline(new Document("items", new Document("$literal", List.of())).append("updatedAt", new Date()));
+  }
+
+  // a price change is not a cart change, updatedAt stays as it was
+  static AggregationUpdate repriceUpdate(ProductModel product) {
+    return pipeline(new Document("items", mapItem(product.getId(), priceFields(product))));
+  }
+
+  static AggregationUpdate recomputeTotalsUpdate() {
+    return AggregationUpdate.from(List.of(context -> TOTALS_STAGE)).set(bumpVersion());
+  }
+
+  private static AggregationUpdate pipeline(Document set) {
+    Document stage = new Document("$set", set);
+    return AggregationUpdate.from(List.of(context -> stage, context -> TOTALS_STAGE)).set(bumpVersion());
+  }
+
+  // set through the AggregationUpdate so MongoTemplate does not append its own $add, which stays null on carts without a version
+  private static SetOperation bumpVersion() {
+    return SetOperation.set("version").toValue(
+        ArithmeticOperators.valueOf(ConditionalOperators.ifNull("version").then(0)).add(1));
+  }
+
+  private static Document priceFields(ProductModel product) {
+    return new Document("mrpMinor", product.getMrp())
+        .append("discount", product.getDiscount());
+  }
+
+  // merge fields into the line of productId, leave the other lines as they are
+  private static Document mapItem(String productId, Document fields) {
+    Document in = new Document("$cond", Arrays.asList(
+        new Document("$eq", Arrays.asList("$$item.productId", productId)),
+        new Document("$mergeObjects", Arrays.asList("$$item", new Document("$literal", fields))),
+        "$$item"));
+    return new Document("$map", new Document("input", "$items").append("as", "item").append("in", in));
+  }
+
+  // same arithmetic as CartTotals: line mrp = mrpMinor * itemCount, discount rounded half up per line
+  private static Document totalsStage() {
+    Document lineMrp = new Document("$multiply", Arrays.asList(
+        new Document("$ifNull", Arrays.asList("$$item.mrpMinor", 0)),
+        new Document("$ifNull", Arrays.asList("$$item.itemCount", 0))));
+    Document lineDiscount = new Document("$toLong", new Document("$floor", new Document("$add", Arrays.asList(
+        new Document("$divide", Arrays.asList(
+            new Document("$multiply", Arrays.asList(lineMrp, new Document("$ifNull", Arrays.asList("$$item.discount", 0)))),
+            100)),
+        0.5))));
+    return new Document("$set", new Document("totalMrpMinor", new Document("$toLong", sumOverItems(lineMrp)))
+        .append("totalDiscountMinor", new Document("$toLong", sumOverItems(lineDiscount))));
+  }
+
+  private static Document sumOverItems(Document lineValue) {
+    return new Document("$sum", new Document("$map", new Document("input", new Document("$ifNull", Arrays.asList("$items", List.of())))
+        .append("as", "item")
+        .append("in", lineValue)));
+  }
+}
@@ -0,0 +1,8 @@
+package com.ecomapp.inventory_service.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.ecomapp.inventory_service.model.InventoryEventModel;
+
+public interface InventoryEventRepository extends MongoRepository<InventoryEventModel, String>, InventoryEventRepositoryCustom {
+}
@@ -0,0 +1,23 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.ecomapp.inventory_service.constant.InventoryEventTypeEnum;
+import com.ecomapp.inventory_service.model.InventoryEventModel;
+import com.ecomapp.inventory_service.model.InventoryEventRelayModel;
+
+public interface InventoryEventRepositoryCustom {
+  List<InventoryEventModel> findStaged(int limit);
+  boolean publish(List<InventoryEventModel> events, List<InventoryEventModel> staged, long firstSeq, LocalDateTime now);
+  List<InventoryEventModel> findPublished(long afterSeq, long throughSeq, int limit);
+  long compact(LocalDateTime publishedBefore);
+  long purge(Collection<InventoryEventTypeEnum> types, LocalDateTime publishedBefore);
+  boolean acquireLease(String owner, LocalDateTime now, LocalDateTime leaseUntil);
+  Optional<Long> allocate(String owner, int count, LocalDateTime now);
+  boolean commit(String owner, long throughSeq, LocalDateTime now);
+  Optional<Long> adoptPublished(String owner, LocalDateTime now);
+  Optional<InventoryEventRelayModel> findRelayState();
+}
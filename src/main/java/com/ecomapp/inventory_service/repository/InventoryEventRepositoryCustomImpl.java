@@ -0,0 +1,230 @@
+package com.ecomapp.inventory_service.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.ecomapp.inventory_service.constant.InventoryEventTypeEnum;
+import com.ecomapp.inventory_service.model.InventoryEventModel;
+import com.ecomapp.inventory_service.model.InventoryEventRelayModel;
+
+public class InventoryEventRepositoryCustomImpl implements InventoryEventRepositoryCustom {
+  private static final int COMPACT_BATCH_SIZE = 500;
+  private static final int DUPLICATE_KEY = 11000;
+
+  private final MongoTemplate mongoTemplate;
+
+  public InventoryEventRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Staged events in the order they were written (ObjectId order).
+   */
+  @Override
+  public List<InventoryEventModel> findStaged(int limit) {
+    return mongoTemplate.find(
+        query(where("staged").is(true)).with(Sort.by(Sort.Direction.ASC, "id")).limit(limit),
+        InventoryEventModel.class);
+  }
+
+  /**
+   * Insert events and publish staged ones, giving them the offsets from firstSeq on in that order.
+   * Returns false, having written nothing from the first conflict on, when an offset is already taken:
+   * another node was given the same offsets after this one lost the relay lease.
+   */
+  @Override
+  public boolean publish(List<InventoryEventModel> events, List<InventoryEventModel> staged, long firstSeq, LocalDateTime now) {
+    if (events.isEmpty() && staged.isEmpty()) {
+      return true;
+    }
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.ORDERED, InventoryEventModel.class);
+    long seq = firstSeq;
+    for (InventoryEventModel event : events) {
+      event.setSeq(seq++);
+      event.setPublishedAt(now);
+      bulk.insert(event);
+    }
+    for (InventoryEventModel event : staged) {
+      bulk.updateOne(query(where("id").is(event.getId())), new Update()
+          .set("seq", seq++)
+          .set("publishedAt", now)
+          .unset("staged"));
+    }
+    try {
+      bulk.execute();
+      return true;
+    } catch (BulkOperationException e) {
+      if (e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY)) {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public List<InventoryEventModel> findPublished(long afterSeq, long throughSeq, int limit) {
+    return mongoTemplate.find(
+        query(where("seq").gt(afterSeq).lte(throughSeq)).with(Sort.by(Sort.Direction.ASC, "seq")).limit(limit),
+        InventoryEventModel.class);
+  }
+
+  /**
+   * Remove the events published before publishedBefore that a later event of the same key supersedes.
+   * Returns how many were removed.
+   */
+  @Override
+  public long compact(LocalDateTime publishedBefore) {
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(where("publishedAt").lt(publishedBefore)),
+        Aggregation.group("key").max("seq").as("latest").count().as("count"),
+        Aggregation.match(where("count").gt(1)));
+    long removed = 0;
+    BulkOperations bulk = null;
+    int batched = 0;
+    for (Document group : mongoTemplate.aggregate(aggregation, InventoryEventModel.class, Document.class)) {
+      if (bulk == null) {
+        bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, InventoryEventModel.class);
+      }
+      bulk.remove(query(where("key").is(group.getString("_id")).and("seq").lt(((Number) group.get("latest")).longValue())));
+      if (++batched == COMPACT_BATCH_SIZE) {
+        removed += bulk.execute().getDeletedCount();
+        bulk = null;
+        batched = 0;
+      }
+    }
+    if (bulk != null) {
+      removed += bulk.execute().getDeletedCount();
+    }
+    return removed;
+  }
+
+  /**
+   * Remove the events of types published before publishedBefore and record the highest offset
+   * removed in the relay state. Returns how many were removed.
+   */
+  @Override
+  public long purge(Collection<InventoryEventTypeEnum> types, LocalDateTime publishedBefore) {
+    Criteria criteria = where("type").in(types).and("publishedAt").lt(publishedBefore);
+    Query newest = query(criteria).with(Sort.by(Sort.Direction.DESC, "seq")).limit(1);
+    newest.fields().include("seq");
+    InventoryEventModel last = mongoTemplate.findOne(newest, InventoryEventModel.class);
+    if (last == null) {
+      return 0;
+    }
+    // recorded first: a consumer must never resume past a removed event unnoticed
+    mongoTemplate.updateFirst(relayQuery(), new Update().max("purgedThrough", last.getSeq()), InventoryEventRelayModel.class);
+    return mongoTemplate.remove(query(criteria), InventoryEventModel.class).getDeletedCount();
+  }
+
+  /**
+   * Become (or stay) the relaying node until leaseUntil. Fails while another node's lease runs.
+   *
+   * A node taking over hands out offsets again from committed on. Offsets the previous owner allocated
+   * but never committed are reused, so if its batch still lands it collides with the new owner's on the
+   * unique seq index instead of appearing behind what consumers have already read.
+   */
+  @Override
+  public boolean acquireLease(String owner, LocalDateTime now, LocalDateTime leaseUntil) {
+    InventoryEventRelayModel previous;
+    try {
+      previous = mongoTemplate.findAndModify(
+          query(where("id").is(InventoryEventRelayModel.ID)
+              .orOperator(where("owner").is(owner), where("leaseUntil").lt(now))),
+          new Update()
+              .set("owner", owner)
+              .set("leaseUntil", leaseUntil)
+              .setOnInsert("allocated", 0L)
+              .setOnInsert("committed", 0L),
+          FindAndModifyOptions.options().upsert(true),
+          InventoryEventRelayModel.class);
+    } catch (DuplicateKeyException e) {
+      // the state document exists and another node holds the lease
+      return false;
+    }
+    if (previous != null && !owner.equals(previous.getOwner()) && previous.getCommitted() != null) {
+      // only the owner moves committed, so it can't have changed since the takeover
+      mongoTemplate.updateFirst(
+          ownedQuery(owner, now),
+          new Update().set("allocated", previous.getCommitted()),
+          InventoryEventRelayModel.class);
+    }
+    return true;
+  }
+
+  /**
+   * Reserve count offsets and return the first, or empty when owner no longer holds the relay lease.
+   */
+  @Override
+  public Optional<Long> allocate(String owner, int count, LocalDateTime now) {
+    InventoryEventRelayModel state = mongoTemplate.findAndModify(
+        ownedQuery(owner, now),
+        new Update().inc("allocated", count),
+        FindAndModifyOptions.options().returnNew(true),
+        InventoryEventRelayModel.class);
+    return state == null ? Optional.empty() : Optional.of(state.getAllocated() - count + 1);
+  }
+
+  /**
+   * Make the events up to throughSeq visible to consumers. Returns false when owner no longer holds
+   * the relay lease; the next owner reuses the offsets.
+   */
+  @Override
+  public boolean commit(String owner, long throughSeq, LocalDateTime now) {
+    return mongoTemplate.updateFirst(
+        ownedQuery(owner, now),
+        new Update().max("committed", throughSeq),
+        InventoryEventRelayModel.class).getMatchedCount() > 0;
+  }
+
+  /**
+   * Take over the events a previous owner published at offsets past committed: allocate and commit
+   * through the highest offset written. Returns it, or empty when owner no longer holds the relay lease.
+   */
+  @Override
+  public Optional<Long> adoptPublished(String owner, LocalDateTime now) {
+    Query highest = query(where("seq").exists(true)).with(Sort.by(Sort.Direction.DESC, "seq")).limit(1);
+    highest.fields().include("seq");
+    InventoryEventModel last = mongoTemplate.findOne(highest, InventoryEventModel.class);
+    if (last == null) {
+      return Optional.empty();
+    }
+    // the previous owner wrote its batch in order, so an offset below the highest that is still
+    // missing was given up on, and consumers treat it as a gap
+    boolean owned = mongoTemplate.updateFirst(
+        ownedQuery(owner, now),
+        new Update().max("allocated", last.getSeq()).max("committed", last.getSeq()),
+        InventoryEventRelayModel.class).getMatchedCount() > 0;
+    return owned ? Optional.of(last.getSeq()) : Optional.empty();
+  }
+
+  @Override
+  public Optional<InventoryEventRelayModel> findRelayState() {
+    return Optional.ofNullable(mongoTemplate.findOne(relayQuery(), InventoryEventRelayModel.class));
+  }
+
+  static Query relayQuery() {
+    return query(where("id").is(InventoryEventRelayModel.ID));
+  }
+
+  static Query ownedQuery(String owner, LocalDateTime now) {
+    return query(where("id").is(InventoryEventRelayModel.ID).and("owner").is(owner).and("leaseUntil").gt(now));
+  }
+}
@@ -0,0 +1,8 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.time.LocalDateTime;
+
+public interface JobLeaseRepositoryCustom {
+  boolean acquire(String job, String owner, LocalDateTime now, LocalDateTime leaseUntil);
+  void release(String job, String owner);
+}
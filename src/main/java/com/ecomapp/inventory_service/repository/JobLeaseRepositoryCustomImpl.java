@@ -0,0 +1,49 @@
+package com.ecomapp.inventory_service.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.ecomapp.inventory_service.model.JobLeaseModel;
+
+public class JobLeaseRepositoryCustomImpl implements JobLeaseRepositoryCustom {
+  private final MongoTemplate mongoTemplate;
+
+  public JobLeaseRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Take or renew the job's lease, like InventoryEventRepository.acquireLease: it is ours when we hold
+   * it already or the holder's has run out. Returns false when another node holds it.
+   */
+  @Override
+  public boolean acquire(String job, String owner, LocalDateTime now, LocalDateTime leaseUntil) {
+    try {
+      mongoTemplate.upsert(
+          query(where("id").is(job).orOperator(where("owner").is(owner), where("leaseUntil").lt(now))),
+          new Update().set("owner", owner).set("leaseUntil", leaseUntil),
+          JobLeaseModel.class);
+      return true;
+    } catch (DuplicateKeyException e) {
+      // the lease document exists and another node holds it
+      return false;
+    }
+  }
+
+  /**
+   * Give the lease up so another node doesn't wait for it to run out.
+   */
+  @Override
+  public void release(String job, String owner) {
+    mongoTemplate.updateFirst(
+        query(where("id").is(job).and("owner").is(owner)),
+        new Update().set("leaseUntil", LocalDateTime.now()),
+        JobLeaseModel.class);
+  }
+}
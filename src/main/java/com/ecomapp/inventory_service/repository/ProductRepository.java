@@ -6,5 +6,5 @@ import org.springframework.stereotype.Repository;
 import com.ecomapp.inventory_service.model.ProductModel;
 
 @Repository
-public interface ProductRepository extends MongoRepository<ProductModel, String> {
+public interface ProductRepository extends MongoRepository<ProductModel, String>, ProductRepositoryCustom {
 }
@@ -0,0 +1,38 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+
+import com.ecomapp.inventory_service.dto.ProductExportDto;
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.dto.ProductListingDto;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.mongodb.bulk.BulkWriteResult;
+
+public interface ProductRepositoryCustom {
+  Optional<ProductModel> reserveStock(String productId, int quantity);
+  void releaseStock(String productId, int quantity);
+  void releaseStock(Map<String, Long> quantityByProduct);
+  List<ProductListingDto> findListingPage(String categoryId, ProductFilterDto filter, String afterId, int limit);
+  List<ProductModel> findCatalogPage(String categoryId, ProductFilterDto filter, String afterId, int limit);
+  long countListing(String categoryId, ProductFilterDto filter);
+  List<ProductModel> findPricesByName(Collection<String> names);
+  BulkWriteResult upsertByName(List<ProductModel> products, BulkMode mode);
+  Stream<ProductExportDto> streamExport(String categoryId, ProductFilterDto filter);
+  boolean addImageUrls(String productId, List<String> imageUrls);
+  boolean updateDetails(ProductModel product, double quantityChange, Long expectedVersion);
+  List<String> findReferencedImageUrls(Collection<String> imageUrls);
+  Optional<ProductModel> findVersionFields(String productId);
+  List<ProductModel> findPendingEvents(int limit);
+  void ackPendingEvents(Map<String, Integer> relayedByProduct);
+  List<ProductListingDto> findListingsByIds(Collection<String> ids);
+  List<ProductModel> findSearchFields(Collection<String> ids);
+  Stream<ProductModel> streamSearchFields(String categoryId);
+  List<Document> findCartProductDocuments(Collection<String> ids);
+}
@@ -0,0 +1,370 @@
+package com.ecomapp.inventory_service.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.ecomapp.inventory_service.dto.ProductExportDto;
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.dto.ProductListingDto;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.util.MinorUnits;
+import com.mongodb.bulk.BulkWriteResult;
+
+/**
+ * ProductModel.version counts changes to what an admin edits, not stock movements: an edit moves the
+ * stock by the change of quantity with a $inc, never sets it, and stock changes far too often for a
+ * version to survive from a (cached) read to the edit. MongoTemplate bumps the version on its own for updateFirst
+ * and findAndModify, so stock updates name it with a $inc of 0 (see stockUpdate); bulk writes don't bump
+ * it, so the import increments it itself.
+ *
+ * Every write of price or stock also increments pendingEvents in the same update, which is what makes
+ * the inventory event outbox atomic with the write; the relay publishes the product and takes the
+ * count back (see InventoryEventService).
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+  private static final int EXPORT_CURSOR_BATCH_SIZE = 1000;
+
+  private final MongoTemplate mongoTemplate;
+
+  public ProductRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Atomically take stock from an active product.
+   * Returns the updated product, or empty when it is missing, inactive or has less than quantity left.
+   */
+  @Override
+  public Optional<ProductModel> reserveStock(String productId, int quantity) {
+    return Optional.ofNullable(mongoTemplate.findAndModify(
+        query(where("id").is(productId).and("isActive").is(true).and("availableStock").gte(quantity)),
+        stockUpdate(-quantity),
+        FindAndModifyOptions.options().returnNew(true),
+        ProductModel.class));
+  }
+
+  @Override
+  public void releaseStock(String productId, int quantity) {
+    mongoTemplate.updateFirst(
+        query(where("id").is(productId)),
+        stockUpdate(quantity),
+        ProductModel.class);
+  }
+
+  /**
+   * Give stock back to many products with a single unordered bulk write of $inc operations.
+   */
+  @Override
+  public void releaseStock(Map<String, Long> quantityByProduct) {
+    if (quantityByProduct.isEmpty()) {
+      return;
+    }
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, ProductModel.class);
+    quantityByProduct.forEach((productId, quantity) ->
+        bulk.updateOne(query(where("id").is(productId)), stockUpdate(quantity)));
+    bulk.execute();
+  }
+
+  /**
+   * Keyset page: products after afterId in (categoryId, _id) order, served by the categoryId_id index
+   * (or the _id index when categoryId is null). Deep pages cost the same as the first one.
+   */
+  @Override
+  public List<ProductListingDto> findListingPage(String categoryId, ProductFilterDto filter, String afterId, int limit) {
+    return mongoTemplate.query(ProductModel.class)
+        .as(ProductListingDto.class)
+        .matching(pageQuery(categoryId, filter, afterId, limit))
+        .all();
+  }
+
+  /**
+   * Same keyset page as findListingPage, with full documents.
+   */
+  @Override
+  public List<ProductModel> findCatalogPage(String categoryId, ProductFilterDto filter, String afterId, int limit) {
+    return mongoTemplate.find(pageQuery(categoryId, filter, afterId, limit), ProductModel.class);
+  }
+
+  @Override
+  public long countListing(String categoryId, ProductFilterDto filter) {
+    return mongoTemplate.count(new Query(listingCriteria(categoryId, filter)), ProductModel.class);
+  }
+
+  @Override
+  public List<ProductModel> findPricesByName(Collection<String> names) {
+    Query query = query(where("name").in(names));
+    query.fields().include("id", "name", "mrp", "discount");
+    return mongoTemplate.find(query, ProductModel.class);
+  }
+
+  /**
+   * Insert or update products matched by their unique name, in one bulk write.
+   * A BulkOperationException carries the per-row errors and the result of the rows that were written.
+   */
+  @Override
+  public BulkWriteResult upsertByName(List<ProductModel> products, BulkMode mode) {
+    BulkOperations bulk = mongoTemplate.bulkOps(mode, ProductModel.class);
+    LocalDateTime now = LocalDateTime.now();
+    for (ProductModel product : products) {
+      bulk.upsert(query(where("name").is(product.getName())), importUpdate(product, now, mongoTemplate.getConverter()));
+    }
+    return bulk.execute();
+  }
+
+  /**
+   * All products matching the filter in _id order, read through one cursor.
+   * The caller must close the stream. The call returns once the cursor is open, so the
+   * Mongo concurrency limit does not cover the time spent iterating.
+   */
+  @Override
+  public Stream<ProductExportDto> streamExport(String categoryId, ProductFilterDto filter) {
+    Query query = new Query(listingCriteria(categoryId, filter))
+        .with(Sort.by(Sort.Direction.ASC, "id"))
+        .cursorBatchSize(EXPORT_CURSOR_BATCH_SIZE);
+    return mongoTemplate.query(ProductModel.class)
+        .as(ProductExportDto.class)
+        .matching(query)
+        .stream();
+  }
+
+  /**
+   * Append image urls with a single $addToSet, so concurrent uploads for the same product all keep their
+   * images and a content-addressed image uploaded twice is listed once.
+   * Returns false when the product does not exist.
+   */
+  @Override
+  public boolean addImageUrls(String productId, List<String> imageUrls) {
+    return mongoTemplate.updateFirst(
+        query(where("id").is(productId)),
+        new Update().addToSet("imageUrls").each(imageUrls.toArray()).set("updatedAt", LocalDateTime.now()),
+        ProductModel.class).getMatchedCount() > 0;
+  }
+
+  /**
+   * Write the editable fields of product with one $set, if the stored product still has expectedVersion
+   * (null matches products written before versions existed). Images are left alone and availableStock
+   * moves by quantityChange, it is never set: what reservations hold stays taken.
+   * Returns false when the product was changed or deleted since it was read.
+   */
+  @Override
+  public boolean updateDetails(ProductModel product, double quantityChange, Long expectedVersion) {
+    return mongoTemplate.updateFirst(
+        versionedQuery(product.getId(), expectedVersion),
+        detailsUpdate(product, quantityChange, LocalDateTime.now()),
+        ProductModel.class)
+        .getMatchedCount() > 0;
+  }
+
+  /**
+   * Listing fields of the products with the given ids, in no particular order.
+   */
+  @Override
+  public List<ProductListingDto> findListingsByIds(Collection<String> ids) {
+    return mongoTemplate.query(ProductModel.class)
+        .as(ProductListingDto.class)
+        .matching(query(where("id").in(ids)))
+        .all();
+  }
+
+  /**
+   * The fields ProductSearchService indexes, of the products with the given ids.
+   */
+  @Override
+  public List<ProductModel> findSearchFields(Collection<String> ids) {
+    return mongoTemplate.find(searchFieldsQuery(where("id").in(ids)), ProductModel.class);
+  }
+
+  /**
+   * The products with the given ids as stored, with only the fields of a gRPC CartProduct.
+   */
+  @Override
+  public List<Document> findCartProductDocuments(Collection<String> ids) {
+    return mongoTemplate.find(cartProductsQuery(ids), Document.class, mongoTemplate.getCollectionName(ProductModel.class));
+  }
+
+  /**
+   * The fields ProductSearchService indexes, of all products or those of one category, through one
+   * cursor. The caller must close the stream.
+   */
+  @Override
+  public Stream<ProductModel> streamSearchFields(String categoryId) {
+    Criteria criteria = categoryId != null ? where("categoryId").is(categoryId) : new Criteria();
+    return mongoTemplate.stream(searchFieldsQuery(criteria).cursorBatchSize(EXPORT_CURSOR_BATCH_SIZE), ProductModel.class);
+  }
+
+  /**
+   * The urls of imageUrls that at least one product still references.
+   */
+  @Override
+  public List<String> findReferencedImageUrls(Collection<String> imageUrls) {
+    return mongoTemplate.findDistinct(query(where("imageUrls").in(imageUrls)), "imageUrls", ProductModel.class, String.class)
+        .stream()
+        .filter(imageUrls::contains)
+        .toList();
+  }
+
+  /**
+   * Only the fields a product read's CatalogVersion is computed from, for conditional GETs.
+   */
+  @Override
+  public Optional<ProductModel> findVersionFields(String productId) {
+    return Optional.ofNullable(mongoTemplate.findOne(versionFieldsQuery(productId), ProductModel.class));
+  }
+
+  /**
+   * Products with price or stock writes not yet relayed, with the fields an inventory event carries.
+   */
+  @Override
+  public List<ProductModel> findPendingEvents(int limit) {
+    Query query = query(where("pendingEvents").gt(0)).limit(limit);
+    query.fields().include("mrp", "discount", "availableStock", "isActive", "version", "pendingEvents");
+    return mongoTemplate.find(query, ProductModel.class);
+  }
+
+  /**
+   * Take back the pending counts the relay published. Writes made since keep the count above zero,
+   * so those products are published again.
+   */
+  @Override
+  public void ackPendingEvents(Map<String, Integer> relayedByProduct) {
+    if (relayedByProduct.isEmpty()) {
+      return;
+    }
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, ProductModel.class);
+    relayedByProduct.forEach((productId, relayed) ->
+        bulk.updateOne(query(where("id").is(productId)), new Update().inc("pendingEvents", -relayed)));
+    bulk.execute();
+  }
+
+  /**
+   * The import row as a pipeline update, so that an existing product's stock moves by the change of its
+   * quantity (like detailsUpdate) instead of being reset: stock lent to reservations and ledger leases stays
+   * lent. A new product takes the row's availableStock. Existing products keep their images, active flag
+   * and creation date. Values go in as $literal, a description starting with $ is not a field path.
+   */
+  static AggregationUpdate importUpdate(ProductModel product, LocalDateTime now, MongoConverter converter) {
+    Document set = new Document()
+        .append("description", literal(product.getDescription(), converter))
+        .append("categoryId", literal(product.getCategoryId(), converter))
+        .append("mrp", literal(product.getMrp(), converter))
+        .append("discount", literal(product.getDiscount(), converter))
+        .append("quantity", literal(product.getQuantity(), converter))
+        .append("availableStock", new Document("$cond", List.of(
+            new Document("$eq", List.of(new Document("$type", "$quantity"), "missing")),
+            literal(product.getAvailableStock(), converter),
+            new Document("$add", List.of(
+                new Document("$ifNull", List.of("$availableStock", 0)),
+                new Document("$subtract", List.of(literal(product.getQuantity(), converter), "$quantity")))))))
+        .append("unit", literal(product.getUnit(), converter))
+        .append("updatedAt", literal(now, converter))
+        .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L)))
+        .append("pendingEvents", new Document("$add", List.of(new Document("$ifNull", List.of("$pendingEvents", 0)), 1)))
+        .append("isActive", new Document("$ifNull", List.of("$isActive", true)))
+        .append("imageUrls", new Document("$ifNull", List.of("$imageUrls", List.of())))
+        .append("createdAt", new Document("$ifNull", List.of("$createdAt", literal(now, converter))));
+    return AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+  }
+
+  private static Document literal(Object value, MongoConverter converter) {
+    return new Document("$literal", converter.convertToMongoType(value));
+  }
+
+  // an update that touches the version keeps MongoTemplate from incrementing it
+  static Update stockUpdate(long quantity) {
+    return new Update().inc("availableStock", quantity).inc("version", 0).inc("pendingEvents", 1);
+  }
+
+  static Query versionedQuery(String productId, Long expectedVersion) {
+    return query(where("id").is(productId).and("version").is(expectedVersion));
+  }
+
+  // stock moves by the change of quantity, reservations and ledger leases keep what they hold; the
+  // version guard makes quantityChange the change from the stored quantity
+  static Update detailsUpdate(ProductModel product, double quantityChange, LocalDateTime now) {
+    return new Update()
+        .set("name", product.getName())
+        .set("description", product.getDescription())
+        .set("mrp", product.getMrp())
+        .set("discount", product.getDiscount())
+        .set("quantity", product.getQuantity())
+        .inc("availableStock", quantityChange)
+        .set("unit", product.getUnit())
+        .set("updatedAt", now)
+        .inc("version", 1)
+        .inc("pendingEvents", 1);
+  }
+
+  static Query searchFieldsQuery(Criteria criteria) {
+    Query query = new Query(criteria);
+    query.fields().include("name", "description", "categoryId", "isActive", "mrp", "unit");
+    return query;
+  }
+
+  // the fields of a gRPC CartProduct, read as plain documents, so the field names are the stored ones
+  static Query cartProductsQuery(Collection<String> ids) {
+    Query query = query(where("_id").in(ids));
+    query.fields().include(
+        "categoryId", "name", "description", "imageUrls", "isActive", "mrp", "discount", "quantity", "availableStock", "unit");
+    return query;
+  }
+
+  static Query versionFieldsQuery(String productId) {
+    Query query = query(where("id").is(productId));
+    query.fields().include("categoryId", "availableStock", "version");
+    return query;
+  }
+
+  static Query pageQuery(String categoryId, ProductFilterDto filter, String afterId, int limit) {
+    Criteria criteria = listingCriteria(categoryId, filter);
+    if (afterId != null) {
+      criteria.and("id").gt(afterId);
+    }
+    Sort sort = categoryId != null
+        ? Sort.by(Sort.Direction.ASC, "categoryId", "id")
+        : Sort.by(Sort.Direction.ASC, "id");
+    return new Query(criteria).with(sort).limit(limit);
+  }
+
+  static Criteria listingCriteria(String categoryId, ProductFilterDto filter) {
+    Criteria criteria = new Criteria();
+    if (categoryId != null) {
+      criteria.and("categoryId").is(categoryId);
+    }
+    if (filter.getIsActive() != null) {
+      criteria.and("isActive").is(filter.getIsActive());
+    }
+    if (filter.getMinPrice() != null || filter.getMaxPrice() != null) {
+      // bounds in minor units like ProductModel.mrp, its value converter maps them to the stored amount
+      Criteria mrp = criteria.and("mrp");
+      if (filter.getMinPrice() != null) {
+        mrp.gte(MinorUnits.of(filter.getMinPrice()));
+      }
+      if (filter.getMaxPrice() != null) {
+        mrp.lte(MinorUnits.of(filter.getMaxPrice()));
+      }
+    }
+    if (filter.getUnit() != null) {
+      criteria.and("unit").is(filter.getUnit());
+    }
+    return criteria;
+  }
+}
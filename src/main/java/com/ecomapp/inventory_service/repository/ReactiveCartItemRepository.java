@@ -0,0 +1,16 @@
+package com.ecomapp.inventory_service.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import com.ecomapp.inventory_service.model.CartItemModel;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCartItemRepository extends ReactiveMongoRepository<CartItemModel, String>, ReactiveCartItemRepositoryCustom {
+  Mono<CartItemModel> findByUserIdAndProductId(String userId, String productId);
+  Flux<CartItemModel> findByUserId(String userId);
+  Mono<Long> deleteByUserIdAndProductId(String userId, String productId);
+  Mono<Long> deleteAllByUserId(String userId);
+  Mono<Long> deleteByUserIdAndCartIdNot(String userId, String cartId);
+}
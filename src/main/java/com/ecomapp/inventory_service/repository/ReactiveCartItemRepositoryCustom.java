@@ -0,0 +1,12 @@
+package com.ecomapp.inventory_service.repository;
+
+import org.bson.Document;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCartItemRepositoryCustom {
+  Mono<Boolean> setItemCount(String userId, String cartId, String productId, int itemCount);
+  Mono<Long> assignUserId(String cartId, String userId);
+  Flux<Document> findLineDocuments(String userId);
+}
@@ -0,0 +1,48 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.time.LocalDateTime;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.mongodb.client.result.UpdateResult;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of CartItemRepositoryCustomImpl.setItemCount, assignUserIds and
+ * findLineDocuments, same queries and updates.
+ */
+public class ReactiveCartItemRepositoryCustomImpl implements ReactiveCartItemRepositoryCustom {
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public ReactiveCartItemRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+  }
+
+  @Override
+  public Mono<Boolean> setItemCount(String userId, String cartId, String productId, int itemCount) {
+    return reactiveMongoTemplate.updateFirst(
+            CartItemRepositoryCustomImpl.itemQuery(userId, productId),
+            CartItemRepositoryCustomImpl.itemCountUpdate(cartId, itemCount, LocalDateTime.now()),
+            CartItemModel.class)
+        .map(result -> result.getMatchedCount() > 0);
+  }
+
+  @Override
+  public Mono<Long> assignUserId(String cartId, String userId) {
+    return reactiveMongoTemplate.updateMulti(
+            CartItemRepositoryCustomImpl.unassignedLinesQuery(cartId),
+            CartItemRepositoryCustomImpl.assignUserIdUpdate(userId),
+            CartItemModel.class)
+        .map(UpdateResult::getModifiedCount);
+  }
+
+  @Override
+  public Flux<Document> findLineDocuments(String userId) {
+    return reactiveMongoTemplate.find(CartItemRepositoryCustomImpl.lineDocumentsQuery(userId),
+        Document.class, reactiveMongoTemplate.getCollectionName(CartItemModel.class));
+  }
+}
@@ -0,0 +1,11 @@
+package com.ecomapp.inventory_service.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import com.ecomapp.inventory_service.model.CartModel;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCartRepository extends ReactiveMongoRepository<CartModel, String>, ReactiveCartRepositoryCustom {
+  Mono<CartModel> findByUserId(String userId);
+}
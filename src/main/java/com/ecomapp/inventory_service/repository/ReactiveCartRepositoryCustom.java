@@ -0,0 +1,9 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.time.LocalDateTime;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCartRepositoryCustom {
+  Mono<Void> touch(String userId, LocalDateTime now);
+}
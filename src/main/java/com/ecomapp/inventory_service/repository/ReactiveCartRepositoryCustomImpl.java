@@ -0,0 +1,29 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import com.ecomapp.inventory_service.model.CartModel;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of CartRepositoryCustomImpl, same queries and updates.
+ */
+public class ReactiveCartRepositoryCustomImpl implements ReactiveCartRepositoryCustom {
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public ReactiveCartRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+  }
+
+  @Override
+  public Mono<Void> touch(String userId, LocalDateTime now) {
+    return reactiveMongoTemplate.updateFirst(
+            CartRepositoryCustomImpl.cartQuery(userId),
+            CartRepositoryCustomImpl.touchUpdate(now),
+            CartModel.class)
+        .then();
+  }
+}
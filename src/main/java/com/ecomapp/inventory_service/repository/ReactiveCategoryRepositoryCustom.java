@@ -0,0 +1,9 @@
+package com.ecomapp.inventory_service.repository;
+
+import com.ecomapp.inventory_service.model.CategoryModel;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCategoryRepositoryCustom {
+  Mono<Boolean> updateDetails(CategoryModel category, Long expectedVersion);
+}
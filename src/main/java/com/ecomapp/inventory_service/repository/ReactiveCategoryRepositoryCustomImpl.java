@@ -0,0 +1,29 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import com.ecomapp.inventory_service.model.CategoryModel;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of the updates in CategoryRepositoryCustomImpl, built from the same builders.
+ */
+public class ReactiveCategoryRepositoryCustomImpl implements ReactiveCategoryRepositoryCustom {
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public ReactiveCategoryRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+  }
+
+  @Override
+  public Mono<Boolean> updateDetails(CategoryModel category, Long expectedVersion) {
+    return reactiveMongoTemplate.updateFirst(
+            CategoryRepositoryCustomImpl.versionedQuery(category.getId(), expectedVersion),
+            CategoryRepositoryCustomImpl.detailsUpdate(category, LocalDateTime.now()),
+            CategoryModel.class)
+        .map(result -> result.getMatchedCount() > 0);
+  }
+}
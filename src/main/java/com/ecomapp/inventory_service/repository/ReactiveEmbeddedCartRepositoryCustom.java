@@ -0,0 +1,15 @@
+package com.ecomapp.inventory_service.repository;
+
+import org.bson.Document;
+
+import com.ecomapp.inventory_service.model.ProductModel;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveEmbeddedCartRepositoryCustom {
+  Mono<Boolean> setItemCount(String userId, ProductModel product, int itemCount);
+  Mono<Boolean> pushItem(String userId, ProductModel product, int itemCount);
+  Mono<Boolean> pullItem(String userId, String productId);
+  Mono<Boolean> clearItems(String userId);
+  Mono<Document> findLinesDocument(String userId);
+}
@@ -0,0 +1,66 @@
+package com.ecomapp.inventory_service.repository;
+
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import com.ecomapp.inventory_service.model.EmbeddedCartModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of EmbeddedCartRepositoryCustomImpl, same single-statement updates.
+ */
+public class ReactiveEmbeddedCartRepositoryCustomImpl implements ReactiveEmbeddedCartRepositoryCustom {
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public ReactiveEmbeddedCartRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+  }
+
+  @Override
+  public Mono<Boolean> setItemCount(String userId, ProductModel product, int itemCount) {
+    return reactiveMongoTemplate.updateFirst(
+            EmbeddedCartRepositoryCustomImpl.itemQuery(userId, product.getId()),
+            EmbeddedCartRepositoryCustomImpl.setItemCountUpdate(product, itemCount),
+            EmbeddedCartModel.class)
+        .map(result -> result.getMatchedCount() > 0);
+  }
+
+  @Override
+  public Mono<Boolean> pushItem(String userId, ProductModel product, int itemCount) {
+    return reactiveMongoTemplate.upsert(
+            EmbeddedCartRepositoryCustomImpl.missingItemQuery(userId, product.getId()),
+            EmbeddedCartRepositoryCustomImpl.pushItemUpdate(EmbeddedCartRepositoryCustomImpl.toDocument(
+                reactiveMongoTemplate.getConverter(), EmbeddedCartRepositoryCustomImpl.newItem(product, itemCount))),
+            EmbeddedCartModel.class)
+        .map(result -> result.getMatchedCount() > 0 || result.getUpsertedId() != null)
+        // cart exists and already holds this product, the upsert tried to insert a second cart
+        .onErrorReturn(DuplicateKeyException.class, false);
+  }
+
+  @Override
+  public Mono<Boolean> pullItem(String userId, String productId) {
+    return reactiveMongoTemplate.updateFirst(
+            EmbeddedCartRepositoryCustomImpl.itemQuery(userId, productId),
+            EmbeddedCartRepositoryCustomImpl.pullItemUpdate(productId),
+            EmbeddedCartModel.class)
+        .map(result -> result.getModifiedCount() > 0);
+  }
+
+  @Override
+  public Mono<Boolean> clearItems(String userId) {
+    return reactiveMongoTemplate.updateFirst(
+            EmbeddedCartRepositoryCustomImpl.cartQuery(userId),
+            EmbeddedCartRepositoryCustomImpl.clearItemsUpdate(),
+            EmbeddedCartModel.class)
+        .map(result -> result.getMatchedCount() > 0);
+  }
+
+  @Override
+  public Mono<Document> findLinesDocument(String userId) {
+    return reactiveMongoTemplate.findOne(EmbeddedCartRepositoryCustomImpl.linesDocumentQuery(userId),
+        Document.class, reactiveMongoTemplate.getCollectionName(EmbeddedCartModel.class));
+  }
+}
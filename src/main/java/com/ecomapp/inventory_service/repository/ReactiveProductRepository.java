@@ -0,0 +1,8 @@
+package com.ecomapp.inventory_service.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import com.ecomapp.inventory_service.model.ProductModel;
+
+public interface ReactiveProductRepository extends ReactiveMongoRepository<ProductModel, String>, ReactiveProductRepositoryCustom {
+}
@@ -0,0 +1,21 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.util.Collection;
+
+import org.bson.Document;
+
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.dto.ProductListingDto;
+import com.ecomapp.inventory_service.model.ProductModel;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveProductRepositoryCustom {
+  Flux<ProductListingDto> findListingPage(String categoryId, ProductFilterDto filter, String afterId, int limit);
+  Mono<Long> countListing(String categoryId, ProductFilterDto filter);
+  Mono<ProductModel> findVersionFields(String productId);
+  Flux<ProductListingDto> findListingsByIds(Collection<String> ids);
+  Mono<Boolean> updateDetails(ProductModel product, double quantityChange, Long expectedVersion);
+  Flux<Document> findCartProductDocuments(Collection<String> ids);
+}
@@ -0,0 +1,71 @@
+package com.ecomapp.inventory_service.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.dto.ProductListingDto;
+import com.ecomapp.inventory_service.model.ProductModel;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of queries and updates in ProductRepositoryCustomImpl, built from the same builders.
+ */
+public class ReactiveProductRepositoryCustomImpl implements ReactiveProductRepositoryCustom {
+  private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+  public ReactiveProductRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+    this.reactiveMongoTemplate = reactiveMongoTemplate;
+  }
+
+  @Override
+  public Flux<ProductListingDto> findListingPage(String categoryId, ProductFilterDto filter, String afterId, int limit) {
+    return reactiveMongoTemplate.query(ProductModel.class)
+        .as(ProductListingDto.class)
+        .matching(ProductRepositoryCustomImpl.pageQuery(categoryId, filter, afterId, limit))
+        .all();
+  }
+
+  @Override
+  public Mono<Long> countListing(String categoryId, ProductFilterDto filter) {
+    return reactiveMongoTemplate.count(
+        new Query(ProductRepositoryCustomImpl.listingCriteria(categoryId, filter)), ProductModel.class);
+  }
+
+  @Override
+  public Mono<ProductModel> findVersionFields(String productId) {
+    return reactiveMongoTemplate.findOne(ProductRepositoryCustomImpl.versionFieldsQuery(productId), ProductModel.class);
+  }
+
+  @Override
+  public Flux<ProductListingDto> findListingsByIds(Collection<String> ids) {
+    return reactiveMongoTemplate.query(ProductModel.class)
+        .as(ProductListingDto.class)
+        .matching(query(where("id").in(ids)))
+        .all();
+  }
+
+  @Override
+  public Mono<Boolean> updateDetails(ProductModel product, double quantityChange, Long expectedVersion) {
+    return reactiveMongoTemplate.updateFirst(
+            ProductRepositoryCustomImpl.versionedQuery(product.getId(), expectedVersion),
+            ProductRepositoryCustomImpl.detailsUpdate(product, quantityChange, LocalDateTime.now()),
+            ProductModel.class)
+        .map(result -> result.getMatchedCount() > 0);
+  }
+
+  @Override
+  public Flux<Document> findCartProductDocuments(Collection<String> ids) {
+    return reactiveMongoTemplate.find(ProductRepositoryCustomImpl.cartProductsQuery(ids),
+        Document.class, reactiveMongoTemplate.getCollectionName(ProductModel.class));
+  }
+}
@@ -0,0 +1,15 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.ecomapp.inventory_service.constant.ReservationStatusEnum;
+import com.ecomapp.inventory_service.model.ReservationModel;
+
+public interface ReservationRepository extends MongoRepository<ReservationModel, String>, ReservationRepositoryCustom {
+  List<ReservationModel> findByUserIdAndStatus(String userId, ReservationStatusEnum status);
+  List<ReservationModel> findByStatusAndExpiresAtBefore(ReservationStatusEnum status, LocalDateTime time, Pageable pageable);
+}
@@ -0,0 +1,15 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import com.ecomapp.inventory_service.constant.ReservationStatusEnum;
+import com.ecomapp.inventory_service.model.ReservationModel;
+
+public interface ReservationRepositoryCustom {
+  Optional<ReservationModel> holdQuantity(String userId, String productId, int quantity, LocalDateTime expiresAt);
+  void restoreQuantity(String userId, String productId, int quantity, Integer previousQuantity);
+  Optional<ReservationModel> finishActive(String userId, String productId, ReservationStatusEnum status, LocalDateTime purgeAt);
+  Optional<ReservationModel> finishActive(String reservationId, ReservationStatusEnum status, LocalDateTime purgeAt);
+  Optional<ReservationModel> expireIfDue(String reservationId, LocalDateTime now, LocalDateTime purgeAt);
+}
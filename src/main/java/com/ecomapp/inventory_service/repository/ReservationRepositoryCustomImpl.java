@@ -0,0 +1,107 @@
+package com.ecomapp.inventory_service.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.ecomapp.inventory_service.constant.ReservationStatusEnum;
+import com.ecomapp.inventory_service.model.ReservationModel;
+
+public class ReservationRepositoryCustomImpl implements ReservationRepositoryCustom {
+  private final MongoTemplate mongoTemplate;
+
+  public ReservationRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Set the held quantity of the user's active reservation for a product, creating it if needed.
+   * Returns the reservation as it was before the update (empty when it was just created).
+   */
+  @Override
+  public Optional<ReservationModel> holdQuantity(String userId, String productId, int quantity, LocalDateTime expiresAt) {
+    LocalDateTime now = LocalDateTime.now();
+    Update update = new Update()
+        .set("quantity", quantity)
+        .set("expiresAt", expiresAt)
+        .set("updatedAt", now)
+        .setOnInsert("createdAt", now);
+    FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(false);
+    try {
+      return Optional.ofNullable(mongoTemplate.findAndModify(activeQuery(userId, productId), update, options, ReservationModel.class));
+    } catch (DuplicateKeyException e) {
+      // lost the race to create the reservation, the retry updates the winner's document
+      return Optional.ofNullable(mongoTemplate.findAndModify(activeQuery(userId, productId), update, options, ReservationModel.class));
+    }
+  }
+
+  /**
+   * Undo a holdQuantity call, only if nobody has changed the reservation since.
+   */
+  @Override
+  public void restoreQuantity(String userId, String productId, int quantity, Integer previousQuantity) {
+    Query query = activeQuery(userId, productId).addCriteria(where("quantity").is(quantity));
+    if (previousQuantity == null) {
+      mongoTemplate.remove(query, ReservationModel.class);
+      return;
+    }
+    mongoTemplate.updateFirst(query, new Update().set("quantity", previousQuantity), ReservationModel.class);
+  }
+
+  /**
+   * Move the user's active reservation for a product to a final status.
+   * Returns the reservation only to the caller that performed the transition.
+   */
+  @Override
+  public Optional<ReservationModel> finishActive(String userId, String productId, ReservationStatusEnum status, LocalDateTime purgeAt) {
+    return Optional.ofNullable(mongoTemplate.findAndModify(
+        activeQuery(userId, productId), finishUpdate(status, purgeAt), returnNew(), ReservationModel.class));
+  }
+
+  @Override
+  public Optional<ReservationModel> finishActive(String reservationId, ReservationStatusEnum status, LocalDateTime purgeAt) {
+    return Optional.ofNullable(mongoTemplate.findAndModify(
+        query(where("id").is(reservationId).and("status").is(ReservationStatusEnum.ACTIVE)),
+        finishUpdate(status, purgeAt),
+        returnNew(),
+        ReservationModel.class));
+  }
+
+  /**
+   * Expire an active reservation whose expiresAt has passed. A reservation that holdQuantity refreshed
+   * after the sweeper read it is left active.
+   */
+  @Override
+  public Optional<ReservationModel> expireIfDue(String reservationId, LocalDateTime now, LocalDateTime purgeAt) {
+    return Optional.ofNullable(mongoTemplate.findAndModify(
+        query(where("id").is(reservationId).and("status").is(ReservationStatusEnum.ACTIVE).and("expiresAt").lt(now)),
+        finishUpdate(ReservationStatusEnum.EXPIRED, purgeAt),
+        returnNew(),
+        ReservationModel.class));
+  }
+
+  private Query activeQuery(String userId, String productId) {
+    return query(where("userId").is(userId)
+        .and("productId").is(productId)
+        .and("status").is(ReservationStatusEnum.ACTIVE));
+  }
+
+  private FindAndModifyOptions returnNew() {
+    return FindAndModifyOptions.options().returnNew(true);
+  }
+
+  private Update finishUpdate(ReservationStatusEnum status, LocalDateTime purgeAt) {
+    return new Update()
+        .set("status", status)
+        .set("purgeAt", purgeAt)
+        .set("updatedAt", LocalDateTime.now());
+  }
+}
@@ -0,0 +1,11 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.ecomapp.inventory_service.model.StockEscrowModel;
+
+public interface StockEscrowRepository extends MongoRepository<StockEscrowModel, String>, StockEscrowRepositoryCustom {
+  List<StockEscrowModel> findByNodeId(String nodeId);
+}
@@ -0,0 +1,13 @@
+package com.ecomapp.inventory_service.repository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import com.ecomapp.inventory_service.model.StockEscrowModel;
+
+public interface StockEscrowRepositoryCustom {
+  void addUnits(String nodeId, String productId, long units, LocalDateTime expiresAt);
+  void incUnits(String nodeId, Map<String, Long> deltaByProduct, LocalDateTime expiresAt);
+  Optional<StockEscrowModel> claimExpired(LocalDateTime now);
+}
@@ -0,0 +1,65 @@
+package com.ecomapp.inventory_service.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.ecomapp.inventory_service.model.StockEscrowModel;
+
+public class StockEscrowRepositoryCustomImpl implements StockEscrowRepositoryCustom {
+  private final MongoTemplate mongoTemplate;
+
+  public StockEscrowRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public void addUnits(String nodeId, String productId, long units, LocalDateTime expiresAt) {
+    mongoTemplate.upsert(
+        query(where("id").is(nodeId + ":" + productId)),
+        new Update()
+            .inc("units", units)
+            .set("expiresAt", expiresAt)
+            .setOnInsert("nodeId", nodeId)
+            .setOnInsert("productId", productId),
+        StockEscrowModel.class);
+  }
+
+  /**
+   * Change the units this node holds per product by the given deltas and renew its records in one
+   * bulk write, dropping records that reached zero. Only $inc, so concurrent addUnits calls are never lost.
+   */
+  @Override
+  public void incUnits(String nodeId, Map<String, Long> deltaByProduct, LocalDateTime expiresAt) {
+    if (deltaByProduct.isEmpty()) {
+      return;
+    }
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.ORDERED, StockEscrowModel.class);
+    deltaByProduct.forEach((productId, delta) -> bulk.upsert(
+        query(where("id").is(nodeId + ":" + productId)),
+        new Update()
+            .inc("units", delta)
+            .set("expiresAt", expiresAt)
+            .setOnInsert("nodeId", nodeId)
+            .setOnInsert("productId", productId)));
+    bulk.remove(query(where("nodeId").is(nodeId).and("units").lte(0)));
+    bulk.execute();
+  }
+
+  /**
+   * Atomically take over one escrow record whose node stopped renewing it.
+   */
+  @Override
+  public Optional<StockEscrowModel> claimExpired(LocalDateTime now) {
+    return Optional.ofNullable(mongoTemplate.findAndRemove(
+        query(where("expiresAt").lt(now)), StockEscrowModel.class));
+  }
+}
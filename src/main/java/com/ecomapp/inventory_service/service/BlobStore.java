@@ -0,0 +1,62 @@
+package com.ecomapp.inventory_service.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Where uploaded files live, addressed by key ("product/sha256/ab12....png").
+ * storage.backend picks the implementation: FILESYSTEM (FileSystemBlobStore, the default) or
+ * S3 (S3BlobStore, any S3 compatible service). Clients load files from publicUrl(key).
+ */
+public interface BlobStore {
+  record BlobInfo(String key, long size, Instant lastModified) { }
+
+  record PresignedUpload(String url, String method, Map<String, List<String>> headers, Instant expiresAt) { }
+
+  /**
+   * Store file under key, replacing what is there. The file is consumed: it is moved into the
+   * store or deleted once uploaded. cacheControl may be null.
+   */
+  void put(String key, Path file, String contentType, String cacheControl) throws IOException;
+
+  Optional<BlobInfo> stat(String key) throws IOException;
+
+  /**
+   * Set the last modified time of key to now. Returns false when there is no such blob (any more),
+   * the caller has to put it again then.
+   */
+  boolean touch(String key) throws IOException;
+
+  InputStream open(String key) throws IOException;
+
+  void delete(String key) throws IOException;
+
+  /**
+   * Delete key unless it was put or touched after cutoff; returns whether it was deleted. A put or
+   * touch racing with the delete either keeps the blob or finds it gone (touch returns false).
+   */
+  boolean deleteIfUnmodifiedSince(String key, Instant cutoff) throws IOException;
+
+  /**
+   * Files directly under prefix (a "directory" ending in /), not in nested directories.
+   */
+  List<BlobInfo> list(String prefix) throws IOException;
+
+  String publicUrl(String key);
+
+  /**
+   * A url clients can PUT the file to themselves, bypassing this service, or empty when the
+   * backend cannot do that. sha256Base64 is checked by the store when not null.
+   */
+  Optional<PresignedUpload> presignPut(String key, String contentType, String sha256Base64);
+
+  /**
+   * The local file of key, when the backend keeps files on this machine.
+   */
+  Optional<Path> localPath(String key);
+}
@@ -0,0 +1,338 @@
+package com.ecomapp.inventory_service.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.model.CartModel;
+import com.ecomapp.inventory_service.model.EmbeddedCartModel;
+import com.ecomapp.inventory_service.repository.CartItemRepository;
+import com.ecomapp.inventory_service.repository.CartRepository;
+import com.ecomapp.inventory_service.repository.JobLeaseRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reclaims abandoned carts.
+ *
+ * cart and user_cart documents expire through a TTL index on updatedAt, cart.expiry.ttl-days after
+ * the cart last changed (CartService moves the updatedAt of a legacy cart when it is written). The
+ * index is kept here instead of on the models because its expiry is configurable; a changed
+ * ttl-days is applied to the existing index with collMod, and 0 (the default) drops it.
+ *
+ * Expiring a legacy cart leaves its cart_item lines behind; carts read without a cart document show
+ * none of them. The compactor walks cart_item in _id order and deletes the lines whose user has no
+ * cart, in batches paced to cart.compaction.max-deletes-per-second so it doesn't compete with cart
+ * traffic. Lines belong to their user, not to a cart id: a line written after the user got a new cart
+ * points at that cart, so a delete only removes lines still pointing at the cart they were found
+ * with. One node compacts at a time (a lease in job_lease), so the budget is the cluster's.
+ */
+@Slf4j
+@Service
+public class CartExpiryService {
+  private static final String TTL_INDEX = "updatedAt_ttl";
+  private static final String COMPACTION_JOB = "cart-compaction";
+  private static final List<Class<?>> EXPIRING = List.of(CartModel.class, EmbeddedCartModel.class);
+  private static final List<String> MEASURED = List.of("cart", "cart_item", "user_cart");
+
+  private final MongoTemplate mongoTemplate;
+  private final CartRepository cartRepository;
+  private final CartItemRepository cartItemRepository;
+  private final JobLeaseRepository jobLeaseRepository;
+  private final String nodeId;
+  private final Duration lease;
+  private final long ttlDays;
+  private final boolean compactionEnabled;
+  private final int batchSize;
+  private final int maxDeletesPerSecond;
+  private final AtomicLong deletedLines = new AtomicLong();
+  private final AtomicLong reclaimedBytes = new AtomicLong();
+  // "collection.data" / "collection.index" -> bytes, from collStats after startup and each compaction
+  private final Map<String, Long> storageBytes = new ConcurrentHashMap<>();
+  private volatile Instant compactedAt;
+
+  public CartExpiryService(
+      MongoTemplate mongoTemplate,
+      CartRepository cartRepository,
+      CartItemRepository cartItemRepository,
+      JobLeaseRepository jobLeaseRepository,
+      @Value("${cart.compaction.node-id:${HOSTNAME:}}") String nodeId,
+      @Value("${cart.compaction.lease-ms:60000}") long leaseMs,
+      @Value("${cart.expiry.ttl-days:0}") long ttlDays,
+      @Value("${cart.compaction.enabled:true}") boolean compactionEnabled,
+      @Value("${cart.compaction.batch-size:500}") int batchSize,
+      @Value("${cart.compaction.max-deletes-per-second:200}") int maxDeletesPerSecond
+    ) {
+    this.mongoTemplate = mongoTemplate;
+    this.cartRepository = cartRepository;
+    this.cartItemRepository = cartItemRepository;
+    this.jobLeaseRepository = jobLeaseRepository;
+    this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    this.lease = Duration.ofMillis(leaseMs);
+    this.ttlDays = ttlDays;
+    this.compactionEnabled = compactionEnabled;
+    this.batchSize = batchSize;
+    this.maxDeletesPerSecond = Math.max(1, maxDeletesPerSecond);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void ensureOnStartup() {
+    Thread thread = new Thread(() -> {
+      try {
+        ensureExpiryIndexes();
+        refreshStorageSizes();
+      } catch (RuntimeException e) {
+        log.error("Cart expiry setup failed: {}", e.getMessage(), e);
+      }
+    }, "cart-expiry-setup");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Scheduled(
+      initialDelayString = "${cart.compaction.interval-ms:3600000}",
+      fixedDelayString = "${cart.compaction.interval-ms:3600000}")
+  public void compactOnSchedule() {
+    if (!compactionEnabled) {
+      return;
+    }
+    try {
+      compact();
+    } catch (RuntimeException e) {
+      log.error("Cart compaction failed: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Create, change or drop the TTL index of each expiring cart collection to match ttl-days.
+   */
+  public synchronized Map<String, String> ensureExpiryIndexes() {
+    Map<String, String> result = new LinkedHashMap<>();
+    for (Class<?> type : EXPIRING) {
+      String collection = mongoTemplate.getCollectionName(type);
+      IndexOperations indexOps = mongoTemplate.indexOps(type);
+      Optional<IndexInfo> existing = indexOps.getIndexInfo().stream()
+          .filter(index -> TTL_INDEX.equals(index.getName()))
+          .findFirst();
+      Duration ttl = Duration.ofDays(ttlDays);
+      String status;
+      if (ttlDays <= 0) {
+        if (existing.isPresent()) {
+          indexOps.dropIndex(TTL_INDEX);
+          status = "dropped";
+        } else {
+          status = "disabled";
+        }
+      } else if (existing.isEmpty()) {
+        indexOps.createIndex(new Index().on("updatedAt", Sort.Direction.ASC).named(TTL_INDEX).expire(ttl));
+        status = "created";
+      } else if (!existing.get().getExpireAfter().map(ttl::equals).orElse(false)) {
+        mongoTemplate.getDb().runCommand(new Document("collMod", collection)
+            .append("index", new Document("name", TTL_INDEX).append("expireAfterSeconds", ttl.toSeconds())));
+        status = "changed";
+      } else {
+        status = "present";
+      }
+      if (!"present".equals(status) && !"disabled".equals(status)) {
+        log.info("TTL index {} on {} {}, carts expire after {} day(s)", TTL_INDEX, collection, status, ttlDays);
+      }
+      result.put(collection, status);
+    }
+    return result;
+  }
+
+  /**
+   * Delete the cart_item lines of carts that no longer exist, while this node holds the compaction
+   * lease. Returns what the run did.
+   */
+  public synchronized Map<String, Object> compact() {
+    Map<String, Object> result = new LinkedHashMap<>();
+    if (!acquireLease()) {
+      result.put("skipped", "another node is compacting");
+      return result;
+    }
+    long start = System.nanoTime();
+    long scanned = 0;
+    long deleted = 0;
+    long bytes = 0;
+    BsonValue afterId = null;
+    long nextDeleteAt = start;
+    List<RawBsonDocument> page;
+    try {
+      do {
+        // renewed per page, a run outlasts the lease
+        if (!acquireLease()) {
+          log.warn("Cart compaction lost its lease after {} line(s)", deleted);
+          break;
+        }
+        page = cartItemRepository.findRawPage(afterId, batchSize);
+        if (page.isEmpty()) {
+          break;
+        }
+        afterId = page.get(page.size() - 1).get("_id");
+        scanned += page.size();
+
+        List<RawBsonDocument> orphans = orphans(page);
+        // no single delete above the per-second budget
+        for (int from = 0; from < orphans.size(); from += maxDeletesPerSecond) {
+          List<RawBsonDocument> batch = orphans.subList(from, Math.min(from + maxDeletesPerSecond, orphans.size()));
+          pace(nextDeleteAt);
+          // measured from this delete, so time spent scanning doesn't turn into a burst of deletes later
+          nextDeleteAt = System.nanoTime() + batch.size() * TimeUnit.SECONDS.toNanos(1) / maxDeletesPerSecond;
+          Map<BsonValue, String> cartIdById = new LinkedHashMap<>();
+          batch.forEach(line -> cartIdById.put(line.get("_id"), string(line, "cartId")));
+          long removed = cartItemRepository.deleteOrphans(cartIdById);
+          long removedBytes = batch.stream().mapToLong(line -> line.getByteBuffer().remaining()).sum();
+          deleted += removed;
+          bytes += removedBytes;
+          deletedLines.addAndGet(removed);
+          reclaimedBytes.addAndGet(removedBytes);
+        }
+      } while (page.size() == batchSize);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn("Cart compaction interrupted after {} line(s)", deleted);
+    } finally {
+      jobLeaseRepository.release(COMPACTION_JOB, nodeId);
+    }
+    compactedAt = Instant.now();
+    refreshStorageSizes();
+
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    if (deleted > 0) {
+      log.info("Cart compaction finished - {} line(s) scanned, {} orphan(s) deleted, {} byte(s) reclaimed in {} ms",
+          scanned, deleted, bytes, elapsedMs);
+    }
+    result.put("scanned", scanned);
+    result.put("deleted", deleted);
+    result.put("reclaimedBytes", bytes);
+    result.put("elapsedMs", elapsedMs);
+    return result;
+  }
+
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("ttlDays", ttlDays);
+    stats.put("compactionEnabled", compactionEnabled);
+    stats.put("maxDeletesPerSecond", maxDeletesPerSecond);
+    stats.put("compactedAt", compactedAt);
+    stats.put("deletedLines", deletedLines.get());
+    stats.put("reclaimedBytes", reclaimedBytes.get());
+    stats.put("storageBytes", new LinkedHashMap<>(storageBytes));
+    return stats;
+  }
+
+  public long deletedLines() {
+    return deletedLines.get();
+  }
+
+  public long reclaimedBytes() {
+    return reclaimedBytes.get();
+  }
+
+  /**
+   * Last collStats size of the collection's documents ("data") or indexes ("index"), NaN before the first.
+   */
+  public double storageBytes(String collection, String kind) {
+    Long bytes = storageBytes.get(collection + "." + kind);
+    return bytes != null ? bytes : Double.NaN;
+  }
+
+  public static List<String> measuredCollections() {
+    return MEASURED;
+  }
+
+  /**
+   * Lines whose user has no cart; lines written before they carried the userId are matched by cartId.
+   */
+  private List<RawBsonDocument> orphans(List<RawBsonDocument> page) {
+    Set<String> userIds = new HashSet<>();
+    Set<String> cartIds = new HashSet<>();
+    for (RawBsonDocument line : page) {
+      String userId = string(line, "userId");
+      if (userId != null) {
+        userIds.add(userId);
+      } else if (string(line, "cartId") != null) {
+        cartIds.add(string(line, "cartId"));
+      }
+    }
+    Set<String> usersWithCart = userIds.isEmpty() ? Set.of() : cartRepository.findByUserIdIn(userIds).stream()
+        .map(CartModel::getUserId)
+        .collect(Collectors.toSet());
+    Set<String> existingCartIds = new HashSet<>();
+    if (!cartIds.isEmpty()) {
+      cartRepository.findAllById(cartIds).forEach(cart -> existingCartIds.add(cart.getId()));
+    }
+
+    List<RawBsonDocument> orphans = new ArrayList<>();
+    for (RawBsonDocument line : page) {
+      String userId = string(line, "userId");
+      String cartId = string(line, "cartId");
+      // a line of an expired cart the user changed after coming back points at the new cart
+      boolean orphan = userId != null
+          ? !usersWithCart.contains(userId)
+          : cartId != null && !existingCartIds.contains(cartId);
+      if (orphan) {
+        orphans.add(line);
+      }
+    }
+    return orphans;
+  }
+
+  private boolean acquireLease() {
+    LocalDateTime now = LocalDateTime.now();
+    return jobLeaseRepository.acquire(COMPACTION_JOB, nodeId, now, now.plus(lease));
+  }
+
+  // sleep until the previous delete has used up its share of the per-second budget
+  private void pace(long dueNanos) throws InterruptedException {
+    long wait = dueNanos - System.nanoTime();
+    if (wait > 0) {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+  }
+
+  private void refreshStorageSizes() {
+    for (String collection : measuredCollections()) {
+      try {
+        Document stats = mongoTemplate.getDb().runCommand(new Document("collStats", collection));
+        storageBytes.put(collection + ".data", ((Number) stats.getOrDefault("size", 0)).longValue());
+        storageBytes.put(collection + ".index", ((Number) stats.getOrDefault("totalIndexSize", 0)).longValue());
+      } catch (RuntimeException e) {
+        log.debug("collStats of {} failed: {}", collection, e.getMessage());
+      }
+    }
+  }
+
+  private static String string(RawBsonDocument line, String field) {
+    BsonValue value = line.get(field);
+    return value instanceof BsonString text ? text.getValue() : null;
+  }
+}
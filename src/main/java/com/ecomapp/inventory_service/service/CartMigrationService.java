@@ -0,0 +1,206 @@
+package com.ecomapp.inventory_service.service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.ecomapp.inventory_service.model.CartModel;
+import com.ecomapp.inventory_service.model.EmbeddedCartItemModel;
+import com.ecomapp.inventory_service.model.EmbeddedCartModel;
+import com.ecomapp.inventory_service.repository.CartItemRepository;
+import com.ecomapp.inventory_service.repository.CartRepository;
+import com.ecomapp.inventory_service.repository.EmbeddedCartRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One-shot copy of the legacy cart/cart_item collections into user_cart.
+ * Carts that already exist in user_cart are left untouched, so it is safe to run again.
+ *
+ * Also backfills the userId of cart_item lines written before lines carried it. Lines are read and
+ * sharded by userId, so a line without one is not found until it is backfilled. The backfill runs
+ * after startup (cart.backfill-item-user-id-on-startup); until it has finished, CartService gives a
+ * user's lines the userId by their cartId before it reads or changes them. Whether it has finished is
+ * read from the lines themselves at startup, so a restart or a node that doesn't run it knows too. The unique userId_productId
+ * index can't be built while old lines lack the userId, so the indexes are ensured again once lines
+ * were changed.
+ */
+@Slf4j
+@Service
+public class CartMigrationService {
+  private static final int BACKFILL_BATCH_SIZE = 500;
+
+  private final CartRepository cartRepository;
+  private final CartItemRepository cartItemRepository;
+  private final EmbeddedCartRepository embeddedCartRepository;
+  private final MongoIndexService mongoIndexService;
+  private final boolean migrateOnStartup;
+  private final boolean backfillOnStartup;
+  private volatile boolean backfillComplete;
+
+  public CartMigrationService(
+      CartRepository cartRepository,
+      CartItemRepository cartItemRepository,
+      EmbeddedCartRepository embeddedCartRepository,
+      MongoIndexService mongoIndexService,
+      @Value("${cart.migrate-legacy-on-startup:false}") boolean migrateOnStartup,
+      @Value("${cart.backfill-item-user-id-on-startup:true}") boolean backfillOnStartup
+    ) {
+    this.cartRepository = cartRepository;
+    this.cartItemRepository = cartItemRepository;
+    this.embeddedCartRepository = embeddedCartRepository;
+    this.mongoIndexService = mongoIndexService;
+    this.migrateOnStartup = migrateOnStartup;
+    this.backfillOnStartup = backfillOnStartup;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void runOnStartup() {
+    checkBackfillComplete();
+    if (migrateOnStartup) {
+      // backfills first
+      migrateLegacyCarts();
+      return;
+    }
+    if (!backfillOnStartup) {
+      return;
+    }
+    Thread thread = new Thread(() -> {
+      try {
+        backfillCartItemUserIds();
+      } catch (RuntimeException e) {
+        log.error("Cart item userId backfill failed: {}", e.getMessage(), e);
+      }
+    }, "cart-item-backfill");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Whether every cart_item line has its userId. New lines always carry it, so once true it stays true.
+   */
+  public boolean isBackfillComplete() {
+    return backfillComplete;
+  }
+
+  // one indexed lookup (userId_productId) instead of a persisted flag that could disagree with the lines
+  void checkBackfillComplete() {
+    try {
+      if (!cartItemRepository.existsByUserIdIsNull()) {
+        backfillComplete = true;
+      }
+    } catch (RuntimeException e) {
+      log.warn("Could not check for cart item lines without a userId: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Give every cart_item line without a userId the userId of its cart, a batch of carts at a time,
+   * then build the indexes that needed it. Lines whose cart no longer exists are left as they are.
+   * Safe to run again.
+   */
+  public long backfillCartItemUserIds() {
+    long updated = 0;
+    int orphanCarts = 0;
+    Set<String> cartIds = new LinkedHashSet<>();
+    try (Stream<String> lineCartIds = cartItemRepository.streamCartIdsWithoutUserId()) {
+      for (String cartId : (Iterable<String>) lineCartIds::iterator) {
+        if (cartId == null) {
+          continue;
+        }
+        cartIds.add(cartId);
+        if (cartIds.size() >= BACKFILL_BATCH_SIZE) {
+          BackfillBatch batch = backfillBatch(cartIds);
+          updated += batch.updated();
+          orphanCarts += batch.orphanCarts();
+          cartIds.clear();
+        }
+      }
+    }
+    BackfillBatch batch = backfillBatch(cartIds);
+    updated += batch.updated();
+    orphanCarts += batch.orphanCarts();
+    if (updated > 0 || orphanCarts > 0) {
+      log.info("Cart item userId backfill finished - lines updated: {}, carts not found: {}", updated, orphanCarts);
+    }
+    if (updated > 0) {
+      mongoIndexService.ensureIndexes();
+    }
+    backfillComplete = true;
+    return updated;
+  }
+
+  private BackfillBatch backfillBatch(Set<String> cartIds) {
+    if (cartIds.isEmpty()) {
+      return new BackfillBatch(0, 0);
+    }
+    Map<String, String> userIdByCartId = cartRepository.findAllById(cartIds).stream()
+        .filter(cart -> cart.getUserId() != null)
+        .collect(Collectors.toMap(CartModel::getId, CartModel::getUserId));
+    return new BackfillBatch(cartItemRepository.assignUserIds(userIdByCartId), cartIds.size() - userIdByCartId.size());
+  }
+
+  private record BackfillBatch(long updated, int orphanCarts) {
+  }
+
+  public int migrateLegacyCarts() {
+    // lines are read by userId
+    backfillCartItemUserIds();
+    int migrated = 0;
+    int skipped = 0;
+    try (Stream<CartModel> carts = cartRepository.streamAllBy()) {
+      for (CartModel cart : (Iterable<CartModel>) carts::iterator) {
+        if (migrateCart(cart)) {
+          migrated++;
+        } else {
+          skipped++;
+        }
+      }
+    }
+    log.info("Legacy cart migration finished - migrated: {}, skipped: {}", migrated, skipped);
+    return migrated;
+  }
+
+  private boolean migrateCart(CartModel cart) {
+    if (cart.getUserId() == null || embeddedCartRepository.existsById(cart.getUserId())) {
+      return false;
+    }
+
+    List<EmbeddedCartItemModel> items = cartItemRepository.findByUserId(cart.getUserId()).stream()
+        .map(this::toEmbeddedItem)
+        .collect(Collectors.toList());
+
+    EmbeddedCartModel embeddedCart = EmbeddedCartModel.builder()
+        .userId(cart.getUserId())
+        .items(items)
+        .createdAt(cart.getCreatedAt())
+        .updatedAt(cart.getUpdatedAt())
+        .build();
+    try {
+      embeddedCartRepository.insert(embeddedCart);
+      return true;
+    } catch (DuplicateKeyException e) {
+      // the user created an embedded cart while the migration was running
+      return false;
+    }
+  }
+
+  private EmbeddedCartItemModel toEmbeddedItem(CartItemModel item) {
+    return EmbeddedCartItemModel.builder()
+        .id(item.getId())
+        .productId(item.getProductId())
+        .itemCount(item.getItemCount())
+        .updatedAt(item.getUpdatedAt())
+        .build();
+  }
+}
@@ -0,0 +1,72 @@
+package com.ecomapp.inventory_service.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.CartRepository;
+import com.ecomapp.inventory_service.repository.EmbeddedCartRepository;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Brings the carts holding a product up to its new price: EMBEDDED carts get the new price snapshot,
+ * LEGACY carts drop their totals and are totalled on read until a repair. Both write every cart with a
+ * line of the product, so an admin edit hands the fan-out to this service's thread instead of waiting
+ * for it. A fan-out lost to a failure or a restart is caught up by CartTotalsRepairService.
+ */
+@Slf4j
+@Service
+public class CartRepriceService {
+  private final ProductRepository productRepository;
+  private final EmbeddedCartRepository embeddedCartRepository;
+  private final CartRepository cartRepository;
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "cart-reprice");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public CartRepriceService(
+      ProductRepository productRepository,
+      EmbeddedCartRepository embeddedCartRepository,
+      CartRepository cartRepository
+    ) {
+    this.productRepository = productRepository;
+    this.embeddedCartRepository = embeddedCartRepository;
+    this.cartRepository = cartRepository;
+  }
+
+  @PreDestroy
+  public void stop() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Reprice the product's carts later, at the price it has then: of two edits on different nodes, the
+   * fan-out that runs last writes the latest price whichever edit it came from.
+   */
+  public void productRepriced(String productId) {
+    executor.execute(() -> productRepository.findById(productId).ifPresent(this::reprice));
+  }
+
+  /**
+   * Reprice the product's carts now, at the given price. Returns false when the fan-out failed, the
+   * repair brings those carts up to date later.
+   */
+  public boolean reprice(ProductModel product) {
+    try {
+      embeddedCartRepository.repriceItems(product);
+      cartRepository.invalidateTotals(product.getId());
+      return true;
+    } catch (DataAccessException e) {
+      log.warn("Could not reprice carts for product {}: {}", product.getId(), e.getMessage());
+      return false;
+    }
+  }
+}
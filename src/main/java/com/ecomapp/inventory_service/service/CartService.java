@@ -1,40 +1,100 @@
 package com.ecomapp.inventory_service.service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import com.ecomapp.inventory_service.constant.CartStorageEnum;
 import com.ecomapp.inventory_service.dto.ApiResponse;
 import com.ecomapp.inventory_service.dto.CartItemResponseDto;
 import com.ecomapp.inventory_service.dto.ManageCartDto;
 import com.ecomapp.inventory_service.exception.CustomException;
 import com.ecomapp.inventory_service.model.CartItemModel;
 import com.ecomapp.inventory_service.model.CartModel;
+import com.ecomapp.inventory_service.model.EmbeddedCartItemModel;
+import com.ecomapp.inventory_service.model.EmbeddedCartModel;
 import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.model.ReservationModel;
 import com.ecomapp.inventory_service.repository.CartItemRepository;
 import com.ecomapp.inventory_service.repository.CartRepository;
+import com.ecomapp.inventory_service.repository.EmbeddedCartRepository;
 import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.util.CartTotals;
+import com.ecomapp.inventory_service.util.MinorUnits;
 
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cart reads and writes for both storage modes (cart.storage-mode).
+ *
+ * There is no @Transactional here: MongoConfig has no MongoTransactionManager (MongoDB transactions
+ * need a replica set), so each write stands on its own. With reservations, stock is held before the
+ * line is written: when the line write fails the hold stays until it expires and the sweeper gives
+ * the stock back, and checkout holds every line again (ReservationService.commitAll), so a line and
+ * its hold never have to change together.
+ */
+@Slf4j
 @Service
+@Timed("inventory.service")
 public class CartService {
+  // a cart expires (TTL index, see CartExpiryService) a while after its updatedAt, which moves at most this often
+  static final Duration CART_TOUCH_INTERVAL = Duration.ofHours(1);
+
   private final CartRepository cartRepository;
   private final CartItemRepository cartItemRepository;
   private final ProductRepository productRepository;
+  private final EmbeddedCartRepository embeddedCartRepository;
+  private final ReservationService reservationService;
+  private final CatalogCacheService catalogCacheService;
+  private final InventoryEventService inventoryEventService;
+  private final CartMigrationService cartMigrationService;
+  private final CartTotalsRepairService cartTotalsRepairService;
+  private final CartStorageEnum storageMode;
+  private final int maxBatchLines;
 
-  public CartService(CartRepository cartRepository, CartItemRepository cartItemRepository, ProductRepository productRepository) {
+  public CartService(
+      CartRepository cartRepository,
+      CartItemRepository cartItemRepository,
+      ProductRepository productRepository,
+      EmbeddedCartRepository embeddedCartRepository,
+      ReservationService reservationService,
+      CatalogCacheService catalogCacheService,
+      InventoryEventService inventoryEventService,
+      CartMigrationService cartMigrationService,
+      CartTotalsRepairService cartTotalsRepairService,
+      @Value("${cart.storage-mode:LEGACY}") CartStorageEnum storageMode,
+      @Value("${cart.batch.max-lines:100}") int maxBatchLines
+    ) {
     this.cartRepository = cartRepository;
     this.cartItemRepository = cartItemRepository;
     this.productRepository = productRepository;
+    this.embeddedCartRepository = embeddedCartRepository;
+    this.reservationService = reservationService;
+    this.catalogCacheService = catalogCacheService;
+    this.inventoryEventService = inventoryEventService;
+    this.cartMigrationService = cartMigrationService;
+    this.cartTotalsRepairService = cartTotalsRepairService;
+    this.storageMode = storageMode;
+    this.maxBatchLines = maxBatchLines;
   }
   
-  @Transactional
   public ApiResponse<Map<String, Object>> manageCart(String userId, ManageCartDto data) {
     // Validate input
     if (userId == null || userId.isEmpty()) {
@@ -45,28 +105,23 @@ public class CartService {
       throw new CustomException("Cart data cannot be empty", HttpStatus.BAD_REQUEST);
     }
 
+    if (storageMode == CartStorageEnum.EMBEDDED) {
+      return manageEmbeddedCart(userId, data);
+    }
+
     // Get or create cart
     CartModel cart = cartRepository.findByUserId(userId)
-        .orElseGet(() -> {
-          CartModel newCart = CartModel.builder()
-              .userId(userId)
-              .build();
-          return cartRepository.save(newCart);
-        });
+        .orElseGet(() -> createCart(userId));
+    touchIfIdle(cart);
+    claimUnassignedLines(cart);
 
     // Fetch product
     String productId = data.getProductId();
-    ProductModel product = productRepository.findById(productId)
-        .orElseThrow(() -> new CustomException("Product not found", HttpStatus.NOT_FOUND));
-
-    // Check if product is active
-    if (!product.getIsActive()) {
-      throw new CustomException("Product " + product.getName() + " is not available", HttpStatus.BAD_REQUEST);
-    }
+    ProductModel product = findProductForCart(userId, data);
 
     // Get existing cart item if exists
     Optional<CartItemModel> existingCartItem = cartItemRepository
-        .findByCartIdAndProductId(cart.getId(), productId);
+        .findByUserIdAndProductId(userId, productId);
 
     String action;
     String message;
@@ -74,50 +129,317 @@ public class CartService {
     // Case 1: Remove item if itemCount is 0
     if (data.getItemCount() == 0) {
       if (existingCartItem.isPresent()) {
-        cartItemRepository.deleteByCartIdAndProductId(cart.getId(), productId);
+        cartItemRepository.deleteByUserIdAndProductId(userId, productId);
         action = "removed";
         message = product.getName() + " removed from cart";
       } else {
         throw new CustomException("Product not found in cart", HttpStatus.NOT_FOUND);
       }
     } 
-    // Case 2: Check stock availability
-    else if (product.getAvailableStock() < data.getItemCount()) {
-      throw new CustomException(
-          product.getName() + " - Only " + product.getAvailableStock().intValue() + 
-          " items available (requested: " + data.getItemCount() + ")", 
-          HttpStatus.BAD_REQUEST
-      );
-    }
-    // Case 3: Update or add item
+    // Case 2: Update or add item
     else {
-      if (existingCartItem.isPresent()) {
-        // Update existing item
-        CartItemModel cartItem = existingCartItem.get();
-        cartItem.setItemCount(data.getItemCount());
-        cartItemRepository.save(cartItem);
+      // Update existing item in place, the count is absolute so a concurrent write cannot make it stale
+      if (existingCartItem.isPresent()
+          && cartItemRepository.setItemCount(userId, cart.getId(), productId, data.getItemCount())) {
         action = "updated";
         message = product.getName() + " quantity updated to " + data.getItemCount();
       } else {
-        // Add new item
+        // Add new item (or one removed since it was read)
         CartItemModel newCartItem = CartItemModel.builder()
             .cartId(cart.getId())
+            .userId(userId)
             .productId(productId)
             .itemCount(data.getItemCount())
             .build();
-        cartItemRepository.save(newCartItem);
-        action = "added";
-        message = product.getName() + " added to cart";
+        if (addCartItem(newCartItem)) {
+          action = "added";
+          message = product.getName() + " added to cart";
+        } else {
+          action = "updated";
+          message = product.getName() + " quantity updated to " + data.getItemCount();
+        }
       }
     }
 
-    // Prepare response
+    addToTotals(cart, lineChange(new CartTotals(), product,
+        existingCartItem.map(CartItemModel::getItemCount).orElse(0), data.getItemCount()));
+    return buildManageResponse(cart.getId(), action, message, product, data.getItemCount());
+  }
+
+  /**
+   * Apply many cart line changes at once: products are read with one query and the lines are
+   * written with one bulk write (LEGACY) or one update of the cart document (EMBEDDED).
+   * Each line gets the result manageCart would have returned for it; lines that can't be
+   * applied (not_found, unavailable, insufficient_stock, not_in_cart) don't stop the others.
+   */
+  public ApiResponse<List<ApiResponse<Map<String, Object>>>> manageCartBatch(String userId, List<ManageCartDto> lines) {
+    // Validate input
+    if (userId == null || userId.isEmpty()) {
+      throw new CustomException("User ID is required", HttpStatus.BAD_REQUEST);
+    }
+    if (lines == null || lines.isEmpty()) {
+      throw new CustomException("Cart data cannot be empty", HttpStatus.BAD_REQUEST);
+    }
+    if (lines.size() > maxBatchLines) {
+      throw new CustomException("At most " + maxBatchLines + " cart lines per request", HttpStatus.BAD_REQUEST);
+    }
+    Set<String> productIds = new LinkedHashSet<>();
+    for (ManageCartDto line : lines) {
+      if (line == null || line.getProductId() == null || line.getProductId().isEmpty()
+          || line.getItemCount() == null || line.getItemCount() < 0) {
+        throw new CustomException("Every line needs a productId and an itemCount of at least 0", HttpStatus.BAD_REQUEST);
+      }
+      if (!productIds.add(line.getProductId())) {
+        throw new CustomException("Product " + line.getProductId() + " appears more than once", HttpStatus.BAD_REQUEST);
+      }
+    }
+
+    Map<String, ProductModel> products = productRepository.findAllById(productIds).stream()
+        .collect(Collectors.toMap(ProductModel::getId, p -> p));
+    String cartId;
+    Set<String> inCart;
+    CartModel legacyCart = null;
+    Map<String, Integer> lineCounts = new HashMap<>();
+    if (storageMode == CartStorageEnum.EMBEDDED) {
+      cartId = userId;
+      inCart = embeddedCartRepository.findById(userId)
+          .map(cart -> cart.getItems() != null ? cart.getItems() : List.<EmbeddedCartItemModel>of())
+          .orElse(List.of()).stream()
+          .map(EmbeddedCartItemModel::getProductId)
+          .collect(Collectors.toSet());
+    } else {
+      legacyCart = cartRepository.findByUserId(userId).orElseGet(() -> createCart(userId));
+      touchIfIdle(legacyCart);
+      claimUnassignedLines(legacyCart);
+      cartId = legacyCart.getId();
+      for (CartItemModel line : cartItemRepository.findByUserId(userId)) {
+        lineCounts.put(line.getProductId(), line.getItemCount() != null ? line.getItemCount() : 0);
+      }
+      inCart = lineCounts.keySet();
+    }
+
+    List<ApiResponse<Map<String, Object>>> results = new ArrayList<>(lines.size());
+    Map<String, Integer> itemCountByProduct = new LinkedHashMap<>();
+    Map<String, ProductModel> changedProducts = new HashMap<>();
+    for (ManageCartDto line : lines) {
+      String productId = line.getProductId();
+      int itemCount = line.getItemCount();
+      ProductModel product = products.get(productId);
+      if (product == null) {
+        results.add(buildRejectedLine(cartId, "not_found", "Product not found", productId, null, itemCount));
+        continue;
+      }
+      if (itemCount == 0 && !inCart.contains(productId)) {
+        results.add(buildRejectedLine(cartId, "not_in_cart", "Product not found in cart", productId, product.getName(), itemCount));
+        continue;
+      }
+      try {
+        product = reservationService.isEnabled()
+            ? reservationService.reserve(userId, productId, itemCount)
+            : checkProductForCart(product, itemCount);
+      } catch (CustomException e) {
+        String action = e.getStatus() == HttpStatus.NOT_FOUND ? "not_found"
+            : !Boolean.TRUE.equals(product.getIsActive()) ? "unavailable"
+            : "insufficient_stock";
+        results.add(buildRejectedLine(cartId, action, e.getMessage(), productId, product.getName(), itemCount));
+        continue;
+      }
+
+      itemCountByProduct.put(productId, itemCount);
+      changedProducts.put(productId, product);
+      if (itemCount == 0) {
+        results.add(buildManageResponse(cartId, "removed", product.getName() + " removed from cart", product, 0));
+      } else if (inCart.contains(productId)) {
+        results.add(buildManageResponse(cartId, "updated",
+            product.getName() + " quantity updated to " + itemCount, product, itemCount));
+      } else {
+        results.add(buildManageResponse(cartId, "added", product.getName() + " added to cart", product, itemCount));
+      }
+    }
+
+    if (storageMode == CartStorageEnum.EMBEDDED) {
+      if (!itemCountByProduct.isEmpty()) {
+        embeddedCartRepository.setItemCounts(userId, itemCountByProduct, changedProducts);
+      }
+    } else {
+      cartItemRepository.setItemCounts(userId, cartId, itemCountByProduct);
+      CartTotals change = new CartTotals();
+      itemCountByProduct.forEach((productId, itemCount) ->
+          lineChange(change, changedProducts.get(productId), lineCounts.getOrDefault(productId, 0), itemCount));
+      addToTotals(legacyCart, change);
+    }
+
+    long applied = results.stream().filter(ApiResponse::isSuccess).count();
+    return new ApiResponse<>(applied == lines.size(), applied + " of " + lines.size() + " cart line(s) applied", results);
+  }
+
+  static ApiResponse<Map<String, Object>> buildRejectedLine(
+      String cartId, String action, String message, String productId, String productName, Integer itemCount) {
     Map<String, Object> result = new HashMap<>();
-    result.put("cartId", cart.getId());
+    result.put("cartId", cartId);
     result.put("action", action);
     result.put("productId", productId);
+    result.put("productName", productName);
+    result.put("itemCount", itemCount);
+
+    return new ApiResponse<>(false, message, result);
+  }
+
+  private CartModel createCart(String userId) {
+    try {
+      CartModel cart = cartRepository.save(newLegacyCart(userId));
+      // lines of an expired cart the compactor hasn't removed yet
+      cartItemRepository.deleteByUserIdAndCartIdNot(userId, cart.getId());
+      return cart;
+    } catch (DuplicateKeyException e) {
+      // a concurrent request created it first (unique userId index)
+      return cartRepository.findByUserId(userId).orElseThrow(() -> e);
+    }
+  }
+
+  // an empty cart's totals are known, line changes move them from there
+  static CartModel newLegacyCart(String userId) {
+    return CartModel.builder().userId(userId).totalMrpMinor(0L).totalDiscountMinor(0L).linesVersion(0L).build();
+  }
+
+  private void touchIfIdle(CartModel cart) {
+    LocalDateTime now = LocalDateTime.now();
+    if (isIdle(cart, now)) {
+      cartRepository.touch(cart.getUserId(), now);
+    }
+  }
+
+  private void claimUnassignedLines(CartModel cart) {
+    if (!cartMigrationService.isBackfillComplete()
+        && cartItemRepository.assignUserIds(Map.of(cart.getId(), cart.getUserId())) > 0) {
+      recomputeTotals(cart.getUserId());
+    }
+  }
+
+  // LEGACY: the totals kept on the cart follow its lines; the lines are written already, so a failure
+  // in these only leaves the totals for CartTotalsRepairService
+  private void recomputeTotals(String userId) {
+    try {
+      cartTotalsRepairService.recomputeLegacyTotals(userId);
+    } catch (DataAccessException e) {
+      log.warn("Could not recompute the cart totals of user {}: {}", userId, e.getMessage());
+    }
+  }
+
+  private void addToTotals(CartModel cart, CartTotals change) {
+    try {
+      cartTotalsRepairService.addToLegacyTotals(cart, change);
+    } catch (DataAccessException e) {
+      log.warn("Could not update the cart totals of user {}: {}", cart.getUserId(), e.getMessage());
+    }
+  }
+
+  private void clearTotals(CartModel cart) {
+    try {
+      cartTotalsRepairService.clearLegacyTotals(cart);
+    } catch (DataAccessException e) {
+      log.warn("Could not clear the cart totals of user {}: {}", cart.getUserId(), e.getMessage());
+    }
+  }
+
+  // what a line going from one count to another changes in the totals, at the product's current price
+  static CartTotals lineChange(CartTotals change, ProductModel product, int itemCountBefore, int itemCountAfter) {
+    return change
+        .add(product.getMrp(), itemCountAfter, product.getDiscount())
+        .remove(product.getMrp(), itemCountBefore, product.getDiscount());
+  }
+
+  static boolean isIdle(CartModel cart, LocalDateTime now) {
+    return cart.getUpdatedAt() == null || cart.getUpdatedAt().isBefore(now.minus(CART_TOUCH_INTERVAL));
+  }
+
+  /**
+   * Returns false when a concurrent request added the same product first,
+   * in which case that line is updated to the requested count instead.
+   */
+  private boolean addCartItem(CartItemModel newCartItem) {
+    try {
+      cartItemRepository.save(newCartItem);
+      return true;
+    } catch (DuplicateKeyException e) {
+      if (!cartItemRepository.setItemCount(
+              newCartItem.getUserId(), newCartItem.getCartId(), newCartItem.getProductId(), newCartItem.getItemCount())
+          // the line predates userIds on lines and has not been backfilled yet
+          && (cartItemRepository.assignUserIds(Map.of(newCartItem.getCartId(), newCartItem.getUserId())) == 0
+              || !cartItemRepository.setItemCount(
+                  newCartItem.getUserId(), newCartItem.getCartId(), newCartItem.getProductId(), newCartItem.getItemCount()))) {
+        throw e;
+      }
+      return false;
+    }
+  }
+
+  private ApiResponse<Map<String, Object>> manageEmbeddedCart(String userId, ManageCartDto data) {
+    // Fetch product
+    String productId = data.getProductId();
+    ProductModel product = findProductForCart(userId, data);
+
+    // Case 1: Remove item if itemCount is 0
+    if (data.getItemCount() == 0) {
+      if (!embeddedCartRepository.pullItem(userId, productId)) {
+        throw new CustomException("Product not found in cart", HttpStatus.NOT_FOUND);
+      }
+      return buildManageResponse(userId, "removed", product.getName() + " removed from cart", product, 0);
+    }
+
+    // Case 2: Update the item in place, otherwise push it (upserting the cart)
+    if (embeddedCartRepository.setItemCount(userId, product, data.getItemCount())) {
+      return buildManageResponse(userId, "updated",
+          product.getName() + " quantity updated to " + data.getItemCount(), product, data.getItemCount());
+    }
+    if (!embeddedCartRepository.pushItem(userId, product, data.getItemCount())) {
+      // a concurrent request added the same product first
+      embeddedCartRepository.setItemCount(userId, product, data.getItemCount());
+      return buildManageResponse(userId, "updated",
+          product.getName() + " quantity updated to " + data.getItemCount(), product, data.getItemCount());
+    }
+    return buildManageResponse(userId, "added", product.getName() + " added to cart", product, data.getItemCount());
+  }
+
+  /**
+   * Fetch the product and check the requested count can be added to the cart.
+   * With reservations enabled the stock is taken atomically instead of compared here.
+   */
+  private ProductModel findProductForCart(String userId, ManageCartDto data) {
+    if (reservationService.isEnabled()) {
+      return reservationService.reserve(userId, data.getProductId(), data.getItemCount());
+    }
+
+    ProductModel product = productRepository.findById(data.getProductId())
+        .orElseThrow(() -> new CustomException("Product not found", HttpStatus.NOT_FOUND));
+    return checkProductForCart(product, data.getItemCount());
+  }
+
+  static ProductModel checkProductForCart(ProductModel product, int itemCount) {
+    // Check if product is active
+    if (!product.getIsActive()) {
+      throw new CustomException("Product " + product.getName() + " is not available", HttpStatus.BAD_REQUEST);
+    }
+
+    // Check stock availability
+    if (itemCount > 0 && product.getAvailableStock() < itemCount) {
+      throw new CustomException(
+          product.getName() + " - Only " + (int) product.getAvailableStock() + 
+          " items available (requested: " + itemCount + ")", 
+          HttpStatus.BAD_REQUEST
+      );
+    }
+    return product;
+  }
+
+  static ApiResponse<Map<String, Object>> buildManageResponse(
+      String cartId, String action, String message, ProductModel product, Integer itemCount) {
+    Map<String, Object> result = new HashMap<>();
+    result.put("cartId", cartId);
+    result.put("action", action);
+    result.put("productId", product.getId());
     result.put("productName", product.getName());
-    result.put("itemCount", data.getItemCount());
+    result.put("itemCount", itemCount);
 
     return new ApiResponse<>(true, message, result);
   }
@@ -128,21 +450,33 @@ public class CartService {
       throw new CustomException("User ID is required", HttpStatus.BAD_REQUEST);
     }
 
-    // Find cart by userId or create empty response
-    Optional<CartModel> cartOpt = cartRepository.findByUserId(userId);
-    if(cartOpt.isEmpty()) {
-      Map<String, Object> emptyResult = new HashMap<>();
-      emptyResult.put("totalMrp", 0.0);
-      emptyResult.put("totalDiscount", 0.0);
-      emptyResult.put("totalAmountToPay", 0.0);
-      emptyResult.put("items", Collections.emptyList());
-      return new ApiResponse<>(true, "Cart is empty", emptyResult);
+    if (storageMode == CartStorageEnum.EMBEDDED) {
+      return getEmbeddedCart(userId);
+    }
+    Optional<CartModel> cart = cartRepository.findByUserId(userId);
+    if (cart.isEmpty()) {
+      // lines of an expired cart are left for the compactor, they are not the user's cart any more
+      return buildCartResponse(Collections.emptyList());
     }
+    claimUnassignedLines(cart.get());
+    return buildLegacyCartResponse(cart.get(), getLegacyCartItems(userId));
+  }
 
-    // Find all cart items for the cart
-    List<CartItemModel> cartItems = cartItemRepository.findByCartId(cartOpt.get().getId());
+  /**
+   * Totals computed from the items' current product prices, in one pass over the lines.
+   */
+  static ApiResponse<Map<String, Object>> buildCartResponse(List<CartItemResponseDto> cartItemResponses) {
+    CartTotals totals = new CartTotals();
+    for (CartItemResponseDto item : cartItemResponses) {
+      totals.add(item.getProduct().getMrp(), item.getItemCount(), item.getProduct().getDiscount());
+    }
+    return buildCartResponse(cartItemResponses, totals.mrpMinor(), totals.discountMinor());
+  }
+
+  static ApiResponse<Map<String, Object>> buildCartResponse(
+      List<CartItemResponseDto> cartItemResponses, long totalMrpMinor, long totalDiscountMinor) {
     // If cart is empty
-    if (cartItems.isEmpty()) {
+    if (cartItemResponses.isEmpty()) {
       Map<String, Object> emptyResult = new HashMap<>();
       emptyResult.put("totalMrp", 0.0);
       emptyResult.put("totalDiscount", 0.0);
@@ -151,56 +485,191 @@ public class CartService {
       return new ApiResponse<>(true, "Cart is empty", emptyResult);
     }
 
+    Map<String, Object> result = new HashMap<>();
+    result.put("totalMrp", MinorUnits.toAmount(totalMrpMinor));
+    result.put("totalDiscount", MinorUnits.toAmount(totalDiscountMinor));
+    result.put("totalAmountToPay", MinorUnits.toAmount(totalMrpMinor - totalDiscountMinor));
+    result.put("items", cartItemResponses);
+
+    return new ApiResponse<>(true, "Cart retrieved successfully", result);
+  }
+
+  static ApiResponse<Map<String, Object>> buildLegacyCartResponse(CartModel cart, List<CartItemResponseDto> cartItemResponses) {
+    // carts written before totals were kept, or whose product prices changed since, are totalled here
+    if (cart == null || cart.getTotalMrpMinor() == null || cart.getTotalDiscountMinor() == null) {
+      return buildCartResponse(cartItemResponses);
+    }
+    return buildCartResponse(cartItemResponses, cart.getTotalMrpMinor(), cart.getTotalDiscountMinor());
+  }
+
+  private List<CartItemResponseDto> getLegacyCartItems(String userId) {
+    // Lines carry the userId
+    List<CartItemModel> cartItems = cartItemRepository.findByUserId(userId);
+    if (cartItems.isEmpty()) {
+      return Collections.emptyList();
+    }
+
     // Fetch all products in one query for efficiency
-    List<String> productIds = cartItems.stream()
+    Map<String, ProductModel> productMap = findProducts(cartItems.stream()
         .map(CartItemModel::getProductId)
-        .collect(Collectors.toList());
-    
-    List<ProductModel> products = productRepository.findAllById(productIds);
-    Map<String, ProductModel> productMap = products.stream()
-        .collect(Collectors.toMap(ProductModel::getId, p -> p));
+        .collect(Collectors.toList()));
+    return toLegacyItemResponses(cartItems, productMap);
+  }
 
+  static List<CartItemResponseDto> toLegacyItemResponses(List<CartItemModel> cartItems, Map<String, ProductModel> productMap) {
     // Build response DTOs
-    List<CartItemResponseDto> cartItemResponses = cartItems.stream()
-        .map(cartItem -> {
-          ProductModel product = productMap.get(cartItem.getProductId());
-          return CartItemResponseDto.builder()
-              .id(cartItem.getId())
-              .product(product)
-              .itemCount(cartItem.getItemCount())
-              .updatedAt(cartItem.getUpdatedAt())
-              .build();
-        })
+    return cartItems.stream()
+        .map(cartItem -> CartItemResponseDto.builder()
+            .id(cartItem.getId())
+            .product(productMap.get(cartItem.getProductId()))
+            .itemCount(cartItem.getItemCount())
+            .updatedAt(cartItem.getUpdatedAt())
+            .build())
         .collect(Collectors.toList());
+  }
 
-    double totalMrp = cartItemResponses.stream()
-        .mapToDouble(item -> item.getProduct().getMrp() * item.getItemCount()).sum();
+  /**
+   * One cart document read: totals are kept on the cart, products come from the catalog cache.
+   */
+  private ApiResponse<Map<String, Object>> getEmbeddedCart(String userId) {
+    Optional<EmbeddedCartModel> cartOpt = embeddedCartRepository.findById(userId);
+    if (cartOpt.isEmpty() || cartOpt.get().getItems() == null || cartOpt.get().getItems().isEmpty()) {
+      return buildCartResponse(Collections.emptyList());
+    }
 
-    double totalDiscount = cartItemResponses.stream()
-        .mapToDouble(item -> {
-          double mrp = item.getProduct().getMrp();
-          double discount = item.getProduct().getDiscount();
-          return (mrp * item.getItemCount()) * (discount / 100.0);
-        }).sum();
+    EmbeddedCartModel cart = cartOpt.get();
+    Map<String, ProductModel> productMap = findProducts(cart.getItems().stream()
+        .map(EmbeddedCartItemModel::getProductId)
+        .collect(Collectors.toList()));
+    return buildEmbeddedCartResponse(cart, toEmbeddedItemResponses(cart.getItems(), productMap));
+  }
 
-    double totalAmountToPay = totalMrp - totalDiscount;
+  static ApiResponse<Map<String, Object>> buildEmbeddedCartResponse(EmbeddedCartModel cart, List<CartItemResponseDto> cartItemResponses) {
+    // carts written before totals were kept have none until CartTotalsRepairService reaches them
+    if (cart.getTotalMrpMinor() == null || cart.getTotalDiscountMinor() == null) {
+      return buildCartResponse(cartItemResponses);
+    }
+    return buildCartResponse(cartItemResponses, cart.getTotalMrpMinor(), cart.getTotalDiscountMinor());
+  }
 
-    Map<String, Object> result = new HashMap<>();
-    result.put("totalMrp", Double.parseDouble(String.format("%.2f", totalMrp)));
-    result.put("totalDiscount", Double.parseDouble(String.format("%.2f", totalDiscount)));
-    result.put("totalAmountToPay", totalAmountToPay);
-    result.put("items", cartItemResponses);
+  static List<CartItemResponseDto> toEmbeddedItemResponses(List<EmbeddedCartItemModel> cartItems, Map<String, ProductModel> productMap) {
+    return cartItems.stream()
+        .map(cartItem -> CartItemResponseDto.builder()
+            .id(cartItem.getId())
+            .product(productMap.get(cartItem.getProductId()))
+            .itemCount(cartItem.getItemCount())
+            .updatedAt(cartItem.getUpdatedAt())
+            .build())
+        .collect(Collectors.toList());
+  }
 
-    return new ApiResponse<>(true, "Cart retrieved successfully", result);
+  private Map<String, ProductModel> findProducts(List<String> productIds) {
+    return catalogCacheService.findProducts(productIds).stream()
+        .collect(Collectors.toMap(ProductModel::getId, p -> p));
+  }
+
+  /**
+   * getCart for callers that build their own response (gRPC GetUserCart), without the map and DTOs:
+   * the cart's lines as stored under "items", each with only _id, productId and itemCount, and the
+   * cart's totalMrpMinor and totalDiscountMinor when it keeps them.
+   */
+  public Document getCartDocument(String userId) {
+    // Validate input
+    if (userId == null || userId.isEmpty()) {
+      throw new CustomException("User ID is required", HttpStatus.BAD_REQUEST);
+    }
+
+    if (storageMode == CartStorageEnum.EMBEDDED) {
+      return embeddedCartRepository.findLinesDocument(userId)
+          .orElseGet(() -> new Document("items", Collections.emptyList()));
+    }
+    Optional<CartModel> cart = cartRepository.findByUserId(userId);
+    if (cart.isEmpty()) {
+      return new Document("items", Collections.emptyList());
+    }
+    claimUnassignedLines(cart.get());
+    Document document = new Document("items", cartItemRepository.findLineDocuments(userId));
+    cart.filter(kept -> kept.getTotalMrpMinor() != null && kept.getTotalDiscountMinor() != null)
+        .ifPresent(kept -> document
+            .append("totalMrpMinor", kept.getTotalMrpMinor())
+            .append("totalDiscountMinor", kept.getTotalDiscountMinor()));
+    return document;
+  }
+
+  /**
+   * Products of a getCartDocument cart by id, as stored and with only the fields of a gRPC CartProduct.
+   * Read from MongoDB rather than the catalog cache: a cached ProductModel is mapped in full and its
+   * fields copied again into the builder, while these documents go straight into it.
+   */
+  public Map<String, Document> getCartProductDocuments(Document cart) {
+    List<String> productIds = cartProductIds(cart);
+    if (productIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<String, Document> products = new HashMap<>();
+    for (Document product : productRepository.findCartProductDocuments(productIds)) {
+      products.put(product.get("_id").toString(), product);
+    }
+    return products;
+  }
+
+  static List<String> cartProductIds(Document cart) {
+    List<Document> lines = cart.getList("items", Document.class, Collections.emptyList());
+    List<String> productIds = new ArrayList<>(lines.size());
+    for (Document line : lines) {
+      productIds.add(line.getString("productId"));
+    }
+    return productIds;
+  }
+
+  /**
+   * Checkout: commit the reservations of the cart's lines, see ReservationService.commitAll.
+   */
+  public ApiResponse<List<ReservationModel>> commitReservations(String userId) {
+    // Validate input
+    if (userId == null || userId.isEmpty()) {
+      throw new CustomException("User ID is required", HttpStatus.BAD_REQUEST);
+    }
+    return reservationService.commitAll(userId, itemCountByProduct(userId));
+  }
+
+  private Map<String, Integer> itemCountByProduct(String userId) {
+    Map<String, Integer> itemCountByProduct = new LinkedHashMap<>();
+    if (storageMode == CartStorageEnum.EMBEDDED) {
+      embeddedCartRepository.findById(userId)
+          .map(cart -> cart.getItems() != null ? cart.getItems() : List.<EmbeddedCartItemModel>of())
+          .orElse(List.of())
+          .forEach(item -> itemCountByProduct.put(item.getProductId(), item.getItemCount()));
+    } else {
+      // an expired cart's lines are not checked out
+      Optional<CartModel> cart = cartRepository.findByUserId(userId);
+      if (cart.isPresent()) {
+        claimUnassignedLines(cart.get());
+        cartItemRepository.findByUserId(userId)
+            .forEach(item -> itemCountByProduct.put(item.getProductId(), item.getItemCount()));
+      }
+    }
+    return itemCountByProduct;
   }
 
-  @Transactional
   public ApiResponse<String> clearCart(String userId) {
     // Validate input
     if (userId == null || userId.isEmpty()) {
       throw new CustomException("User ID is required", HttpStatus.BAD_REQUEST);
     }
 
+    if (reservationService.isEnabled()) {
+      reservationService.releaseAll(userId);
+    }
+
+    if (storageMode == CartStorageEnum.EMBEDDED) {
+      if (!embeddedCartRepository.clearItems(userId)) {
+        return new ApiResponse<>(true, "No cart found to clear", null);
+      }
+      inventoryEventService.cartCleared(userId);
+      return new ApiResponse<>(true, "Cart cleared successfully");
+    }
+
     // Find cart by userId
     Optional<CartModel> cartOpt = cartRepository.findByUserId(userId);
 
@@ -208,8 +677,11 @@ public class CartService {
       return new ApiResponse<>(true, "No cart found to clear", null);
     }
 
-    CartModel cart = cartOpt.get();
-    cartItemRepository.deleteAllByCartId(cart.getId());
+    // otherwise the backfill would bring the cleared lines back
+    claimUnassignedLines(cartOpt.get());
+    cartItemRepository.deleteAllByUserId(userId);
+    clearTotals(cartOpt.get());
+    inventoryEventService.cartCleared(userId);
     return new ApiResponse<>(true, "Cart cleared successfully");
   }
 }
@@ -0,0 +1,254 @@
+package com.ecomapp.inventory_service.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.constant.CartStorageEnum;
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.ecomapp.inventory_service.model.CartModel;
+import com.ecomapp.inventory_service.model.EmbeddedCartItemModel;
+import com.ecomapp.inventory_service.model.EmbeddedCartModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.CartItemRepository;
+import com.ecomapp.inventory_service.repository.CartRepository;
+import com.ecomapp.inventory_service.repository.EmbeddedCartRepository;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.util.CartTotals;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the running cart totals and repairs their drift.
+ *
+ * EMBEDDED carts: totals always match the items' price snapshots, but a snapshot goes stale when a
+ * price fan-out is lost or a product is written without going through ProductService. Carts created
+ * before totals existed (or copied by CartMigrationService) have none yet and are filled in here too.
+ *
+ * LEGACY carts: the lines live in cart_item, so a cart's totals can't change in the same write as a
+ * line. After its lines change, CartService moves them by what the lines changed (addToLegacyTotals);
+ * a price change drops them from the carts holding the product. The repair fills in missing totals,
+ * recomputes the ones dropped because two changes raced, and fixes the ones a crash between a line
+ * write and its totals update left behind.
+ */
+@Slf4j
+@Service
+public class CartTotalsRepairService {
+  private final EmbeddedCartRepository embeddedCartRepository;
+  private final CartRepository cartRepository;
+  private final CartItemRepository cartItemRepository;
+  private final ProductRepository productRepository;
+  private final CartStorageEnum storageMode;
+  private final boolean enabled;
+  private final int batchSize;
+
+  public CartTotalsRepairService(
+      EmbeddedCartRepository embeddedCartRepository,
+      CartRepository cartRepository,
+      CartItemRepository cartItemRepository,
+      ProductRepository productRepository,
+      @Value("${cart.storage-mode:LEGACY}") CartStorageEnum storageMode,
+      @Value("${cart.totals.repair-enabled:true}") boolean enabled,
+      @Value("${cart.totals.repair-batch-size:500}") int batchSize
+    ) {
+    this.embeddedCartRepository = embeddedCartRepository;
+    this.cartRepository = cartRepository;
+    this.cartItemRepository = cartItemRepository;
+    this.productRepository = productRepository;
+    this.storageMode = storageMode;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+  }
+
+  @Scheduled(
+      initialDelayString = "${cart.totals.repair-initial-delay-ms:60000}",
+      fixedDelayString = "${cart.totals.repair-interval-ms:3600000}")
+  public void repairOnSchedule() {
+    if (!enabled) {
+      return;
+    }
+    if (storageMode == CartStorageEnum.EMBEDDED) {
+      repair();
+    } else {
+      repairLegacy();
+    }
+  }
+
+  /**
+   * Move the totals of a LEGACY cart by what a request changed in its lines, with one $inc instead of
+   * reading every line again. The change is worked out from line counts the request read after the cart,
+   * so it only applies while linesVersion is still the one read with the cart; the $inc moves it, so of
+   * two requests that raced, the second finds it moved and drops the totals instead of adding a change
+   * made from a stale read. Carts without totals are left to the repair.
+   */
+  public void addToLegacyTotals(CartModel cart, CartTotals change) {
+    if (!hasTotals(cart) || (change.mrpMinor() == 0 && change.discountMinor() == 0)) {
+      return;
+    }
+    if (!cartRepository.addToTotals(cart.getUserId(), cart.getLinesVersion(), change.mrpMinor(), change.discountMinor())) {
+      cartRepository.dropTotals(cart.getUserId());
+    }
+  }
+
+  /**
+   * Zero the totals of a LEGACY cart after all its lines were removed, on the same terms as addToLegacyTotals.
+   */
+  public void clearLegacyTotals(CartModel cart) {
+    if (hasTotals(cart) && !cartRepository.clearTotals(cart.getUserId(), cart.getLinesVersion())) {
+      cartRepository.dropTotals(cart.getUserId());
+    }
+  }
+
+  private static boolean hasTotals(CartModel cart) {
+    return cart.getTotalMrpMinor() != null && cart.getTotalDiscountMinor() != null && cart.getLinesVersion() != null;
+  }
+
+  /**
+   * Recompute the totals of a LEGACY cart from its lines. The cart's linesVersion is moved
+   * first and the totals are only written while it is still ours: of concurrent changes, the one that
+   * moved it last read the lines after every other change was written.
+   */
+  public void recomputeLegacyTotals(String userId) {
+    Optional<Long> linesVersion = cartRepository.markLinesChanged(userId);
+    if (linesVersion.isEmpty()) {
+      return;
+    }
+    List<CartItemModel> lines = cartItemRepository.findByUserId(userId);
+    CartTotals totals = legacyTotals(lines, findProducts(lines.stream().map(CartItemModel::getProductId).toList()));
+    cartRepository.setTotals(userId, linesVersion.get(), totals.mrpMinor(), totals.discountMinor());
+  }
+
+  /**
+   * Walk every LEGACY cart in userId order and recompute the ones whose totals are missing or don't
+   * match their lines. Returns the number of carts recomputed.
+   */
+  public long repairLegacy() {
+    long changed = 0;
+    String lastUserId = "";
+    List<CartModel> carts;
+    do {
+      carts = cartRepository.findByUserIdGreaterThan(lastUserId, PageRequest.of(0, batchSize, Sort.by("userId")));
+      Map<String, List<CartItemModel>> linesByUser = cartItemRepository.findByUserIdIn(carts.stream()
+              .map(CartModel::getUserId)
+              .toList())
+          .stream()
+          .collect(Collectors.groupingBy(CartItemModel::getUserId));
+      Map<String, ProductModel> products = findProducts(linesByUser.values().stream()
+          .flatMap(List::stream)
+          .map(CartItemModel::getProductId)
+          .toList());
+
+      for (CartModel cart : carts) {
+        CartTotals totals = legacyTotals(linesByUser.getOrDefault(cart.getUserId(), List.of()), products);
+        if (!Objects.equals(cart.getTotalMrpMinor(), totals.mrpMinor())
+            || !Objects.equals(cart.getTotalDiscountMinor(), totals.discountMinor())) {
+          // read the lines again, they may have changed since the page was read
+          recomputeLegacyTotals(cart.getUserId());
+          changed++;
+        }
+      }
+      if (!carts.isEmpty()) {
+        lastUserId = carts.get(carts.size() - 1).getUserId();
+      }
+    } while (carts.size() == batchSize);
+
+    log.info("Legacy cart totals repair finished - {} cart(s) recomputed", changed);
+    return changed;
+  }
+
+  static CartTotals legacyTotals(List<CartItemModel> lines, Map<String, ProductModel> products) {
+    CartTotals totals = new CartTotals();
+    for (CartItemModel line : lines) {
+      ProductModel product = products.get(line.getProductId());
+      if (product != null && line.getItemCount() != null) {
+        totals.add(product.getMrp(), line.getItemCount(), product.getDiscount());
+      }
+    }
+    return totals;
+  }
+
+  // from MongoDB, a cached price may be older than the one the totals are compared against
+  private Map<String, ProductModel> findProducts(Collection<String> productIds) {
+    if (productIds.isEmpty()) {
+      return Map.of();
+    }
+    return productRepository.findAllById(new HashSet<>(productIds)).stream()
+        .collect(Collectors.toMap(ProductModel::getId, Function.identity()));
+  }
+
+  /**
+   * Walk every cart in userId order. Stale price snapshots are fixed by repricing the product
+   * in all carts at once; carts whose totals don't match their snapshots are recomputed.
+   * Returns the number of carts changed.
+   */
+  public long repair() {
+    Set<String> repriced = new HashSet<>();
+    long changed = 0;
+    String lastUserId = "";
+    List<EmbeddedCartModel> carts;
+    do {
+      carts = embeddedCartRepository.findByUserIdGreaterThan(
+          lastUserId, PageRequest.of(0, batchSize, Sort.by("userId")));
+      // read the products from MongoDB, a cached price may be older than the snapshot
+      Map<String, ProductModel> products = productRepository.findAllById(carts.stream()
+              .flatMap(cart -> items(cart).stream())
+              .map(EmbeddedCartItemModel::getProductId)
+              .collect(Collectors.toSet()))
+          .stream()
+          .collect(Collectors.toMap(ProductModel::getId, Function.identity()));
+
+      for (EmbeddedCartModel cart : carts) {
+        boolean stale = false;
+        for (EmbeddedCartItemModel item : items(cart)) {
+          ProductModel product = products.get(item.getProductId());
+          if (product != null && !snapshotMatches(item, product)) {
+            stale = true;
+            if (repriced.add(product.getId())) {
+              changed += embeddedCartRepository.repriceItems(product);
+            }
+          }
+        }
+        // a reprice of this run already recomputed this cart's totals
+        if (!stale && !totalsMatch(cart) && embeddedCartRepository.recomputeTotals(cart.getUserId())) {
+          changed++;
+        }
+      }
+      if (!carts.isEmpty()) {
+        lastUserId = carts.get(carts.size() - 1).getUserId();
+      }
+    } while (carts.size() == batchSize);
+
+    log.info("Cart totals repair finished - {} product(s) repriced, {} cart(s) changed", repriced.size(), changed);
+    return changed;
+  }
+
+  private static List<EmbeddedCartItemModel> items(EmbeddedCartModel cart) {
+    return cart.getItems() != null ? cart.getItems() : List.of();
+  }
+
+  private static boolean snapshotMatches(EmbeddedCartItemModel item, ProductModel product) {
+    // lines written before snapshots were kept read as 0 and get repriced
+    return item.getMrpMinor() == product.getMrp() && item.getDiscount() == product.getDiscount();
+  }
+
+  private static boolean totalsMatch(EmbeddedCartModel cart) {
+    CartTotals totals = new CartTotals();
+    for (EmbeddedCartItemModel item : items(cart)) {
+      totals.add(item.getMrpMinor(), item.getItemCount() != null ? item.getItemCount() : 0, item.getDiscount());
+    }
+    return cart.getTotalMrpMinor() != null && cart.getTotalMrpMinor() == totals.mrpMinor()
+        && cart.getTotalDiscountMinor() != null && cart.getTotalDiscountMinor() == totals.discountMinor();
+  }
+}
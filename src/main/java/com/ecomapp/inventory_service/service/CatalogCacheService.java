@@ -0,0 +1,137 @@
+package com.ecomapp.inventory_service.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.model.CategoryModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.CategoryRepository;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Read-through near cache in front of ProductRepository and CategoryRepository.
+ *
+ * Products are size and TTL bounded. Categories are few and tiny, so they are kept
+ * and refreshed in the background instead of expiring, and reads never wait on MongoDB
+ * after the first load. Writes made through this service evict their entries; writes
+ * made by other replicas are picked up by CatalogChangeStreamListener.
+ *
+ * Cached models are shared, callers must not modify them.
+ */
+@Service
+public class CatalogCacheService {
+  private final ProductRepository productRepository;
+  private final CategoryRepository categoryRepository;
+  private final Cache<String, ProductModel> products;
+  private final LoadingCache<String, CategoryModel> categories;
+
+  public CatalogCacheService(
+      ProductRepository productRepository,
+      CategoryRepository categoryRepository,
+      @Value("${catalog-cache.product.max-size:10000}") long productMaxSize,
+      @Value("${catalog-cache.product.ttl-seconds:300}") long productTtlSeconds,
+      @Value("${catalog-cache.category.max-size:1000}") long categoryMaxSize,
+      @Value("${catalog-cache.category.refresh-seconds:60}") long categoryRefreshSeconds
+    ) {
+    this.productRepository = productRepository;
+    this.categoryRepository = categoryRepository;
+    this.products = Caffeine.newBuilder()
+        .maximumSize(productMaxSize)
+        .expireAfterWrite(Duration.ofSeconds(productTtlSeconds))
+        .recordStats()
+        .build();
+    this.categories = Caffeine.newBuilder()
+        .maximumSize(categoryMaxSize)
+        .refreshAfterWrite(Duration.ofSeconds(categoryRefreshSeconds))
+        .recordStats()
+        .build(id -> categoryRepository.findById(id).orElse(null));
+  }
+
+  public Optional<ProductModel> findProduct(String id) {
+    return Optional.ofNullable(products.get(id, key -> productRepository.findById(key).orElse(null)));
+  }
+
+  /**
+   * The cached product, without loading it on a miss.
+   */
+  public Optional<ProductModel> peekProduct(String id) {
+    return Optional.ofNullable(products.getIfPresent(id));
+  }
+
+  /**
+   * Cached products are returned as they are, the missing ones are loaded with one findAllById.
+   */
+  public List<ProductModel> findProducts(Collection<String> ids) {
+    return new ArrayList<>(findProductsById(ids).values());
+  }
+
+  /**
+   * findProducts keyed by id, ids that have no product are left out.
+   */
+  public Map<String, ProductModel> findProductsById(Collection<String> ids) {
+    return products.getAll(ids, missing -> {
+      Map<String, ProductModel> loaded = new HashMap<>();
+      productRepository.findAllById(new ArrayList<String>(missing)).forEach(product -> loaded.put(product.getId(), product));
+      return loaded;
+    });
+  }
+
+  public Optional<CategoryModel> findCategory(String id) {
+    if (id == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(categories.get(id));
+  }
+
+  public void evictProduct(String id) {
+    products.invalidate(id);
+  }
+
+  public void evictCategory(String id) {
+    categories.invalidate(id);
+  }
+
+  public void evictAll() {
+    products.invalidateAll();
+    categories.invalidateAll();
+  }
+
+  public Cache<String, ProductModel> getProductCache() {
+    return products;
+  }
+
+  public Cache<String, CategoryModel> getCategoryCache() {
+    return categories;
+  }
+
+  public Map<String, Map<String, Object>> stats() {
+    Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+    result.put("product", toMap(products.stats(), products.estimatedSize()));
+    result.put("category", toMap(categories.stats(), categories.estimatedSize()));
+    return result;
+  }
+
+  private Map<String, Object> toMap(CacheStats stats, long size) {
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("size", size);
+    result.put("hitCount", stats.hitCount());
+    result.put("missCount", stats.missCount());
+    result.put("hitRate", stats.hitRate());
+    result.put("evictionCount", stats.evictionCount());
+    result.put("loadFailureCount", stats.loadFailureCount());
+    return result;
+  }
+}
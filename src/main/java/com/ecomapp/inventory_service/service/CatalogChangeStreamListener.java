@@ -0,0 +1,151 @@
+package com.ecomapp.inventory_service.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps CatalogCacheService coherent across replicas by evicting products and categories
+ * changed anywhere in the cluster, and reports them to ProductSearchService for re-indexing.
+ * Change streams need a replica set, so this is opt-in (catalog-cache.change-stream.enabled=true);
+ * without it entries live until their TTL and search catches up on its next rebuild.
+ */
+@Slf4j
+@Component
+public class CatalogChangeStreamListener {
+  private static final List<String> WATCHED_COLLECTIONS = List.of("product", "category");
+  // stock moves are most product writes and change nothing search indexes
+  private static final Set<String> STOCK_FIELDS = Set.of("availableStock", "version", "pendingEvents");
+  // the event relay taking back pending counts, nothing cached changes
+  private static final Set<String> EVENT_FIELDS = Set.of("pendingEvents");
+
+  private final MongoTemplate mongoTemplate;
+  private final CatalogCacheService catalogCacheService;
+  private final ProductSearchService productSearchService;
+  private final boolean enabled;
+  private volatile boolean running;
+  private BsonDocument resumeToken;
+
+  public CatalogChangeStreamListener(
+      MongoTemplate mongoTemplate,
+      CatalogCacheService catalogCacheService,
+      ProductSearchService productSearchService,
+      @Value("${catalog-cache.change-stream.enabled:false}") boolean enabled
+    ) {
+    this.mongoTemplate = mongoTemplate;
+    this.catalogCacheService = catalogCacheService;
+    this.productSearchService = productSearchService;
+    this.enabled = enabled;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    Thread thread = new Thread(this::listen, "catalog-change-stream");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @PreDestroy
+  public void stop() {
+    running = false;
+  }
+
+  private void listen() {
+    while (running) {
+      try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = openCursor()) {
+        log.info("Watching {} for catalog cache invalidation", WATCHED_COLLECTIONS);
+        while (running) {
+          ChangeStreamDocument<Document> change = cursor.tryNext();
+          if (change != null) {
+            evict(change);
+            resumeToken = change.getResumeToken();
+          }
+        }
+      } catch (RuntimeException e) {
+        if (!running) {
+          return;
+        }
+        // events may have been missed while disconnected
+        catalogCacheService.evictAll();
+        productSearchService.requestRebuild();
+        log.warn("Catalog change stream failed, retrying: {}", e.getMessage());
+        sleepBeforeRetry();
+      }
+    }
+  }
+
+  private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openCursor() {
+    var stream = mongoTemplate.getDb()
+        .watch(List.of(Aggregates.match(Filters.in("ns.coll", WATCHED_COLLECTIONS))))
+        .maxAwaitTime(1, TimeUnit.SECONDS);
+    if (resumeToken != null) {
+      stream = stream.resumeAfter(resumeToken);
+    }
+    return stream.cursor();
+  }
+
+  private void evict(ChangeStreamDocument<Document> change) {
+    if (change.getNamespace() == null || change.getDocumentKey() == null) {
+      // drop, rename or invalidate events have no single document
+      catalogCacheService.evictAll();
+      productSearchService.requestRebuild();
+      return;
+    }
+    String id = toId(change.getDocumentKey().get("_id"));
+    if ("product".equals(change.getNamespace().getCollectionName())) {
+      if (updatesOnly(change, EVENT_FIELDS)) {
+        return;
+      }
+      catalogCacheService.evictProduct(id);
+      if (!updatesOnly(change, STOCK_FIELDS)) {
+        productSearchService.productChanged(id);
+      }
+    } else {
+      catalogCacheService.evictCategory(id);
+      productSearchService.categoryChanged(id);
+    }
+  }
+
+  private static boolean updatesOnly(ChangeStreamDocument<Document> change, Set<String> fields) {
+    UpdateDescription update = change.getUpdateDescription();
+    return update != null
+        && update.getUpdatedFields() != null
+        && (update.getRemovedFields() == null || update.getRemovedFields().isEmpty())
+        && fields.containsAll(update.getUpdatedFields().keySet());
+  }
+
+  private String toId(BsonValue value) {
+    return value.isObjectId() ? value.asObjectId().getValue().toHexString() : value.asString().getValue();
+  }
+
+  private void sleepBeforeRetry() {
+    try {
+      Thread.sleep(5000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
@@ -1,51 +1,111 @@
 package com.ecomapp.inventory_service.service;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import com.ecomapp.inventory_service.annotations.RetryOnConflict;
 import com.ecomapp.inventory_service.dto.ApiResponse;
 import com.ecomapp.inventory_service.dto.CreateCategoryDto;
 import com.ecomapp.inventory_service.exception.CustomException;
 import com.ecomapp.inventory_service.model.CategoryModel;
 import com.ecomapp.inventory_service.repository.CategoryRepository;
+import com.ecomapp.inventory_service.util.CatalogVersion;
 
 @Service
 public class CategoryService {
   private final CategoryRepository categoryRepository;
+  private final CatalogCacheService catalogCacheService;
+  private final BlobStore blobStore;
+  private final ProductSearchService productSearchService;
 
-  public CategoryService(CategoryRepository categoryRepository) {
+  public CategoryService(
+      CategoryRepository categoryRepository,
+      CatalogCacheService catalogCacheService,
+      BlobStore blobStore,
+      ProductSearchService productSearchService
+    ) {
     this.categoryRepository = categoryRepository;
+    this.catalogCacheService = catalogCacheService;
+    this.blobStore = blobStore;
+    this.productSearchService = productSearchService;
   }
 
   public ApiResponse<String> createCategory(CreateCategoryDto body) {
+    CategoryModel category = newCategory(body);
+    categoryRepository.save(category);
+    return new ApiResponse<>(true, "Category created successfully", category.getId());
+  }
+
+  static CategoryModel newCategory(CreateCategoryDto body) {
     CategoryModel category = new CategoryModel();
     category.setName(body.getName());
     category.setDescription(body.getDescription());
     category.setIsActive(true);
-    categoryRepository.save(category);
-    return new ApiResponse<>(true, "Category created successfully", category.getId());
+    return category;
   }
 
   public ApiResponse<?> deleteCategory(String id) {
     categoryRepository.deleteById(id);
+    catalogCacheService.evictCategory(id);
+    productSearchService.categoryChanged(id);
     return new ApiResponse<>(true, "Category deleted successfully");
   }
 
-  public ApiResponse<?> updateCategory(String id, CreateCategoryDto body) {
+  /**
+   * ifMatch, when given, is the ETag of an earlier read; the update fails with 412 when the category
+   * was changed since. The write only applies to the version that was read; without ifMatch a
+   * concurrent change is retried from a fresh read (@RetryOnConflict).
+   */
+  @RetryOnConflict
+  public ApiResponse<?> updateCategory(String id, CreateCategoryDto body, String ifMatch) {
     CategoryModel category = categoryRepository.findById(id).orElseThrow(() -> 
     new CustomException("Category not found", HttpStatus.NOT_FOUND));
+    requireVersion(ifMatch, category);
+    Long version = category.getVersion();
     category.setName(body.getName());
     category.setDescription(body.getDescription());
-    categoryRepository.save(category);
+    if (!categoryRepository.updateDetails(category, version)) {
+      throw conflict(ifMatch);
+    }
+    catalogCacheService.evictCategory(id);
+    // products are found by their category's name
+    productSearchService.categoryChanged(id);
     return new ApiResponse<>(true, "Category updated successfully");
   }
 
+  static void requireVersion(String ifMatch, CategoryModel category) {
+    if (!CatalogVersion.matches(ifMatch, category.getVersion())) {
+      throw new CustomException("Category was changed since it was read", HttpStatus.PRECONDITION_FAILED);
+    }
+  }
+
+  // the category changed between the read and the write (or was deleted)
+  static RuntimeException conflict(String ifMatch) {
+    return ifMatch != null
+        ? new CustomException("Category was changed since it was read", HttpStatus.PRECONDITION_FAILED)
+        : new OptimisticLockingFailureException("Category was changed concurrently");
+  }
+
   public ApiResponse<CategoryModel> getCategory(String id) {
-    CategoryModel category = categoryRepository.findById(id).orElseThrow(() -> 
+    CategoryModel cached = catalogCacheService.findCategory(id).orElseThrow(() -> 
       new CustomException("Category not found", HttpStatus.NOT_FOUND));
-    String currentPath = category.getImageUrl();
-    String imageUrl = currentPath != null ? "http://localhost:4000/uploads/" + category.getImageUrl() : null;
+    return new ApiResponse<CategoryModel>(true, "Category found", toCategoryResponse(cached, blobStore));
+  }
+
+  // copy, the cached model is shared; imageUrl becomes a url clients can load (storage.public-base-url)
+  static CategoryModel toCategoryResponse(CategoryModel cached, BlobStore blobStore) {
+    CategoryModel category = new CategoryModel();
+    category.setId(cached.getId());
+    category.setName(cached.getName());
+    category.setDescription(cached.getDescription());
+    category.setIsActive(cached.getIsActive());
+    category.setCreatedAt(cached.getCreatedAt());
+    category.setUpdatedAt(cached.getUpdatedAt());
+    category.setVersion(cached.getVersion());
+    String currentPath = cached.getImageUrl();
+    String imageUrl = currentPath != null ? blobStore.publicUrl(currentPath) : null;
     category.setImageUrl(imageUrl);
-    return new ApiResponse<CategoryModel>(true, "Category found", category);
+    return category;
   }
 }
@@ -0,0 +1,131 @@
+package com.ecomapp.inventory_service.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.ecomapp.inventory_service.util.FileTransfer;
+
+/**
+ * Images stored under the SHA-256 of their content: {type}/sha256/{hash}.{ext} in the BlobStore.
+ *
+ * The hash is computed while the upload is copied to the UploadSpool, then the file is put in the
+ * store unless the store already has it. An image uploaded again, for any product or category, is
+ * stored once. A blob never changes once it has its key, so it is served with the hash as a strong
+ * ETag and an immutable Cache-Control. Unreferenced blobs are removed by ImageGarbageCollectorService.
+ */
+@Service
+public class ContentAddressedImageStore {
+  public static final String DIRECTORY = "sha256";
+  public static final List<String> TYPES = List.of("product", "category");
+  public static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+  private static final Pattern FILE_NAME = Pattern.compile("([0-9a-f]{64})(\\.[a-z0-9]{1,10})?");
+
+  public record StoredImage(String key, boolean created) { }
+
+  private final BlobStore blobStore;
+  private final UploadSpool spool;
+
+  public ContentAddressedImageStore(BlobStore blobStore, UploadSpool spool) {
+    this.blobStore = blobStore;
+    this.spool = spool;
+  }
+
+  public StoredImage store(MultipartFile file, String type) {
+    Path temp = null;
+    try {
+      temp = spool.newFile();
+      MessageDigest digest = sha256();
+      try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+        FileTransfer.copy(in, temp);
+      }
+      String key = key(type, HexFormat.of().formatHex(digest.digest()), extension(file.getOriginalFilename()));
+      // a fresh modification time keeps the garbage collector off the blob until the new reference is written
+      if (blobStore.touch(key)) {
+        return new StoredImage(key, false);
+      }
+      // concurrent uploads of the same content put identical bytes under the same key
+      blobStore.put(key, temp, file.getContentType(), CACHE_CONTROL.getHeaderValue());
+      return new StoredImage(key, true);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not save " + file.getOriginalFilename(), e);
+    } finally {
+      deleteQuietly(temp);
+    }
+  }
+
+  public static String key(String type, String sha256Hex, String extension) {
+    return type + "/" + DIRECTORY + "/" + sha256Hex + extension;
+  }
+
+  public static String directoryKey(String type) {
+    return type + "/" + DIRECTORY + "/";
+  }
+
+  /**
+   * The local file for a request path, or empty when the name is not a content address, the
+   * store keeps no local files or no such file exists.
+   */
+  public Optional<Path> resolve(String type, String fileName) {
+    if (!TYPES.contains(type) || !isContentAddressed(fileName)) {
+      return Optional.empty();
+    }
+    return blobStore.localPath(directoryKey(type) + fileName).filter(Files::isRegularFile);
+  }
+
+  public static boolean isContentAddressed(String fileName) {
+    return FILE_NAME.matcher(fileName).matches();
+  }
+
+  /**
+   * Strong ETag of a stored file: its content hash.
+   */
+  public static String etag(String fileName) {
+    Matcher matcher = FILE_NAME.matcher(fileName);
+    return matcher.matches() ? "\"" + matcher.group(1) + "\"" : null;
+  }
+
+  public static String extension(String originalFileName) {
+    int lastDotIndex = originalFileName != null ? originalFileName.lastIndexOf('.') : -1;
+    if (lastDotIndex < 0) {
+      return "";
+    }
+    String extension = originalFileName.substring(lastDotIndex + 1).toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    return extension.isEmpty() || extension.length() > 10 ? "" : "." + extension;
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      // left for the garbage collector
+    }
+  }
+}
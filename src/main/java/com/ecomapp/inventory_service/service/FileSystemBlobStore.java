@@ -0,0 +1,166 @@
+package com.ecomapp.inventory_service.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Files in a local directory (storage.filesystem.root), served by this service under /uploads/.
+ * Each replica has its own disk, so this backend is for a single instance and for development;
+ * it stands in for S3BlobStore without any external service. It cannot presign uploads.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "FILESYSTEM", matchIfMissing = true)
+public class FileSystemBlobStore implements BlobStore {
+  private final Path root;
+  private final String publicBaseUrl;
+
+  public FileSystemBlobStore(
+      @Value("${storage.filesystem.root:${user.dir}/uploads}") String root,
+      @Value("${storage.public-base-url:http://localhost:4000/uploads/}") String publicBaseUrl
+    ) {
+    this.root = Paths.get(root).toAbsolutePath().normalize();
+    this.publicBaseUrl = publicBaseUrl;
+  }
+
+  public Path root() {
+    return root;
+  }
+
+  @Override
+  public void put(String key, Path file, String contentType, String cacheControl) throws IOException {
+    Path target = resolve(key);
+    Files.createDirectories(target.getParent());
+    try {
+      Files.move(file, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      // file is on another file system: copy next to the target, then rename, so readers never see half a file
+      Path partial = target.resolveSibling("." + UUID.randomUUID() + ".part");
+      try {
+        Files.copy(file, partial);
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(partial);
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  @Override
+  public Optional<BlobInfo> stat(String key) throws IOException {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+      return attributes.isRegularFile()
+          ? Optional.of(new BlobInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant()))
+          : Optional.empty();
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public boolean touch(String key) throws IOException {
+    try {
+      Files.setLastModifiedTime(resolve(key), FileTime.fromMillis(System.currentTimeMillis()));
+      return true;
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public InputStream open(String key) throws IOException {
+    return Files.newInputStream(resolve(key));
+  }
+
+  @Override
+  public void delete(String key) throws IOException {
+    Files.deleteIfExists(resolve(key));
+  }
+
+  /**
+   * The file is renamed out of the way before its modification time is read: a touch either came
+   * first and is seen here, or finds no file and the blob is put again.
+   */
+  @Override
+  public boolean deleteIfUnmodifiedSince(String key, Instant cutoff) throws IOException {
+    Path target = resolve(key);
+    Path claimed = target.resolveSibling("." + UUID.randomUUID() + ".gc");
+    try {
+      Files.move(target, claimed, StandardCopyOption.ATOMIC_MOVE);
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+    if (Files.getLastModifiedTime(claimed).toInstant().isAfter(cutoff)) {
+      try {
+        Files.move(claimed, target);
+      } catch (FileAlreadyExistsException e) {
+        // put again meanwhile, same content
+        Files.delete(claimed);
+      }
+      return false;
+    }
+    Files.delete(claimed);
+    return true;
+  }
+
+  @Override
+  public List<BlobInfo> list(String prefix) throws IOException {
+    Path directory = resolve(prefix);
+    List<BlobInfo> blobs = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return blobs;
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        String fileName = file.getFileName().toString();
+        if (attributes.isRegularFile() && !fileName.startsWith(".")) {
+          blobs.add(new BlobInfo(prefix + fileName, attributes.size(), attributes.lastModifiedTime().toInstant()));
+        }
+      }
+    }
+    return blobs;
+  }
+
+  @Override
+  public String publicUrl(String key) {
+    return publicBaseUrl + key;
+  }
+
+  @Override
+  public Optional<PresignedUpload> presignPut(String key, String contentType, String sha256Base64) {
+    return Optional.empty();
+  }
+
+  @Override
+  public Optional<Path> localPath(String key) {
+    return Optional.of(resolve(key));
+  }
+
+  private Path resolve(String key) {
+    Path path = root.resolve(key).normalize();
+    if (!path.startsWith(root)) {
+      throw new IllegalArgumentException("Invalid key " + key);
+    }
+    return path;
+  }
+}
@@ -1,77 +1,251 @@
 package com.ecomapp.inventory_service.service;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.ecomapp.inventory_service.constant.ImageStorageEnum;
 import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.dto.ConfirmUploadDto;
+import com.ecomapp.inventory_service.dto.PresignUploadDto;
+import com.ecomapp.inventory_service.dto.PresignedUploadDto;
 import com.ecomapp.inventory_service.dto.UploadFileDto;
 import com.ecomapp.inventory_service.exception.CustomException;
-import com.ecomapp.inventory_service.model.CategoryModel;
-import com.ecomapp.inventory_service.model.ProductModel;
 import com.ecomapp.inventory_service.repository.CategoryRepository;
 import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.service.BlobStore.PresignedUpload;
+import com.ecomapp.inventory_service.service.ContentAddressedImageStore.StoredImage;
+import com.ecomapp.inventory_service.util.FileTransfer;
 
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Image uploads. The files of one request are copied to the UploadSpool and put in the BlobStore
+ * in parallel on a bounded pool (upload.writer-threads), off the request thread, then the product
+ * or category is updated with a single atomic update and thumbnails are queued on ThumbnailService.
+ * upload.storage-mode picks the keys, see ImageStorageEnum.
+ *
+ * With a backend that can presign (S3), clients can instead upload straight to the store:
+ * presignUpload hands out the url, confirmUploads attaches the uploaded keys.
+ */
+@Slf4j
 @Service
 public class FileUploadService {
   private final CategoryRepository categoryRepository;
   private final ProductRepository productRepository;
+  private final CatalogCacheService catalogCacheService;
+  private final ThumbnailService thumbnailService;
+  private final ContentAddressedImageStore imageStore;
+  private final BlobStore blobStore;
+  private final UploadSpool spool;
+  private final ImageStorageEnum storageMode;
+  private final ExecutorService writers;
 
-  public FileUploadService(CategoryRepository categoryRepository, ProductRepository productRepository) {
+  public FileUploadService(
+      CategoryRepository categoryRepository,
+      ProductRepository productRepository,
+      CatalogCacheService catalogCacheService,
+      ThumbnailService thumbnailService,
+      ContentAddressedImageStore imageStore,
+      BlobStore blobStore,
+      UploadSpool spool,
+      @Value("${upload.storage-mode:TIMESTAMPED}") ImageStorageEnum storageMode,
+      @Value("${upload.writer-threads:4}") int writerThreads
+    ) {
     this.categoryRepository = categoryRepository;
     this.productRepository = productRepository;
+    this.catalogCacheService = catalogCacheService;
+    this.thumbnailService = thumbnailService;
+    this.imageStore = imageStore;
+    this.blobStore = blobStore;
+    this.spool = spool;
+    this.storageMode = storageMode;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+      Thread thread = new Thread(runnable, "image-upload-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    writers.shutdownNow();
   }
 
-  public ApiResponse<List<String>> uploadImages(UploadFileDto body) throws IOException {
-    String uploadDir = System.getProperty("user.dir") + "/uploads/" + body.getType() + "/";
+  /**
+   * Save the files and attach them to the product (appended) or category (replaces its image).
+   * Completes exceptionally with a CustomException for an unknown type or a missing product or
+   * category. Timestamped files written for the request are deleted in that case; content-addressed
+   * files may be shared with other uploads and are left to ImageGarbageCollectorService.
+   */
+  public CompletableFuture<ApiResponse<List<String>>> uploadImages(UploadFileDto body) {
+    validateType(body.getType());
 
-    List<String> savedPaths = new ArrayList<>();
+    long timestamp = System.currentTimeMillis();
+    List<String> timestampedKeys = new ArrayList<>();
+    List<CompletableFuture<StoredImage>> writes = new ArrayList<>();
+    for (MultipartFile file : body.getFiles()) {
+      if (storageMode == ImageStorageEnum.CONTENT_ADDRESSED) {
+        writes.add(CompletableFuture.supplyAsync(() -> imageStore.store(file, body.getType()), writers));
+      } else {
+        String key = body.getType() + "/" + fileName(timestamp, timestampedKeys.size(), file.getOriginalFilename());
+        timestampedKeys.add(key);
+        writes.add(CompletableFuture.supplyAsync(() -> write(file, key), writers));
+      }
+    }
 
-    File directory = new File(uploadDir);
-    if (!directory.exists()) {
-        directory.mkdirs();
+    return CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new))
+        .thenApplyAsync(ignored -> {
+          List<StoredImage> images = writes.stream().map(CompletableFuture::join).toList();
+          List<String> savedPaths = images.stream().map(StoredImage::key).toList();
+          attach(body.getType(), body.getId(), savedPaths);
+          images.stream()
+              .filter(StoredImage::created)
+              .forEach(image -> thumbnailService.submit(image.key()));
+          return new ApiResponse<>(true, "Files uploaded successfully", savedPaths);
+        }, writers)
+        .whenComplete((response, error) -> {
+          if (error != null) {
+            timestampedKeys.forEach(this::deleteQuietly);
+          }
+        });
+  }
+
+  /**
+   * A url the client uploads one file to, straight to the store. With content addressing the
+   * key comes from the file's SHA-256, which the store checks on upload; when the store already
+   * has that content nothing needs to be uploaded. Attach the key with confirmUploads afterwards.
+   */
+  public ApiResponse<PresignedUploadDto> presignUpload(PresignUploadDto body) throws IOException {
+    validateType(body.getType());
+    requireTarget(body.getType(), body.getId());
+
+    String key;
+    String sha256Base64 = null;
+    if (storageMode == ImageStorageEnum.CONTENT_ADDRESSED) {
+      if (body.getSha256() == null) {
+        throw new CustomException("sha256 is required", HttpStatus.BAD_REQUEST);
+      }
+      key = ContentAddressedImageStore.key(
+          body.getType(), body.getSha256(), ContentAddressedImageStore.extension(body.getFileName()));
+      sha256Base64 = Base64.getEncoder().encodeToString(HexFormat.of().parseHex(body.getSha256()));
+      if (blobStore.touch(key)) {
+        return new ApiResponse<>(true, "Image already stored", new PresignedUploadDto(key, true, null, null, null, null));
+      }
+    } else {
+      key = body.getType() + "/" + fileName(System.currentTimeMillis(), 0, body.getFileName());
     }
-    // Save files to disk
-    for(MultipartFile file : body.getFiles()) {
-      String originalFileName = file.getOriginalFilename();
-      String baseName = originalFileName;
-      String extension = "";
-      int lastDotIndex = originalFileName.lastIndexOf('.');
-      if(lastDotIndex > 0 && lastDotIndex < originalFileName.length() - 1) {
-        baseName = originalFileName.substring(0, lastDotIndex);
-        extension = originalFileName.substring(lastDotIndex);
+    PresignedUpload upload = blobStore.presignPut(key, body.getContentType(), sha256Base64)
+        .orElseThrow(() -> new CustomException("Direct uploads need storage.backend=S3", HttpStatus.BAD_REQUEST));
+    return new ApiResponse<>(true, "Upload url created", new PresignedUploadDto(
+        key, false, upload.url(), upload.method(), upload.headers(), upload.expiresAt()));
+  }
+
+  /**
+   * Attach keys uploaded through presignUpload, like uploadImages attaches the files it stored.
+   */
+  public ApiResponse<List<String>> confirmUploads(ConfirmUploadDto body) throws IOException {
+    validateType(body.getType());
+    for (String key : body.getKeys()) {
+      if (!isUploadKey(body.getType(), key)) {
+        throw new CustomException("Invalid key " + key, HttpStatus.BAD_REQUEST);
+      }
+      if (blobStore.stat(key).isEmpty()) {
+        throw new CustomException("Nothing uploaded to " + key, HttpStatus.BAD_REQUEST);
       }
-      String sanitizedBaseName = baseName.replaceAll("\\W", "_");
-      String fileName = System.currentTimeMillis() + "_" + sanitizedBaseName + extension;
-      File destinationFile = new File(uploadDir + fileName);
-      file.transferTo(destinationFile);
-      // Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-      savedPaths.add(body.getType() + "/" + fileName);
     }
+    attach(body.getType(), body.getId(), body.getKeys());
+    body.getKeys().forEach(thumbnailService::submit);
+    return new ApiResponse<>(true, "Files uploaded successfully", body.getKeys());
+  }
 
-    // update db record
-    if("product".equals(body.getType())) {
-      ProductModel productModel = productRepository.findById(body.getId())
-        .orElseThrow(() -> new CustomException("Product not found", HttpStatus.NOT_FOUND));
-
-      List<String> existingUrls = productModel.getImageUrls();
-      List<String> finalUrls = new ArrayList<>(existingUrls);
-      finalUrls.addAll(savedPaths);
-      productModel.setImageUrls(finalUrls);
-      productRepository.save(productModel);
-    } else if("category".equals(body.getType())) {
-      CategoryModel categoryModel = categoryRepository.findById(body.getId())
-        .orElseThrow(() -> new CustomException("Category not found", HttpStatus.NOT_FOUND));
-      categoryModel.setImageUrl(savedPaths.get(0));
-      categoryRepository.save(categoryModel);
+  private void attach(String type, String id, List<String> savedPaths) {
+    if ("product".equals(type)) {
+      if (!productRepository.addImageUrls(id, savedPaths)) {
+        throw new CustomException("Product not found", HttpStatus.NOT_FOUND);
+      }
+      catalogCacheService.evictProduct(id);
     } else {
+      if (!categoryRepository.setImageUrl(id, savedPaths.get(0))) {
+        throw new CustomException("Category not found", HttpStatus.NOT_FOUND);
+      }
+      catalogCacheService.evictCategory(id);
+    }
+  }
+
+  private void requireTarget(String type, String id) {
+    boolean exists = "product".equals(type) ? productRepository.existsById(id) : categoryRepository.existsById(id);
+    if (!exists) {
+      throw new CustomException("product".equals(type) ? "Product not found" : "Category not found", HttpStatus.NOT_FOUND);
+    }
+  }
+
+  private StoredImage write(MultipartFile file, String key) {
+    try (InputStream in = file.getInputStream()) {
+      Path temp = spool.newFile();
+      try {
+        FileTransfer.copy(in, temp);
+        blobStore.put(key, temp, file.getContentType(), null);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+      return new StoredImage(key, true);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not save " + file.getOriginalFilename(), e);
+    }
+  }
+
+  private static void validateType(String type) {
+    if (!ContentAddressedImageStore.TYPES.contains(type)) {
       throw new CustomException("Invalid type", HttpStatus.BAD_REQUEST);
     }
-    return new ApiResponse<>(true, "Files uploaded successfully", savedPaths);
+  }
+
+  // {type}/{name} or {type}/sha256/{hash}.{ext}, never a thumbnail or another type's image
+  static boolean isUploadKey(String type, String key) {
+    String fileName = key.substring(key.lastIndexOf('/') + 1);
+    if (key.equals(ContentAddressedImageStore.directoryKey(type) + fileName)) {
+      return ContentAddressedImageStore.isContentAddressed(fileName);
+    }
+    return key.equals(type + "/" + fileName) && fileName.matches("\\d+_\\d+_\\w+(\\.\\w+)?");
+  }
+
+  static String fileName(long timestamp, int index, String originalFileName) {
+    String baseName = originalFileName;
+    String extension = "";
+    int lastDotIndex = originalFileName.lastIndexOf('.');
+    if (lastDotIndex > 0 && lastDotIndex < originalFileName.length() - 1) {
+      baseName = originalFileName.substring(0, lastDotIndex);
+      extension = originalFileName.substring(lastDotIndex).replaceAll("\\W", "");
+      extension = extension.isEmpty() ? "" : "." + extension;
+    }
+    String sanitizedBaseName = baseName.replaceAll("\\W", "_");
+    // the index keeps two files with the same name in one request apart
+    return timestamp + "_" + index + "_" + sanitizedBaseName + extension;
+  }
+
+  private void deleteQuietly(String key) {
+    try {
+      blobStore.delete(key);
+    } catch (IOException | RuntimeException e) {
+      log.warn("Could not delete {}: {}", key, e.getMessage());
+    }
   }
 }
@@ -0,0 +1,126 @@
+package com.ecomapp.inventory_service.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.repository.CategoryRepository;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.service.BlobStore.BlobInfo;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes content-addressed images nothing references any more, from whichever BlobStore is configured.
+ *
+ * The references of an image are the products listing it in imageUrls and the categories using it
+ * as imageUrl; they are counted from those documents when the collector runs, so there is no
+ * separate counter that could drift from the data. Files younger than the grace period are kept:
+ * an upload writes its file before it adds the reference. Timestamped files are never touched.
+ */
+@Slf4j
+@Service
+public class ImageGarbageCollectorService {
+  private static final int REFERENCE_CHECK_BATCH_SIZE = 500;
+
+  private final ProductRepository productRepository;
+  private final CategoryRepository categoryRepository;
+  private final BlobStore blobStore;
+  private final UploadSpool spool;
+  private final ThumbnailService thumbnailService;
+  private final boolean enabled;
+  private final Duration gracePeriod;
+
+  public ImageGarbageCollectorService(
+      ProductRepository productRepository,
+      CategoryRepository categoryRepository,
+      BlobStore blobStore,
+      UploadSpool spool,
+      ThumbnailService thumbnailService,
+      @Value("${upload.gc.enabled:true}") boolean enabled,
+      @Value("${upload.gc.grace-period-ms:3600000}") long gracePeriodMs
+    ) {
+    this.productRepository = productRepository;
+    this.categoryRepository = categoryRepository;
+    this.blobStore = blobStore;
+    this.spool = spool;
+    this.thumbnailService = thumbnailService;
+    this.enabled = enabled;
+    this.gracePeriod = Duration.ofMillis(gracePeriodMs);
+  }
+
+  @Scheduled(
+      initialDelayString = "${upload.gc.initial-delay-ms:300000}",
+      fixedDelayString = "${upload.gc.interval-ms:86400000}")
+  public void collectOnSchedule() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      collect();
+    } catch (IOException | RuntimeException e) {
+      log.error("Image garbage collection failed: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Delete unreferenced images (and their thumbnails) and abandoned spool files.
+   * Returns how many blobs were checked and deleted and the bytes freed.
+   */
+  public synchronized Map<String, Object> collect() throws IOException {
+    Instant cutoff = Instant.now().minus(gracePeriod);
+    long checked = 0;
+    long deleted = 0;
+    long freedBytes = 0;
+
+    for (String type : ContentAddressedImageStore.TYPES) {
+      Map<String, BlobInfo> candidates = new LinkedHashMap<>();
+      for (BlobInfo blob : blobStore.list(ContentAddressedImageStore.directoryKey(type))) {
+        String fileName = blob.key().substring(blob.key().lastIndexOf('/') + 1);
+        if (ContentAddressedImageStore.isContentAddressed(fileName) && blob.lastModified().isBefore(cutoff)) {
+          candidates.put(blob.key(), blob);
+        }
+      }
+      checked += candidates.size();
+
+      List<String> keys = new ArrayList<>(candidates.keySet());
+      for (int from = 0; from < keys.size(); from += REFERENCE_CHECK_BATCH_SIZE) {
+        List<String> batch = keys.subList(from, Math.min(from + REFERENCE_CHECK_BATCH_SIZE, keys.size()));
+        Set<String> referenced = new HashSet<>(productRepository.findReferencedImageUrls(batch));
+        referenced.addAll(categoryRepository.findReferencedImageUrls(batch));
+        for (String key : batch) {
+          if (referenced.contains(key)) {
+            continue;
+          }
+          // kept when uploaded again since the listing, the new reference may not be written yet
+          if (!blobStore.deleteIfUnmodifiedSince(key, cutoff)) {
+            continue;
+          }
+          thumbnailService.deleteThumbnails(key);
+          deleted++;
+          freedBytes += candidates.get(key).size();
+        }
+      }
+    }
+    long spoolFiles = spool.deleteOlderThan(cutoff);
+
+    log.info("Image garbage collection - checked {}, deleted {}, freed {} bytes, {} abandoned spool file(s)",
+        checked, deleted, freedBytes, spoolFiles);
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("checked", checked);
+    result.put("deleted", deleted);
+    result.put("freedBytes", freedBytes);
+    result.put("spoolFilesDeleted", spoolFiles);
+    return result;
+  }
+}
@@ -0,0 +1,158 @@
+package com.ecomapp.inventory_service.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.model.InventoryEventModel;
+import com.ecomapp.inventory_service.model.InventoryEventRelayModel;
+import com.ecomapp.inventory_service.repository.InventoryEventRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The published inventory events as this node sees them, for WatchInventoryEvents.
+ *
+ * One poll of the relay state every events.outbox.poll-interval-ms serves all the node's watchers:
+ * newly committed events are read once into a window of the latest events.outbox.feed-buffer-size
+ * events and the watchers are woken. A watcher that is caught up reads from the window; one resuming
+ * from an older offset reads from MongoDB until it catches up.
+ */
+@Slf4j
+@Service
+public class InventoryEventFeed {
+  private static final int READ_BATCH_SIZE = 1000;
+
+  private final InventoryEventRepository inventoryEventRepository;
+  private final boolean enabled;
+  private final int bufferSize;
+  private final ConcurrentSkipListMap<Long, InventoryEventModel> recent = new ConcurrentSkipListMap<>();
+  private final Set<Runnable> watchers = ConcurrentHashMap.newKeySet();
+  private final ExecutorService wakeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "inventory-event-feed");
+    thread.setDaemon(true);
+    return thread;
+  });
+  // the window holds every published event after floor up to committed
+  private volatile long floor = -1;
+  private volatile long committed = -1;
+
+  public InventoryEventFeed(
+      InventoryEventRepository inventoryEventRepository,
+      @Value("${events.outbox.enabled:true}") boolean enabled,
+      @Value("${events.outbox.feed-buffer-size:10000}") int bufferSize
+    ) {
+    this.inventoryEventRepository = inventoryEventRepository;
+    this.enabled = enabled;
+    this.bufferSize = bufferSize;
+  }
+
+  @PreDestroy
+  public void stop() {
+    wakeExecutor.shutdownNow();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Scheduled(
+      initialDelayString = "${events.outbox.poll-interval-ms:200}",
+      fixedDelayString = "${events.outbox.poll-interval-ms:200}")
+  public void pollOnSchedule() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      poll();
+    } catch (RuntimeException e) {
+      log.warn("Inventory event feed poll failed, retrying: {}", e.getMessage());
+    }
+  }
+
+  void poll() {
+    long target = relayState().getCommitted();
+    if (committed < 0) {
+      // history stays in MongoDB, the window starts now
+      floor = target;
+      committed = target;
+      return;
+    }
+    if (target <= committed) {
+      return;
+    }
+    long readThrough = committed;
+    while (readThrough < target) {
+      List<InventoryEventModel> page = inventoryEventRepository.findPublished(readThrough, target, READ_BATCH_SIZE);
+      page.forEach(event -> recent.put(event.getSeq(), event));
+      // offsets of a failed relay batch are never used, so a short page means the rest is gaps
+      readThrough = page.size() < READ_BATCH_SIZE ? target : page.get(page.size() - 1).getSeq();
+    }
+    while (recent.size() > bufferSize) {
+      floor = recent.pollFirstEntry().getKey();
+    }
+    committed = target;
+    watchers.forEach(wakeExecutor::execute);
+  }
+
+  /**
+   * The relay state as stored, for a watcher checking the offset it resumes from.
+   */
+  public InventoryEventRelayModel relayState() {
+    return inventoryEventRepository.findRelayState()
+        .orElseGet(() -> InventoryEventRelayModel.builder().committed(0L).allocated(0L).purgedThrough(0L).build());
+  }
+
+  /**
+   * Up to limit published events after afterSeq, in offset order; empty when there are none yet.
+   */
+  public List<InventoryEventModel> read(long afterSeq, int limit) {
+    long through = committed;
+    if (afterSeq >= through) {
+      return List.of();
+    }
+    if (afterSeq >= floor) {
+      List<InventoryEventModel> events = new ArrayList<>(Math.min(limit, recent.size()));
+      for (Map.Entry<Long, InventoryEventModel> entry : recent.subMap(afterSeq, false, through, true).entrySet()) {
+        if (events.size() == limit) {
+          break;
+        }
+        events.add(entry.getValue());
+      }
+      // unless the window was trimmed past afterSeq meanwhile, then the events are read from MongoDB
+      if (afterSeq >= floor) {
+        return events;
+      }
+    }
+    return inventoryEventRepository.findPublished(afterSeq, through, limit);
+  }
+
+  public long committedOffset() {
+    return Math.max(committed, 0);
+  }
+
+  /**
+   * Run watcher every time new events are committed, until it is removed.
+   */
+  public void addWatcher(Runnable watcher) {
+    watchers.add(watcher);
+  }
+
+  public void removeWatcher(Runnable watcher) {
+    watchers.remove(watcher);
+  }
+
+  public int watcherCount() {
+    return watchers.size();
+  }
+}
@@ -0,0 +1,247 @@
+package com.ecomapp.inventory_service.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.constant.InventoryEventTypeEnum;
+import com.ecomapp.inventory_service.model.InventoryEventModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.InventoryEventRepository;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transactional outbox of price, stock and cart changes, streamed by the WatchInventoryEvents RPC
+ * (events.outbox.*).
+ *
+ * A price or stock write increments ProductModel.pendingEvents in the same single-document update,
+ * so a product write and its event can't be split by a crash and no MongoDB transaction (replica set)
+ * is needed. The relay turns each marked product into a PRODUCT_CHANGED event carrying its current
+ * price and stock, so a burst of writes to a hot product is published as one event. Deletes and cart
+ * clears leave no document to mark; their services stage an event right after the write.
+ *
+ * One node relays at a time (a lease in the relay state document), so offsets are handed out in
+ * order: a batch of events gets the next offsets, then the committed offset moves past them and
+ * consumers see them. Allocating and committing need an unexpired lease, and a node taking over
+ * reuses the offsets its predecessor left uncommitted, so a batch written late by a node that lost
+ * its lease collides on seq rather than landing behind the consumers. Product changes of a batch are read before its staged events and go first, so
+ * a delete is never followed by an older snapshot of the product. Events are delivered at least once;
+ * a consumer keeps the offset of the last one it handled.
+ *
+ * Compaction keeps the latest event per product (and per cart) once it is events.outbox.compact-after-ms
+ * old, so reading from offset 0 still gives every product's latest state. Deletes and cart clears are
+ * removed after events.outbox.retention-ms.
+ */
+@Slf4j
+@Service
+public class InventoryEventService {
+  private static final List<InventoryEventTypeEnum> RETAINED_TYPES =
+      List.of(InventoryEventTypeEnum.PRODUCT_DELETED, InventoryEventTypeEnum.CART_CLEARED);
+
+  private final InventoryEventRepository inventoryEventRepository;
+  private final ProductRepository productRepository;
+  private final boolean enabled;
+  private final String nodeId;
+  private final int batchSize;
+  private final Duration lease;
+  private final Duration compactAfter;
+  private final Duration retention;
+
+  public InventoryEventService(
+      InventoryEventRepository inventoryEventRepository,
+      ProductRepository productRepository,
+      @Value("${events.outbox.enabled:true}") boolean enabled,
+      @Value("${events.outbox.node-id:${HOSTNAME:}}") String nodeId,
+      @Value("${events.outbox.relay-batch-size:500}") int batchSize,
+      @Value("${events.outbox.lease-ms:10000}") long leaseMs,
+      @Value("${events.outbox.compact-after-ms:3600000}") long compactAfterMs,
+      @Value("${events.outbox.retention-ms:604800000}") long retentionMs
+    ) {
+    this.inventoryEventRepository = inventoryEventRepository;
+    this.productRepository = productRepository;
+    this.enabled = enabled;
+    this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    this.batchSize = batchSize;
+    this.lease = Duration.ofMillis(leaseMs);
+    this.compactAfter = Duration.ofMillis(compactAfterMs);
+    this.retention = Duration.ofMillis(retentionMs);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void productDeleted(String productId) {
+    if (enabled) {
+      inventoryEventRepository.insert(productDeletedEvent(productId));
+    }
+  }
+
+  public void cartCleared(String userId) {
+    if (enabled) {
+      inventoryEventRepository.insert(cartClearedEvent(userId));
+    }
+  }
+
+  static InventoryEventModel productDeletedEvent(String productId) {
+    return staged(InventoryEventTypeEnum.PRODUCT_DELETED, "product:" + productId)
+        .productId(productId)
+        .build();
+  }
+
+  static InventoryEventModel cartClearedEvent(String userId) {
+    return staged(InventoryEventTypeEnum.CART_CLEARED, "cart:" + userId)
+        .userId(userId)
+        .build();
+  }
+
+  static InventoryEventModel productChangedEvent(ProductModel product) {
+    return InventoryEventModel.builder()
+        .type(InventoryEventTypeEnum.PRODUCT_CHANGED)
+        .key("product:" + product.getId())
+        .createdAt(LocalDateTime.now())
+        .productId(product.getId())
+        .mrp(product.getMrp())
+        .discount(product.getDiscount())
+        .availableStock(product.getAvailableStock())
+        .isActive(product.getIsActive())
+        .productVersion(product.getVersion())
+        .build();
+  }
+
+  private static InventoryEventModel.InventoryEventModelBuilder staged(InventoryEventTypeEnum type, String key) {
+    return InventoryEventModel.builder()
+        .type(type)
+        .key(key)
+        .staged(true)
+        .createdAt(LocalDateTime.now());
+  }
+
+  @Scheduled(
+      initialDelayString = "${events.outbox.relay-interval-ms:200}",
+      fixedDelayString = "${events.outbox.relay-interval-ms:200}")
+  public void relayOnSchedule() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      relay();
+    } catch (RuntimeException e) {
+      log.warn("Inventory event relay failed, retrying: {}", e.getMessage());
+    }
+  }
+
+  @Scheduled(
+      initialDelayString = "${events.outbox.compact-interval-ms:900000}",
+      fixedDelayString = "${events.outbox.compact-interval-ms:900000}")
+  public void compactOnSchedule() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      compact();
+    } catch (RuntimeException e) {
+      log.error("Inventory event compaction failed: {}", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Publish pending product changes and staged events, batch by batch, while this node holds the
+   * relay lease. Returns how many events were published.
+   */
+  public synchronized long relay() {
+    if (!acquireLease()) {
+      return 0;
+    }
+    long published = 0;
+    while (true) {
+      List<ProductModel> products = productRepository.findPendingEvents(batchSize);
+      List<InventoryEventModel> staged = inventoryEventRepository.findStaged(batchSize);
+      int count = publish(products, staged);
+      if (count < 0) {
+        break;
+      }
+      published += count;
+      if (products.size() < batchSize && staged.size() < batchSize) {
+        break;
+      }
+      if (!acquireLease()) {
+        break;
+      }
+    }
+    if (published > 0) {
+      log.debug("Published {} inventory event(s)", published);
+    }
+    return published;
+  }
+
+  // the pending counts are taken back last: a crash before publishes the products again, never loses them.
+  // Returns how many events were published, or -1 when this node lost the relay lease meanwhile
+  private int publish(List<ProductModel> products, List<InventoryEventModel> staged) {
+    Set<String> deleted = staged.stream()
+        .filter(event -> event.getType() == InventoryEventTypeEnum.PRODUCT_DELETED)
+        .map(InventoryEventModel::getProductId)
+        .collect(Collectors.toSet());
+    List<InventoryEventModel> changes = new ArrayList<>(products.size());
+    Map<String, Integer> relayed = new LinkedHashMap<>();
+    for (ProductModel product : products) {
+      if (!deleted.contains(product.getId())) {
+        changes.add(productChangedEvent(product));
+      }
+      relayed.put(product.getId(), product.getPendingEvents());
+    }
+    int count = changes.size() + staged.size();
+    if (count > 0) {
+      LocalDateTime now = LocalDateTime.now();
+      Optional<Long> firstSeq = inventoryEventRepository.allocate(nodeId, count, now);
+      if (firstSeq.isEmpty()) {
+        return -1;
+      }
+      if (!inventoryEventRepository.publish(changes, staged, firstSeq.get(), now)) {
+        // a node that lost the lease wrote these offsets; they become ours, this batch goes out next run
+        inventoryEventRepository.adoptPublished(nodeId, LocalDateTime.now())
+            .ifPresent(seq -> log.info("Inventory event relay took over events published through offset {}", seq));
+        return -1;
+      }
+      if (!inventoryEventRepository.commit(nodeId, firstSeq.get() + count - 1, LocalDateTime.now())) {
+        // the next owner reuses the offsets, collides with this batch and commits it
+        return -1;
+      }
+    }
+    productRepository.ackPendingEvents(relayed);
+    return count;
+  }
+
+  /**
+   * Remove superseded and expired events while this node holds the relay lease.
+   */
+  public synchronized Map<String, Long> compact() {
+    Map<String, Long> removed = new LinkedHashMap<>();
+    if (!acquireLease()) {
+      return removed;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    removed.put("superseded", inventoryEventRepository.compact(now.minus(compactAfter)));
+    removed.put("expired", inventoryEventRepository.purge(RETAINED_TYPES, now.minus(retention)));
+    log.info("Inventory events compacted: {} superseded, {} expired", removed.get("superseded"), removed.get("expired"));
+    return removed;
+  }
+
+  private boolean acquireLease() {
+    LocalDateTime now = LocalDateTime.now();
+    return inventoryEventRepository.acquireLease(nodeId, now, now.plus(lease));
+  }
+}
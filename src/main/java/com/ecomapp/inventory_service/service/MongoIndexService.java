@@ -0,0 +1,300 @@
+package com.ecomapp.inventory_service.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.ExplainVerbosity;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Creates the indexes declared on the models (@Indexed, @CompoundIndex) and checks they exist.
+ *
+ * spring.data.mongodb.auto-index-creation is left off on purpose: it builds indexes while the
+ * context starts and fails startup on the first conflict. Here the build runs on its own thread
+ * after startup (mongo.index-bootstrap.enabled), and a failing index is logged and reported by
+ * /diagnostics/indexes instead.
+ */
+@Slf4j
+@Service
+public class MongoIndexService {
+  private static final String SAMPLE_STRING = "000000000000000000000000";
+
+  private final MongoTemplate mongoTemplate;
+  private final MongoMappingContext mappingContext;
+  private final ListableBeanFactory beanFactory;
+  private final boolean bootstrapEnabled;
+
+  public MongoIndexService(
+      MongoTemplate mongoTemplate,
+      MongoMappingContext mappingContext,
+      ListableBeanFactory beanFactory,
+      @Value("${mongo.index-bootstrap.enabled:true}") boolean bootstrapEnabled
+    ) {
+    this.mongoTemplate = mongoTemplate;
+    this.mappingContext = mappingContext;
+    this.beanFactory = beanFactory;
+    this.bootstrapEnabled = bootstrapEnabled;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void bootstrapOnStartup() {
+    if (!bootstrapEnabled) {
+      return;
+    }
+    Thread thread = new Thread(() -> {
+      try {
+        ensureIndexes();
+      } catch (RuntimeException e) {
+        log.error("Index bootstrap failed: {}", e.getMessage(), e);
+      }
+    }, "mongo-index-bootstrap");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Create the declared indexes that don't exist yet, then check them all.
+   */
+  public synchronized Map<String, List<Map<String, Object>>> ensureIndexes() {
+    Map<String, List<Map<String, Object>>> result = indexReport(true);
+    long missing = result.values().stream()
+        .flatMap(List::stream)
+        .filter(index -> !"present".equals(index.get("status")) && !"created".equals(index.get("status")))
+        .count();
+    if (missing > 0) {
+      log.error("Index bootstrap finished - {} declared index(es) missing, see /diagnostics/indexes", missing);
+    } else {
+      log.info("Index bootstrap finished - all declared indexes present");
+    }
+    return result;
+  }
+
+  /**
+   * ensureIndexes for the collections of the given models only, in the calling thread.
+   */
+  public synchronized Map<String, List<Map<String, Object>>> ensureIndexes(Class<?>... types) {
+    List<MongoPersistentEntity<?>> entities = new ArrayList<>();
+    for (Class<?> type : types) {
+      entities.add(mappingContext.getRequiredPersistentEntity(type));
+    }
+    return indexReport(true, entities);
+  }
+
+  /**
+   * Declared indexes per collection and whether MongoDB has them, without creating anything.
+   */
+  public Map<String, List<Map<String, Object>>> checkIndexes() {
+    return indexReport(false);
+  }
+
+  /**
+   * Query planner output for each derived query method (findBy..., deleteBy...) of every
+   * repository, run with placeholder values. Fragment methods filter on _id and are not listed.
+   */
+  public List<Map<String, Object>> explainRepositoryQueries() {
+    QueryMapper queryMapper = new QueryMapper(mongoTemplate.getConverter());
+    Repositories repositories = new Repositories(beanFactory);
+    List<Map<String, Object>> result = new ArrayList<>();
+
+    for (Class<?> domainType : repositories) {
+      RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+      MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(domainType);
+      List<Method> methods = information.getQueryMethods().stream()
+          // fragment methods are declared on the *RepositoryCustom interfaces
+          .filter(method -> method.getDeclaringClass().equals(information.getRepositoryInterface()))
+          .sorted(Comparator.comparing(Method::getName))
+          .toList();
+      for (Method method : methods) {
+        Map<String, Object> plan = new LinkedHashMap<>();
+        plan.put("repository", information.getRepositoryInterface().getSimpleName());
+        plan.put("method", method.getName());
+        plan.put("collection", entity.getCollection());
+        try {
+          Document filter = queryMapper.getMappedObject(derivedQuery(method.getName(), domainType).getQueryObject(), entity);
+          Document explain = mongoTemplate.getCollection(entity.getCollection())
+              .find(filter)
+              .explain(ExplainVerbosity.QUERY_PLANNER);
+          plan.put("filter", filter.toJson());
+          plan.putAll(summarizePlan(explain));
+        } catch (RuntimeException e) {
+          plan.put("error", e.getMessage());
+        }
+        result.add(plan);
+      }
+    }
+    return result;
+  }
+
+  private Map<String, List<Map<String, Object>>> indexReport(boolean create) {
+    return indexReport(create, mappingContext.getPersistentEntities().stream()
+        .filter(entity -> entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class))
+        .sorted(Comparator.comparing(MongoPersistentEntity::getCollection))
+        .collect(Collectors.toList()));
+  }
+
+  private Map<String, List<Map<String, Object>>> indexReport(boolean create, List<MongoPersistentEntity<?>> entities) {
+    IndexResolver resolver = IndexResolver.create(mappingContext);
+    Map<String, List<Map<String, Object>>> result = new LinkedHashMap<>();
+    for (MongoPersistentEntity<?> entity : entities) {
+      IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+      Set<String> existing = indexNames(indexOps.getIndexInfo());
+      List<Map<String, Object>> indexes = new ArrayList<>();
+
+      for (IndexDefinition definition : resolver.resolveIndexFor(entity.getTypeInformation())) {
+        String name = definition.getIndexOptions().getString("name");
+        Map<String, Object> index = new LinkedHashMap<>();
+        index.put("name", name);
+        index.put("keys", definition.getIndexKeys().toJson());
+        index.put("unique", definition.getIndexOptions().getBoolean("unique", false));
+        if (existing.contains(name)) {
+          index.put("status", "present");
+        } else if (!create) {
+          index.put("status", "missing");
+        } else {
+          try {
+            indexOps.createIndex(definition);
+            index.put("status", "created");
+            log.info("Created index {} on {}", name, entity.getCollection());
+          } catch (RuntimeException e) {
+            // e.g. duplicates in existing data for a unique index, or the same keys under another name
+            index.put("status", "failed");
+            index.put("error", e.getMessage());
+            log.error("Could not create index {} on {}: {}", name, entity.getCollection(), e.getMessage());
+          }
+        }
+        indexes.add(index);
+      }
+      if (!indexes.isEmpty()) {
+        result.put(entity.getCollection(), indexes);
+      }
+    }
+    return result;
+  }
+
+  private static Set<String> indexNames(List<IndexInfo> indexes) {
+    return indexes.stream().map(IndexInfo::getName).collect(Collectors.toSet());
+  }
+
+  private static Query derivedQuery(String methodName, Class<?> domainType) {
+    List<Criteria> orParts = new ArrayList<>();
+    for (PartTree.OrPart orPart : new PartTree(methodName, domainType)) {
+      List<Criteria> andParts = new ArrayList<>();
+      for (Part part : orPart) {
+        andParts.add(toCriteria(part));
+      }
+      orParts.add(andParts.size() == 1 ? andParts.get(0) : new Criteria().andOperator(andParts));
+    }
+    if (orParts.isEmpty()) {
+      return new Query();
+    }
+    return new Query(orParts.size() == 1 ? orParts.get(0) : new Criteria().orOperator(orParts));
+  }
+
+  private static Criteria toCriteria(Part part) {
+    Criteria criteria = where(part.getProperty().toDotPath());
+    Object sample = sampleValue(part.getProperty().getLeafType());
+    return switch (part.getType()) {
+      case NEGATING_SIMPLE_PROPERTY -> criteria.ne(sample);
+      case LESS_THAN, BEFORE -> criteria.lt(sample);
+      case LESS_THAN_EQUAL -> criteria.lte(sample);
+      case GREATER_THAN, AFTER -> criteria.gt(sample);
+      case GREATER_THAN_EQUAL -> criteria.gte(sample);
+      case IN -> criteria.in(sample);
+      case NOT_IN -> criteria.nin(sample);
+      case IS_NULL -> criteria.is(null);
+      case IS_NOT_NULL -> criteria.ne(null);
+      case TRUE -> criteria.is(true);
+      case FALSE -> criteria.is(false);
+      case EXISTS -> criteria.exists(true);
+      default -> criteria.is(sample);
+    };
+  }
+
+  private static Object sampleValue(Class<?> type) {
+    if (type.isEnum()) {
+      return type.getEnumConstants()[0];
+    }
+    if (LocalDateTime.class.equals(type)) {
+      return LocalDateTime.now();
+    }
+    if (Boolean.class.equals(type) || boolean.class.equals(type)) {
+      return true;
+    }
+    if (Number.class.isAssignableFrom(type) || type.isPrimitive()) {
+      return 0;
+    }
+    return SAMPLE_STRING;
+  }
+
+  private static Map<String, Object> summarizePlan(Document explain) {
+    Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+    // slot based engine (MongoDB 7+) nests the classic plan under queryPlan
+    if (winningPlan.containsKey("queryPlan")) {
+      winningPlan = winningPlan.get("queryPlan", Document.class);
+    }
+    List<String> stages = new ArrayList<>();
+    List<String> indexes = new ArrayList<>();
+    collectStages(winningPlan, stages, indexes);
+
+    Map<String, Object> summary = new LinkedHashMap<>();
+    summary.put("stages", stages);
+    summary.put("indexes", indexes);
+    summary.put("collectionScan", stages.contains("COLLSCAN"));
+    return summary;
+  }
+
+  private static void collectStages(Document stage, List<String> stages, List<String> indexes) {
+    stages.add(stage.getString("stage"));
+    if (stage.containsKey("indexName")) {
+      indexes.add(stage.getString("indexName"));
+    }
+    if (stage.containsKey("inputStage")) {
+      collectStages(stage.get("inputStage", Document.class), stages, indexes);
+    }
+    if (stage.containsKey("inputStages")) {
+      for (Document input : stage.getList("inputStages", Document.class)) {
+        collectStages(input, stages, indexes);
+      }
+    }
+    // through mongos: SINGLE_SHARD when the filter names the shard key, SHARD_MERGE when every shard is asked
+    if (stage.containsKey("shards")) {
+      for (Document shard : stage.getList("shards", Document.class)) {
+        Document shardPlan = shard.get("winningPlan", Document.class);
+        if (shardPlan != null) {
+          collectStages(shardPlan.containsKey("queryPlan") ? shardPlan.get("queryPlan", Document.class) : shardPlan, stages, indexes);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package com.ecomapp.inventory_service.service;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.mongodb.client.MongoDatabase;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shards the cart collections of a sharded cluster by userId, so every cart read and write names
+ * the shard key and mongos sends it to one shard instead of all of them.
+ *
+ * cart and cart_item use a ranged {userId: 1} key: their unique indexes (userId, userId_productId)
+ * must start with the shard key, which a hashed key doesn't allow. user_cart has no other unique
+ * index and is sharded on a hashed _id (the userId) so new carts spread evenly.
+ *
+ * Runs after startup when mongo.sharding.enabled is set, or on demand through /diagnostics/sharding.
+ * A collection that is already sharded is left as it is, so it is safe to run again.
+ */
+@Slf4j
+@Service
+public class MongoShardingService {
+  // the unique line index before lines carried the userId; it doesn't start with the shard key
+  private static final String LEGACY_CART_ITEM_INDEX = "cartId_productId";
+  private static final String CART_ITEM_INDEX = "userId_productId";
+
+  private static final Map<String, Document> SHARD_KEYS = shardKeys();
+
+  private final MongoTemplate mongoTemplate;
+  private final boolean enabled;
+
+  public MongoShardingService(
+      MongoTemplate mongoTemplate,
+      @Value("${mongo.sharding.enabled:false}") boolean enabled
+    ) {
+    this.mongoTemplate = mongoTemplate;
+    this.enabled = enabled;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void shardOnStartup() {
+    if (!enabled) {
+      return;
+    }
+    Thread thread = new Thread(() -> {
+      try {
+        shardCollections();
+      } catch (RuntimeException e) {
+        log.error("Sharding the cart collections failed: {}", e.getMessage(), e);
+      }
+    }, "mongo-sharding");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Shard each cart collection that isn't sharded yet. Returns the outcome per collection.
+   */
+  public synchronized Map<String, Map<String, Object>> shardCollections() {
+    Map<String, Map<String, Object>> result = shardingStatus();
+    if (!isShardedCluster()) {
+      log.warn("Not connected to a sharded cluster (mongos), cart collections left unsharded");
+      return result;
+    }
+    String database = mongoTemplate.getDb().getName();
+    MongoDatabase admin = mongoTemplate.getMongoDatabaseFactory().getMongoDatabase("admin");
+    // implicit since MongoDB 6.0, required before
+    admin.runCommand(new Document("enableSharding", database));
+
+    for (Map.Entry<String, Document> shardKey : SHARD_KEYS.entrySet()) {
+      String collection = shardKey.getKey();
+      Map<String, Object> status = result.get(collection);
+      if (Boolean.TRUE.equals(status.get("sharded"))) {
+        continue;
+      }
+      try {
+        prepare(collection);
+        admin.runCommand(new Document("shardCollection", database + "." + collection)
+            .append("key", shardKey.getValue()));
+        status.put("sharded", true);
+        status.put("status", "sharded");
+        log.info("Sharded {} on {}", collection, shardKey.getValue().toJson());
+      } catch (RuntimeException e) {
+        status.put("status", "failed");
+        status.put("error", e.getMessage());
+        log.error("Could not shard {}: {}", collection, e.getMessage());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Shard key of each cart collection and whether the collection is sharded, without changing anything.
+   */
+  public Map<String, Map<String, Object>> shardingStatus() {
+    boolean shardedCluster = isShardedCluster();
+    String database = mongoTemplate.getDb().getName();
+    Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+    for (Map.Entry<String, Document> shardKey : SHARD_KEYS.entrySet()) {
+      Map<String, Object> status = new LinkedHashMap<>();
+      status.put("shardKey", shardKey.getValue().toJson());
+      boolean sharded = shardedCluster && mongoTemplate.getMongoDatabaseFactory().getMongoDatabase("config")
+          .getCollection("collections")
+          .find(new Document("_id", database + "." + shardKey.getKey()))
+          .first() != null;
+      status.put("sharded", sharded);
+      status.put("status", !shardedCluster ? "not a sharded cluster" : sharded ? "already sharded" : "not sharded");
+      result.put(shardKey.getKey(), status);
+    }
+    return result;
+  }
+
+  private void prepare(String collection) {
+    if ("cart_item".equals(collection)) {
+      // a line without the shard key would be stuck on whichever shard owns the null range
+      if (mongoTemplate.exists(query(where("userId").exists(false)), CartItemModel.class)) {
+        throw new IllegalStateException("cart_item has lines without a userId, run the backfill first (cart.backfill-item-user-id-on-startup)");
+      }
+      Set<String> indexes = mongoTemplate.indexOps(CartItemModel.class).getIndexInfo().stream()
+          .map(IndexInfo::getName)
+          .collect(Collectors.toSet());
+      if (!indexes.contains(CART_ITEM_INDEX)) {
+        throw new IllegalStateException("cart_item has no " + CART_ITEM_INDEX + " index yet, see /diagnostics/indexes");
+      }
+      if (indexes.contains(LEGACY_CART_ITEM_INDEX)) {
+        mongoTemplate.indexOps(CartItemModel.class).dropIndex(LEGACY_CART_ITEM_INDEX);
+        log.info("Dropped index {} on cart_item, {} replaces it", LEGACY_CART_ITEM_INDEX, CART_ITEM_INDEX);
+      }
+    } else if ("user_cart".equals(collection)) {
+      // a collection that already has documents needs the index of the shard key first
+      mongoTemplate.getCollection(collection).createIndex(SHARD_KEYS.get(collection));
+    }
+  }
+
+  private boolean isShardedCluster() {
+    // isMaster rather than hello, which servers before 4.4.2 don't know
+    Document isMaster = mongoTemplate.getDb().runCommand(new Document("isMaster", 1));
+    return "isdbgrid".equals(isMaster.getString("msg"));
+  }
+
+  private static Map<String, Document> shardKeys() {
+    Map<String, Document> keys = new LinkedHashMap<>();
+    keys.put("cart", new Document("userId", 1));
+    keys.put("cart_item", new Document("userId", 1));
+    keys.put("user_cart", new Document("_id", "hashed"));
+    return keys;
+  }
+}
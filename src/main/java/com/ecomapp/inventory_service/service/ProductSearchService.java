@@ -0,0 +1,314 @@
+package com.ecomapp.inventory_service.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.model.CategoryModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.util.MinorUnits;
+import com.ecomapp.inventory_service.util.ProductSearchIndex;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Entry;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Filter;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Hit;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Result;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Full-text product search and typeahead, answered from a ProductSearchIndex in memory so a keystroke
+ * costs no MongoDB round trip. Only active products are indexed.
+ *
+ * The index is built from one scan of the products after startup and rebuilt every
+ * search.rebuild-interval-ms, which also brings in writes made by other replicas when the catalog
+ * change stream is off. Writes made here report what they changed (productChanged, categoryChanged);
+ * those products are re-read and applied every search.refresh-interval-ms, so a write shows up in
+ * search within that delay.
+ */
+@Slf4j
+@Service
+public class ProductSearchService {
+  private static final int REFRESH_BATCH_SIZE = 500;
+
+  private final ProductRepository productRepository;
+  private final CatalogCacheService catalogCacheService;
+  private final boolean enabled;
+  private final int maxExpansions;
+  private final long[] priceBucketBounds;
+  private final Set<String> changedProducts = ConcurrentHashMap.newKeySet();
+  private final Set<String> changedCategories = ConcurrentHashMap.newKeySet();
+  // searches share the read lock, refresh changes the index under the write lock;
+  // a rebuild swaps in a new index and needs neither
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  // one refresh or rebuild at a time
+  private final Object maintenance = new Object();
+  private volatile ProductSearchIndex index;
+  private volatile Instant builtAt;
+  private volatile boolean rebuildRequested;
+
+  public ProductSearchService(
+      ProductRepository productRepository,
+      CatalogCacheService catalogCacheService,
+      @Value("${search.enabled:true}") boolean enabled,
+      @Value("${search.max-prefix-expansions:50}") int maxExpansions,
+      @Value("${search.price-bucket-bounds:100,500,1000,5000}") List<Double> priceBucketBounds
+    ) {
+    this.productRepository = productRepository;
+    this.catalogCacheService = catalogCacheService;
+    this.enabled = enabled;
+    this.maxExpansions = maxExpansions;
+    this.priceBucketBounds = priceBucketBounds.stream().mapToLong(MinorUnits::of).sorted().distinct().toArray();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void buildOnStartup() {
+    if (!enabled) {
+      return;
+    }
+    Thread thread = new Thread(() -> {
+      try {
+        rebuild();
+      } catch (RuntimeException e) {
+        log.error("Search index build failed: {}", e.getMessage(), e);
+      }
+    }, "product-search-build");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Scheduled(
+      initialDelayString = "${search.rebuild-interval-ms:600000}",
+      fixedDelayString = "${search.rebuild-interval-ms:600000}")
+  public void rebuildOnSchedule() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      rebuild();
+    } catch (RuntimeException e) {
+      log.error("Search index rebuild failed, keeping the current index: {}", e.getMessage(), e);
+    }
+  }
+
+  @Scheduled(
+      initialDelayString = "${search.refresh-interval-ms:1000}",
+      fixedDelayString = "${search.refresh-interval-ms:1000}")
+  public void refreshOnSchedule() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      if (rebuildRequested) {
+        rebuild();
+      } else {
+        refresh();
+      }
+    } catch (RuntimeException e) {
+      log.warn("Search index refresh failed, retrying: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Re-index the product on the next refresh, or drop it when it was deleted or deactivated.
+   */
+  public void productChanged(String id) {
+    if (id != null) {
+      changedProducts.add(id);
+    }
+  }
+
+  /**
+   * Re-index the products of the category on the next refresh, they are found by its name.
+   */
+  public void categoryChanged(String id) {
+    if (id != null) {
+      changedCategories.add(id);
+    }
+  }
+
+  /**
+   * Rebuild on the next refresh, for when changes may have been missed.
+   */
+  public void requestRebuild() {
+    rebuildRequested = true;
+  }
+
+  /**
+   * Ranked hits from offset on and facet counts of all hits. Price bounds in filter apply to mrp.
+   */
+  public Result search(String query, String categoryId, ProductFilterDto filter, int offset, int limit) {
+    Filter hitFilter = new Filter(
+        categoryId,
+        filter != null ? filter.getUnit() : null,
+        filter != null && filter.getMinPrice() != null ? MinorUnits.of(filter.getMinPrice()) : null,
+        filter != null && filter.getMaxPrice() != null ? MinorUnits.of(filter.getMaxPrice()) : null);
+    ProductSearchIndex current = requireIndex();
+    lock.readLock().lock();
+    try {
+      return current.search(query, true, hitFilter, offset, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public List<Hit> suggest(String query, int limit) {
+    ProductSearchIndex current = requireIndex();
+    lock.readLock().lock();
+    try {
+      return current.suggest(query, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public Map<String, Object> stats() {
+    ProductSearchIndex current = index;
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("enabled", enabled);
+    stats.put("ready", current != null);
+    stats.put("builtAt", builtAt);
+    stats.put("products", indexedProducts());
+    stats.put("terms", current != null ? current.termCount() : 0);
+    stats.put("pendingProducts", changedProducts.size());
+    stats.put("pendingCategories", changedCategories.size());
+    return stats;
+  }
+
+  public int indexedProducts() {
+    ProductSearchIndex current = index;
+    if (current == null) {
+      return 0;
+    }
+    lock.readLock().lock();
+    try {
+      return current.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Build a new index from a scan of all products and swap it in. Changes reported meanwhile stay
+   * pending and are applied to the new index by the next refresh.
+   */
+  public void rebuild() {
+    synchronized (maintenance) {
+      rebuildRequested = false;
+      long start = System.currentTimeMillis();
+      ProductSearchIndex built = new ProductSearchIndex(maxExpansions, priceBucketBounds);
+      Map<String, String> categoryNames = new HashMap<>();
+      try (Stream<ProductModel> products = productRepository.streamSearchFields(null)) {
+        products.filter(ProductSearchService::isIndexed)
+            .forEach(product -> built.put(entry(product, categoryNames)));
+      }
+      index = built;
+      builtAt = Instant.now();
+      log.info("Search index built: {} product(s), {} term(s) in {} ms",
+          built.size(), built.termCount(), System.currentTimeMillis() - start);
+    }
+  }
+
+  /**
+   * Apply the reported changes: re-read the changed products and the products of changed categories,
+   * index the active ones and drop the rest. Changes that could not be read stay pending.
+   */
+  void refresh() {
+    synchronized (maintenance) {
+      ProductSearchIndex current = index;
+      if (current == null) {
+        // the first build reads everything written before it
+        return;
+      }
+      List<String> productIds = drain(changedProducts);
+      List<String> categoryIds = drain(changedCategories);
+      if (productIds.isEmpty() && categoryIds.isEmpty()) {
+        return;
+      }
+
+      Map<String, Entry> puts = new LinkedHashMap<>();
+      List<String> removes = new ArrayList<>();
+      Map<String, String> categoryNames = new HashMap<>();
+      try {
+        for (int from = 0; from < productIds.size(); from += REFRESH_BATCH_SIZE) {
+          List<String> batch = productIds.subList(from, Math.min(from + REFRESH_BATCH_SIZE, productIds.size()));
+          Map<String, ProductModel> found = new HashMap<>();
+          productRepository.findSearchFields(batch).forEach(product -> found.put(product.getId(), product));
+          for (String id : batch) {
+            ProductModel product = found.get(id);
+            if (product != null && isIndexed(product)) {
+              puts.put(id, entry(product, categoryNames));
+            } else {
+              removes.add(id);
+            }
+          }
+        }
+        for (String categoryId : categoryIds) {
+          try (Stream<ProductModel> products = productRepository.streamSearchFields(categoryId)) {
+            products.filter(ProductSearchService::isIndexed)
+                .forEach(product -> puts.put(product.getId(), entry(product, categoryNames)));
+          }
+        }
+      } catch (RuntimeException e) {
+        changedProducts.addAll(productIds);
+        changedCategories.addAll(categoryIds);
+        throw e;
+      }
+
+      lock.writeLock().lock();
+      try {
+        removes.forEach(current::remove);
+        puts.values().forEach(current::put);
+      } finally {
+        lock.writeLock().unlock();
+      }
+      log.debug("Search index refreshed: {} product(s) indexed, {} removed", puts.size(), removes.size());
+    }
+  }
+
+  private ProductSearchIndex requireIndex() {
+    ProductSearchIndex current = index;
+    if (current == null) {
+      throw new CustomException(enabled ? "Search index is not ready yet" : "Search is disabled", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    return current;
+  }
+
+  private Entry entry(ProductModel product, Map<String, String> categoryNames) {
+    String categoryName = product.getCategoryId() == null ? null : categoryNames.computeIfAbsent(product.getCategoryId(),
+        id -> catalogCacheService.findCategory(id).map(CategoryModel::getName).orElse(""));
+    return new Entry(product.getId(), product.getName(), product.getDescription(),
+        product.getCategoryId(), categoryName, product.getUnit(), product.getMrp());
+  }
+
+  private static boolean isIndexed(ProductModel product) {
+    return Boolean.TRUE.equals(product.getIsActive());
+  }
+
+  private static List<String> drain(Collection<String> changed) {
+    List<String> drained = new ArrayList<>();
+    for (String id : changed) {
+      if (changed.remove(id)) {
+        drained.add(id);
+      }
+    }
+    return drained;
+  }
+}
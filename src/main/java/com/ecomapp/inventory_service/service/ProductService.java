@@ -1,31 +1,78 @@
 package com.ecomapp.inventory_service.service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import com.ecomapp.inventory_service.annotations.RetryOnConflict;
 import com.ecomapp.inventory_service.dto.ApiResponse;
 import com.ecomapp.inventory_service.dto.CreateProductDto;
+import com.ecomapp.inventory_service.dto.PaginationResponse;
 import com.ecomapp.inventory_service.dto.ProductDetailResponseDto;
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.dto.ProductListingDto;
+import com.ecomapp.inventory_service.dto.ProductSearchResultDto;
+import com.ecomapp.inventory_service.dto.ProductSuggestionDto;
 import com.ecomapp.inventory_service.exception.CustomException;
 import com.ecomapp.inventory_service.model.CategoryModel;
 import com.ecomapp.inventory_service.model.ProductModel;
-import com.ecomapp.inventory_service.repository.CategoryRepository;
 import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.util.CatalogVersion;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Hit;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Result;
+
+import io.micrometer.core.annotation.Timed;
 
 @Service
+@Timed("inventory.service")
 public class ProductService {
+  private static final int DEFAULT_PAGE_LIMIT = 20;
+  private static final int MAX_PAGE_LIMIT = 100;
+  // deepest hit a search page may reach, ranking everything past it is wasted work
+  private static final int MAX_SEARCH_WINDOW = 1000;
+  private static final int DEFAULT_SUGGEST_LIMIT = 8;
+  private static final int MAX_SUGGEST_LIMIT = 20;
+
   private final ProductRepository productRepository;
-  private final CategoryRepository categoryRepository;
+  private final CartRepriceService cartRepriceService;
+  private final CatalogCacheService catalogCacheService;
+  private final ProductSearchService productSearchService;
+  private final InventoryEventService inventoryEventService;
 
-  public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository) {
+  public ProductService(
+      ProductRepository productRepository,
+      CartRepriceService cartRepriceService,
+      CatalogCacheService catalogCacheService,
+      ProductSearchService productSearchService,
+      InventoryEventService inventoryEventService
+    ) {
     this.productRepository = productRepository;
-    this.categoryRepository = categoryRepository;
+    this.cartRepriceService = cartRepriceService;
+    this.catalogCacheService = catalogCacheService;
+    this.productSearchService = productSearchService;
+    this.inventoryEventService = inventoryEventService;
   }
 
   public ApiResponse<String> createdProduct(CreateProductDto body) {
+    ProductModel product = newProduct(body);
+    productRepository.save(product);
+    productSearchService.productChanged(product.getId());
+    return new ApiResponse<>(true, "Product created successfully", product.getId());
+  }
+
+  static ProductModel newProduct(CreateProductDto body) {
     ProductModel product = new ProductModel();
     product.setName(body.getName());
     product.setDescription(body.getDescription());
@@ -37,33 +84,107 @@ public class ProductService {
     product.setUnit(body.getUnit());
     product.setCategoryId(body.getCategoryId());
     product.setImageUrls(new ArrayList<>());
-    productRepository.save(product);
-    return new ApiResponse<>(true, "Product created successfully", product.getId());
+    product.setPendingEvents(1);
+    return product;
   }
 
-  public ApiResponse<?> updateProduct(String id, CreateProductDto body) {
+  /**
+   * ifMatch, when given, is the ETag of an earlier read; the update fails with 412 when the product
+   * was changed since. The write only applies to the version that was read, so a concurrent edit is
+   * never overwritten; without ifMatch it is retried from a fresh read (@RetryOnConflict).
+   */
+  @RetryOnConflict
+  public ApiResponse<?> updateProduct(String id, CreateProductDto body, String ifMatch) {
     ProductModel product = productRepository.findById(id).orElseThrow(() -> 
       new CustomException("Product not found", HttpStatus.NOT_FOUND));
+    requireVersion(ifMatch, product);
+    boolean repriced = priceChanged(product, body);
+    Long version = product.getVersion();
+    double quantityChange = body.getQuantity() - product.getQuantity();
+    applyUpdate(product, body);
+    if (!productRepository.updateDetails(product, quantityChange, version)) {
+      throw conflict(ifMatch);
+    }
+    catalogCacheService.evictProduct(id);
+    productSearchService.productChanged(id);
+    if (repriced) {
+      // carts keep a price snapshot for their running totals, legacy carts total the new price on read
+      cartRepriceService.productRepriced(id);
+    }
+    return new ApiResponse<>(true, "Product updated successfully");
+  }
+
+  static void requireVersion(String ifMatch, ProductModel product) {
+    if (!CatalogVersion.matches(ifMatch, product.getVersion())) {
+      throw new CustomException("Product was changed since it was read", HttpStatus.PRECONDITION_FAILED);
+    }
+  }
+
+  // the product changed between the read and the write (or was deleted)
+  static RuntimeException conflict(String ifMatch) {
+    return ifMatch != null
+        ? new CustomException("Product was changed since it was read", HttpStatus.PRECONDITION_FAILED)
+        : new OptimisticLockingFailureException("Product was changed concurrently");
+  }
+
+  static boolean priceChanged(ProductModel product, CreateProductDto body) {
+    return product.getMrp() != body.getMrp() || product.getDiscount() != body.getDiscount();
+  }
+
+  static void applyUpdate(ProductModel product, CreateProductDto body) {
     product.setName(body.getName());
     product.setDescription(body.getDescription());
     product.setMrp(body.getMrp());
     product.setDiscount(body.getDiscount());
     product.setQuantity(body.getQuantity());
-    product.setAvailableStock(body.getQuantity());
     product.setUnit(body.getUnit());
-    productRepository.save(product);
-    return new ApiResponse<>(true, "Product updated successfully");
   }
 
   public ApiResponse<?> deleteProduct(String id) {
     productRepository.deleteById(id);
+    inventoryEventService.productDeleted(id);
+    catalogCacheService.evictProduct(id);
+    productSearchService.productChanged(id);
     return new ApiResponse<>(true, "Product deleted successfully");
   }
 
   public ApiResponse<ProductDetailResponseDto> getProduct(String id) {
-    ProductModel product = productRepository.findById(id).orElseThrow(() -> 
+    ProductModel product = catalogCacheService.findProduct(id).orElseThrow(() -> 
       new CustomException("Product not found", HttpStatus.NOT_FOUND));
-    Optional<CategoryModel> categoryOpt = categoryRepository.findById(product.getCategoryId());
+    Optional<CategoryModel> categoryOpt = catalogCacheService.findCategory(product.getCategoryId());
+    return new ApiResponse<ProductDetailResponseDto>(true, "Product found", toProductDetail(product, categoryOpt));
+  }
+
+  /**
+   * Validators of getProduct without loading the product: from the cache, or from a projection of
+   * the fields they depend on. Empty when the product does not exist.
+   */
+  public Optional<CatalogVersion> findProductVersion(String id) {
+    return catalogCacheService.peekProduct(id)
+        .or(() -> productRepository.findVersionFields(id))
+        .map(product -> {
+          Optional<CategoryModel> category = catalogCacheService.findCategory(product.getCategoryId());
+          return CatalogVersion.ofProduct(
+              product.getVersion(),
+              product.getAvailableStock(),
+              category.map(CategoryModel::getVersion).orElse(null),
+              category.map(CategoryModel::getUpdatedAt).orElse(null));
+        });
+  }
+
+  /**
+   * Validators of a product read, the same findProductVersion computes from the documents.
+   */
+  public static Optional<CatalogVersion> productVersion(ProductDetailResponseDto product) {
+    ProductDetailResponseDto.CategoryDetail category = product.getCategory();
+    return Optional.of(CatalogVersion.ofProduct(
+        product.getVersion(),
+        product.getAvailableStock(),
+        category != null ? category.getVersion() : null,
+        category != null ? category.getUpdatedAt() : null));
+  }
+
+  static ProductDetailResponseDto toProductDetail(ProductModel product, Optional<CategoryModel> categoryOpt) {
     ProductDetailResponseDto productDetails = new ProductDetailResponseDto();
     productDetails.setId(product.getId());
     productDetails.setName(product.getName());
@@ -75,6 +196,8 @@ public class ProductService {
     productDetails.setAvailableStock(product.getAvailableStock());
     productDetails.setUnit(product.getUnit());
     productDetails.setIsActive(product.getIsActive());
+    productDetails.setUpdatedAt(product.getUpdatedAt());
+    productDetails.setVersion(product.getVersion());
     // Set category details if present
     categoryOpt.ifPresent(category -> {
         ProductDetailResponseDto.CategoryDetail categoryDetail = new ProductDetailResponseDto.CategoryDetail();
@@ -83,8 +206,173 @@ public class ProductService {
         categoryDetail.setDescription(category.getDescription());
         categoryDetail.setImageUrl(category.getImageUrl());
         categoryDetail.setIsActive(category.getIsActive());
+        categoryDetail.setUpdatedAt(category.getUpdatedAt());
+        categoryDetail.setVersion(category.getVersion());
         productDetails.setCategory(categoryDetail);
     });
-    return new ApiResponse<ProductDetailResponseDto>(true, "Product found", productDetails);
+    return productDetails;
+  }
+
+  /**
+   * One page of product listings, optionally within a category.
+   * Pages are keyset based: the cursor carries the last _id seen, the page number and the total
+   * (counted once on the first page), so no page ever skips over earlier results.
+   */
+  public ApiResponse<List<ProductListingDto>> listProducts(String categoryId, ProductFilterDto filter, String cursor, Integer limit) {
+    if (categoryId != null && catalogCacheService.findCategory(categoryId).isEmpty()) {
+      throw new CustomException("Category not found", HttpStatus.NOT_FOUND);
+    }
+    int pageLimit = pageLimit(limit);
+
+    int currPage = 1;
+    long totalCount;
+    String afterId = null;
+    if (cursor != null && !cursor.isEmpty()) {
+      String[] parts = decodeCursor(cursor);
+      currPage = Integer.parseInt(parts[0]);
+      totalCount = Long.parseLong(parts[1]);
+      afterId = parts[2];
+    } else {
+      totalCount = productRepository.countListing(categoryId, filter);
+    }
+
+    // fetch one extra row to know whether there is a next page
+    List<ProductListingDto> products = productRepository.findListingPage(categoryId, filter, afterId, pageLimit + 1);
+    return buildListingPage(products, currPage, totalCount, pageLimit);
+  }
+
+  static int pageLimit(Integer limit) {
+    return limit == null ? DEFAULT_PAGE_LIMIT : Math.min(Math.max(limit, 1), MAX_PAGE_LIMIT);
+  }
+
+  /**
+   * Trim the extra row fetched past pageLimit and turn it into the next cursor.
+   */
+  static ApiResponse<List<ProductListingDto>> buildListingPage(
+      List<ProductListingDto> products, int currPage, long totalCount, int pageLimit) {
+    String nextCursor = null;
+    if (products.size() > pageLimit) {
+      products = products.subList(0, pageLimit);
+      nextCursor = encodeCursor(currPage + 1, totalCount, products.get(pageLimit - 1).getId());
+    }
+
+    int maxPage = (int) ((totalCount + pageLimit - 1) / pageLimit);
+    PaginationResponse pagination = new PaginationResponse(currPage, maxPage, pageLimit, totalCount, nextCursor);
+    return new ApiResponse<>(true, "Products found", products, pagination);
+  }
+
+  /**
+   * One page of search hits for query (every word has to match, the last one may be unfinished), with
+   * facet counts. Hits come from the in-memory index, their listing fields from one query by _id.
+   */
+  public ApiResponse<ProductSearchResultDto> searchProducts(
+      String query, String categoryId, ProductFilterDto filter, Integer page, Integer limit) {
+    int pageLimit = pageLimit(limit);
+    int currPage = searchPage(query, page, pageLimit);
+    Result result = productSearchService.search(query, categoryId, filter, (currPage - 1) * pageLimit, pageLimit);
+    List<String> ids = result.hits().stream().map(Hit::id).toList();
+    List<ProductListingDto> listings = ids.isEmpty() ? List.of() : productRepository.findListingsByIds(ids);
+    return buildSearchPage(result, listings, currPage, pageLimit);
+  }
+
+  static int searchPage(String query, Integer page, int pageLimit) {
+    if (query == null || query.isBlank()) {
+      throw new CustomException("q is required", HttpStatus.BAD_REQUEST);
+    }
+    int currPage = page == null ? 1 : Math.max(page, 1);
+    if ((long) currPage * pageLimit > MAX_SEARCH_WINDOW) {
+      throw new CustomException("Search results are paged up to hit " + MAX_SEARCH_WINDOW, HttpStatus.BAD_REQUEST);
+    }
+    return currPage;
+  }
+
+  /**
+   * Listings in hit order; hits deleted since they were indexed are left out.
+   */
+  static ApiResponse<ProductSearchResultDto> buildSearchPage(
+      Result result, List<ProductListingDto> listings, int currPage, int pageLimit) {
+    Map<String, ProductListingDto> byId = listings.stream()
+        .collect(Collectors.toMap(ProductListingDto::getId, Function.identity()));
+    List<ProductListingDto> products = result.hits().stream()
+        .map(hit -> byId.get(hit.id()))
+        .filter(Objects::nonNull)
+        .toList();
+    ProductSearchResultDto.Facets facets = new ProductSearchResultDto.Facets(
+        result.facets().categoryId(),
+        result.facets().unit(),
+        result.facets().price().stream()
+            .map(bucket -> new ProductSearchResultDto.PriceBucket(bucket.from(), bucket.to(), bucket.count()))
+            .toList());
+    int maxPage = (result.total() + pageLimit - 1) / pageLimit;
+    PaginationResponse pagination = new PaginationResponse(currPage, maxPage, pageLimit, result.total(), null);
+    return new ApiResponse<>(true, "Products found", new ProductSearchResultDto(products, facets), pagination);
+  }
+
+  /**
+   * Typeahead: the best products for what has been typed so far, from memory only.
+   */
+  public ApiResponse<List<ProductSuggestionDto>> suggestProducts(String query, Integer limit) {
+    return suggest(productSearchService, query, limit);
+  }
+
+  static ApiResponse<List<ProductSuggestionDto>> suggest(ProductSearchService productSearchService, String query, Integer limit) {
+    int suggestLimit = limit == null ? DEFAULT_SUGGEST_LIMIT : Math.min(Math.max(limit, 1), MAX_SUGGEST_LIMIT);
+    List<ProductSuggestionDto> suggestions = query == null || query.isBlank()
+        ? List.of()
+        : productSearchService.suggest(query, suggestLimit).stream()
+            .map(hit -> new ProductSuggestionDto(hit.id(), hit.name(), hit.categoryId()))
+            .toList();
+    return new ApiResponse<>(true, "Suggestions", suggestions);
+  }
+
+  /**
+   * Fresh reads for other services (no cache, they need current stock).
+   * Returns the found products keyed by id in request order, duplicates collapsed.
+   */
+  public Map<String, ProductModel> batchGetProducts(List<String> ids) {
+    Map<String, ProductModel> found = productRepository.findAllById(new LinkedHashSet<>(ids)).stream()
+        .collect(Collectors.toMap(ProductModel::getId, Function.identity()));
+    return inRequestOrder(ids, found);
+  }
+
+  static Map<String, ProductModel> inRequestOrder(List<String> ids, Map<String, ProductModel> found) {
+    Map<String, ProductModel> ordered = new LinkedHashMap<>();
+    for (String id : ids) {
+      ProductModel product = found.get(id);
+      if (product != null) {
+        ordered.putIfAbsent(id, product);
+      }
+    }
+    return ordered;
+  }
+
+  /**
+   * Keyset page of full products after afterId, for streaming the catalog.
+   */
+  public List<ProductModel> getCatalogPage(String categoryId, boolean activeOnly, String afterId, int limit) {
+    ProductFilterDto filter = new ProductFilterDto();
+    if (activeOnly) {
+      filter.setIsActive(true);
+    }
+    return productRepository.findCatalogPage(categoryId, filter, afterId, limit);
+  }
+
+  private static String encodeCursor(int page, long totalCount, String lastId) {
+    String raw = page + ":" + totalCount + ":" + lastId;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String[] decodeCursor(String cursor) {
+    try {
+      String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+      if (parts.length != 3) {
+        throw new IllegalArgumentException();
+      }
+      Integer.parseInt(parts[0]);
+      Long.parseLong(parts[1]);
+      return parts;
+    } catch (IllegalArgumentException e) {
+      throw new CustomException("Invalid cursor", HttpStatus.BAD_REQUEST);
+    }
   }
 }
@@ -0,0 +1,487 @@
+package com.ecomapp.inventory_service.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.constant.ProductFileFormatEnum;
+import com.ecomapp.inventory_service.dto.CreateProductDto;
+import com.ecomapp.inventory_service.dto.ProductExportDto;
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.dto.ProductImportResultDto;
+import com.ecomapp.inventory_service.dto.ProductImportResultDto.BatchResult;
+import com.ecomapp.inventory_service.dto.ProductImportResultDto.RowError;
+import com.ecomapp.inventory_service.model.CategoryModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.CategoryRepository;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk product import (POST /product/bulk) and export (GET /product/export) as NDJSON or CSV.
+ *
+ * Import is a two stage pipeline: the request thread parses and validates rows into batches,
+ * a writer thread upserts each batch with one bulk write (matched on the unique product name).
+ * The two are joined by a queue of product-import.queue-capacity batches, so parsing stops
+ * reading the upload while the writer is behind and memory stays bounded whatever the file size.
+ */
+@Slf4j
+@Service
+public class ProductTransferService {
+  private final ProductRepository productRepository;
+  private final CategoryRepository categoryRepository;
+  private final CartRepriceService cartRepriceService;
+  private final CatalogCacheService catalogCacheService;
+  private final ProductSearchService productSearchService;
+  private final Validator validator;
+  private final ObjectReader ndjsonReader;
+  private final ObjectWriter ndjsonWriter;
+  private final ObjectReader csvReader;
+  private final ObjectWriter csvWriter;
+  private final int batchSize;
+  private final int queueCapacity;
+  private final boolean orderedByDefault;
+  private final int maxReportedErrors;
+  private final ExecutorService writers;
+
+  public ProductTransferService(
+      ProductRepository productRepository,
+      CategoryRepository categoryRepository,
+      CartRepriceService cartRepriceService,
+      CatalogCacheService catalogCacheService,
+      ProductSearchService productSearchService,
+      Validator validator,
+      ObjectMapper objectMapper,
+      @Value("${product-import.batch-size:1000}") int batchSize,
+      @Value("${product-import.queue-capacity:4}") int queueCapacity,
+      @Value("${product-import.ordered:false}") boolean orderedByDefault,
+      @Value("${product-import.max-reported-errors:1000}") int maxReportedErrors,
+      @Value("${product-import.writer-threads:2}") int writerThreads
+    ) {
+    this.productRepository = productRepository;
+    this.categoryRepository = categoryRepository;
+    this.cartRepriceService = cartRepriceService;
+    this.catalogCacheService = catalogCacheService;
+    this.productSearchService = productSearchService;
+    this.validator = validator;
+    this.ndjsonReader = objectMapper.readerFor(CreateProductDto.class)
+        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    this.ndjsonWriter = objectMapper.writerFor(ProductExportDto.class)
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        .withRootValueSeparator("\n");
+    CsvMapper csvMapper = new CsvMapper();
+    this.csvReader = csvMapper.readerFor(CreateProductDto.class)
+        .with(CsvSchema.emptySchema().withHeader())
+        .with(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+        .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    this.csvWriter = csvMapper.writerFor(ProductExportDto.class)
+        .with(csvMapper.schemaFor(ProductExportDto.class).withHeader())
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.batchSize = batchSize;
+    this.queueCapacity = queueCapacity;
+    this.orderedByDefault = orderedByDefault;
+    this.maxReportedErrors = maxReportedErrors;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+      Thread thread = new Thread(runnable, "product-import-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    writers.shutdownNow();
+  }
+
+  /**
+   * Import products from body. Rows that fail parsing, validation or the write are reported in
+   * their batch; the others are written. With ordered=true the import stops at the first failed write.
+   */
+  public ProductImportResultDto importProducts(InputStream body, ProductFileFormatEnum format, Boolean ordered)
+      throws IOException, InterruptedException {
+    ImportJob job = new ImportJob(ordered != null ? ordered : orderedByDefault);
+    Future<?> writer = writers.submit(job::drain);
+    CategoryResolver categories = new CategoryResolver();
+
+    try (RowReader rows = openRows(body, format)) {
+      Batch batch = new Batch(job.nextBatchNumber());
+      ImportRow row;
+      while (!job.isStopped() && (row = rows.next()) != null) {
+        batch.addLine(row.line);
+        String error = row.error != null ? row.error : validate(row.product, categories);
+        if (error != null) {
+          batch.reject(row.line, error);
+        } else {
+          batch.accept(row.line, ProductService.newProduct(row.product));
+        }
+        if (batch.size() >= batchSize) {
+          job.enqueue(batch, writer);
+          batch = new Batch(job.nextBatchNumber());
+        }
+      }
+      if (batch.size() > 0) {
+        job.enqueue(batch, writer);
+      }
+    } finally {
+      job.enqueue(Batch.END, writer);
+    }
+
+    try {
+      writer.get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Product import failed: " + e.getCause().getMessage(), e.getCause());
+    }
+    log.info("Product import finished - {} row(s), {} inserted, {} updated, {} failed",
+        job.result.getRows(), job.result.getInserted(), job.result.getUpdated(), job.result.getFailed());
+    return job.result;
+  }
+
+  /**
+   * Write every product matching the filter to out, straight from one MongoDB cursor.
+   */
+  public void exportProducts(ProductFileFormatEnum format, String categoryId, ProductFilterDto filter, OutputStream out)
+      throws IOException {
+    long rows = 0;
+    try (Stream<ProductExportDto> products = productRepository.streamExport(categoryId, filter);
+        SequenceWriter writer = (format == ProductFileFormatEnum.CSV ? csvWriter : ndjsonWriter).writeValues(out)) {
+      for (Iterator<ProductExportDto> it = products.iterator(); it.hasNext(); rows++) {
+        writer.write(it.next());
+      }
+    }
+    if (format == ProductFileFormatEnum.NDJSON && rows > 0) {
+      out.write('\n');
+    }
+    out.flush();
+    log.info("Product export finished - {} row(s) as {}", rows, format);
+  }
+
+  private String validate(CreateProductDto product, CategoryResolver categories) {
+    List<ConstraintViolation<CreateProductDto>> violations = new ArrayList<>(validator.validate(product));
+    if (!violations.isEmpty()) {
+      return violations.stream()
+          .map(ConstraintViolation::getMessage)
+          .sorted()
+          .collect(Collectors.joining("; "));
+    }
+    Optional<String> categoryId = categories.resolve(product.getCategoryId());
+    if (categoryId.isEmpty()) {
+      return "Category not found: " + product.getCategoryId();
+    }
+    product.setCategoryId(categoryId.get());
+    return null;
+  }
+
+  private RowReader openRows(InputStream body, ProductFileFormatEnum format) throws IOException {
+    if (format == ProductFileFormatEnum.CSV) {
+      MappingIterator<CreateProductDto> iterator = csvReader.readValues(body);
+      return new RowReader() {
+        @Override
+        public ImportRow next() throws IOException {
+          if (!iterator.hasNextValue()) {
+            return null;
+          }
+          long line = iterator.getCurrentLocation().getLineNr();
+          try {
+            return new ImportRow(line, iterator.nextValue(), null);
+          } catch (JsonProcessingException e) {
+            // the iterator skips the rest of the broken record
+            return new ImportRow(line, null, "Unreadable row: " + e.getOriginalMessage());
+          }
+        }
+
+        @Override
+        public void close() throws IOException {
+          iterator.close();
+        }
+      };
+    }
+
+    BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    return new RowReader() {
+      private long line;
+
+      @Override
+      public ImportRow next() throws IOException {
+        String text;
+        do {
+          text = reader.readLine();
+          line++;
+        } while (text != null && text.isBlank());
+        if (text == null) {
+          return null;
+        }
+        try {
+          return new ImportRow(line, ndjsonReader.readValue(text), null);
+        } catch (JsonProcessingException e) {
+          return new ImportRow(line, null, "Unreadable row: " + e.getOriginalMessage());
+        }
+      }
+
+      @Override
+      public void close() throws IOException {
+        reader.close();
+      }
+    };
+  }
+
+  private interface RowReader extends Closeable {
+    ImportRow next() throws IOException;
+  }
+
+  private static class ImportRow {
+    private final long line;
+    private final CreateProductDto product;
+    private final String error; // set when the row could not be parsed
+
+    ImportRow(long line, CreateProductDto product, String error) {
+      this.line = line;
+      this.product = product;
+      this.error = error;
+    }
+  }
+
+  /**
+   * Rows of one bulk write, with the rows of its line range that were rejected before writing.
+   */
+  private static class Batch {
+    private static final Batch END = new Batch(0);
+
+    private final BatchResult result = new BatchResult();
+    private final List<ProductModel> products = new ArrayList<>();
+    private final List<Long> productLines = new ArrayList<>();
+    private final List<RowError> rejected = new ArrayList<>();
+
+    Batch(int number) {
+      result.setBatch(number);
+    }
+
+    void addLine(long line) {
+      if (result.getFirstLine() == 0) {
+        result.setFirstLine(line);
+      }
+      result.setLastLine(line);
+    }
+
+    void accept(long line, ProductModel product) {
+      products.add(product);
+      productLines.add(line);
+    }
+
+    void reject(long line, String message) {
+      rejected.add(new RowError(line, message));
+    }
+
+    int size() {
+      return products.size() + rejected.size();
+    }
+  }
+
+  /**
+   * State of one import. Only the writer thread touches result until drain() returns.
+   */
+  private class ImportJob {
+    private final BulkMode mode;
+    private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+    private final ProductImportResultDto result = new ProductImportResultDto();
+    private int batchNumber;
+    private int reportedErrors;
+    private volatile boolean stopped;
+
+    ImportJob(boolean ordered) {
+      this.mode = ordered ? BulkMode.ORDERED : BulkMode.UNORDERED;
+    }
+
+    int nextBatchNumber() {
+      return ++batchNumber;
+    }
+
+    boolean isStopped() {
+      return stopped;
+    }
+
+    // blocks while the queue is full, that is the backpressure on the upload
+    void enqueue(Batch batch, Future<?> writer) throws InterruptedException {
+      while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+        if (writer.isDone()) {
+          return;
+        }
+      }
+    }
+
+    void drain() {
+      try {
+        Batch batch;
+        while ((batch = queue.take()) != Batch.END) {
+          if (!stopped) {
+            write(batch);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private void write(Batch batch) {
+      BatchResult batchResult = batch.result;
+      List<RowError> errors = new ArrayList<>(batch.rejected);
+      int failed = batch.rejected.size();
+
+      if (!batch.products.isEmpty()) {
+        Map<String, ProductModel> existing = new HashMap<>();
+        BulkWriteResult written = null;
+        List<BulkWriteError> writeErrors = List.of();
+        try {
+          existing = productRepository.findPricesByName(batch.products.stream().map(ProductModel::getName).toList())
+              .stream()
+              .collect(Collectors.toMap(ProductModel::getName, Function.identity()));
+          written = productRepository.upsertByName(batch.products, mode);
+        } catch (BulkOperationException e) {
+          written = e.getResult();
+          writeErrors = e.getErrors();
+        } catch (DataAccessException e) {
+          log.error("Product import batch {} failed: {}", batchResult.getBatch(), e.getMessage());
+          errors.add(new RowError(batch.productLines.get(0), "Batch not written: " + e.getMessage()));
+          failed += batch.products.size();
+          stopped = mode == BulkMode.ORDERED;
+        }
+
+        if (written != null) {
+          boolean[] notWritten = new boolean[batch.products.size()];
+          for (BulkWriteError error : writeErrors) {
+            notWritten[error.getIndex()] = true;
+            errors.add(new RowError(batch.productLines.get(error.getIndex()), error.getMessage()));
+          }
+          if (mode == BulkMode.ORDERED && !writeErrors.isEmpty()) {
+            // an ordered bulk write stops at its first error, nothing after it was attempted
+            int stoppedAt = writeErrors.get(0).getIndex();
+            for (int i = stoppedAt + 1; i < notWritten.length; i++) {
+              notWritten[i] = true;
+            }
+            if (stoppedAt + 1 < notWritten.length) {
+              errors.add(new RowError(batch.productLines.get(stoppedAt + 1),
+                  (notWritten.length - stoppedAt - 1) + " row(s) from this line on not written, import stopped at line "
+                      + batch.productLines.get(stoppedAt)));
+            }
+            stopped = true;
+          }
+          for (boolean skipped : notWritten) {
+            failed += skipped ? 1 : 0;
+          }
+          batchResult.setInserted(written.getUpserts().size());
+          written.getUpserts().forEach(upsert -> productSearchService.productChanged(
+              upsert.getId().isObjectId() ? upsert.getId().asObjectId().getValue().toHexString() : upsert.getId().asString().getValue()));
+          batchResult.setUpdated(written.getMatchedCount());
+          result.setRepricedProducts(result.getRepricedProducts() + refreshChanged(batch.products, existing, notWritten));
+        }
+      }
+
+      batchResult.setFailed(failed);
+      for (RowError error : errors) {
+        if (reportedErrors < maxReportedErrors) {
+          batchResult.getErrors().add(error);
+          reportedErrors++;
+        } else {
+          result.setErrorsTruncated(true);
+        }
+      }
+      result.setRows(result.getRows() + batch.size());
+      result.setInserted(result.getInserted() + batchResult.getInserted());
+      result.setUpdated(result.getUpdated() + batchResult.getUpdated());
+      result.setFailed(result.getFailed() + failed);
+      result.getBatches().add(batchResult);
+    }
+
+    /**
+     * Evict updated products from the catalog cache, re-index them for search and reprice carts holding
+     * the ones whose price changed.
+     */
+    private long refreshChanged(List<ProductModel> products, Map<String, ProductModel> existing, boolean[] notWritten) {
+      long repriced = 0;
+      for (int i = 0; i < products.size(); i++) {
+        ProductModel before = existing.get(products.get(i).getName());
+        if (before == null || notWritten[i]) {
+          continue;
+        }
+        ProductModel product = products.get(i);
+        product.setId(before.getId());
+        catalogCacheService.evictProduct(before.getId());
+        productSearchService.productChanged(before.getId());
+        if (before.getMrp() != product.getMrp() || before.getDiscount() != product.getDiscount()) {
+          // the import runs on its writer threads already, no need to hand this on
+          if (cartRepriceService.reprice(product)) {
+            repriced++;
+          }
+        }
+      }
+      return repriced;
+    }
+  }
+
+  /**
+   * Category ids for one import, looked up through the category cache. Supplier files may give
+   * the category name instead; values that are not a known id are matched against the names.
+   */
+  private class CategoryResolver {
+    private final Map<String, Optional<String>> resolved = new HashMap<>();
+    private Map<String, String> idsByName;
+
+    Optional<String> resolve(String value) {
+      return resolved.computeIfAbsent(value, key -> {
+        Optional<CategoryModel> category = catalogCacheService.findCategory(key);
+        if (category.isPresent()) {
+          return Optional.of(category.get().getId());
+        }
+        if (idsByName == null) {
+          idsByName = categoryRepository.findAll().stream()
+              .collect(Collectors.toMap(CategoryModel::getName, CategoryModel::getId, (first, second) -> first));
+        }
+        return Optional.ofNullable(idsByName.get(key));
+      });
+    }
+  }
+}
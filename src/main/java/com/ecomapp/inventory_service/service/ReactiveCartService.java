@@ -0,0 +1,351 @@
+package com.ecomapp.inventory_service.service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.constant.CartStorageEnum;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.dto.CartItemResponseDto;
+import com.ecomapp.inventory_service.dto.ManageCartDto;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.ecomapp.inventory_service.model.CartModel;
+import com.ecomapp.inventory_service.model.EmbeddedCartItemModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.ReactiveCartItemRepository;
+import com.ecomapp.inventory_service.repository.ReactiveCartRepository;
+import com.ecomapp.inventory_service.repository.ReactiveEmbeddedCartRepository;
+import com.ecomapp.inventory_service.repository.ReactiveInventoryEventRepository;
+import com.ecomapp.inventory_service.repository.ReactiveProductRepository;
+import com.ecomapp.inventory_service.util.CartTotals;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking CartService for the "reactive" profile, same rules and responses.
+ * Reservations (reservation.enabled) and the totals of legacy carts still use the blocking
+ * ReservationService and CartTotalsRepairService, so those calls are moved to the bounded elastic
+ * scheduler instead of running on an event loop.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveCartService {
+  private final ReactiveCartRepository cartRepository;
+  private final ReactiveCartItemRepository cartItemRepository;
+  private final ReactiveProductRepository productRepository;
+  private final ReactiveEmbeddedCartRepository embeddedCartRepository;
+  private final ReservationService reservationService;
+  private final ReactiveInventoryEventRepository inventoryEventRepository;
+  private final InventoryEventService inventoryEventService;
+  private final CartMigrationService cartMigrationService;
+  private final CartTotalsRepairService cartTotalsRepairService;
+  private final CartStorageEnum storageMode;
+
+  public ReactiveCartService(
+      ReactiveCartRepository cartRepository,
+      ReactiveCartItemRepository cartItemRepository,
+      ReactiveProductRepository productRepository,
+      ReactiveEmbeddedCartRepository embeddedCartRepository,
+      ReservationService reservationService,
+      ReactiveInventoryEventRepository inventoryEventRepository,
+      InventoryEventService inventoryEventService,
+      CartMigrationService cartMigrationService,
+      CartTotalsRepairService cartTotalsRepairService,
+      @Value("${cart.storage-mode:LEGACY}") CartStorageEnum storageMode
+    ) {
+    this.cartRepository = cartRepository;
+    this.cartItemRepository = cartItemRepository;
+    this.productRepository = productRepository;
+    this.embeddedCartRepository = embeddedCartRepository;
+    this.reservationService = reservationService;
+    this.inventoryEventRepository = inventoryEventRepository;
+    this.inventoryEventService = inventoryEventService;
+    this.cartMigrationService = cartMigrationService;
+    this.cartTotalsRepairService = cartTotalsRepairService;
+    this.storageMode = storageMode;
+  }
+
+  public Mono<ApiResponse<Map<String, Object>>> manageCart(String userId, ManageCartDto data) {
+    // Validate input
+    if (userId == null || userId.isEmpty()) {
+      return Mono.error(new CustomException("User ID is required", HttpStatus.BAD_REQUEST));
+    }
+    if (data == null) {
+      return Mono.error(new CustomException("Cart data cannot be empty", HttpStatus.BAD_REQUEST));
+    }
+
+    if (storageMode == CartStorageEnum.EMBEDDED) {
+      return manageEmbeddedCart(userId, data);
+    }
+
+    String productId = data.getProductId();
+    // Get or create cart, then fetch product
+    return cartRepository.findByUserId(userId)
+        .flatMap(cart -> touchIfIdle(cart).thenReturn(cart))
+        .switchIfEmpty(Mono.defer(() -> cartRepository.save(CartService.newLegacyCart(userId))
+            // lines of an expired cart the compactor hasn't removed yet
+            .flatMap(cart -> cartItemRepository.deleteByUserIdAndCartIdNot(userId, cart.getId()).thenReturn(cart))
+            // a concurrent request created it first (unique userId index)
+            .onErrorResume(DuplicateKeyException.class, e -> cartRepository.findByUserId(userId))))
+        .flatMap(cart -> claimUnassignedLines(cart).thenReturn(cart))
+        .flatMap(cart -> findProductForCart(userId, data)
+            .flatMap(product -> cartItemRepository.findByUserIdAndProductId(userId, productId)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(existingCartItem -> applyLegacyChange(cart, product, existingCartItem, data.getItemCount())
+                    .flatMap(response -> addToTotals(cart, CartService.lineChange(new CartTotals(), product,
+                            existingCartItem.map(CartItemModel::getItemCount).orElse(0), data.getItemCount()))
+                        .thenReturn(response)))));
+  }
+
+  // CartService.claimUnassignedLines
+  private Mono<Void> claimUnassignedLines(CartModel cart) {
+    return cartMigrationService.isBackfillComplete()
+        ? Mono.empty()
+        : cartItemRepository.assignUserId(cart.getId(), cart.getUserId())
+            .flatMap(assigned -> assigned > 0 ? recomputeTotals(cart.getUserId()) : Mono.empty());
+  }
+
+  // CartService.recomputeTotals
+  private Mono<Void> recomputeTotals(String userId) {
+    return Mono.fromRunnable(() -> cartTotalsRepairService.recomputeLegacyTotals(userId))
+        .subscribeOn(Schedulers.boundedElastic())
+        .onErrorResume(DataAccessException.class, e -> {
+          log.warn("Could not recompute the cart totals of user {}: {}", userId, e.getMessage());
+          return Mono.empty();
+        })
+        .then();
+  }
+
+  // CartService.addToTotals
+  private Mono<Void> addToTotals(CartModel cart, CartTotals change) {
+    return Mono.fromRunnable(() -> cartTotalsRepairService.addToLegacyTotals(cart, change))
+        .subscribeOn(Schedulers.boundedElastic())
+        .onErrorResume(DataAccessException.class, e -> {
+          log.warn("Could not update the cart totals of user {}: {}", cart.getUserId(), e.getMessage());
+          return Mono.empty();
+        })
+        .then();
+  }
+
+  // CartService.clearTotals
+  private Mono<Void> clearTotals(CartModel cart) {
+    return Mono.fromRunnable(() -> cartTotalsRepairService.clearLegacyTotals(cart))
+        .subscribeOn(Schedulers.boundedElastic())
+        .onErrorResume(DataAccessException.class, e -> {
+          log.warn("Could not clear the cart totals of user {}: {}", cart.getUserId(), e.getMessage());
+          return Mono.empty();
+        })
+        .then();
+  }
+
+  // the cart, when there is one, with its lines claimed
+  private Mono<Optional<CartModel>> findLegacyCart(String userId) {
+    return cartRepository.findByUserId(userId)
+        .flatMap(cart -> claimUnassignedLines(cart).thenReturn(Optional.of(cart)))
+        .defaultIfEmpty(Optional.empty());
+  }
+
+  private Mono<Void> touchIfIdle(CartModel cart) {
+    LocalDateTime now = LocalDateTime.now();
+    return CartService.isIdle(cart, now) ? cartRepository.touch(cart.getUserId(), now) : Mono.empty();
+  }
+
+  private Mono<ApiResponse<Map<String, Object>>> applyLegacyChange(
+      CartModel cart, ProductModel product, Optional<CartItemModel> existingCartItem, int itemCount) {
+    // Case 1: Remove item if itemCount is 0
+    if (itemCount == 0) {
+      if (existingCartItem.isEmpty()) {
+        return Mono.error(new CustomException("Product not found in cart", HttpStatus.NOT_FOUND));
+      }
+      return cartItemRepository.deleteByUserIdAndProductId(cart.getUserId(), product.getId())
+          .thenReturn(CartService.buildManageResponse(cart.getId(), "removed",
+              product.getName() + " removed from cart", product, itemCount));
+    }
+    // Case 2: Update existing item in place, the count is absolute so a concurrent write cannot make it stale
+    if (existingCartItem.isPresent()) {
+      return cartItemRepository.setItemCount(cart.getUserId(), cart.getId(), product.getId(), itemCount)
+          .flatMap(updated -> updated
+              ? Mono.just(CartService.buildManageResponse(cart.getId(), "updated",
+                  product.getName() + " quantity updated to " + itemCount, product, itemCount))
+              // removed since it was read
+              : applyLegacyChange(cart, product, Optional.empty(), itemCount));
+    }
+    // Case 3: Add new item
+    CartItemModel newCartItem = CartItemModel.builder()
+        .cartId(cart.getId())
+        .userId(cart.getUserId())
+        .productId(product.getId())
+        .itemCount(itemCount)
+        .build();
+    return cartItemRepository.save(newCartItem)
+        .thenReturn(CartService.buildManageResponse(cart.getId(), "added",
+            product.getName() + " added to cart", product, itemCount))
+        // a concurrent request added the same product first
+        .onErrorResume(DuplicateKeyException.class, e -> cartItemRepository
+            .findByUserIdAndProductId(cart.getUserId(), product.getId())
+            // the line predates userIds on lines and has not been backfilled yet
+            .switchIfEmpty(Mono.defer(() -> cartItemRepository.assignUserId(cart.getId(), cart.getUserId())
+                .filter(assigned -> assigned > 0)
+                .flatMap(assigned -> cartItemRepository.findByUserIdAndProductId(cart.getUserId(), product.getId()))
+                .switchIfEmpty(Mono.error(e))))
+            .flatMap(cartItem -> applyLegacyChange(cart, product, Optional.of(cartItem), itemCount)));
+  }
+
+  private Mono<ApiResponse<Map<String, Object>>> manageEmbeddedCart(String userId, ManageCartDto data) {
+    String productId = data.getProductId();
+    int itemCount = data.getItemCount();
+    return findProductForCart(userId, data).flatMap(product -> {
+      // Case 1: Remove item if itemCount is 0
+      if (itemCount == 0) {
+        return embeddedCartRepository.pullItem(userId, productId)
+            .flatMap(removed -> removed
+                ? Mono.just(CartService.buildManageResponse(userId, "removed", product.getName() + " removed from cart", product, 0))
+                : Mono.error(new CustomException("Product not found in cart", HttpStatus.NOT_FOUND)));
+      }
+
+      // Case 2: Update the item in place, otherwise push it (upserting the cart)
+      ApiResponse<Map<String, Object>> updated = CartService.buildManageResponse(userId, "updated",
+          product.getName() + " quantity updated to " + itemCount, product, itemCount);
+      return embeddedCartRepository.setItemCount(userId, product, itemCount)
+          .flatMap(found -> found
+              ? Mono.just(updated)
+              : embeddedCartRepository.pushItem(userId, product, itemCount)
+                  .flatMap(pushed -> pushed
+                      ? Mono.just(CartService.buildManageResponse(userId, "added", product.getName() + " added to cart", product, itemCount))
+                      // a concurrent request added the same product first
+                      : embeddedCartRepository.setItemCount(userId, product, itemCount).thenReturn(updated)));
+    });
+  }
+
+  private Mono<ProductModel> findProductForCart(String userId, ManageCartDto data) {
+    if (reservationService.isEnabled()) {
+      return Mono.fromCallable(() -> reservationService.reserve(userId, data.getProductId(), data.getItemCount()))
+          .subscribeOn(Schedulers.boundedElastic());
+    }
+    return productRepository.findById(data.getProductId())
+        .switchIfEmpty(Mono.error(() -> new CustomException("Product not found", HttpStatus.NOT_FOUND)))
+        .map(product -> CartService.checkProductForCart(product, data.getItemCount()));
+  }
+
+  public Mono<ApiResponse<Map<String, Object>>> getCart(String userId) {
+    // Validate input
+    if (userId == null || userId.isEmpty()) {
+      return Mono.error(new CustomException("User ID is required", HttpStatus.BAD_REQUEST));
+    }
+
+    return storageMode == CartStorageEnum.EMBEDDED
+        ? getEmbeddedCart(userId)
+        // lines of an expired cart are left for the compactor, as in CartService.getCart
+        : findLegacyCart(userId).flatMap(cart -> cart.isEmpty()
+            ? Mono.just(CartService.buildCartResponse(Collections.emptyList()))
+            : getLegacyCartItems(userId).map(items -> CartService.buildLegacyCartResponse(cart.get(), items)));
+  }
+
+  private Mono<List<CartItemResponseDto>> getLegacyCartItems(String userId) {
+    // Lines carry the userId
+    return cartItemRepository.findByUserId(userId).collectList()
+        .filter(cartItems -> !cartItems.isEmpty())
+        .flatMap(cartItems -> findProducts(cartItems.stream()
+                .map(CartItemModel::getProductId)
+                .collect(Collectors.toList()))
+            .map(productMap -> CartService.toLegacyItemResponses(cartItems, productMap)))
+        .defaultIfEmpty(Collections.emptyList());
+  }
+
+  private Mono<ApiResponse<Map<String, Object>>> getEmbeddedCart(String userId) {
+    return embeddedCartRepository.findById(userId)
+        .filter(cart -> cart.getItems() != null && !cart.getItems().isEmpty())
+        .flatMap(cart -> findProducts(cart.getItems().stream()
+                .map(EmbeddedCartItemModel::getProductId)
+                .collect(Collectors.toList()))
+            .map(productMap -> CartService.buildEmbeddedCartResponse(cart,
+                CartService.toEmbeddedItemResponses(cart.getItems(), productMap))))
+        .switchIfEmpty(Mono.fromSupplier(() -> CartService.buildCartResponse(Collections.emptyList())));
+  }
+
+  private Mono<Map<String, ProductModel>> findProducts(List<String> productIds) {
+    return productRepository.findAllById(productIds).collectMap(ProductModel::getId);
+  }
+
+  /**
+   * CartService.getCartDocument, same document.
+   */
+  public Mono<Document> getCartDocument(String userId) {
+    // Validate input
+    if (userId == null || userId.isEmpty()) {
+      return Mono.error(new CustomException("User ID is required", HttpStatus.BAD_REQUEST));
+    }
+
+    if (storageMode == CartStorageEnum.EMBEDDED) {
+      return embeddedCartRepository.findLinesDocument(userId)
+          .defaultIfEmpty(new Document("items", Collections.emptyList()));
+    }
+    return findLegacyCart(userId).flatMap(cart -> cart.isEmpty()
+        ? Mono.just(new Document("items", Collections.emptyList()))
+        : cartItemRepository.findLineDocuments(userId).collectList().map(lines -> {
+          Document document = new Document("items", lines);
+          cart.filter(kept -> kept.getTotalMrpMinor() != null && kept.getTotalDiscountMinor() != null)
+              .ifPresent(kept -> document
+                  .append("totalMrpMinor", kept.getTotalMrpMinor())
+                  .append("totalDiscountMinor", kept.getTotalDiscountMinor()));
+          return document;
+        }));
+  }
+
+  /**
+   * Products of a getCartDocument cart by id, as stored and with only the fields of a gRPC CartProduct.
+   */
+  public Mono<Map<String, Document>> getCartProductDocuments(Document cart) {
+    List<String> productIds = CartService.cartProductIds(cart);
+    if (productIds.isEmpty()) {
+      return Mono.just(Collections.emptyMap());
+    }
+    return productRepository.findCartProductDocuments(productIds)
+        .collectMap(product -> product.get("_id").toString());
+  }
+
+  public Mono<ApiResponse<String>> clearCart(String userId) {
+    // Validate input
+    if (userId == null || userId.isEmpty()) {
+      return Mono.error(new CustomException("User ID is required", HttpStatus.BAD_REQUEST));
+    }
+
+    Mono<?> releaseReservations = reservationService.isEnabled()
+        ? Mono.fromCallable(() -> reservationService.releaseAll(userId)).subscribeOn(Schedulers.boundedElastic())
+        : Mono.empty();
+
+    Mono<Boolean> cleared = storageMode == CartStorageEnum.EMBEDDED
+        ? embeddedCartRepository.clearItems(userId)
+        : cartRepository.findByUserId(userId)
+            // otherwise the backfill would bring the cleared lines back
+            .flatMap(cart -> claimUnassignedLines(cart)
+                .then(cartItemRepository.deleteAllByUserId(userId))
+                .then(clearTotals(cart))
+                .thenReturn(true))
+            .defaultIfEmpty(false);
+
+    return releaseReservations.then(cleared)
+        .flatMap(found -> found && inventoryEventService.isEnabled()
+            ? inventoryEventRepository.insert(InventoryEventService.cartClearedEvent(userId)).thenReturn(true)
+            : Mono.just(found))
+        .map(found -> found
+            ? new ApiResponse<String>(true, "Cart cleared successfully")
+            : new ApiResponse<String>(true, "No cart found to clear", null));
+  }
+}
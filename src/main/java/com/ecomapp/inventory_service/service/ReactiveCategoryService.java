@@ -0,0 +1,80 @@
+package com.ecomapp.inventory_service.service;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.annotations.RetryOnConflict;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.dto.CreateCategoryDto;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.model.CategoryModel;
+import com.ecomapp.inventory_service.repository.ReactiveCategoryRepository;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking CategoryService for the "reactive" profile.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCategoryService {
+  private final ReactiveCategoryRepository categoryRepository;
+  private final CatalogCacheService catalogCacheService;
+  private final BlobStore blobStore;
+  private final ProductSearchService productSearchService;
+
+  public ReactiveCategoryService(
+      ReactiveCategoryRepository categoryRepository,
+      CatalogCacheService catalogCacheService,
+      BlobStore blobStore,
+      ProductSearchService productSearchService
+    ) {
+    this.categoryRepository = categoryRepository;
+    this.catalogCacheService = catalogCacheService;
+    this.blobStore = blobStore;
+    this.productSearchService = productSearchService;
+  }
+
+  public Mono<ApiResponse<String>> createCategory(CreateCategoryDto body) {
+    return categoryRepository.save(CategoryService.newCategory(body))
+        .map(category -> new ApiResponse<>(true, "Category created successfully", category.getId()));
+  }
+
+  public Mono<ApiResponse<?>> deleteCategory(String id) {
+    return categoryRepository.deleteById(id)
+        .doOnSuccess(done -> {
+          catalogCacheService.evictCategory(id);
+          productSearchService.categoryChanged(id);
+        })
+        .thenReturn(new ApiResponse<>(true, "Category deleted successfully"));
+  }
+
+  /**
+   * Same as CategoryService.updateCategory: a write conditional on the version that was read.
+   */
+  @RetryOnConflict
+  public Mono<ApiResponse<?>> updateCategory(String id, CreateCategoryDto body, String ifMatch) {
+    return categoryRepository.findById(id)
+        .switchIfEmpty(Mono.error(() -> new CustomException("Category not found", HttpStatus.NOT_FOUND)))
+        .flatMap(category -> {
+          CategoryService.requireVersion(ifMatch, category);
+          Long version = category.getVersion();
+          category.setName(body.getName());
+          category.setDescription(body.getDescription());
+          return categoryRepository.updateDetails(category, version)
+              .flatMap(updated -> updated ? Mono.just(category) : Mono.error(CategoryService.conflict(ifMatch)));
+        })
+        .doOnSuccess(category -> {
+          catalogCacheService.evictCategory(id);
+          productSearchService.categoryChanged(id);
+        })
+        .thenReturn(new ApiResponse<>(true, "Category updated successfully"));
+  }
+
+  public Mono<ApiResponse<CategoryModel>> getCategory(String id) {
+    return categoryRepository.findById(id)
+        .switchIfEmpty(Mono.error(() -> new CustomException("Category not found", HttpStatus.NOT_FOUND)))
+        .map(category -> new ApiResponse<>(true, "Category found", CategoryService.toCategoryResponse(category, blobStore)));
+  }
+}
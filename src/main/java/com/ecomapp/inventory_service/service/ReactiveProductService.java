@@ -0,0 +1,191 @@
+package com.ecomapp.inventory_service.service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.annotations.RetryOnConflict;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.dto.CreateProductDto;
+import com.ecomapp.inventory_service.dto.ProductDetailResponseDto;
+import com.ecomapp.inventory_service.dto.ProductFilterDto;
+import com.ecomapp.inventory_service.dto.ProductListingDto;
+import com.ecomapp.inventory_service.dto.ProductSearchResultDto;
+import com.ecomapp.inventory_service.dto.ProductSuggestionDto;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.model.CategoryModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.ReactiveCategoryRepository;
+import com.ecomapp.inventory_service.repository.ReactiveInventoryEventRepository;
+import com.ecomapp.inventory_service.repository.ReactiveProductRepository;
+import com.ecomapp.inventory_service.util.CatalogVersion;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Hit;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Result;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking ProductService for the "reactive" profile. Reads go straight to MongoDB,
+ * writes still evict the shared catalog cache used by the blocking services.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveProductService {
+  private final ReactiveProductRepository productRepository;
+  private final ReactiveCategoryRepository categoryRepository;
+  private final CartRepriceService cartRepriceService;
+  private final CatalogCacheService catalogCacheService;
+  private final ProductSearchService productSearchService;
+  private final ReactiveInventoryEventRepository inventoryEventRepository;
+  private final InventoryEventService inventoryEventService;
+
+  public ReactiveProductService(
+      ReactiveProductRepository productRepository,
+      ReactiveCategoryRepository categoryRepository,
+      CartRepriceService cartRepriceService,
+      CatalogCacheService catalogCacheService,
+      ProductSearchService productSearchService,
+      ReactiveInventoryEventRepository inventoryEventRepository,
+      InventoryEventService inventoryEventService
+    ) {
+    this.productRepository = productRepository;
+    this.categoryRepository = categoryRepository;
+    this.cartRepriceService = cartRepriceService;
+    this.catalogCacheService = catalogCacheService;
+    this.productSearchService = productSearchService;
+    this.inventoryEventRepository = inventoryEventRepository;
+    this.inventoryEventService = inventoryEventService;
+  }
+
+  public Mono<ApiResponse<String>> createdProduct(CreateProductDto body) {
+    return productRepository.save(ProductService.newProduct(body))
+        .doOnSuccess(product -> productSearchService.productChanged(product.getId()))
+        .map(product -> new ApiResponse<>(true, "Product created successfully", product.getId()));
+  }
+
+  /**
+   * Same as ProductService.updateProduct: a write conditional on the version that was read.
+   */
+  @RetryOnConflict
+  public Mono<ApiResponse<?>> updateProduct(String id, CreateProductDto body, String ifMatch) {
+    return productRepository.findById(id)
+        .switchIfEmpty(Mono.error(() -> new CustomException("Product not found", HttpStatus.NOT_FOUND)))
+        .flatMap(product -> {
+          ProductService.requireVersion(ifMatch, product);
+          boolean repriced = ProductService.priceChanged(product, body);
+          Long version = product.getVersion();
+          double quantityChange = body.getQuantity() - product.getQuantity();
+          ProductService.applyUpdate(product, body);
+          return productRepository.updateDetails(product, quantityChange, version)
+              .flatMap(updated -> updated ? Mono.just(product) : Mono.error(ProductService.conflict(ifMatch)))
+              .doOnSuccess(updated -> {
+                catalogCacheService.evictProduct(id);
+                productSearchService.productChanged(id);
+                // carts keep a price snapshot for their running totals, legacy carts total the new price on read
+                if (repriced) {
+                  cartRepriceService.productRepriced(id);
+                }
+              });
+        })
+        .thenReturn(new ApiResponse<>(true, "Product updated successfully"));
+  }
+
+  public Mono<ApiResponse<?>> deleteProduct(String id) {
+    return productRepository.deleteById(id)
+        .then(inventoryEventService.isEnabled()
+            ? inventoryEventRepository.insert(InventoryEventService.productDeletedEvent(id)).then()
+            : Mono.<Void>empty())
+        .doOnSuccess(done -> {
+          catalogCacheService.evictProduct(id);
+          productSearchService.productChanged(id);
+        })
+        .thenReturn(new ApiResponse<>(true, "Product deleted successfully"));
+  }
+
+  /**
+   * Same validators as ProductService.findProductVersion, from a projection of the product.
+   */
+  public Mono<Optional<CatalogVersion>> findProductVersion(String id) {
+    return productRepository.findVersionFields(id)
+        .flatMap(product -> Mono.justOrEmpty(product.getCategoryId())
+            .flatMap(categoryRepository::findById)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .map(category -> Optional.of(CatalogVersion.ofProduct(
+                product.getVersion(),
+                product.getAvailableStock(),
+                category.map(CategoryModel::getVersion).orElse(null),
+                category.map(CategoryModel::getUpdatedAt).orElse(null)))))
+        .defaultIfEmpty(Optional.empty());
+  }
+
+  /**
+   * Same as ProductService.searchProducts.
+   */
+  public Mono<ApiResponse<ProductSearchResultDto>> searchProducts(
+      String query, String categoryId, ProductFilterDto filter, Integer page, Integer limit) {
+    int pageLimit = ProductService.pageLimit(limit);
+    return Mono.fromCallable(() -> ProductService.searchPage(query, page, pageLimit))
+        .flatMap(currPage -> {
+          Result result = productSearchService.search(query, categoryId, filter, (currPage - 1) * pageLimit, pageLimit);
+          List<String> ids = result.hits().stream().map(Hit::id).toList();
+          Mono<List<ProductListingDto>> listings = ids.isEmpty()
+              ? Mono.just(List.of())
+              : productRepository.findListingsByIds(ids).collectList();
+          return listings.map(found -> ProductService.buildSearchPage(result, found, currPage, pageLimit));
+        });
+  }
+
+  public Mono<ApiResponse<List<ProductSuggestionDto>>> suggestProducts(String query, Integer limit) {
+    return Mono.fromCallable(() -> ProductService.suggest(productSearchService, query, limit));
+  }
+
+  public Mono<ApiResponse<ProductDetailResponseDto>> getProduct(String id) {
+    return productRepository.findById(id)
+        .switchIfEmpty(Mono.error(() -> new CustomException("Product not found", HttpStatus.NOT_FOUND)))
+        .flatMap(product -> Mono.justOrEmpty(product.getCategoryId())
+            .flatMap(categoryRepository::findById)
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .map(categoryOpt -> new ApiResponse<>(true, "Product found", ProductService.toProductDetail(product, categoryOpt))));
+  }
+
+  /**
+   * Same as ProductService.batchGetProducts: one findAllById, request order, no cache.
+   */
+  public Mono<Map<String, ProductModel>> batchGetProducts(List<String> ids) {
+    return productRepository.findAllById(new LinkedHashSet<>(ids))
+        .collectMap(ProductModel::getId)
+        .map(found -> ProductService.inRequestOrder(ids, found));
+  }
+
+  /**
+   * Same keyset pages and cursors as ProductService.listProducts.
+   */
+  public Mono<ApiResponse<List<ProductListingDto>>> listProducts(String categoryId, ProductFilterDto filter, String cursor, Integer limit) {
+    return Mono.defer(() -> {
+      int pageLimit = ProductService.pageLimit(limit);
+      String[] parts = cursor != null && !cursor.isEmpty() ? ProductService.decodeCursor(cursor) : null;
+      int currPage = parts != null ? Integer.parseInt(parts[0]) : 1;
+      String afterId = parts != null ? parts[2] : null;
+      Mono<Long> totalCount = parts != null
+          ? Mono.just(Long.parseLong(parts[1]))
+          : productRepository.countListing(categoryId, filter);
+
+      Mono<Boolean> categoryExists = categoryId != null ? categoryRepository.existsById(categoryId) : Mono.just(true);
+      return categoryExists
+          .flatMap(exists -> exists
+              ? totalCount
+              : Mono.error(new CustomException("Category not found", HttpStatus.NOT_FOUND)))
+          // fetch one extra row to know whether there is a next page
+          .flatMap(total -> productRepository.findListingPage(categoryId, filter, afterId, pageLimit + 1)
+              .collectList()
+              .map(products -> ProductService.buildListingPage(products, currPage, total, pageLimit)));
+    });
+  }
+}
@@ -0,0 +1,244 @@
+package com.ecomapp.inventory_service.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.constant.ReservationStatusEnum;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.model.ReservationModel;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.repository.ReservationRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds stock for cart lines so two users can never both get the last unit.
+ * Stock is taken with a conditional update on the product (availableStock >= n),
+ * and given back when the line is removed, the cart is cleared or the hold expires.
+ *
+ * The partial unique index on active reservations is what keeps one hold per user and product,
+ * so when reservations are enabled the reservation indexes are created before the application
+ * takes traffic, and startup fails if they can't be.
+ */
+@Slf4j
+@Service
+public class ReservationService implements InitializingBean {
+  private final ReservationRepository reservationRepository;
+  private final ProductRepository productRepository;
+  private final StockLedgerService stockLedgerService;
+  private final CatalogCacheService catalogCacheService;
+  private final MongoIndexService mongoIndexService;
+  private final boolean enabled;
+  private final long holdMinutes;
+  private final long retentionHours;
+  private final int sweepBatchSize;
+
+  public ReservationService(
+      ReservationRepository reservationRepository,
+      ProductRepository productRepository,
+      StockLedgerService stockLedgerService,
+      CatalogCacheService catalogCacheService,
+      MongoIndexService mongoIndexService,
+      @Value("${reservation.enabled:false}") boolean enabled,
+      @Value("${reservation.hold-minutes:30}") long holdMinutes,
+      @Value("${reservation.retention-hours:24}") long retentionHours,
+      @Value("${reservation.sweep-batch-size:500}") int sweepBatchSize
+    ) {
+    this.reservationRepository = reservationRepository;
+    this.productRepository = productRepository;
+    this.stockLedgerService = stockLedgerService;
+    this.catalogCacheService = catalogCacheService;
+    this.mongoIndexService = mongoIndexService;
+    this.enabled = enabled;
+    this.holdMinutes = holdMinutes;
+    this.retentionHours = retentionHours;
+    this.sweepBatchSize = sweepBatchSize;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!enabled) {
+      return;
+    }
+    mongoIndexService.ensureIndexes(ReservationModel.class).values().stream()
+        .flatMap(List::stream)
+        .filter(index -> "failed".equals(index.get("status")))
+        .findFirst()
+        .ifPresent(index -> {
+          throw new IllegalStateException("Reservation index " + index.get("name") + " could not be created: " + index.get("error"));
+        });
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Make the user's hold on a product equal to itemCount, taking or returning the difference.
+   * Returns the product so callers don't need to fetch it again.
+   */
+  public ProductModel reserve(String userId, String productId, int itemCount) {
+    if (itemCount == 0) {
+      ProductModel product = findActiveProduct(productId);
+      release(userId, productId);
+      return product;
+    }
+
+    Optional<ReservationModel> previous = reservationRepository.holdQuantity(
+        userId, productId, itemCount, LocalDateTime.now().plusMinutes(holdMinutes));
+    Integer previousQuantity = previous.map(ReservationModel::getQuantity).orElse(null);
+    int held = previousQuantity != null ? previousQuantity : 0;
+    int delta = itemCount - held;
+
+    if (delta > 0) {
+      Optional<ProductModel> reserved = takeStock(productId, delta);
+      if (reserved.isPresent()) {
+        return reserved.get();
+      }
+      reservationRepository.restoreQuantity(userId, productId, itemCount, previousQuantity);
+      ProductModel product = findActiveProduct(productId);
+      throw new CustomException(
+          product.getName() + " - Only " + ((int) product.getAvailableStock() + held) +
+          " items available (requested: " + itemCount + ")",
+          HttpStatus.BAD_REQUEST
+      );
+    }
+
+    ProductModel product;
+    try {
+      product = findActiveProduct(productId);
+    } catch (CustomException e) {
+      reservationRepository.restoreQuantity(userId, productId, itemCount, previousQuantity);
+      throw e;
+    }
+    if (delta < 0) {
+      giveStock(productId, -delta);
+    }
+    return product;
+  }
+
+  public void release(String userId, String productId) {
+    reservationRepository.finishActive(userId, productId, ReservationStatusEnum.RELEASED, purgeAt())
+        .ifPresent(reservation -> giveStock(productId, reservation.getQuantity()));
+  }
+
+  public ApiResponse<List<ReservationModel>> releaseAll(String userId) {
+    List<ReservationModel> released = finishAll(userId, ReservationStatusEnum.RELEASED);
+    released.forEach(reservation -> giveStock(reservation.getProductId(), reservation.getQuantity()));
+    return new ApiResponse<>(true, released.size() + " reservation(s) released", released);
+  }
+
+  /**
+   * Called at checkout with the cart's item count per product: the held stock is sold, so it is not
+   * given back. A hold can expire while the line stays in the cart (the sweeper has given its stock
+   * back), so every line is reserved again first; when the stock is gone nothing is committed and
+   * the checkout fails with CONFLICT. Holds of products no longer in the cart are released.
+   */
+  public ApiResponse<List<ReservationModel>> commitAll(String userId, Map<String, Integer> itemCountByProduct) {
+    if (userId == null || userId.isEmpty()) {
+      throw new CustomException("User ID is required", HttpStatus.BAD_REQUEST);
+    }
+    if (!enabled) {
+      return new ApiResponse<>(true, "0 reservation(s) committed", List.of());
+    }
+    itemCountByProduct.forEach((productId, itemCount) -> {
+      try {
+        reserve(userId, productId, itemCount);
+      } catch (CustomException e) {
+        throw new CustomException("Cart can't be committed: " + e.getMessage(), HttpStatus.CONFLICT);
+      }
+    });
+
+    List<ReservationModel> committed = new ArrayList<>();
+    for (ReservationModel reservation : reservationRepository.findByUserIdAndStatus(userId, ReservationStatusEnum.ACTIVE)) {
+      if (!itemCountByProduct.containsKey(reservation.getProductId())) {
+        reservationRepository.finishActive(reservation.getId(), ReservationStatusEnum.RELEASED, purgeAt())
+            .ifPresent(released -> giveStock(released.getProductId(), released.getQuantity()));
+        continue;
+      }
+      reservationRepository.finishActive(reservation.getId(), ReservationStatusEnum.COMMITTED, purgeAt())
+          .ifPresent(committed::add);
+    }
+    if (committed.size() != itemCountByProduct.size()) {
+      // the same user changed the cart while it was being committed
+      log.warn("Committed {} reservation(s) for {} cart line(s) of user {}", committed.size(), itemCountByProduct.size(), userId);
+    }
+    return new ApiResponse<>(true, committed.size() + " reservation(s) committed", committed);
+  }
+
+  @Scheduled(fixedDelayString = "${reservation.sweep-interval-ms:60000}")
+  public void releaseExpired() {
+    if (!enabled) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    List<ReservationModel> expired = reservationRepository.findByStatusAndExpiresAtBefore(
+        ReservationStatusEnum.ACTIVE, now, PageRequest.of(0, sweepBatchSize));
+    int released = 0;
+    for (ReservationModel reservation : expired) {
+      // another replica may sweep the same reservation, only the one that flips the status gives stock back;
+      // a hold refreshed since the read is no longer due and stays active
+      Optional<ReservationModel> finished = reservationRepository.expireIfDue(reservation.getId(), now, purgeAt());
+      if (finished.isPresent()) {
+        giveStock(reservation.getProductId(), finished.get().getQuantity());
+        released++;
+      }
+    }
+    if (released > 0) {
+      log.info("Released {} expired reservation(s)", released);
+    }
+  }
+
+  private List<ReservationModel> finishAll(String userId, ReservationStatusEnum status) {
+    if (userId == null || userId.isEmpty()) {
+      throw new CustomException("User ID is required", HttpStatus.BAD_REQUEST);
+    }
+    List<ReservationModel> finished = new ArrayList<>();
+    for (ReservationModel reservation : reservationRepository.findByUserIdAndStatus(userId, ReservationStatusEnum.ACTIVE)) {
+      reservationRepository.finishActive(reservation.getId(), status, purgeAt())
+          .ifPresent(finished::add);
+    }
+    return finished;
+  }
+
+  // hot products are served by the in-memory ledger when it is enabled
+  private Optional<ProductModel> takeStock(String productId, int quantity) {
+    return stockLedgerService.isEnabled()
+        ? stockLedgerService.take(productId, quantity)
+        : productRepository.reserveStock(productId, quantity);
+  }
+
+  private void giveStock(String productId, int quantity) {
+    if (stockLedgerService.isEnabled()) {
+      stockLedgerService.give(productId, quantity);
+    } else {
+      productRepository.releaseStock(productId, quantity);
+    }
+  }
+
+  private ProductModel findActiveProduct(String productId) {
+    ProductModel product = stockLedgerService.cachedProduct(productId)
+        .or(() -> catalogCacheService.findProduct(productId))
+        .orElseThrow(() -> new CustomException("Product not found", HttpStatus.NOT_FOUND));
+    if (!product.getIsActive()) {
+      throw new CustomException("Product " + product.getName() + " is not available", HttpStatus.BAD_REQUEST);
+    }
+    return product;
+  }
+
+  private LocalDateTime purgeAt() {
+    return LocalDateTime.now().plusHours(retentionHours);
+  }
+}
@@ -0,0 +1,272 @@
+package com.ecomapp.inventory_service.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.MetadataDirective;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+
+/**
+ * Files in an S3 bucket, or any S3 compatible store (MinIO, Ceph...) through storage.s3.endpoint
+ * and storage.s3.path-style-access. Clients load files from storage.public-base-url (the bucket
+ * or a CDN in front of it), this service is not in the download path.
+ *
+ * Files above storage.s3.multipart-threshold-bytes are uploaded as a multipart upload whose
+ * parts are sent in parallel. presignPut lets clients upload straight to the bucket.
+ * Credentials come from storage.s3.access-key/secret-key, or the default AWS provider chain.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "S3")
+public class S3BlobStore implements BlobStore {
+  private final S3Client client;
+  private final S3AsyncClient uploadClient;
+  private final S3Presigner presigner;
+  private final String bucket;
+  private final String publicBaseUrl;
+  private final Duration presignTtl;
+
+  public S3BlobStore(
+      @Value("${storage.s3.bucket}") String bucket,
+      @Value("${storage.s3.region:us-east-1}") String region,
+      @Value("${storage.s3.endpoint:}") String endpoint,
+      @Value("${storage.s3.path-style-access:false}") boolean pathStyleAccess,
+      @Value("${storage.s3.access-key:}") String accessKey,
+      @Value("${storage.s3.secret-key:}") String secretKey,
+      @Value("${storage.s3.multipart-threshold-bytes:16777216}") long multipartThresholdBytes,
+      @Value("${storage.s3.multipart-part-size-bytes:8388608}") long multipartPartSizeBytes,
+      @Value("${storage.s3.presign-ttl-seconds:900}") long presignTtlSeconds,
+      @Value("${storage.public-base-url:http://localhost:4000/uploads/}") String publicBaseUrl
+    ) {
+    AwsCredentialsProvider credentials = accessKey.isBlank()
+        ? DefaultCredentialsProvider.create()
+        : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+    Region awsRegion = Region.of(region);
+    URI endpointOverride = endpoint.isBlank() ? null : URI.create(endpoint);
+
+    this.client = S3Client.builder()
+        .region(awsRegion)
+        .credentialsProvider(credentials)
+        .endpointOverride(endpointOverride)
+        .forcePathStyle(pathStyleAccess)
+        .build();
+    this.uploadClient = S3AsyncClient.builder()
+        .region(awsRegion)
+        .credentialsProvider(credentials)
+        .endpointOverride(endpointOverride)
+        .forcePathStyle(pathStyleAccess)
+        .multipartEnabled(true)
+        .multipartConfiguration(multipart -> multipart
+            .thresholdInBytes(multipartThresholdBytes)
+            .minimumPartSizeInBytes(multipartPartSizeBytes))
+        .build();
+    this.presigner = S3Presigner.builder()
+        .region(awsRegion)
+        .credentialsProvider(credentials)
+        .endpointOverride(endpointOverride)
+        .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(pathStyleAccess).build())
+        .build();
+    this.bucket = bucket;
+    this.publicBaseUrl = publicBaseUrl;
+    this.presignTtl = Duration.ofSeconds(presignTtlSeconds);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    presigner.close();
+    uploadClient.close();
+    client.close();
+  }
+
+  @Override
+  public void put(String key, Path file, String contentType, String cacheControl) throws IOException {
+    PutObjectRequest request = PutObjectRequest.builder()
+        .bucket(bucket)
+        .key(key)
+        .contentType(contentType)
+        .cacheControl(cacheControl)
+        .build();
+    try {
+      uploadClient.putObject(request, AsyncRequestBody.fromFile(file)).join();
+    } catch (CompletionException e) {
+      throw new IOException("Could not upload " + key + ": " + e.getCause().getMessage(), e.getCause());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Override
+  public Optional<BlobInfo> stat(String key) {
+    return head(key).map(head -> new BlobInfo(key, head.contentLength(), head.lastModified()));
+  }
+
+  /**
+   * S3 has no "touch": the object is copied onto itself with its own metadata, which gives it a new
+   * LastModified. The copy is a one part multipart upload so that it also gets a new ETag ("...-1"),
+   * which deleteIfUnmodifiedSince relies on; a plain copy of the same bytes keeps the ETag.
+   */
+  @Override
+  public boolean touch(String key) {
+    Optional<HeadObjectResponse> head = head(key);
+    if (head.isEmpty()) {
+      return false;
+    }
+    String uploadId = client.createMultipartUpload(create -> create
+        .bucket(bucket)
+        .key(key)
+        .contentType(head.get().contentType())
+        .cacheControl(head.get().cacheControl())
+        .metadata(head.get().metadata()))
+        .uploadId();
+    try {
+      String partETag = client.uploadPartCopy(copy -> copy
+          .sourceBucket(bucket)
+          .sourceKey(key)
+          .destinationBucket(bucket)
+          .destinationKey(key)
+          .uploadId(uploadId)
+          .partNumber(1))
+          .copyPartResult()
+          .eTag();
+      // completing puts the object back even when it was deleted since the part was copied
+      client.completeMultipartUpload(complete -> complete
+          .bucket(bucket)
+          .key(key)
+          .uploadId(uploadId)
+          .multipartUpload(upload -> upload.parts(CompletedPart.builder().partNumber(1).eTag(partETag).build())));
+      return true;
+    } catch (S3Exception e) {
+      client.abortMultipartUpload(abort -> abort.bucket(bucket).key(key).uploadId(uploadId));
+      if (e.statusCode() == 404) {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public InputStream open(String key) {
+    return client.getObject(get -> get.bucket(bucket).key(key));
+  }
+
+  @Override
+  public void delete(String key) {
+    client.deleteObject(delete -> delete.bucket(bucket).key(key));
+  }
+
+  /**
+   * S3 deletes can only be conditional on the ETag. The object is copied onto itself first, only if
+   * it wasn't modified after cutoff, which gives it the plain ETag of its bytes; the delete must match
+   * that ETag, and a touch in between has changed it (see touch). A put in between would have
+   * the same ETag, but it only happens once the object is gone.
+   */
+  @Override
+  public boolean deleteIfUnmodifiedSince(String key, Instant cutoff) {
+    Optional<HeadObjectResponse> head = head(key);
+    if (head.isEmpty() || head.get().lastModified().isAfter(cutoff)) {
+      return false;
+    }
+    String claimedETag;
+    try {
+      claimedETag = client.copyObject(copy -> copy
+          .sourceBucket(bucket)
+          .sourceKey(key)
+          .destinationBucket(bucket)
+          .destinationKey(key)
+          .copySourceIfUnmodifiedSince(cutoff)
+          .metadataDirective(MetadataDirective.REPLACE)
+          .contentType(head.get().contentType())
+          .cacheControl(head.get().cacheControl())
+          .metadata(head.get().metadata()))
+          .copyObjectResult()
+          .eTag();
+    } catch (S3Exception e) {
+      if (e.statusCode() == 404 || e.statusCode() == 412) {
+        return false;
+      }
+      throw e;
+    }
+    try {
+      // DeleteObjectRequest has no ifMatch in this SDK version, the header is sent as is
+      client.deleteObject(delete -> delete
+          .bucket(bucket)
+          .key(key)
+          .overrideConfiguration(override -> override.putHeader("If-Match", claimedETag)));
+      return true;
+    } catch (S3Exception e) {
+      if (e.statusCode() == 412) {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public List<BlobInfo> list(String prefix) {
+    return client.listObjectsV2Paginator(list -> list.bucket(bucket).prefix(prefix).delimiter("/"))
+        .contents()
+        .stream()
+        .map(object -> new BlobInfo(object.key(), object.size(), object.lastModified()))
+        .toList();
+  }
+
+  @Override
+  public String publicUrl(String key) {
+    return publicBaseUrl + key;
+  }
+
+  @Override
+  public Optional<PresignedUpload> presignPut(String key, String contentType, String sha256Base64) {
+    PresignedPutObjectRequest presigned = presigner.presignPutObject(presign -> presign
+        .signatureDuration(presignTtl)
+        .putObjectRequest(put -> put
+            .bucket(bucket)
+            .key(key)
+            .contentType(contentType)
+            .checksumSHA256(sha256Base64)));
+    return Optional.of(new PresignedUpload(
+        presigned.url().toString(), presigned.httpRequest().method().name(), presigned.signedHeaders(), presigned.expiration()));
+  }
+
+  @Override
+  public Optional<Path> localPath(String key) {
+    return Optional.empty();
+  }
+
+  private Optional<HeadObjectResponse> head(String key) {
+    try {
+      return Optional.of(client.headObject(head -> head.bucket(bucket).key(key)));
+    } catch (S3Exception e) {
+      if (e.statusCode() == 404) {
+        return Optional.empty();
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,303 @@
+package com.ecomapp.inventory_service.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.model.StockEscrowModel;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.repository.StockEscrowRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional in-memory stock ledger for hot products (stock-ledger.enabled=true).
+ *
+ * Instead of updating the product document on every reservation, a node leases a chunk of
+ * stock from ProductModel.availableStock (one conditional $inc) and serves takes and gives
+ * from memory until the lease ends. Surplus units go back to MongoDB in batched bulk $inc
+ * writes. Each node only hands out units it has leased, so several replicas can run at once.
+ * Like any write-behind cache, a node that crashes loses the takes it made since its last
+ * flush, so keep stock-ledger.flush-interval-ms short.
+ *
+ * The units a node holds are recorded per product in stock_escrow so that a node that stops
+ * without flushing can be reclaimed. The record only changes by $inc: lease adds what it took,
+ * flush applies the difference since its last write, so the two never overwrite each other.
+ */
+@Slf4j
+@Service
+public class StockLedgerService {
+  private final ProductRepository productRepository;
+  private final StockEscrowRepository stockEscrowRepository;
+  private final boolean enabled;
+  private final String nodeId;
+  private final long chunkSize;
+  private final long leaseMs;
+  private final ReentrantLock[] stripes;
+  private final Map<String, StockCounter> counters = new ConcurrentHashMap<>();
+
+  /**
+   * Ledger state of one product on this node, guarded by the product's stripe lock.
+   */
+  private static class StockCounter {
+    private ProductModel product; // snapshot taken when stock was last leased
+    private long available; // leased units not handed out yet
+    private long escrowed; // units the escrow record holds for this node, as last written
+    private long leaseExpiresAt;
+  }
+
+  public StockLedgerService(
+      ProductRepository productRepository,
+      StockEscrowRepository stockEscrowRepository,
+      @Value("${stock-ledger.enabled:false}") boolean enabled,
+      @Value("${stock-ledger.node-id:${HOSTNAME:}}") String nodeId,
+      @Value("${stock-ledger.chunk-size:20}") long chunkSize,
+      @Value("${stock-ledger.lease-ms:30000}") long leaseMs,
+      @Value("${stock-ledger.stripes:64}") int stripeCount
+    ) {
+    this.productRepository = productRepository;
+    this.stockEscrowRepository = stockEscrowRepository;
+    this.enabled = enabled;
+    this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    this.chunkSize = chunkSize;
+    this.leaseMs = leaseMs;
+    this.stripes = new ReentrantLock[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Take quantity units for a cart, leasing more stock from MongoDB when the local share runs out.
+   * Returns the product snapshot, or empty when the product is missing, inactive or out of stock.
+   */
+  public Optional<ProductModel> take(String productId, int quantity) {
+    ReentrantLock lock = stripe(productId);
+    lock.lock();
+    try {
+      StockCounter counter = counters.computeIfAbsent(productId, id -> new StockCounter());
+      if (counter.product != null && counter.available >= quantity && System.currentTimeMillis() < counter.leaseExpiresAt) {
+        counter.available -= quantity;
+        return Optional.of(counter.product);
+      }
+
+      // lease a whole chunk if we can, otherwise just what is missing (nothing when only the lease expired)
+      long missing = quantity - counter.available;
+      Optional<ProductModel> leased = lease(productId, counter, Math.max(missing, chunkSize));
+      if (leased.isEmpty() && missing > 0 && missing < chunkSize) {
+        leased = lease(productId, counter, missing);
+      }
+      if (leased.isEmpty() && counter.available < quantity) {
+        if (counter.product == null) {
+          counters.remove(productId);
+        }
+        return Optional.empty();
+      }
+      // units left from an expired lease are still ours to hand out
+      counter.available -= quantity;
+      return Optional.of(counter.product);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Give units back. They stay on this node while it holds a lease for the product,
+   * otherwise they go straight back to the product document.
+   */
+  public void give(String productId, int quantity) {
+    ReentrantLock lock = stripe(productId);
+    lock.lock();
+    try {
+      StockCounter counter = counters.get(productId);
+      if (counter != null) {
+        counter.available += quantity;
+        return;
+      }
+    } finally {
+      lock.unlock();
+    }
+    productRepository.releaseStock(productId, quantity);
+  }
+
+  public Optional<ProductModel> cachedProduct(String productId) {
+    StockCounter counter = counters.get(productId);
+    return counter != null ? Optional.ofNullable(counter.product) : Optional.empty();
+  }
+
+  /**
+   * Write-behind: return surplus and expired leases to MongoDB and record what this node still holds.
+   */
+  @Scheduled(fixedDelayString = "${stock-ledger.flush-interval-ms:1000}")
+  public void flush() {
+    if (!enabled) {
+      return;
+    }
+    flush(false);
+    reclaimAbandoned();
+  }
+
+  /**
+   * Startup reconciliation: give back units a previous run of this node (same node id) still
+   * had leased when it stopped without flushing.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void reconcileOnStartup() {
+    if (!enabled) {
+      return;
+    }
+    Map<String, Long> leftover = new HashMap<>();
+    for (StockEscrowModel escrow : stockEscrowRepository.findByNodeId(nodeId)) {
+      if (escrow.getUnits() != null && escrow.getUnits() > 0) {
+        leftover.merge(escrow.getProductId(), escrow.getUnits(), Long::sum);
+      }
+      stockEscrowRepository.deleteById(escrow.getId());
+    }
+    productRepository.releaseStock(leftover);
+    log.info("Stock ledger started on node {} - returned leftover stock for {} product(s)", nodeId, leftover.size());
+  }
+
+  /**
+   * Shutdown reconciliation: hand every leased unit back so other nodes can sell it.
+   */
+  @PreDestroy
+  public void reconcileOnShutdown() {
+    if (!enabled) {
+      return;
+    }
+    flush(true);
+    log.info("Stock ledger stopped on node {}", nodeId);
+  }
+
+  private Optional<ProductModel> lease(String productId, StockCounter counter, long units) {
+    Optional<ProductModel> product = productRepository.reserveStock(productId, (int) units);
+    product.ifPresent(p -> {
+      // record the escrow before handing anything out. A crash between the two writes leaves the
+      // units taken from the product and in no escrow: they stay unsold until stock is corrected,
+      // they are never sold twice.
+      stockEscrowRepository.addUnits(nodeId, productId, units, escrowExpiry());
+      counter.product = p;
+      counter.available += units;
+      counter.escrowed += units;
+      counter.leaseExpiresAt = System.currentTimeMillis() + leaseMs;
+    });
+    return product;
+  }
+
+  private void flush(boolean returnEverything) {
+    long now = System.currentTimeMillis();
+    Map<String, Long> toReturn = new HashMap<>();
+    Map<String, Long> escrowDelta = new HashMap<>();
+    Map<String, StockCounter> removed = new HashMap<>();
+
+    for (String productId : counters.keySet()) {
+      ReentrantLock lock = stripe(productId);
+      lock.lock();
+      try {
+        StockCounter counter = counters.get(productId);
+        if (counter == null) {
+          continue;
+        }
+        long surplus;
+        if (returnEverything || now >= counter.leaseExpiresAt) {
+          surplus = counter.available;
+          counters.remove(productId);
+          removed.put(productId, counter);
+        } else {
+          // keep one chunk warm, give back the rest
+          surplus = Math.max(0, counter.available - chunkSize);
+        }
+        counter.available -= surplus;
+        if (surplus > 0) {
+          toReturn.put(productId, surplus);
+        }
+        // write the difference, not the total: a lease after the lock is released adds its own $inc
+        escrowDelta.put(productId, counter.available - counter.escrowed);
+        counter.escrowed = counter.available;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    // lower the escrow record first: a crash in between leaves stock unsold rather than oversold
+    try {
+      stockEscrowRepository.incUnits(nodeId, escrowDelta, escrowExpiry());
+    } catch (RuntimeException e) {
+      log.error("Stock ledger could not record escrow: {}", e.getMessage(), e);
+      restore(removed, toReturn, escrowDelta);
+      return;
+    }
+    try {
+      productRepository.releaseStock(toReturn);
+    } catch (RuntimeException e) {
+      log.error("Stock ledger flush failed: {}", e.getMessage(), e);
+      // the escrow was already lowered, the next flush records these units again
+      restore(removed, toReturn, Map.of());
+    }
+  }
+
+  // keep units that could not be returned on this node and forget escrow changes that were not
+  // written, the next flush retries both
+  private void restore(Map<String, StockCounter> removed, Map<String, Long> units, Map<String, Long> unwrittenEscrowDelta) {
+    Set<String> productIds = new HashSet<>(units.keySet());
+    productIds.addAll(unwrittenEscrowDelta.keySet());
+    for (String productId : productIds) {
+      ReentrantLock lock = stripe(productId);
+      lock.lock();
+      try {
+        StockCounter counter = counters.get(productId);
+        if (counter == null) {
+          counter = removed.getOrDefault(productId, new StockCounter());
+          counters.put(productId, counter);
+        }
+        counter.available += units.getOrDefault(productId, 0L);
+        counter.escrowed -= unwrittenEscrowDelta.getOrDefault(productId, 0L);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Return escrow left behind by nodes that stopped renewing their leases.
+   */
+  private void reclaimAbandoned() {
+    LocalDateTime now = LocalDateTime.now();
+    Optional<StockEscrowModel> abandoned;
+    while ((abandoned = stockEscrowRepository.claimExpired(now)).isPresent()) {
+      StockEscrowModel escrow = abandoned.get();
+      if (escrow.getUnits() != null && escrow.getUnits() > 0) {
+        productRepository.releaseStock(escrow.getProductId(), escrow.getUnits().intValue());
+        log.warn("Reclaimed {} unit(s) of {} leased by node {}", escrow.getUnits(), escrow.getProductId(), escrow.getNodeId());
+      }
+    }
+  }
+
+  private LocalDateTime escrowExpiry() {
+    // twice the lease, so a slow flush is not mistaken for a dead node
+    return LocalDateTime.now().plus(Duration.ofMillis(2 * leaseMs));
+  }
+
+  private ReentrantLock stripe(String productId) {
+    return stripes[(productId.hashCode() & 0x7fffffff) % stripes.length];
+  }
+}
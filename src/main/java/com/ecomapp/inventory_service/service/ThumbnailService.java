@@ -0,0 +1,155 @@
+package com.ecomapp.inventory_service.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Background thumbnail stage for uploaded images.
+ *
+ * For the blob {dir}/{name}.{ext} one JPEG per configured width is stored as
+ * {dir}/thumbs/{width}/{name}.jpg, so clients can derive thumbnail urls from the image url.
+ * Images narrower than a width are not upscaled, and formats ImageIO cannot read are skipped.
+ * The queue is bounded: when it is full the thumbnail is dropped with a warning, never the upload.
+ */
+@Slf4j
+@Service
+public class ThumbnailService {
+  private final BlobStore blobStore;
+  private final UploadSpool spool;
+  private final List<Integer> widths;
+  private final float quality;
+  private final ThreadPoolExecutor executor;
+
+  public ThumbnailService(
+      BlobStore blobStore,
+      UploadSpool spool,
+      @Value("${upload.thumbnail.widths:200,600}") List<Integer> widths,
+      @Value("${upload.thumbnail.quality:0.8}") float quality,
+      @Value("${upload.thumbnail.threads:1}") int threads,
+      @Value("${upload.thumbnail.queue-capacity:100}") int queueCapacity
+    ) {
+    this.blobStore = blobStore;
+    this.spool = spool;
+    this.widths = widths;
+    this.quality = quality;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "image-thumbnail-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        (runnable, pool) -> log.warn("Thumbnail queue full, skipping a thumbnail"));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  public void submit(String key) {
+    executor.execute(() -> {
+      try {
+        createThumbnails(key);
+      } catch (IOException | RuntimeException e) {
+        log.warn("Could not create thumbnails for {}: {}", key, e.getMessage());
+      }
+    });
+  }
+
+  public void deleteThumbnails(String key) throws IOException {
+    for (int width : widths) {
+      blobStore.delete(thumbnailKey(key, width));
+    }
+  }
+
+  public static String thumbnailKey(String key, int width) {
+    int lastSlashIndex = key.lastIndexOf('/');
+    String directory = key.substring(0, lastSlashIndex + 1);
+    String fileName = key.substring(lastSlashIndex + 1);
+    int lastDotIndex = fileName.lastIndexOf('.');
+    String baseName = lastDotIndex > 0 ? fileName.substring(0, lastDotIndex) : fileName;
+    return directory + "thumbs/" + width + "/" + baseName + ".jpg";
+  }
+
+  void createThumbnails(String key) throws IOException {
+    BufferedImage source;
+    try (InputStream in = blobStore.open(key)) {
+      source = ImageIO.read(in);
+    }
+    if (source == null) {
+      log.debug("No ImageIO reader for {}, no thumbnails", key);
+      return;
+    }
+    // thumbnails of a content-addressed image never change either
+    String cacheControl = key.contains("/" + ContentAddressedImageStore.DIRECTORY + "/")
+        ? ContentAddressedImageStore.CACHE_CONTROL.getHeaderValue()
+        : null;
+    for (int width : widths) {
+      if (source.getWidth() <= width) {
+        continue;
+      }
+      int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+      Path file = spool.newFile();
+      try {
+        writeJpeg(resize(source, width, height), file);
+        blobStore.put(thumbnailKey(key, width), file, "image/jpeg", cacheControl);
+      } finally {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  private static BufferedImage resize(BufferedImage source, int width, int height) {
+    // JPEG has no alpha channel, transparent areas become white
+    BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = resized.createGraphics();
+    try {
+      graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+    } finally {
+      graphics.dispose();
+    }
+    return resized;
+  }
+
+  private void writeJpeg(BufferedImage image, Path target) throws IOException {
+    Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+    ImageWriter writer = writers.next();
+    try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+      ImageWriteParam param = writer.getDefaultWriteParam();
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(quality);
+      writer.setOutput(output);
+      writer.write(null, new IIOImage(image, null, null), param);
+    } finally {
+      writer.dispose();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.ecomapp.inventory_service.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Local directory uploads are written to before they go to the BlobStore. Files are deleted by
+ * their writer; ImageGarbageCollectorService removes what a crash left behind.
+ */
+@Service
+public class UploadSpool {
+  private static final String PREFIX = ".upload-";
+
+  private final Path directory;
+
+  public UploadSpool(@Value("${upload.spool-dir:${java.io.tmpdir}/inventory-uploads}") String directory) {
+    this.directory = Paths.get(directory).toAbsolutePath().normalize();
+  }
+
+  /**
+   * A path in the spool that does not exist yet.
+   */
+  public Path newFile() throws IOException {
+    Files.createDirectories(directory);
+    return directory.resolve(PREFIX + UUID.randomUUID());
+  }
+
+  public long deleteOlderThan(Instant cutoff) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return 0;
+    }
+    long deleted = 0;
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        if (file.getFileName().toString().startsWith(PREFIX)
+            && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)
+            && Files.deleteIfExists(file)) {
+          deleted++;
+        }
+      }
+    }
+    return deleted;
+  }
+}
@@ -0,0 +1,37 @@
+package com.ecomapp.inventory_service.util;
+
+/**
+ * Running cart totals in minor units. add() only does primitive arithmetic, so totalling a cart
+ * costs this one object however many lines it has.
+ */
+public final class CartTotals {
+  private long mrpMinor;
+  private long discountMinor;
+
+  public CartTotals add(long unitMrpMinor, int itemCount, double discountPercent) {
+    long lineMrp = unitMrpMinor * itemCount;
+    mrpMinor += lineMrp;
+    discountMinor += MinorUnits.lineDiscount(lineMrp, discountPercent);
+    return this;
+  }
+
+  // takes back exactly what add() of the same line added, rounding included
+  public CartTotals remove(long unitMrpMinor, int itemCount, double discountPercent) {
+    long lineMrp = unitMrpMinor * itemCount;
+    mrpMinor -= lineMrp;
+    discountMinor -= MinorUnits.lineDiscount(lineMrp, discountPercent);
+    return this;
+  }
+
+  public long mrpMinor() {
+    return mrpMinor;
+  }
+
+  public long discountMinor() {
+    return discountMinor;
+  }
+
+  public long amountToPayMinor() {
+    return mrpMinor - discountMinor;
+  }
+}
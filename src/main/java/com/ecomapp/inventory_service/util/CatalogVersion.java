@@ -0,0 +1,67 @@
+package com.ecomapp.inventory_service.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+
+/**
+ * Validators of a product or category read, for conditional requests.
+ *
+ * The ETag starts with the document's @Version, bumped by every edit; documents written before versions
+ * existed count as version 0. A category's ETag is "{version}". A product read also shows its stock and
+ * embeds its category, which change without an edit of the product, so a product's ETag is
+ * "{version}-{hash of stock and category version}". A category's Last-Modified is its updatedAt, absent
+ * when it has none. A product has none: its stock moves without its updatedAt, so an If-Modified-Since
+ * revalidation would get a 304 with stale stock, only the ETag can tell.
+ *
+ * The ETag is also the concurrency token of a PUT (If-Match). Only the version part is compared
+ * there, so a stock movement or a category change does not fail a product edit.
+ */
+public record CatalogVersion(String etag, Instant lastModified) {
+
+  public static CatalogVersion ofProduct(
+      Long version, double availableStock, Long categoryVersion, LocalDateTime categoryUpdatedAt) {
+    int state = Objects.hash(availableStock, categoryVersion, categoryUpdatedAt);
+    return new CatalogVersion("\"" + version(version) + "-" + Integer.toUnsignedString(state, 36) + "\"", null);
+  }
+
+  public static CatalogVersion ofCategory(Long version, LocalDateTime updatedAt) {
+    return new CatalogVersion("\"" + version(version) + "\"", toInstant(updatedAt));
+  }
+
+  /**
+   * Whether an If-Match header lets a write to a document at version go ahead.
+   * No header always does, "*" does for any existing document, weak tags never do.
+   */
+  public static boolean matches(String ifMatch, Long version) {
+    if (ifMatch == null || ifMatch.isBlank()) {
+      return true;
+    }
+    String current = version(version);
+    for (String tag : ifMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.equals("*")) {
+        return true;
+      }
+      if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+        continue;
+      }
+      String value = tag.substring(1, tag.length() - 1);
+      int stateIndex = value.indexOf('-');
+      if ((stateIndex < 0 ? value : value.substring(0, stateIndex)).equals(current)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String version(Long version) {
+    return Long.toString(version != null ? version : 0L);
+  }
+
+  // auditing fills updatedAt with LocalDateTime.now(), the system zone
+  private static Instant toInstant(LocalDateTime dateTime) {
+    return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant() : null;
+  }
+}
@@ -0,0 +1,34 @@
+package com.ecomapp.inventory_service.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class FileTransfer {
+  // bytes handed to one transferFrom call
+  private static final long CHUNK_SIZE = 8L * 1024 * 1024;
+
+  private FileTransfer() {
+  }
+
+  /**
+   * Copy in to a new file through a FileChannel and return the number of bytes written.
+   * A plain FileInputStream (a part the container spooled to disk) is copied file to file
+   * by transferFrom without going through the heap. Fails if target exists.
+   */
+  public static long copy(InputStream in, Path target) throws IOException {
+    try (ReadableByteChannel source = Channels.newChannel(in);
+        FileChannel destination = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      long position = 0;
+      long transferred;
+      while ((transferred = destination.transferFrom(source, position, CHUNK_SIZE)) > 0) {
+        position += transferred;
+      }
+      return position;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.ecomapp.inventory_service.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money in fixed-point minor units (paise/cents), so totals add up exactly.
+ * Rounding is half up everywhere, matching the $floor(x + 0.5) used in the cart update pipelines.
+ */
+public final class MinorUnits {
+  public static final int PER_UNIT = 100;
+
+  private MinorUnits() {
+  }
+
+  public static long of(double amount) {
+    return Math.round(amount * PER_UNIT);
+  }
+
+  public static long of(Double amount) {
+    return amount == null ? 0 : of(amount.doubleValue());
+  }
+
+  public static long of(BigDecimal amount) {
+    return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+  }
+
+  public static double toAmount(long minorUnits) {
+    return (double) minorUnits / PER_UNIT;
+  }
+
+  /**
+   * Discount on one cart line, discountPercent of the line's mrp.
+   */
+  public static long lineDiscount(long lineMrp, double discountPercent) {
+    return Math.round(lineMrp * discountPercent / 100.0);
+  }
+}
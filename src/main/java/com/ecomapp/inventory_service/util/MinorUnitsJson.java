@@ -0,0 +1,57 @@
+package com.ecomapp.inventory_service.util;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Jackson mapping of @MinorUnitAmount fields: a long 1099 is read from and written as 10.99.
+ */
+public final class MinorUnitsJson {
+
+  private MinorUnitsJson() {
+  }
+
+  public static class Serializer extends StdSerializer<Long> {
+    public Serializer() {
+      super(Long.class);
+    }
+
+    @Override
+    public void serialize(Long value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+      // n / 100.0 is the double closest to the amount, so it prints with at most two decimals
+      gen.writeNumber(MinorUnits.toAmount(value));
+    }
+  }
+
+  public static class Deserializer extends StdScalarDeserializer<Long> {
+    public Deserializer() {
+      super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+      if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+        return Math.multiplyExact(parser.getLongValue(), MinorUnits.PER_UNIT);
+      }
+      if (parser.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+        return MinorUnits.of(parser.getDecimalValue());
+      }
+      if (parser.currentToken() == JsonToken.VALUE_STRING) {
+        try {
+          return MinorUnits.of(new BigDecimal(parser.getText().trim()));
+        } catch (NumberFormatException e) {
+          return (Long) context.handleWeirdStringValue(Long.class, parser.getText(), "not a decimal amount");
+        }
+      }
+      return (Long) context.handleUnexpectedToken(Long.class, parser);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.ecomapp.inventory_service.util;
+
+import java.math.BigDecimal;
+
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+/**
+ * Stores @MinorUnitAmount fields as the exact decimal amount (Decimal128), so price range
+ * filters compare against the same numbers as before. Documents written while prices were
+ * doubles are still read, rounded half up to minor units.
+ */
+public class MinorUnitsMongoConverter implements MongoValueConverter<Long, Object> {
+
+  @Override
+  public Long read(Object value, MongoConversionContext context) {
+    return toMinorUnits(value);
+  }
+
+  @Override
+  public Object write(Long value, MongoConversionContext context) {
+    return new Decimal128(BigDecimal.valueOf(value, 2));
+  }
+
+  /**
+   * The stored amount in minor units, for code reading documents without the mapping layer.
+   */
+  public static long toMinorUnits(Object value) {
+    if (value instanceof Decimal128 decimal) {
+      return MinorUnits.of(decimal.bigDecimalValue());
+    }
+    if (value instanceof Double || value instanceof Float) {
+      return MinorUnits.of(((Number) value).doubleValue());
+    }
+    if (value instanceof Number number) {
+      return number.longValue() * MinorUnits.PER_UNIT;
+    }
+    throw new IllegalArgumentException("Cannot read an amount from " + value.getClass().getName());
+  }
+}
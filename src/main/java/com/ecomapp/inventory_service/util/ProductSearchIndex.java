@@ -0,0 +1,495 @@
+package com.ecomapp.inventory_service.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import com.ecomapp.inventory_service.constant.UnitEnum;
+
+/**
+ * In-memory inverted index of the active products, for ProductSearchService.
+ *
+ * A product is indexed under the words of its name, category name and description, a name word
+ * counting NAME_WEIGHT times a description word, and hits are ranked with BM25. Every word of a query
+ * has to match. The term dictionary is sorted, so with prefix matching the last word also matches the
+ * terms it starts, at most maxExpansions of them in term order like a search engine's prefix query,
+ * which is what typeahead needs.
+ *
+ * Facet counts leave out their own filter: the category counts are those of the hits with every other
+ * filter applied, so a storefront can show how many hits each other category has.
+ *
+ * Not thread safe; ProductSearchService writes under a lock and searches under a shared one.
+ */
+public final class ProductSearchIndex {
+  private static final float NAME_WEIGHT = 3f;
+  private static final float CATEGORY_WEIGHT = 2f;
+  private static final float DESCRIPTION_WEIGHT = 1f;
+  // a word that only matched as a prefix ranks below one typed in full
+  private static final float PREFIX_BOOST = 0.8f;
+  private static final float K1 = 1.2f;
+  private static final float B = 0.75f;
+  private static final int MAX_TERM_LENGTH = 40;
+
+  private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+  private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "at", "by", "for", "in", "of", "on", "or", "the", "to", "with");
+
+  // search accumulators are the size of the index; they are reused, and only as many are kept as
+  // searches usually run at once, not one per request thread
+  private static final int MAX_POOLED_SCRATCH = Runtime.getRuntime().availableProcessors() * 2;
+  private static final Queue<Scratch> SCRATCH_POOL = new ConcurrentLinkedQueue<>();
+  private static final AtomicInteger POOLED_SCRATCH = new AtomicInteger();
+
+  public record Entry(String id, String name, String description, String categoryId, String categoryName, UnitEnum unit, long mrp) {
+  }
+
+  /**
+   * Hit filters, null for no filter. Price bounds are in minor units and apply to mrp.
+   */
+  public record Filter(String categoryId, UnitEnum unit, Long minMrp, Long maxMrp) {
+    public static final Filter NONE = new Filter(null, null, null, null);
+  }
+
+  public record Hit(String id, String name, String categoryId, float score) {
+  }
+
+  // from inclusive, to exclusive, null for unbounded
+  public record PriceBucket(Long from, Long to, int count) {
+  }
+
+  public record Facets(Map<String, Integer> categoryId, Map<UnitEnum, Integer> unit, List<PriceBucket> price) {
+  }
+
+  public record Result(int total, List<Hit> hits, Facets facets) {
+  }
+
+  private record Doc(String id, String name, String categoryId, UnitEnum unit, long mrp, float length, String[] terms) {
+  }
+
+  private record Expansion(Postings postings, float weight) {
+  }
+
+  private final int maxExpansions;
+  private final long[] priceBucketBounds;
+  private final TreeMap<String, Postings> terms = new TreeMap<>();
+  private final Map<String, Integer> slotById = new HashMap<>();
+  private Doc[] docs = new Doc[1024];
+  private int slots;
+  private int[] freeSlots = new int[16];
+  private int freeSlotCount;
+  private double totalLength;
+
+  /**
+   * priceBucketBounds are the ascending mrp bounds (minor units) between the price facet's buckets.
+   */
+  public ProductSearchIndex(int maxExpansions, long[] priceBucketBounds) {
+    this.maxExpansions = maxExpansions;
+    this.priceBucketBounds = priceBucketBounds.clone();
+  }
+
+  public int size() {
+    return slotById.size();
+  }
+
+  public int termCount() {
+    return terms.size();
+  }
+
+  /**
+   * Add the product, or replace it when it is indexed already.
+   */
+  public void put(Entry entry) {
+    remove(entry.id());
+    Map<String, Float> frequencies = new HashMap<>();
+    float length = addTerms(frequencies, entry.name(), NAME_WEIGHT)
+        + addTerms(frequencies, entry.categoryName(), CATEGORY_WEIGHT)
+        + addTerms(frequencies, entry.description(), DESCRIPTION_WEIGHT);
+
+    int slot = allocateSlot();
+    frequencies.forEach((term, frequency) -> terms.computeIfAbsent(term, key -> new Postings()).add(slot, frequency));
+    docs[slot] = new Doc(entry.id(), entry.name(), entry.categoryId(), entry.unit(), entry.mrp(), length,
+        frequencies.keySet().toArray(String[]::new));
+    slotById.put(entry.id(), slot);
+    totalLength += length;
+  }
+
+  public boolean remove(String id) {
+    Integer slot = slotById.remove(id);
+    if (slot == null) {
+      return false;
+    }
+    Doc doc = docs[slot];
+    for (String term : doc.terms()) {
+      Postings postings = terms.get(term);
+      postings.remove(slot);
+      if (postings.size == 0) {
+        terms.remove(term);
+      }
+    }
+    docs[slot] = null;
+    if (freeSlotCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+    }
+    freeSlots[freeSlotCount++] = slot;
+    totalLength -= doc.length();
+    return true;
+  }
+
+  /**
+   * The hits of query from offset on, best first, and the facet counts of all hits.
+   */
+  public Result search(String query, boolean prefix, Filter filter, int offset, int limit) {
+    Scratch scratch = acquireScratch();
+    try {
+      int matched = match(query, prefix, scratch);
+      int[] priceCounts = new int[priceBucketBounds.length + 1];
+      Map<String, Integer> categoryCounts = new HashMap<>();
+      Map<UnitEnum, Integer> unitCounts = new HashMap<>();
+      Comparator<Integer> rank = rank(scratch.total);
+      PriorityQueue<Integer> top = new PriorityQueue<>(rank.reversed());
+      int total = 0;
+      for (int i = 0; i < matched; i++) {
+        int slot = scratch.candidates[i];
+        Doc doc = docs[slot];
+        boolean inCategory = filter.categoryId() == null || filter.categoryId().equals(doc.categoryId());
+        boolean inUnit = filter.unit() == null || filter.unit() == doc.unit();
+        boolean inPrice = (filter.minMrp() == null || doc.mrp() >= filter.minMrp())
+            && (filter.maxMrp() == null || doc.mrp() <= filter.maxMrp());
+        if (inUnit && inPrice && doc.categoryId() != null) {
+          categoryCounts.merge(doc.categoryId(), 1, Integer::sum);
+        }
+        if (inCategory && inPrice && doc.unit() != null) {
+          unitCounts.merge(doc.unit(), 1, Integer::sum);
+        }
+        if (inCategory && inUnit) {
+          priceCounts[priceBucket(doc.mrp())]++;
+        }
+        if (inCategory && inUnit && inPrice) {
+          total++;
+          keepTop(top, rank, slot, offset + limit);
+        }
+      }
+      return new Result(total, hits(top, scratch.total, offset), new Facets(
+          byCount(categoryCounts), byCount(unitCounts), priceBuckets(priceCounts)));
+    } finally {
+      releaseScratch(scratch);
+    }
+  }
+
+  /**
+   * The best limit products for a query being typed, the last word matching as a prefix. No facets.
+   */
+  public List<Hit> suggest(String query, int limit) {
+    Scratch scratch = acquireScratch();
+    try {
+      int matched = match(query, true, scratch);
+      Comparator<Integer> rank = rank(scratch.total);
+      PriorityQueue<Integer> top = new PriorityQueue<>(rank.reversed());
+      for (int i = 0; i < matched; i++) {
+        keepTop(top, rank, scratch.candidates[i], limit);
+      }
+      return hits(top, scratch.total, 0);
+    } finally {
+      releaseScratch(scratch);
+    }
+  }
+
+  /**
+   * Lower case words of text with accents and punctuation removed, stop words left out.
+   */
+  public static List<String> tokenize(String text) {
+    return tokenize(text, false);
+  }
+
+  // keepLast keeps a stop word at the end, it may be the start of a longer word being typed
+  private static List<String> tokenize(String text, boolean keepLast) {
+    List<String> tokens = new ArrayList<>();
+    if (text == null || text.isBlank()) {
+      return tokens;
+    }
+    String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("").toLowerCase(Locale.ROOT);
+    String[] words = NON_WORD.split(normalized);
+    for (int i = 0; i < words.length; i++) {
+      String word = words[i];
+      if (word.isEmpty() || (STOP_WORDS.contains(word) && !(keepLast && i == words.length - 1))) {
+        continue;
+      }
+      tokens.add(word.length() > MAX_TERM_LENGTH ? word.substring(0, MAX_TERM_LENGTH) : word);
+    }
+    return tokens;
+  }
+
+  /**
+   * Score the products matching every word of query into scratch.total; their slots end up in
+   * scratch.candidates, the count is returned. Words are matched rarest first, so the candidate set
+   * starts small and only shrinks.
+   */
+  private int match(String query, boolean prefix, Scratch scratch) {
+    scratch.ensureCapacity(slots);
+    List<String> tokens = tokenize(query, prefix);
+    if (tokens.isEmpty() || slotById.isEmpty()) {
+      return 0;
+    }
+    float averageLength = (float) (totalLength / slotById.size());
+    List<List<Expansion>> words = new ArrayList<>();
+    for (int i = 0; i < tokens.size(); i++) {
+      List<Expansion> expansions = expand(tokens.get(i), prefix && i == tokens.size() - 1);
+      if (expansions.isEmpty()) {
+        return 0;
+      }
+      words.add(expansions);
+    }
+    words.sort(Comparator.comparingLong(ProductSearchIndex::postingCount));
+
+    for (Expansion expansion : words.get(0)) {
+      Postings postings = expansion.postings();
+      for (int i = 0; i < postings.size; i++) {
+        int slot = postings.docs[i];
+        if (scratch.best[slot] == 0) {
+          scratch.touch(slot);
+        }
+        scratch.best[slot] = Math.max(scratch.best[slot], score(expansion, postings.frequencies[i], slot, averageLength));
+      }
+    }
+    int candidates = 0;
+    for (int i = 0; i < scratch.touchedCount; i++) {
+      int slot = scratch.touched[i];
+      scratch.total[slot] = scratch.best[slot];
+      scratch.best[slot] = 0;
+      scratch.matched[slot] = 1;
+      scratch.candidates[candidates++] = slot;
+    }
+
+    for (int word = 1; word < words.size() && candidates > 0; word++) {
+      for (Expansion expansion : words.get(word)) {
+        Postings postings = expansion.postings();
+        for (int i = 0; i < postings.size; i++) {
+          int slot = postings.docs[i];
+          if (scratch.matched[slot] == word) {
+            scratch.best[slot] = Math.max(scratch.best[slot], score(expansion, postings.frequencies[i], slot, averageLength));
+          }
+        }
+      }
+      int kept = 0;
+      for (int i = 0; i < candidates; i++) {
+        int slot = scratch.candidates[i];
+        if (scratch.best[slot] > 0) {
+          scratch.total[slot] += scratch.best[slot];
+          scratch.best[slot] = 0;
+          scratch.matched[slot] = word + 1;
+          scratch.candidates[kept++] = slot;
+        }
+      }
+      candidates = kept;
+    }
+    return candidates;
+  }
+
+  private List<Expansion> expand(String token, boolean prefix) {
+    List<Expansion> expansions = new ArrayList<>();
+    Postings exact = terms.get(token);
+    if (exact != null) {
+      expansions.add(new Expansion(exact, idf(exact)));
+    }
+    if (prefix) {
+      int expanded = 0;
+      for (Map.Entry<String, Postings> term : terms.tailMap(token, false).entrySet()) {
+        if (!term.getKey().startsWith(token) || expanded++ >= maxExpansions) {
+          break;
+        }
+        expansions.add(new Expansion(term.getValue(), PREFIX_BOOST * idf(term.getValue())));
+      }
+    }
+    return expansions;
+  }
+
+  private float idf(Postings postings) {
+    int documentCount = slotById.size();
+    return (float) Math.log(1 + (documentCount - postings.size + 0.5) / (postings.size + 0.5));
+  }
+
+  private float score(Expansion expansion, float frequency, int slot, float averageLength) {
+    float norm = K1 * (1 - B + B * docs[slot].length() / averageLength);
+    return expansion.weight() * frequency * (K1 + 1) / (frequency + norm);
+  }
+
+  private static long postingCount(List<Expansion> expansions) {
+    long count = 0;
+    for (Expansion expansion : expansions) {
+      count += expansion.postings().size;
+    }
+    return count;
+  }
+
+  // best score first, then the product indexed first
+  private static Comparator<Integer> rank(float[] scores) {
+    return Comparator.<Integer>comparingDouble(slot -> -scores[slot]).thenComparingInt(slot -> slot);
+  }
+
+  // top holds the best size slots so far with the worst at its head; most slots lose to the head
+  // and never enter the queue
+  private static void keepTop(PriorityQueue<Integer> top, Comparator<Integer> rank, int slot, int size) {
+    if (size <= 0 || (top.size() == size && rank.compare(slot, top.peek()) >= 0)) {
+      return;
+    }
+    top.add(slot);
+    if (top.size() > size) {
+      top.poll();
+    }
+  }
+
+  private List<Hit> hits(PriorityQueue<Integer> top, float[] scores, int offset) {
+    List<Hit> hits = new ArrayList<>();
+    while (!top.isEmpty()) {
+      int slot = top.poll();
+      Doc doc = docs[slot];
+      hits.add(new Hit(doc.id(), doc.name(), doc.categoryId(), scores[slot]));
+    }
+    // the queue gives the worst first
+    List<Hit> ranked = new ArrayList<>(hits.size());
+    for (int i = hits.size() - 1 - offset; i >= 0; i--) {
+      ranked.add(hits.get(i));
+    }
+    return ranked;
+  }
+
+  private int priceBucket(long mrp) {
+    int bucket = Arrays.binarySearch(priceBucketBounds, mrp);
+    return bucket >= 0 ? bucket + 1 : -bucket - 1;
+  }
+
+  private List<PriceBucket> priceBuckets(int[] counts) {
+    List<PriceBucket> buckets = new ArrayList<>(counts.length);
+    for (int i = 0; i < counts.length; i++) {
+      Long from = i > 0 ? priceBucketBounds[i - 1] : null;
+      Long to = i < priceBucketBounds.length ? priceBucketBounds[i] : null;
+      buckets.add(new PriceBucket(from, to, counts[i]));
+    }
+    return buckets;
+  }
+
+  private static <K> Map<K, Integer> byCount(Map<K, Integer> counts) {
+    Map<K, Integer> sorted = new LinkedHashMap<>();
+    counts.entrySet().stream()
+        .sorted(Map.Entry.<K, Integer>comparingByValue().reversed())
+        .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+    return sorted;
+  }
+
+  private static float addTerms(Map<String, Float> frequencies, String text, float weight) {
+    List<String> tokens = tokenize(text);
+    for (String token : tokens) {
+      frequencies.merge(token, weight, Float::sum);
+    }
+    return tokens.size() * weight;
+  }
+
+  private static Scratch acquireScratch() {
+    Scratch scratch = SCRATCH_POOL.poll();
+    if (scratch == null) {
+      return new Scratch();
+    }
+    POOLED_SCRATCH.decrementAndGet();
+    return scratch;
+  }
+
+  private static void releaseScratch(Scratch scratch) {
+    scratch.reset();
+    if (POOLED_SCRATCH.incrementAndGet() <= MAX_POOLED_SCRATCH) {
+      SCRATCH_POOL.offer(scratch);
+    } else {
+      POOLED_SCRATCH.decrementAndGet();
+    }
+  }
+
+  private int allocateSlot() {
+    if (freeSlotCount > 0) {
+      return freeSlots[--freeSlotCount];
+    }
+    if (slots == docs.length) {
+      docs = Arrays.copyOf(docs, slots * 2);
+    }
+    return slots++;
+  }
+
+  /**
+   * The products a term occurs in and its weighted frequency in each, unordered.
+   */
+  private static final class Postings {
+    private int[] docs = new int[4];
+    private float[] frequencies = new float[4];
+    private int size;
+
+    void add(int slot, float frequency) {
+      if (size == docs.length) {
+        docs = Arrays.copyOf(docs, size * 2);
+        frequencies = Arrays.copyOf(frequencies, size * 2);
+      }
+      docs[size] = slot;
+      frequencies[size] = frequency;
+      size++;
+    }
+
+    void remove(int slot) {
+      for (int i = 0; i < size; i++) {
+        if (docs[i] == slot) {
+          size--;
+          docs[i] = docs[size];
+          frequencies[i] = frequencies[size];
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Per slot accumulators of one search. Only slots listed in touched are ever set, reset clears
+   * just those, so a search costs what it matches rather than the size of the index.
+   */
+  private static final class Scratch {
+    private float[] total = new float[0];
+    private float[] best = new float[0];
+    private int[] matched = new int[0];
+    private int[] touched = new int[0];
+    private int[] candidates = new int[0];
+    private int touchedCount;
+
+    void ensureCapacity(int slots) {
+      if (total.length < slots) {
+        int capacity = Math.max(slots, total.length * 2);
+        total = new float[capacity];
+        best = new float[capacity];
+        matched = new int[capacity];
+        touched = new int[capacity];
+        candidates = new int[capacity];
+      }
+    }
+
+    void touch(int slot) {
+      touched[touchedCount++] = slot;
+    }
+
+    void reset() {
+      for (int i = 0; i < touchedCount; i++) {
+        int slot = touched[i];
+        total[slot] = 0;
+        best[slot] = 0;
+        matched[slot] = 0;
+      }
+      touchedCount = 0;
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.ecomapp.inventory_service.config;
+
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+
+/**
+ * Runs gRPC calls on virtual threads, like Tomcat does once spring.threads.virtual.enabled=true.
+ * Only compiled by the java21 Maven profile.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadGrpcConfig {
+
+    @Bean
+    public GrpcServerConfigurer virtualThreadGrpcServerConfigurer() {
+        return serverBuilder -> serverBuilder.executor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
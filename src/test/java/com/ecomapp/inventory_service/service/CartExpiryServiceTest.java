@@ -0,0 +1,178 @@
+package com.ecomapp.inventory_service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.ecomapp.inventory_service.constant.CartStorageEnum;
+import com.ecomapp.inventory_service.dto.ManageCartDto;
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.ecomapp.inventory_service.model.CartModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.CartItemRepository;
+import com.ecomapp.inventory_service.repository.CartRepository;
+import com.ecomapp.inventory_service.repository.EmbeddedCartRepository;
+import com.ecomapp.inventory_service.repository.JobLeaseRepository;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+
+class CartExpiryServiceTest {
+  private CartRepository cartRepository;
+  private CartItemRepository cartItemRepository;
+  private JobLeaseRepository jobLeaseRepository;
+  private CartService cartService;
+  private CartExpiryService expiryService;
+  // what the cart and cart_item collections would hold: carts by userId, lines by _id
+  private final Map<String, CartModel> carts = new LinkedHashMap<>();
+  private final Map<String, Document> lines = new LinkedHashMap<>();
+  private final AtomicInteger cartIds = new AtomicInteger();
+
+  @BeforeEach
+  void setUp() {
+    cartRepository = mock(CartRepository.class);
+    cartItemRepository = mock(CartItemRepository.class);
+    jobLeaseRepository = mock(JobLeaseRepository.class);
+    ProductRepository productRepository = mock(ProductRepository.class);
+    CartMigrationService cartMigrationService = mock(CartMigrationService.class);
+    when(cartMigrationService.isBackfillComplete()).thenReturn(true);
+    when(productRepository.findById(anyString())).thenAnswer(call -> Optional.of(ProductModel.builder()
+        .id(call.getArgument(0)).name("Product").isActive(true).availableStock(10).build()));
+    when(jobLeaseRepository.acquire(anyString(), anyString(), any(), any())).thenReturn(true);
+
+    when(cartRepository.findByUserId(anyString())).thenAnswer(call -> Optional.ofNullable(carts.get(call.getArgument(0))));
+    when(cartRepository.save(any(CartModel.class))).thenAnswer(call -> {
+      CartModel cart = call.getArgument(0);
+      cart.setId("cart-" + cartIds.incrementAndGet());
+      carts.put(cart.getUserId(), cart);
+      return cart;
+    });
+    when(cartRepository.findByUserIdIn(anyCollection())).thenAnswer(call -> usersWithCart(call.getArgument(0)));
+    when(cartItemRepository.findByUserIdAndProductId(anyString(), anyString())).thenAnswer(call -> lines.values().stream()
+        .filter(line -> line.get("userId").equals(call.getArgument(0)) && line.get("productId").equals(call.getArgument(1)))
+        .findFirst()
+        .map(line -> CartItemModel.builder().id(line.getString("_id")).cartId(line.getString("cartId")).build()));
+    when(cartItemRepository.setItemCount(anyString(), anyString(), anyString(), anyInt())).thenAnswer(call -> {
+      Optional<Document> line = lines.values().stream()
+          .filter(stored -> stored.get("userId").equals(call.getArgument(0)) && stored.get("productId").equals(call.getArgument(2)))
+          .findFirst();
+      line.ifPresent(stored -> stored.append("cartId", call.getArgument(1)).append("itemCount", call.getArgument(3)));
+      return line.isPresent();
+    });
+    when(cartItemRepository.findRawPage(any(), anyInt())).thenAnswer(call -> call.getArgument(0) != null
+        ? List.of()
+        : lines.values().stream().map(line -> RawBsonDocument.parse(line.toJson())).toList());
+    when(cartItemRepository.deleteOrphans(anyMap())).thenAnswer(call -> {
+      Map<BsonValue, String> cartIdById = call.getArgument(0);
+      long deleted = 0;
+      for (Map.Entry<BsonValue, String> orphan : cartIdById.entrySet()) {
+        String id = orphan.getKey().asString().getValue();
+        if (lines.containsKey(id) && lines.get(id).get("cartId").equals(orphan.getValue())) {
+          lines.remove(id);
+          deleted++;
+        }
+      }
+      return deleted;
+    });
+
+    cartService = new CartService(cartRepository, cartItemRepository, productRepository, mock(EmbeddedCartRepository.class),
+        mock(ReservationService.class), mock(CatalogCacheService.class), mock(InventoryEventService.class),
+        cartMigrationService, mock(CartTotalsRepairService.class), CartStorageEnum.LEGACY, 100);
+    expiryService = new CartExpiryService(mock(MongoTemplate.class), cartRepository, cartItemRepository,
+        jobLeaseRepository, "node-1", 60_000, 30, true, 500, 1_000);
+  }
+
+  private List<CartModel> usersWithCart(Collection<String> userIds) {
+    return userIds.stream().filter(carts::containsKey).map(carts::get).toList();
+  }
+
+  private void line(String id, String userId, String cartId, String productId, int itemCount) {
+    lines.put(id, new Document("_id", id).append("userId", userId).append("cartId", cartId)
+        .append("productId", productId).append("itemCount", itemCount));
+  }
+
+  private void setItemCount(String userId, String productId, int itemCount) {
+    ManageCartDto data = new ManageCartDto();
+    data.setProductId(productId);
+    data.setItemCount(itemCount);
+    cartService.manageCart(userId, data);
+  }
+
+  @Test
+  void lineChangedAfterTheCartExpiredMovesToTheNewCartAndIsKept() {
+    // u1's cart-0 expired, createCart's cleanup missed its line; u2's expired and u2 never came back
+    line("l1", "u1", "cart-0", "p1", 2);
+    line("l2", "u2", "cart-9", "p1", 1);
+
+    assertTrue(((List<?>) cartService.getCart("u1").getData().get("items")).isEmpty());
+    setItemCount("u1", "p1", 3);
+    assertEquals("cart-1", lines.get("l1").get("cartId"));
+
+    expiryService.compact();
+
+    assertEquals(List.of("l1"), new ArrayList<>(lines.keySet()));
+    assertEquals(3, lines.get("l1").get("itemCount"));
+  }
+
+  @Test
+  void lineOfAUserWithACartIsNeverAnOrphanWhateverItsCartId() {
+    carts.put("u1", CartModel.builder().id("cart-5").userId("u1").build());
+    line("l1", "u1", "cart-0", "p1", 2);
+
+    expiryService.compact();
+
+    assertEquals(List.of("l1"), new ArrayList<>(lines.keySet()));
+    verify(cartItemRepository, never()).deleteOrphans(anyMap());
+  }
+
+  @Test
+  void userComingBackBetweenScanAndDeleteKeepsTheLine() {
+    line("l1", "u1", "cart-0", "p1", 2);
+    // the scan finds no cart, then u1 comes back and changes the line before the delete
+    when(cartRepository.findByUserIdIn(anyCollection())).thenAnswer(call -> {
+      List<CartModel> found = usersWithCart(call.getArgument(0));
+      setItemCount("u1", "p1", 4);
+      return found;
+    });
+
+    Map<String, Object> result = expiryService.compact();
+
+    assertEquals(0L, result.get("deleted"));
+    assertEquals(4, lines.get("l1").get("itemCount"));
+  }
+
+  @Test
+  void onlyTheLeaseHolderCompacts() {
+    line("l1", "u2", "cart-9", "p1", 1);
+    when(jobLeaseRepository.acquire(eq("cart-compaction"), eq("node-1"), any(LocalDateTime.class), any(LocalDateTime.class)))
+        .thenReturn(false);
+
+    expiryService.compact();
+
+    verify(cartItemRepository, never()).findRawPage(any(), anyInt());
+    assertEquals(List.of("l1"), new ArrayList<>(lines.keySet()));
+  }
+}
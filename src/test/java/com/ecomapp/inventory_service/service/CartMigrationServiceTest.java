@@ -0,0 +1,137 @@
+package com.ecomapp.inventory_service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.ecomapp.inventory_service.model.CartModel;
+import com.ecomapp.inventory_service.repository.CartItemRepository;
+import com.ecomapp.inventory_service.repository.CartRepository;
+import com.ecomapp.inventory_service.repository.EmbeddedCartRepository;
+
+class CartMigrationServiceTest {
+  private CartRepository cartRepository;
+  private CartItemRepository cartItemRepository;
+  private MongoIndexService mongoIndexService;
+  private CartMigrationService service;
+  // carts by id, and the cartId of each line that has no userId yet
+  private final Map<String, CartModel> carts = new HashMap<>();
+  private final List<String> unassignedLines = new ArrayList<>();
+  private final Map<String, String> assigned = new LinkedHashMap<>();
+
+  @BeforeEach
+  void setUp() {
+    cartRepository = mock(CartRepository.class);
+    cartItemRepository = mock(CartItemRepository.class);
+    mongoIndexService = mock(MongoIndexService.class);
+    service = new CartMigrationService(cartRepository, cartItemRepository, mock(EmbeddedCartRepository.class),
+        mongoIndexService, false, true);
+
+    when(cartItemRepository.streamCartIdsWithoutUserId()).thenAnswer(call -> new ArrayList<>(unassignedLines).stream());
+    when(cartRepository.findAllById(anyCollection())).thenAnswer(call -> {
+      Collection<String> ids = call.getArgument(0);
+      return ids.stream().filter(carts::containsKey).map(carts::get).toList();
+    });
+    when(cartItemRepository.assignUserIds(anyMap())).thenAnswer(call -> {
+      Map<String, String> userIdByCartId = call.getArgument(0);
+      long updated = unassignedLines.stream().filter(userIdByCartId::containsKey).count();
+      unassignedLines.removeIf(userIdByCartId::containsKey);
+      assigned.putAll(userIdByCartId);
+      return updated;
+    });
+    when(cartItemRepository.existsByUserIdIsNull()).thenAnswer(call -> !unassignedLines.isEmpty());
+  }
+
+  private void cart(String id, String userId) {
+    carts.put(id, CartModel.builder().id(id).userId(userId).build());
+  }
+
+  @Test
+  void linesGetTheUserIdOfTheirCart() {
+    cart("c1", "u1");
+    cart("c2", "u2");
+    // one line per product, so a cart shows up once per line; a line saved without a cartId at all
+    unassignedLines.addAll(Arrays.asList("c1", "c1", "c2", null));
+
+    assertEquals(3, service.backfillCartItemUserIds());
+
+    assertEquals(Map.of("c1", "u1", "c2", "u2"), assigned);
+    assertTrue(service.isBackfillComplete());
+    // the userId_productId index could not be built before
+    verify(mongoIndexService).ensureIndexes();
+  }
+
+  @Test
+  void linesOfADeletedCartAreLeftAsTheyAre() {
+    cart("c1", "u1");
+    unassignedLines.addAll(List.of("c1", "gone"));
+
+    assertEquals(1, service.backfillCartItemUserIds());
+
+    assertEquals(List.of("gone"), unassignedLines);
+    assertEquals(Map.of("c1", "u1"), assigned);
+  }
+
+  @Test
+  void nothingToBackfillChangesNothing() {
+    assertEquals(0, service.backfillCartItemUserIds());
+
+    verify(cartItemRepository, never()).assignUserIds(anyMap());
+    verify(mongoIndexService, never()).ensureIndexes();
+    assertTrue(service.isBackfillComplete());
+  }
+
+  @Test
+  void startupReadsCompletionFromTheLines() {
+    unassignedLines.add("c1");
+    service.checkBackfillComplete();
+    assertFalse(service.isBackfillComplete());
+
+    unassignedLines.clear();
+    service.checkBackfillComplete();
+    assertTrue(service.isBackfillComplete());
+  }
+
+  @Test
+  void completionIsNotAssumedWhenTheCheckFails() {
+    when(cartItemRepository.existsByUserIdIsNull()).thenThrow(new DataAccessResourceFailureException("down"));
+
+    service.checkBackfillComplete();
+
+    assertFalse(service.isBackfillComplete());
+  }
+
+  @Test
+  void manyCartsAreBackfilledInBatches() {
+    for (int i = 0; i < 1_200; i++) {
+      cart("c" + i, "u" + i);
+      unassignedLines.add("c" + i);
+    }
+
+    assertEquals(1_200, service.backfillCartItemUserIds());
+
+    // 500 carts per findAllById
+    verify(cartRepository, times(3)).findAllById(anyCollection());
+    assertTrue(unassignedLines.isEmpty());
+    assertEquals(1_200, assigned.size());
+  }
+}
@@ -0,0 +1,162 @@
+package com.ecomapp.inventory_service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import com.ecomapp.inventory_service.constant.CartStorageEnum;
+import com.ecomapp.inventory_service.dto.ManageCartDto;
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.ecomapp.inventory_service.model.CartModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.CartItemRepository;
+import com.ecomapp.inventory_service.repository.CartRepository;
+import com.ecomapp.inventory_service.repository.EmbeddedCartRepository;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.util.CartTotals;
+
+class CartServiceTest {
+  private CartRepository cartRepository;
+  private CartItemRepository cartItemRepository;
+  private CartService cartService;
+  // what cart_item would hold; while the backfill runs, both cartId_productId and userId_productId are unique
+  private final List<Document> lines = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    cartRepository = mock(CartRepository.class);
+    cartItemRepository = mock(CartItemRepository.class);
+    ProductRepository productRepository = mock(ProductRepository.class);
+    CartMigrationService cartMigrationService = mock(CartMigrationService.class);
+    when(cartMigrationService.isBackfillComplete()).thenReturn(false);
+    when(productRepository.findById(anyString())).thenAnswer(call -> Optional.of(ProductModel.builder()
+        .id(call.getArgument(0)).name("Product").isActive(true).availableStock(10).build()));
+    when(cartRepository.findByUserId("u1"))
+        .thenReturn(Optional.of(CartModel.builder().id("c1").userId("u1").build()));
+
+    when(cartItemRepository.findByUserIdAndProductId(anyString(), anyString()))
+        .thenAnswer(call -> line(call.getArgument(0), call.getArgument(1)).map(line -> CartItemModel.builder()
+            .id(line.getString("_id")).itemCount(line.getInteger("itemCount")).build()));
+    when(cartItemRepository.assignUserIds(anyMap())).thenAnswer(call -> {
+      Map<String, String> userIdByCartId = call.getArgument(0);
+      long assigned = 0;
+      for (Document line : lines) {
+        if (line.get("userId") == null && userIdByCartId.containsKey(line.getString("cartId"))) {
+          line.put("userId", userIdByCartId.get(line.getString("cartId")));
+          assigned++;
+        }
+      }
+      return assigned;
+    });
+    when(cartItemRepository.save(any(CartItemModel.class))).thenAnswer(call -> {
+      CartItemModel item = call.getArgument(0);
+      boolean duplicate = lines.stream().anyMatch(line -> line.get("productId").equals(item.getProductId())
+          && (item.getCartId().equals(line.get("cartId")) || item.getUserId().equals(line.get("userId"))));
+      if (duplicate) {
+        throw new DuplicateKeyException("E11000 duplicate key error collection: shop.cart_item");
+      }
+      lines.add(new Document("_id", "new").append("cartId", item.getCartId()).append("userId", item.getUserId())
+          .append("productId", item.getProductId()).append("itemCount", item.getItemCount()));
+      return item;
+    });
+    when(cartItemRepository.setItemCount(anyString(), anyString(), anyString(), anyInt())).thenAnswer(call -> {
+      Optional<Document> line = line(call.getArgument(0), call.getArgument(2));
+      line.ifPresent(stored -> stored.append("cartId", call.getArgument(1)).append("itemCount", call.getArgument(3)));
+      return line.isPresent();
+    });
+
+    cartService = new CartService(cartRepository, cartItemRepository, productRepository, mock(EmbeddedCartRepository.class),
+        mock(ReservationService.class), mock(CatalogCacheService.class), mock(InventoryEventService.class),
+        cartMigrationService, mock(CartTotalsRepairService.class), CartStorageEnum.LEGACY, 100);
+  }
+
+  private Optional<Document> line(String userId, String productId) {
+    return lines.stream()
+        .filter(line -> userId.equals(line.get("userId")) && productId.equals(line.get("productId")))
+        .findFirst();
+  }
+
+  private static ManageCartDto change(String productId, int itemCount) {
+    ManageCartDto data = new ManageCartDto();
+    data.setProductId(productId);
+    data.setItemCount(itemCount);
+    return data;
+  }
+
+  // a node still on the old code adds the line by cartId, after this request claimed the cart's lines
+  private void addLineByCartIdOnLookup(String cartId, String productId, int itemCount) {
+    when(cartItemRepository.findByUserIdAndProductId("u1", productId)).thenAnswer(call -> {
+      lines.add(new Document("_id", "old").append("cartId", cartId).append("productId", productId).append("itemCount", itemCount));
+      return Optional.empty();
+    });
+  }
+
+  @Test
+  void lineAddedBeforeItsCartWasBackfilledIsUpdated() {
+    addLineByCartIdOnLookup("c1", "p1", 1);
+
+    Map<String, Object> result = cartService.manageCart("u1", change("p1", 3)).getData();
+
+    assertEquals("updated", result.get("action"));
+    assertEquals(1, lines.size());
+    assertEquals("u1", lines.get(0).get("userId"));
+    assertEquals(3, lines.get(0).get("itemCount"));
+  }
+
+  @Test
+  void duplicateTheBackfillDoesNotExplainIsThrown() {
+    // the backfill finds no line of this cart to give the userId, so the duplicate is not one it explains
+    addLineByCartIdOnLookup("c1", "p1", 1);
+    when(cartItemRepository.assignUserIds(anyMap())).thenReturn(0L);
+
+    assertThrows(DuplicateKeyException.class, () -> cartService.manageCart("u1", change("p1", 3)));
+    assertEquals(1, lines.get(0).get("itemCount"));
+  }
+
+  @Test
+  void lineOfAnotherProductIsAdded() {
+    lines.add(new Document("_id", "old").append("cartId", "c1").append("productId", "p1").append("itemCount", 1));
+
+    assertEquals("added", cartService.manageCart("u1", change("p2", 2)).getData().get("action"));
+    // claimed before the add, the cart's old line has the userId too
+    assertEquals("u1", lines.get(0).get("userId"));
+  }
+
+  @Test
+  void lineChangeMovesTheTotalsToWhatTheNewCountSumsTo() {
+    ProductModel product = ProductModel.builder().id("p1").mrp(999).discount(12.5).build();
+
+    // 9.99 at 12.5% off: the discount of 2 and of 5 items each round on their own
+    CartTotals change = CartService.lineChange(new CartTotals(), product, 2, 5);
+
+    CartTotals after = new CartTotals().add(999, 5, 12.5);
+    CartTotals before = new CartTotals().add(999, 2, 12.5);
+    assertEquals(after.mrpMinor() - before.mrpMinor(), change.mrpMinor());
+    assertEquals(after.discountMinor() - before.discountMinor(), change.discountMinor());
+    assertEquals(0, CartService.lineChange(new CartTotals(), product, 3, 3).mrpMinor());
+  }
+
+  @Test
+  void newCartStartsWithZeroTotalsSoLineChangesCanMoveThem() {
+    CartModel cart = CartService.newLegacyCart("u1");
+
+    assertEquals(0L, cart.getTotalMrpMinor());
+    assertEquals(0L, cart.getTotalDiscountMinor());
+    assertEquals(0L, cart.getLinesVersion());
+  }
+}
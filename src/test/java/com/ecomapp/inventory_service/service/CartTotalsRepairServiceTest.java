@@ -0,0 +1,275 @@
+package com.ecomapp.inventory_service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import com.ecomapp.inventory_service.constant.CartStorageEnum;
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.ecomapp.inventory_service.model.CartModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.CartItemRepository;
+import com.ecomapp.inventory_service.repository.CartRepository;
+import com.ecomapp.inventory_service.repository.EmbeddedCartRepository;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.util.CartTotals;
+
+class CartTotalsRepairServiceTest {
+  // 100.00 at 10% off, and 9.99 at 12.5% off so a line's discount rounds
+  private static final Map<String, ProductModel> PRODUCTS = Map.of(
+      "p1", ProductModel.builder().id("p1").mrp(10_000).discount(10).build(),
+      "p2", ProductModel.builder().id("p2").mrp(999).discount(12.5).build());
+
+  private CartRepository cartRepository;
+  private CartItemRepository cartItemRepository;
+  private CartTotalsRepairService service;
+  // what the cart and cart_item collections would hold: carts by userId, and the lines
+  private final Map<String, CartModel> carts = new TreeMap<>();
+  private final List<CartItemModel> lines = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    cartRepository = mock(CartRepository.class);
+    cartItemRepository = mock(CartItemRepository.class);
+    ProductRepository productRepository = mock(ProductRepository.class);
+    when(productRepository.findAllById(anyCollection())).thenAnswer(call -> {
+      Collection<String> ids = call.getArgument(0);
+      return ids.stream().map(PRODUCTS::get).filter(Objects::nonNull).toList();
+    });
+
+    when(cartItemRepository.findByUserId(anyString())).thenAnswer(call -> linesOf(call.getArgument(0)));
+    when(cartItemRepository.findByUserIdIn(anyCollection())).thenAnswer(call -> {
+      Collection<String> userIds = call.getArgument(0);
+      return lines.stream().filter(line -> userIds.contains(line.getUserId())).toList();
+    });
+    when(cartRepository.findByUserIdGreaterThan(anyString(), any(Pageable.class))).thenAnswer(call -> {
+      String after = call.getArgument(0);
+      Pageable page = call.getArgument(1);
+      return carts.values().stream()
+          .filter(cart -> cart.getUserId().compareTo(after) > 0)
+          .sorted(Comparator.comparing(CartModel::getUserId))
+          .limit(page.getPageSize())
+          .map(CartTotalsRepairServiceTest::copy)
+          .toList();
+    });
+    // the linesVersion guard of CartRepositoryCustomImpl
+    when(cartRepository.markLinesChanged(anyString())).thenAnswer(call -> Optional.ofNullable(carts.get(call.getArgument(0)))
+        .map(cart -> {
+          cart.setLinesVersion(cart.getLinesVersion() + 1);
+          return cart.getLinesVersion();
+        }));
+    when(cartRepository.setTotals(anyString(), anyLong(), anyLong(), anyLong())).thenAnswer(call -> {
+      CartModel cart = guarded(call.getArgument(0), call.getArgument(1));
+      if (cart == null) {
+        return false;
+      }
+      cart.setTotalMrpMinor(call.getArgument(2));
+      cart.setTotalDiscountMinor(call.getArgument(3));
+      return true;
+    });
+    when(cartRepository.addToTotals(anyString(), anyLong(), anyLong(), anyLong())).thenAnswer(call -> {
+      CartModel cart = guarded(call.getArgument(0), call.getArgument(1));
+      if (cart == null) {
+        return false;
+      }
+      cart.setTotalMrpMinor(cart.getTotalMrpMinor() + (long) call.getArgument(2));
+      cart.setTotalDiscountMinor(cart.getTotalDiscountMinor() + (long) call.getArgument(3));
+      cart.setLinesVersion(cart.getLinesVersion() + 1);
+      return true;
+    });
+    when(cartRepository.clearTotals(anyString(), anyLong())).thenAnswer(call -> {
+      CartModel cart = guarded(call.getArgument(0), call.getArgument(1));
+      if (cart == null) {
+        return false;
+      }
+      cart.setTotalMrpMinor(0L);
+      cart.setTotalDiscountMinor(0L);
+      cart.setLinesVersion(cart.getLinesVersion() + 1);
+      return true;
+    });
+    doAnswer(call -> {
+      CartModel cart = carts.get(call.getArgument(0));
+      cart.setTotalMrpMinor(null);
+      cart.setTotalDiscountMinor(null);
+      cart.setLinesVersion(cart.getLinesVersion() + 1);
+      return null;
+    }).when(cartRepository).dropTotals(anyString());
+
+    service = new CartTotalsRepairService(mock(EmbeddedCartRepository.class), cartRepository, cartItemRepository,
+        productRepository, CartStorageEnum.LEGACY, true, 2);
+  }
+
+  private CartModel guarded(String userId, long linesVersion) {
+    CartModel cart = carts.get(userId);
+    return cart != null && cart.getLinesVersion() == linesVersion ? cart : null;
+  }
+
+  private List<CartItemModel> linesOf(String userId) {
+    return lines.stream().filter(line -> line.getUserId().equals(userId)).toList();
+  }
+
+  // the cart as a request reads it
+  private static CartModel copy(CartModel cart) {
+    return CartModel.builder().id(cart.getId()).userId(cart.getUserId()).totalMrpMinor(cart.getTotalMrpMinor())
+        .totalDiscountMinor(cart.getTotalDiscountMinor()).linesVersion(cart.getLinesVersion()).build();
+  }
+
+  private void cart(String userId, Long totalMrpMinor, Long totalDiscountMinor) {
+    carts.put(userId, CartModel.builder().id("cart-" + userId).userId(userId)
+        .totalMrpMinor(totalMrpMinor).totalDiscountMinor(totalDiscountMinor).linesVersion(0L).build());
+  }
+
+  private void line(String userId, String productId, Integer itemCount) {
+    lines.add(CartItemModel.builder().userId(userId).productId(productId).itemCount(itemCount).build());
+  }
+
+  private void assertTotals(String userId, Long mrpMinor, Long discountMinor) {
+    assertEquals(mrpMinor, carts.get(userId).getTotalMrpMinor());
+    assertEquals(discountMinor, carts.get(userId).getTotalDiscountMinor());
+  }
+
+  @Test
+  void legacyTotalsSumEachLineAndRoundItsDiscount() {
+    line("u1", "p1", 2);
+    line("u1", "p2", 3);
+    // a line whose product is gone, and one written without a count
+    line("u1", "gone", 5);
+    line("u1", "p1", null);
+
+    CartTotals totals = CartTotalsRepairService.legacyTotals(linesOf("u1"), PRODUCTS);
+
+    // 2 x 100.00 at 10% off, 3 x 9.99 at 12.5% off = 3.74625 off
+    assertEquals(20_000 + 2_997, totals.mrpMinor());
+    assertEquals(2_000 + 375, totals.discountMinor());
+  }
+
+  @Test
+  void recomputeWritesTheTotalsOfTheLines() {
+    cart("u1", null, null);
+    line("u1", "p1", 1);
+
+    service.recomputeLegacyTotals("u1");
+
+    assertTotals("u1", 10_000L, 1_000L);
+  }
+
+  @Test
+  void recomputeThatReadStaleLinesDoesNotOverwriteALaterOne() {
+    cart("u1", null, null);
+    line("u1", "p1", 1);
+    List<CartItemModel> staleRead = List.copyOf(linesOf("u1"));
+    // a line is added and recomputed while the first recompute reads the lines
+    AtomicBoolean raced = new AtomicBoolean();
+    when(cartItemRepository.findByUserId("u1")).thenAnswer(call -> {
+      if (raced.getAndSet(true)) {
+        return linesOf("u1");
+      }
+      line("u1", "p2", 1);
+      service.recomputeLegacyTotals("u1");
+      return staleRead;
+    });
+
+    service.recomputeLegacyTotals("u1");
+
+    assertTotals("u1", 10_999L, 1_125L);
+  }
+
+  @Test
+  void lineChangeMovesTheTotalsAndTheLinesVersion() {
+    cart("u1", 10_000L, 1_000L);
+
+    service.addToLegacyTotals(copy(carts.get("u1")), new CartTotals().add(999, 2, 12.5));
+
+    assertTotals("u1", 11_998L, 1_250L);
+    assertEquals(1L, carts.get("u1").getLinesVersion());
+  }
+
+  @Test
+  void secondOfTwoRacingChangesDropsTheTotals() {
+    cart("u1", 10_000L, 1_000L);
+    // both requests read the cart before either wrote
+    CartModel first = copy(carts.get("u1"));
+    CartModel second = copy(carts.get("u1"));
+
+    service.addToLegacyTotals(first, new CartTotals().add(10_000, 1, 10));
+    service.addToLegacyTotals(second, new CartTotals().add(999, 1, 12.5));
+
+    assertTotals("u1", null, null);
+  }
+
+  @Test
+  void cartWithoutTotalsOrAnEmptyChangeIsLeftAlone() {
+    cart("u1", null, null);
+    cart("u2", 10_000L, 1_000L);
+
+    service.addToLegacyTotals(copy(carts.get("u1")), new CartTotals().add(10_000, 1, 10));
+    service.addToLegacyTotals(copy(carts.get("u2")), new CartTotals().add(10_000, 1, 10).remove(10_000, 1, 10));
+
+    verify(cartRepository, never()).addToTotals(anyString(), anyLong(), anyLong(), anyLong());
+    assertTotals("u1", null, null);
+    assertEquals(0L, carts.get("u2").getLinesVersion());
+  }
+
+  @Test
+  void clearZeroesTheTotalsUnlessTheLinesChangedSince() {
+    cart("u1", 10_000L, 1_000L);
+    cart("u2", 10_000L, 1_000L);
+    CartModel staleRead = copy(carts.get("u2"));
+    service.addToLegacyTotals(copy(carts.get("u2")), new CartTotals().add(999, 1, 12.5));
+
+    service.clearLegacyTotals(copy(carts.get("u1")));
+    service.clearLegacyTotals(staleRead);
+
+    assertTotals("u1", 0L, 0L);
+    assertTotals("u2", null, null);
+  }
+
+  @Test
+  void repairRecomputesOnlyCartsWhoseTotalsAreMissingOrWrong() {
+    // a page holds two carts, so u3 is on the second one
+    cart("u1", 10_000L, 1_000L);
+    line("u1", "p1", 1);
+    cart("u2", 999L, 0L);
+    line("u2", "p2", 1);
+    cart("u3", null, null);
+    line("u3", "p1", 2);
+
+    assertEquals(2, service.repairLegacy());
+
+    assertTotals("u1", 10_000L, 1_000L);
+    assertEquals(0L, carts.get("u1").getLinesVersion());
+    assertTotals("u2", 999L, 125L);
+    assertTotals("u3", 20_000L, 2_000L);
+  }
+
+  @Test
+  void emptyCartWithoutTotalsIsRepairedToZero() {
+    cart("u1", null, null);
+
+    assertEquals(1, service.repairLegacy());
+
+    assertTotals("u1", 0L, 0L);
+  }
+}
@@ -0,0 +1,117 @@
+package com.ecomapp.inventory_service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.ecomapp.inventory_service.constant.InventoryEventTypeEnum;
+import com.ecomapp.inventory_service.model.InventoryEventModel;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.InventoryEventRepository;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+
+class InventoryEventServiceTest {
+  private static final String NODE = "node-1";
+
+  private InventoryEventRepository inventoryEventRepository;
+  private ProductRepository productRepository;
+  private InventoryEventService service;
+
+  @BeforeEach
+  void setUp() {
+    inventoryEventRepository = mock(InventoryEventRepository.class);
+    productRepository = mock(ProductRepository.class);
+    service = new InventoryEventService(inventoryEventRepository, productRepository, true, NODE, 10, 10_000, 3_600_000, 604_800_000);
+    when(inventoryEventRepository.acquireLease(eq(NODE), any(), any())).thenReturn(true);
+    when(productRepository.findPendingEvents(anyInt())).thenReturn(List.of(
+        ProductModel.builder().id("p1").pendingEvents(2).build(),
+        ProductModel.builder().id("p2").pendingEvents(1).build()));
+    when(inventoryEventRepository.findStaged(anyInt()))
+        .thenReturn(List.of(InventoryEventService.productDeletedEvent("p3")));
+  }
+
+  @Test
+  void batchIsCommittedThroughItsLastOffset() {
+    when(inventoryEventRepository.allocate(eq(NODE), eq(3), any())).thenReturn(Optional.of(11L));
+    when(inventoryEventRepository.publish(anyList(), anyList(), eq(11L), any())).thenReturn(true);
+    when(inventoryEventRepository.commit(eq(NODE), eq(13L), any())).thenReturn(true);
+
+    assertEquals(3, service.relay());
+
+    // product changes take the first offsets, staged events follow
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<InventoryEventModel>> changes = ArgumentCaptor.forClass(List.class);
+    verify(inventoryEventRepository).publish(changes.capture(), anyList(), eq(11L), any());
+    assertEquals(List.of("p1", "p2"), changes.getValue().stream().map(InventoryEventModel::getProductId).toList());
+    assertEquals(InventoryEventTypeEnum.PRODUCT_CHANGED, changes.getValue().get(0).getType());
+    verify(productRepository).ackPendingEvents(Map.of("p1", 2, "p2", 1));
+  }
+
+  @Test
+  void leaseLostBeforeAllocationPublishesNothing() {
+    when(inventoryEventRepository.allocate(eq(NODE), anyInt(), any())).thenReturn(Optional.empty());
+
+    assertEquals(0, service.relay());
+
+    verify(inventoryEventRepository, never()).publish(anyList(), anyList(), anyLong(), any());
+    verify(inventoryEventRepository, never()).commit(anyString(), anyLong(), any());
+    verify(productRepository, never()).ackPendingEvents(anyMap());
+  }
+
+  @Test
+  void offsetsWrittenByThePreviousOwnerAreAdoptedNotSkipped() {
+    when(inventoryEventRepository.allocate(eq(NODE), eq(3), any())).thenReturn(Optional.of(11L));
+    when(inventoryEventRepository.publish(anyList(), anyList(), eq(11L), any())).thenReturn(false);
+    when(inventoryEventRepository.adoptPublished(eq(NODE), any(LocalDateTime.class))).thenReturn(Optional.of(15L));
+
+    assertEquals(0, service.relay());
+
+    verify(inventoryEventRepository).adoptPublished(eq(NODE), any(LocalDateTime.class));
+    verify(inventoryEventRepository, never()).commit(anyString(), anyLong(), any());
+    // the products stay marked, the next run publishes them at fresh offsets
+    verify(productRepository, never()).ackPendingEvents(anyMap());
+  }
+
+  @Test
+  void batchWrittenAfterLosingTheLeaseIsLeftForTheNextOwner() {
+    when(inventoryEventRepository.allocate(eq(NODE), eq(3), any())).thenReturn(Optional.of(11L));
+    when(inventoryEventRepository.publish(anyList(), anyList(), eq(11L), any())).thenReturn(true);
+    when(inventoryEventRepository.commit(eq(NODE), eq(13L), any())).thenReturn(false);
+
+    assertEquals(0, service.relay());
+
+    verify(productRepository, never()).ackPendingEvents(anyMap());
+  }
+
+  @Test
+  void productDeletedInTheSameBatchIsNotPublishedAsChanged() {
+    when(productRepository.findPendingEvents(anyInt()))
+        .thenReturn(List.of(ProductModel.builder().id("p3").pendingEvents(1).build()));
+    when(inventoryEventRepository.allocate(eq(NODE), eq(1), any())).thenReturn(Optional.of(1L));
+    when(inventoryEventRepository.publish(anyList(), anyList(), eq(1L), any())).thenReturn(true);
+    when(inventoryEventRepository.commit(eq(NODE), eq(1L), any())).thenReturn(true);
+
+    assertEquals(1, service.relay());
+
+    verify(inventoryEventRepository).publish(eq(List.of()), anyList(), eq(1L), any());
+    verify(productRepository).ackPendingEvents(Map.of("p3", 1));
+  }
+}
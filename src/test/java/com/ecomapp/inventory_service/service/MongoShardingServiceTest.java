@@ -0,0 +1,154 @@
+package com.ecomapp.inventory_service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.ecomapp.inventory_service.model.CartItemModel;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+
+class MongoShardingServiceTest {
+  private MongoTemplate mongoTemplate;
+  private MongoDatabase admin;
+  private IndexOperations cartItemIndexes;
+  private MongoCollection<Document> userCart;
+  private MongoShardingService service;
+  // what the cluster would hold: the namespaces in config.collections, the cart_item index names
+  private final Set<String> sharded = new HashSet<>();
+  private final List<String> cartItemIndexNames = new ArrayList<>(List.of("_id_", "userId_productId"));
+  private final List<Document> adminCommands = new ArrayList<>();
+  private String isMasterMsg = "isdbgrid";
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    mongoTemplate = mock(MongoTemplate.class);
+    MongoDatabase db = mock(MongoDatabase.class);
+    admin = mock(MongoDatabase.class);
+    MongoDatabase config = mock(MongoDatabase.class);
+    MongoDatabaseFactory factory = mock(MongoDatabaseFactory.class);
+    MongoCollection<Document> collections = mock(MongoCollection.class);
+    cartItemIndexes = mock(IndexOperations.class);
+    userCart = mock(MongoCollection.class);
+
+    when(mongoTemplate.getDb()).thenReturn(db);
+    when(db.getName()).thenReturn("shop");
+    when(db.runCommand(any(Bson.class))).thenAnswer(call -> new Document("msg", isMasterMsg));
+    when(mongoTemplate.getMongoDatabaseFactory()).thenReturn(factory);
+    when(factory.getMongoDatabase("admin")).thenReturn(admin);
+    when(factory.getMongoDatabase("config")).thenReturn(config);
+    when(admin.runCommand(any(Bson.class))).thenAnswer(call -> {
+      Document command = call.getArgument(0);
+      adminCommands.add(command);
+      if (command.containsKey("shardCollection")) {
+        sharded.add(command.getString("shardCollection"));
+      }
+      return new Document("ok", 1);
+    });
+    when(config.getCollection("collections")).thenReturn(collections);
+    when(collections.find(any(Bson.class))).thenAnswer(call -> {
+      FindIterable<Document> found = mock(FindIterable.class);
+      String namespace = ((Document) call.getArgument(0)).getString("_id");
+      when(found.first()).thenReturn(sharded.contains(namespace) ? new Document("_id", namespace) : null);
+      return found;
+    });
+    when(mongoTemplate.indexOps(CartItemModel.class)).thenReturn(cartItemIndexes);
+    when(cartItemIndexes.getIndexInfo()).thenAnswer(call -> cartItemIndexNames.stream()
+        .map(name -> new IndexInfo(List.of(), name, false, false, null))
+        .toList());
+    when(mongoTemplate.getCollection("user_cart")).thenReturn(userCart);
+
+    service = new MongoShardingService(mongoTemplate, true);
+  }
+
+  private List<Document> shardCommands() {
+    return adminCommands.stream().filter(command -> command.containsKey("shardCollection")).toList();
+  }
+
+  @Test
+  void shardsEachCartCollectionOnItsKey() {
+    Map<String, Map<String, Object>> result = service.shardCollections();
+
+    assertEquals(List.of(
+        new Document("shardCollection", "shop.cart").append("key", new Document("userId", 1)),
+        new Document("shardCollection", "shop.cart_item").append("key", new Document("userId", 1)),
+        new Document("shardCollection", "shop.user_cart").append("key", new Document("_id", "hashed"))),
+        shardCommands());
+    assertTrue(result.values().stream().allMatch(status -> "sharded".equals(status.get("status"))));
+    // user_cart may already hold carts, which needs the shard key's index first
+    verify(userCart).createIndex(new Document("_id", "hashed"));
+  }
+
+  @Test
+  void cartItemWithLinesWithoutAUserIdIsLeftUnsharded() {
+    when(mongoTemplate.exists(any(Query.class), eq(CartItemModel.class))).thenReturn(true);
+
+    Map<String, Map<String, Object>> result = service.shardCollections();
+
+    assertEquals("failed", result.get("cart_item").get("status"));
+    assertEquals(Set.of("shop.cart", "shop.user_cart"), sharded);
+  }
+
+  @Test
+  void legacyLineIndexIsDroppedBeforeShardingCartItem() {
+    cartItemIndexNames.add("cartId_productId");
+
+    service.shardCollections();
+
+    verify(cartItemIndexes).dropIndex("cartId_productId");
+    assertTrue(sharded.contains("shop.cart_item"));
+  }
+
+  @Test
+  void cartItemIsNotShardedBeforeItsUserIdIndexExists() {
+    cartItemIndexNames.remove("userId_productId");
+
+    Map<String, Map<String, Object>> result = service.shardCollections();
+
+    assertEquals("failed", result.get("cart_item").get("status"));
+    verify(cartItemIndexes, never()).dropIndex(any(String.class));
+  }
+
+  @Test
+  void alreadyShardedCollectionsAreLeftAsTheyAre() {
+    sharded.add("shop.cart");
+
+    Map<String, Map<String, Object>> result = service.shardCollections();
+
+    assertEquals(2, shardCommands().size());
+    assertEquals("already sharded", result.get("cart").get("status"));
+  }
+
+  @Test
+  void nothingIsShardedOutsideAShardedCluster() {
+    isMasterMsg = null;
+
+    Map<String, Map<String, Object>> result = service.shardCollections();
+
+    assertTrue(adminCommands.isEmpty());
+    assertEquals("not a sharded cluster", result.get("user_cart").get("status"));
+  }
+}
@@ -0,0 +1,142 @@
+package com.ecomapp.inventory_service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import com.ecomapp.inventory_service.constant.ReservationStatusEnum;
+import com.ecomapp.inventory_service.dto.ApiResponse;
+import com.ecomapp.inventory_service.exception.CustomException;
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.model.ReservationModel;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.repository.ReservationRepository;
+
+class ReservationServiceTest {
+  private static final String USER = "u1";
+
+  private ReservationRepository reservationRepository;
+  private ProductRepository productRepository;
+  private CatalogCacheService catalogCacheService;
+  private ReservationService service;
+
+  @BeforeEach
+  void setUp() {
+    reservationRepository = mock(ReservationRepository.class);
+    productRepository = mock(ProductRepository.class);
+    catalogCacheService = mock(CatalogCacheService.class);
+    // the ledger is off, stock is taken from the product documents
+    service = new ReservationService(reservationRepository, productRepository, mock(StockLedgerService.class),
+        catalogCacheService, mock(MongoIndexService.class), true, 30, 24, 500);
+    when(catalogCacheService.findProduct(anyString()))
+        .thenAnswer(call -> Optional.of(product(call.getArgument(0), 0)));
+  }
+
+  private static ProductModel product(String id, double availableStock) {
+    return ProductModel.builder().id(id).name("Product " + id).isActive(true).availableStock(availableStock).build();
+  }
+
+  private static ReservationModel reservation(String id, String productId, int quantity) {
+    return ReservationModel.builder()
+        .id(id).userId(USER).productId(productId).quantity(quantity).status(ReservationStatusEnum.ACTIVE).build();
+  }
+
+  @Test
+  void expiredHoldIsReservedAgainAtCheckout() {
+    // the sweeper gave the stock back, so the hold starts again from nothing
+    when(reservationRepository.holdQuantity(eq(USER), eq("p1"), eq(2), any(LocalDateTime.class))).thenReturn(Optional.empty());
+    when(productRepository.reserveStock("p1", 2)).thenReturn(Optional.of(product("p1", 8)));
+    ReservationModel hold = reservation("r1", "p1", 2);
+    when(reservationRepository.findByUserIdAndStatus(USER, ReservationStatusEnum.ACTIVE)).thenReturn(List.of(hold));
+    when(reservationRepository.finishActive(eq("r1"), eq(ReservationStatusEnum.COMMITTED), any())).thenReturn(Optional.of(hold));
+
+    ApiResponse<List<ReservationModel>> result = service.commitAll(USER, Map.of("p1", 2));
+
+    assertEquals(List.of(hold), result.getData());
+    verify(productRepository).reserveStock("p1", 2);
+  }
+
+  @Test
+  void expiredHoldWithoutStockFailsCheckoutAndCommitsNothing() {
+    when(reservationRepository.holdQuantity(eq(USER), eq("p1"), eq(2), any(LocalDateTime.class))).thenReturn(Optional.empty());
+    when(productRepository.reserveStock("p1", 2)).thenReturn(Optional.empty());
+
+    CustomException e = assertThrows(CustomException.class, () -> service.commitAll(USER, Map.of("p1", 2)));
+
+    assertEquals(HttpStatus.CONFLICT, e.getStatus());
+    verify(reservationRepository).restoreQuantity(USER, "p1", 2, null);
+    verify(reservationRepository, never()).finishActive(anyString(), eq(ReservationStatusEnum.COMMITTED), any());
+  }
+
+  @Test
+  void activeHoldIsCommittedWithoutTakingStockAgain() {
+    ReservationModel hold = reservation("r1", "p1", 2);
+    when(reservationRepository.holdQuantity(eq(USER), eq("p1"), eq(2), any(LocalDateTime.class))).thenReturn(Optional.of(hold));
+    when(reservationRepository.findByUserIdAndStatus(USER, ReservationStatusEnum.ACTIVE)).thenReturn(List.of(hold));
+    when(reservationRepository.finishActive(eq("r1"), eq(ReservationStatusEnum.COMMITTED), any())).thenReturn(Optional.of(hold));
+
+    assertEquals(1, service.commitAll(USER, Map.of("p1", 2)).getData().size());
+
+    verify(productRepository, never()).reserveStock(anyString(), anyInt());
+    verify(productRepository, never()).releaseStock(anyString(), anyInt());
+  }
+
+  @Test
+  void holdOfProductNoLongerInTheCartIsReleased() {
+    ReservationModel kept = reservation("r1", "p1", 2);
+    ReservationModel removed = reservation("r2", "p2", 3);
+    when(reservationRepository.holdQuantity(eq(USER), eq("p1"), eq(2), any(LocalDateTime.class))).thenReturn(Optional.of(kept));
+    when(reservationRepository.findByUserIdAndStatus(USER, ReservationStatusEnum.ACTIVE)).thenReturn(List.of(kept, removed));
+    when(reservationRepository.finishActive(eq("r1"), eq(ReservationStatusEnum.COMMITTED), any())).thenReturn(Optional.of(kept));
+    when(reservationRepository.finishActive(eq("r2"), eq(ReservationStatusEnum.RELEASED), any())).thenReturn(Optional.of(removed));
+
+    assertEquals(List.of(kept), service.commitAll(USER, Map.of("p1", 2)).getData());
+
+    verify(productRepository).releaseStock("p2", 3);
+    verify(reservationRepository, never()).finishActive(eq("r2"), eq(ReservationStatusEnum.COMMITTED), any());
+  }
+
+  @Test
+  void holdExpiredBySweeperAfterReserveIsNotCommitted() {
+    ReservationModel hold = reservation("r1", "p1", 2);
+    when(reservationRepository.holdQuantity(eq(USER), eq("p1"), eq(2), any(LocalDateTime.class))).thenReturn(Optional.of(hold));
+    when(reservationRepository.findByUserIdAndStatus(USER, ReservationStatusEnum.ACTIVE)).thenReturn(List.of(hold));
+    // the sweeper flipped it to EXPIRED between the reserve and the commit
+    when(reservationRepository.finishActive(eq("r1"), eq(ReservationStatusEnum.COMMITTED), any())).thenReturn(Optional.empty());
+
+    assertEquals(0, service.commitAll(USER, Map.of("p1", 2)).getData().size());
+  }
+
+  @Test
+  void sweeperReleasesOnlyHoldsThatAreStillDue() {
+    ReservationModel due = reservation("r1", "p1", 2);
+    ReservationModel refreshed = reservation("r2", "p2", 3);
+    when(reservationRepository.findByStatusAndExpiresAtBefore(eq(ReservationStatusEnum.ACTIVE), any(LocalDateTime.class), any()))
+        .thenReturn(List.of(due, refreshed));
+    when(reservationRepository.expireIfDue(eq("r1"), any(LocalDateTime.class), any())).thenReturn(Optional.of(due));
+    // holdQuantity pushed r2's expiresAt out after the sweeper read it
+    when(reservationRepository.expireIfDue(eq("r2"), any(LocalDateTime.class), any())).thenReturn(Optional.empty());
+
+    service.releaseExpired();
+
+    verify(productRepository).releaseStock("p1", 2);
+    verify(productRepository, never()).releaseStock(eq("p2"), anyInt());
+    verify(reservationRepository, never()).finishActive(anyString(), eq(ReservationStatusEnum.EXPIRED), any());
+  }
+}
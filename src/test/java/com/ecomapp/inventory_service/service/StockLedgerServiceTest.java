@@ -0,0 +1,157 @@
+package com.ecomapp.inventory_service.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.intThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ecomapp.inventory_service.model.ProductModel;
+import com.ecomapp.inventory_service.repository.ProductRepository;
+import com.ecomapp.inventory_service.repository.StockEscrowRepository;
+
+class StockLedgerServiceTest {
+  private static final String PRODUCT = "p1";
+  private static final long CHUNK = 20;
+
+  private ProductRepository productRepository;
+  private StockEscrowRepository stockEscrowRepository;
+  // what the stock_escrow collection would hold for this node, per product
+  private final Map<String, Long> escrow = new HashMap<>();
+  private final Map<String, Long> released = new HashMap<>();
+
+  @BeforeEach
+  void setUp() {
+    productRepository = mock(ProductRepository.class);
+    stockEscrowRepository = mock(StockEscrowRepository.class);
+    when(productRepository.reserveStock(eq(PRODUCT), anyInt()))
+        .thenReturn(Optional.of(ProductModel.builder().id(PRODUCT).build()));
+    doAnswer(call -> {
+      escrow.merge(call.getArgument(1), call.getArgument(2, Long.class), Long::sum);
+      return null;
+    }).when(stockEscrowRepository).addUnits(anyString(), anyString(), anyLong(), any(LocalDateTime.class));
+    doAnswer(call -> {
+      Map<String, Long> deltas = call.getArgument(1);
+      deltas.forEach((productId, delta) -> escrow.merge(productId, delta, Long::sum));
+      return null;
+    }).when(stockEscrowRepository).incUnits(anyString(), anyMap(), any(LocalDateTime.class));
+    doAnswer(call -> {
+      Map<String, Long> units = call.getArgument(0);
+      units.forEach((productId, quantity) -> released.merge(productId, quantity, Long::sum));
+      return null;
+    }).when(productRepository).releaseStock(anyMap());
+  }
+
+  private StockLedgerService ledger(long leaseMs) {
+    return new StockLedgerService(productRepository, stockEscrowRepository, true, "node-1", CHUNK, leaseMs, 4);
+  }
+
+  @Test
+  void flushRecordsWhatTheNodeStillHolds() {
+    StockLedgerService ledger = ledger(60_000);
+
+    assertTrue(ledger.take(PRODUCT, 5).isPresent());
+    ledger.flush();
+
+    assertEquals(CHUNK - 5, escrow.get(PRODUCT));
+  }
+
+  @Test
+  void leaseDuringFlushWriteIsNotOverwritten() {
+    StockLedgerService ledger = ledger(60_000);
+    ledger.take(PRODUCT, 5);
+
+    // another request leases a second chunk after flush released its locks but before its write
+    AtomicBoolean leasedDuringFlush = new AtomicBoolean();
+    doAnswer(call -> {
+      if (leasedDuringFlush.compareAndSet(false, true)) {
+        ledger.take(PRODUCT, 20);
+      }
+      Map<String, Long> deltas = call.getArgument(1);
+      deltas.forEach((productId, delta) -> escrow.merge(productId, delta, Long::sum));
+      return null;
+    }).when(stockEscrowRepository).incUnits(anyString(), anyMap(), any(LocalDateTime.class));
+    ledger.flush();
+
+    // both chunks are recorded, the take that followed the lease waits for the next flush
+    assertEquals(35L, escrow.get(PRODUCT));
+    ledger.flush();
+    // 40 leased, 25 handed out
+    assertEquals(15L, escrow.get(PRODUCT));
+  }
+
+  @Test
+  void expiredLeaseWithEnoughUnitsNeverLeasesNothing() {
+    StockLedgerService ledger = ledger(0);
+    ledger.take(PRODUCT, 5);
+    when(productRepository.reserveStock(eq(PRODUCT), anyInt())).thenReturn(Optional.empty());
+
+    assertTrue(ledger.take(PRODUCT, 5).isPresent());
+
+    verify(productRepository, never()).reserveStock(eq(PRODUCT), intThat(units -> units <= 0));
+  }
+
+  @Test
+  void shutdownReturnsEverythingAndClearsEscrow() {
+    StockLedgerService ledger = ledger(60_000);
+    ledger.take(PRODUCT, 5);
+    ledger.give(PRODUCT, 2);
+
+    ledger.reconcileOnShutdown();
+
+    assertEquals(17L, released.get(PRODUCT));
+    assertEquals(0L, escrow.get(PRODUCT));
+  }
+
+  @Test
+  void failedEscrowWriteIsRetriedByTheNextFlush() {
+    StockLedgerService ledger = ledger(60_000);
+    ledger.take(PRODUCT, 5);
+    doThrow(new IllegalStateException("down")).doAnswer(call -> {
+      Map<String, Long> deltas = call.getArgument(1);
+      deltas.forEach((productId, delta) -> escrow.merge(productId, delta, Long::sum));
+      return null;
+    }).when(stockEscrowRepository).incUnits(anyString(), anyMap(), any(LocalDateTime.class));
+
+    ledger.flush();
+    assertEquals(CHUNK, escrow.get(PRODUCT));
+    ledger.flush();
+
+    assertEquals(CHUNK - 5, escrow.get(PRODUCT));
+  }
+
+  @Test
+  void failedReleaseKeepsUnitsAndRecordsThemAgain() {
+    StockLedgerService ledger = ledger(60_000);
+    ledger.take(PRODUCT, 5);
+    doThrow(new IllegalStateException("down")).when(productRepository).releaseStock(anyMap());
+
+    ledger.reconcileOnShutdown();
+    assertEquals(0L, escrow.get(PRODUCT));
+    ledger.flush();
+
+    // the units stayed on the node, so the escrow holds them again
+    assertEquals(CHUNK - 5, escrow.get(PRODUCT));
+    assertTrue(ledger.take(PRODUCT, 15).isPresent());
+    verify(productRepository).reserveStock(eq(PRODUCT), anyInt());
+  }
+}
@@ -0,0 +1,52 @@
+package com.ecomapp.inventory_service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.ecomapp.inventory_service.dto.CreateProductDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+class MinorUnitsJsonTest {
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private long readMrp(String mrp) throws Exception {
+    return objectMapper.readValue("{\"mrp\": " + mrp + "}", CreateProductDto.class).getMrp();
+  }
+
+  @Test
+  void readsDecimalWholeAndStringAmounts() throws Exception {
+    assertEquals(1099, readMrp("10.99"));
+    assertEquals(1000, readMrp("10"));
+    assertEquals(1099, readMrp("\" 10.99 \""));
+    // read as a decimal, not through a double, then rounded half up
+    assertEquals(1100, readMrp("10.995"));
+  }
+
+  @Test
+  void refusesStringsThatAreNotAmounts() {
+    assertThrows(InvalidFormatException.class, () -> readMrp("\"ten\""));
+  }
+
+  @Test
+  void writesTheAmountAndReadsBackTheSameMinorUnits() throws Exception {
+    for (long mrp : new long[] {1099, 7, 30, 1000, 123_456_789}) {
+      CreateProductDto dto = new CreateProductDto();
+      dto.setMrp(mrp);
+
+      String json = objectMapper.writeValueAsString(dto);
+
+      assertEquals(mrp, objectMapper.readValue(json, CreateProductDto.class).getMrp());
+    }
+  }
+
+  @Test
+  void writesAtMostTwoDecimals() throws Exception {
+    CreateProductDto dto = new CreateProductDto();
+    dto.setMrp(30L);
+
+    assertEquals("0.3", objectMapper.readTree(objectMapper.writeValueAsString(dto)).get("mrp").asText());
+  }
+}
@@ -0,0 +1,70 @@
+package com.ecomapp.inventory_service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.ecomapp.inventory_service.model.ProductModel;
+
+class MinorUnitsMongoConverterTest {
+  private MappingMongoConverter converter;
+
+  @BeforeEach
+  void setUp() {
+    MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+    mappingContext.afterPropertiesSet();
+    converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+    converter.setCustomConversions(conversions);
+    converter.afterPropertiesSet();
+  }
+
+  private long readMrp(Object stored) {
+    return converter.read(ProductModel.class, new Document("_id", "p1").append("mrp", stored)).getMrp();
+  }
+
+  @Test
+  void readsPricesStoredAsDecimal128() {
+    assertEquals(1099, readMrp(new Decimal128(new BigDecimal("10.99"))));
+  }
+
+  @Test
+  void readsPricesWrittenAsDoublesRoundedHalfUp() {
+    assertEquals(1099, readMrp(10.99));
+    // a double total that drifted below the half
+    assertEquals(30, readMrp(0.1 + 0.2));
+    assertEquals(1000, readMrp(9.999));
+  }
+
+  @Test
+  void readsWholeAmountsStoredAsInt32AndInt64() {
+    assertEquals(1000, readMrp(10));
+    assertEquals(1000, readMrp(10L));
+  }
+
+  @Test
+  void writesTheExactDecimalAmount() {
+    Document stored = new Document();
+    converter.write(ProductModel.builder().id("p1").mrp(1099).build(), stored);
+
+    assertEquals(new Decimal128(new BigDecimal("10.99")), stored.get("mrp"));
+    assertEquals(1099, readMrp(stored.get("mrp")));
+  }
+
+  @Test
+  void refusesValuesThatAreNotAmounts() {
+    assertThrows(IllegalArgumentException.class, () -> MinorUnitsMongoConverter.toMinorUnits("10.99"));
+  }
+}
@@ -0,0 +1,47 @@
+package com.ecomapp.inventory_service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class MinorUnitsTest {
+
+  @Test
+  void doubleAmountsRoundHalfUp() {
+    assertEquals(1099, MinorUnits.of(10.99));
+    // 0.1 + 0.2 is 0.30000000000000004 as a double
+    assertEquals(30, MinorUnits.of(0.1 + 0.2));
+    assertEquals(1, MinorUnits.of(0.005));
+    assertEquals(0, MinorUnits.of((Double) null));
+  }
+
+  @Test
+  void decimalAmountsRoundHalfUp() {
+    assertEquals(1099, MinorUnits.of(new BigDecimal("10.99")));
+    assertEquals(1100, MinorUnits.of(new BigDecimal("10.995")));
+    assertEquals(1099, MinorUnits.of(new BigDecimal("10.9949")));
+    assertEquals(-1100, MinorUnits.of(new BigDecimal("-10.995")));
+  }
+
+  @Test
+  void decimalAmountTooLargeForALongIsRefused() {
+    assertThrows(ArithmeticException.class, () -> MinorUnits.of(new BigDecimal("1e20")));
+  }
+
+  @Test
+  void amountOfMinorUnitsPrintsWithTwoDecimals() {
+    assertEquals(10.99, MinorUnits.toAmount(1099));
+    assertEquals("0.07", Double.toString(MinorUnits.toAmount(7)));
+  }
+
+  @Test
+  void lineDiscountRoundsHalfUp() {
+    // 12.5% of 2.00 is 0.25, of 0.99 is 0.12375
+    assertEquals(25, MinorUnits.lineDiscount(200, 12.5));
+    assertEquals(12, MinorUnits.lineDiscount(99, 12.5));
+    assertEquals(1, MinorUnits.lineDiscount(10, 5));
+  }
+}
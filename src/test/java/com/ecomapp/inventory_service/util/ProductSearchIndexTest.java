@@ -0,0 +1,121 @@
+package com.ecomapp.inventory_service.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.ecomapp.inventory_service.constant.UnitEnum;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Entry;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Filter;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Hit;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.PriceBucket;
+import com.ecomapp.inventory_service.util.ProductSearchIndex.Result;
+
+class ProductSearchIndexTest {
+  private ProductSearchIndex index;
+
+  @BeforeEach
+  void setUp() {
+    index = new ProductSearchIndex(10, new long[] {10_000, 50_000});
+    index.put(new Entry("milk", "Toned Milk", "Fresh toned milk", "dairy", "Dairy", UnitEnum.LITRE, 6_000));
+    index.put(new Entry("butter", "Salted Butter", "Made from fresh milk", "dairy", "Dairy", UnitEnum.GM, 25_000));
+    index.put(new Entry("shake", "Chocolate Milkshake", "Cold milk with cocoa", "drinks", "Beverages", UnitEnum.ML, 9_000));
+    index.put(new Entry("cookies", "Milk Cookies", "Baked with milk and butter", "snacks", "Snacks", UnitEnum.PIECE, 60_000));
+  }
+
+  private static List<String> ids(List<Hit> hits) {
+    return hits.stream().map(Hit::id).toList();
+  }
+
+  private Result search(String query, boolean prefix, Filter filter) {
+    return index.search(query, prefix, filter, 0, 10);
+  }
+
+  @Test
+  void nameMatchOutranksDescriptionMatch() {
+    List<String> ranked = ids(search("milk", false, Filter.NONE).hits());
+
+    // "milkshake" is a word of its own, so the shake only has milk in its description, like the butter
+    assertEquals(List.of("milk", "cookies"), ranked.subList(0, 2));
+    assertEquals(Set.of("butter", "shake"), Set.copyOf(ranked.subList(2, 4)));
+  }
+
+  @Test
+  void rareWordOutweighsCommonOne() {
+    // "cocoa" is in one product, "milk" in all of them
+    List<Hit> hits = search("milk cocoa", false, Filter.NONE).hits();
+
+    assertEquals(List.of("shake"), ids(hits));
+    assertTrue(hits.get(0).score() > search("milk", false, Filter.NONE).hits().get(0).score());
+  }
+
+  @Test
+  void everyWordHasToMatch() {
+    assertEquals(List.of("butter", "cookies"), ids(search("milk butter", false, Filter.NONE).hits()));
+    assertEquals(0, search("milk bread", false, Filter.NONE).total());
+  }
+
+  @Test
+  void lastWordMatchesAsPrefixAndRanksBelowFullWord() {
+    assertEquals(List.of("shake"), ids(search("cold mi", true, Filter.NONE).hits()));
+    assertEquals(4, search("mil", true, Filter.NONE).total());
+    assertEquals(0, search("mil", false, Filter.NONE).total());
+
+    Hit typed = search("toned", true, Filter.NONE).hits().get(0);
+    Hit started = search("tone", true, Filter.NONE).hits().get(0);
+    assertEquals("milk", started.id());
+    assertTrue(started.score() < typed.score());
+  }
+
+  @Test
+  void facetCountsLeaveOutTheirOwnFilter() {
+    Result result = search("milk", false, new Filter("dairy", null, null, null));
+
+    assertEquals(2, result.total());
+    assertEquals(Map.of("dairy", 2, "drinks", 1, "snacks", 1), result.facets().categoryId());
+    assertEquals(Map.of(UnitEnum.LITRE, 1, UnitEnum.GM, 1), result.facets().unit());
+  }
+
+  @Test
+  void priceBucketsIncludeTheirLowerBound() {
+    index.put(new Entry("cream", "Fresh Cream", "Milk cream", "dairy", "Dairy", UnitEnum.ML, 10_000));
+
+    List<PriceBucket> price = search("milk", false, Filter.NONE).facets().price();
+
+    assertEquals(List.of(
+        new PriceBucket(null, 10_000L, 2),
+        new PriceBucket(10_000L, 50_000L, 2),
+        new PriceBucket(50_000L, null, 1)), price);
+  }
+
+  @Test
+  void priceFilterNarrowsHitsButNotThePriceFacet() {
+    Result result = search("milk", false, new Filter(null, null, 10_000L, 49_999L));
+
+    assertEquals(List.of("butter"), ids(result.hits()));
+    assertEquals(List.of(2, 1, 1), result.facets().price().stream().map(PriceBucket::count).toList());
+  }
+
+  @Test
+  void pagesFollowTheRanking() {
+    List<String> all = ids(search("milk", false, Filter.NONE).hits());
+
+    assertEquals(all.subList(1, 3), ids(index.search("milk", false, Filter.NONE, 1, 2).hits()));
+  }
+
+  @Test
+  void removedAndReplacedProductsAreSearchedAsTheyAreNow() {
+    index.remove("cookies");
+    index.put(new Entry("butter", "Unsalted Butter", "Churned cream", "dairy", "Dairy", UnitEnum.GM, 25_000));
+
+    assertEquals(List.of("milk", "shake"), ids(search("milk", false, Filter.NONE).hits()));
+    assertEquals(List.of("butter"), ids(search("unsalted", false, Filter.NONE).hits()));
+    assertEquals(0, search("salted", false, Filter.NONE).total());
+  }
+}